@@ -0,0 +1,294 @@
+package com.example.barterchest.core.index;
+
+import com.example.barterchest.core.item.ItemIds;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Inverted index from item to shop offers.
+ * 
+ * For every item and currency the index keeps two sorted sets: offers selling it with
+ * stock (cheapest first) and offers buying it (best payout first), so the top N per
+ * currency come back in O(log n + N). Prices in different currencies are never
+ * compared; results are grouped by currency. Replacing a shop's offers only moves the
+ * ones that changed.
+ * 
+ * Updates are serialized; queries may run concurrently with them from any thread.
+ */
+public final class OfferIndex {
+    
+    /** Item key -> offers */
+    private final Map<String, ItemOffers> byItem = new ConcurrentHashMap<>();
+    
+    /** Shop -> its current offers, to diff against on update */
+    private final Map<ShopKey, List<ShopOffer>> byShop = new ConcurrentHashMap<>();
+    
+    private record ShopKey(String worldName, long position) {
+    }
+    
+    /**
+     * Offers for one item, by currency key.
+     */
+    private static final class ItemOffers {
+        final String itemId;
+        final NavigableMap<String, CurrencyOffers> byCurrency = new ConcurrentSkipListMap<>();
+        
+        ItemOffers(String itemId) {
+            this.itemId = itemId;
+        }
+    }
+    
+    /**
+     * Offers for one item in one currency.
+     */
+    private static final class CurrencyOffers {
+        final String currencyItemId;
+        final NavigableSet<ShopOffer> sellers = new ConcurrentSkipListSet<>(ShopOffer.BY_BUY_PRICE);
+        final NavigableSet<ShopOffer> buyers = new ConcurrentSkipListSet<>(ShopOffer.BY_SELL_PRICE);
+        
+        CurrencyOffers(String currencyItemId) {
+            this.currencyItemId = currencyItemId;
+        }
+    }
+    
+    /**
+     * The best offers for an item in one currency, best first.
+     */
+    public static final class CurrencyGroup {
+        
+        private final String currencyItemId;
+        private final List<ShopOffer> offers;
+        
+        CurrencyGroup(@Nullable String currencyItemId, @Nonnull List<ShopOffer> offers) {
+            this.currencyItemId = currencyItemId;
+            this.offers = Collections.unmodifiableList(offers);
+        }
+        
+        /** The currency all offers of the group are priced in, or null for unpriced offers */
+        @Nullable
+        public String getCurrencyItemId() {
+            return currencyItemId;
+        }
+        
+        @Nonnull
+        public List<ShopOffer> getOffers() {
+            return offers;
+        }
+    }
+    
+    /**
+     * Check if a shop has offers in the index.
+     * 
+     * @param position the shop's packed block position
+     */
+    public boolean contains(@Nonnull String worldName, long position) {
+        return byShop.containsKey(new ShopKey(worldName, position));
+    }
+    
+    /**
+     * Replace all offers of a shop. An empty list removes the shop.
+     * 
+     * @param position the shop's packed block position
+     */
+    public synchronized void update(@Nonnull String worldName, long position, @Nonnull List<ShopOffer> offers) {
+        ShopKey key = new ShopKey(worldName, position);
+        List<ShopOffer> previous = byShop.get(key);
+        if (offers.equals(previous) || (offers.isEmpty() && previous == null)) {
+            return; // Nothing a search would see changed
+        }
+        
+        // New offers go in before the ones they replace come out, so a concurrent
+        // query sees the shop's old or new offer but never neither
+        for (ShopOffer offer : offers) {
+            if (previous == null || !previous.contains(offer)) {
+                index(offer);
+            }
+        }
+        if (offers.isEmpty()) {
+            byShop.remove(key);
+        } else {
+            byShop.put(key, offers);
+        }
+        if (previous != null) {
+            for (ShopOffer offer : previous) {
+                if (!offers.contains(offer)) {
+                    unindex(offer);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Drop all offers of a shop.
+     * 
+     * @param position the shop's packed block position
+     */
+    public synchronized void remove(@Nonnull String worldName, long position) {
+        List<ShopOffer> previous = byShop.remove(new ShopKey(worldName, position));
+        if (previous != null) {
+            for (ShopOffer offer : previous) {
+                unindex(offer);
+            }
+        }
+    }
+    
+    private void index(@Nonnull ShopOffer offer) {
+        ItemOffers itemOffers = byItem.computeIfAbsent(key(offer.getItemId()), k -> new ItemOffers(offer.getItemId()));
+        CurrencyOffers currencyOffers = itemOffers.byCurrency.computeIfAbsent(currencyKey(offer),
+            k -> new CurrencyOffers(offer.getCurrencyItemId()));
+        if (offer.isSelling()) {
+            currencyOffers.sellers.add(offer);
+        }
+        if (offer.isBuying()) {
+            currencyOffers.buyers.add(offer);
+        }
+    }
+    
+    private void unindex(@Nonnull ShopOffer offer) {
+        String key = key(offer.getItemId());
+        ItemOffers itemOffers = byItem.get(key);
+        if (itemOffers == null) {
+            return;
+        }
+        String currencyKey = currencyKey(offer);
+        CurrencyOffers currencyOffers = itemOffers.byCurrency.get(currencyKey);
+        if (currencyOffers == null) {
+            return;
+        }
+        currencyOffers.sellers.remove(offer);
+        currencyOffers.buyers.remove(offer);
+        if (currencyOffers.sellers.isEmpty() && currencyOffers.buyers.isEmpty()) {
+            itemOffers.byCurrency.remove(currencyKey);
+            if (itemOffers.byCurrency.isEmpty()) {
+                byItem.remove(key);
+            }
+        }
+    }
+    
+    /**
+     * Get the cheapest in-stock offers for an item, per currency. Groups are ordered by
+     * currency key; currencies without sellers are left out.
+     */
+    @Nonnull
+    public List<CurrencyGroup> findSellers(@Nonnull String itemKey, int limitPerCurrency) {
+        return find(itemKey, limitPerCurrency, false);
+    }
+    
+    /**
+     * Get the offers paying the most for an item, per currency. Groups are ordered by
+     * currency key; currencies without buyers are left out.
+     */
+    @Nonnull
+    public List<CurrencyGroup> findBuyers(@Nonnull String itemKey, int limitPerCurrency) {
+        return find(itemKey, limitPerCurrency, true);
+    }
+    
+    @Nonnull
+    private List<CurrencyGroup> find(@Nonnull String itemKey, int limitPerCurrency, boolean buyers) {
+        ItemOffers offers = byItem.get(itemKey);
+        if (offers == null) {
+            return Collections.emptyList();
+        }
+        
+        List<CurrencyGroup> groups = new ArrayList<>(offers.byCurrency.size());
+        for (CurrencyOffers currencyOffers : offers.byCurrency.values()) {
+            List<ShopOffer> best = first(buyers ? currencyOffers.buyers : currencyOffers.sellers, limitPerCurrency);
+            if (!best.isEmpty()) {
+                groups.add(new CurrencyGroup(currencyOffers.currencyItemId, best));
+            }
+        }
+        return groups;
+    }
+    
+    /**
+     * Take up to a number of offers from groups, keeping each currency's offers together and
+     * in order. Offers are dealt out to the currencies in turn, so one busy currency can't
+     * crowd out the others.
+     */
+    @Nonnull
+    public static List<ShopOffer> pick(@Nonnull List<CurrencyGroup> groups, int limit) {
+        int[] taken = new int[groups.size()];
+        int total = 0;
+        boolean added = true;
+        while (total < limit && added) {
+            added = false;
+            for (int i = 0; i < taken.length && total < limit; i++) {
+                if (taken[i] < groups.get(i).getOffers().size()) {
+                    taken[i]++;
+                    total++;
+                    added = true;
+                }
+            }
+        }
+        
+        List<ShopOffer> picked = new ArrayList<>(total);
+        for (int i = 0; i < taken.length; i++) {
+            picked.addAll(groups.get(i).getOffers().subList(0, taken[i]));
+        }
+        return picked;
+    }
+    
+    @Nonnull
+    private static List<ShopOffer> first(@Nonnull NavigableSet<ShopOffer> offers, int limit) {
+        List<ShopOffer> result = new ArrayList<>(Math.min(limit, 16));
+        Iterator<ShopOffer> iterator = offers.iterator();
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+    
+    /**
+     * Check if any shop trades an item.
+     */
+    public boolean hasItem(@Nonnull String itemKey) {
+        return byItem.containsKey(itemKey);
+    }
+    
+    /**
+     * Keys of all traded items.
+     */
+    @Nonnull
+    public Set<String> getItemKeys() {
+        return Collections.unmodifiableSet(byItem.keySet());
+    }
+    
+    /**
+     * Get an item ID for an item key, for display.
+     */
+    @Nullable
+    public String getItemId(@Nonnull String itemKey) {
+        ItemOffers offers = byItem.get(itemKey);
+        return offers != null ? offers.itemId : null;
+    }
+    
+    /**
+     * Currency key of an offer, "" for offers without a currency.
+     */
+    @Nonnull
+    private static String currencyKey(@Nonnull ShopOffer offer) {
+        String currencyItemId = offer.getCurrencyItemId();
+        return currencyItemId != null ? key(currencyItemId) : "";
+    }
+    
+    /**
+     * Index key for an item ID: without namespace, lower case.
+     */
+    @Nonnull
+    public static String key(@Nonnull String itemId) {
+        return ItemIds.canonicalize(itemId).toLowerCase(Locale.ROOT);
+    }
+}
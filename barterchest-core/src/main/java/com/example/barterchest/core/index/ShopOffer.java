@@ -0,0 +1,147 @@
+package com.example.barterchest.core.index;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * One listing of one shop as seen by the search index. Immutable.
+ */
+public final class ShopOffer {
+    
+    /**
+     * Tie-breaker so offers with equal prices are still distinct in sorted sets. Orders by
+     * location, then by the remaining fields so it is consistent with equals: an updated
+     * offer can sit next to the one it replaces until that is removed.
+     */
+    private static final Comparator<ShopOffer> BY_LOCATION = Comparator
+        .comparing((ShopOffer o) -> o.worldName)
+        .thenComparingInt(o -> o.x)
+        .thenComparingInt(o -> o.y)
+        .thenComparingInt(o -> o.z)
+        .thenComparingInt(o -> o.slot)
+        .thenComparingInt(o -> o.stock)
+        .thenComparing(o -> o.itemId)
+        .thenComparing(o -> o.currencyItemId, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(o -> o.ownerName);
+    
+    /** Cheapest for customers to buy first; only meaningful among offers in one currency */
+    static final Comparator<ShopOffer> BY_BUY_PRICE = Comparator
+        .comparingInt((ShopOffer o) -> o.buyPrice)
+        .thenComparing(BY_LOCATION);
+    
+    /** Highest payout for customers selling first; only meaningful among offers in one currency */
+    static final Comparator<ShopOffer> BY_SELL_PRICE = Comparator
+        .comparingInt((ShopOffer o) -> -o.sellPrice)
+        .thenComparing(BY_LOCATION);
+    
+    private final String worldName;
+    private final int x;
+    private final int y;
+    private final int z;
+    private final int slot;
+    private final String itemId;
+    private final String currencyItemId;
+    private final int buyPrice;
+    private final int sellPrice;
+    private final int stock;
+    private final String ownerName;
+    
+    public ShopOffer(@Nonnull String worldName, int x, int y, int z, int slot, @Nonnull String itemId,
+              @Nullable String currencyItemId, int buyPrice, int sellPrice, int stock, @Nonnull String ownerName) {
+        this.worldName = worldName;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.slot = slot;
+        this.itemId = itemId;
+        this.currencyItemId = currencyItemId;
+        this.buyPrice = buyPrice;
+        this.sellPrice = sellPrice;
+        this.stock = stock;
+        this.ownerName = ownerName;
+    }
+    
+    @Nonnull
+    public String getWorldName() {
+        return worldName;
+    }
+    
+    public int getX() {
+        return x;
+    }
+    
+    public int getY() {
+        return y;
+    }
+    
+    public int getZ() {
+        return z;
+    }
+    
+    public int getSlot() {
+        return slot;
+    }
+    
+    @Nonnull
+    public String getItemId() {
+        return itemId;
+    }
+    
+    @Nullable
+    public String getCurrencyItemId() {
+        return currencyItemId;
+    }
+    
+    /** Price customers pay per item, 0 if the shop doesn't sell */
+    public int getBuyPrice() {
+        return buyPrice;
+    }
+    
+    /** Price the shop pays per item, 0 if the shop doesn't buy */
+    public int getSellPrice() {
+        return sellPrice;
+    }
+    
+    /** Stock when the shop was last indexed */
+    public int getStock() {
+        return stock;
+    }
+    
+    @Nonnull
+    public String getOwnerName() {
+        return ownerName;
+    }
+    
+    /** "world (x, y, z)", for listing results */
+    @Nonnull
+    public String getLocationText() {
+        return worldName + " (" + x + ", " + y + ", " + z + ")";
+    }
+    
+    /** True if customers can buy here right now */
+    boolean isSelling() {
+        return buyPrice > 0 && stock > 0;
+    }
+    
+    /** True if customers can sell here */
+    boolean isBuying() {
+        return sellPrice > 0;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ShopOffer other)) return false;
+        return x == other.x && y == other.y && z == other.z && slot == other.slot
+            && buyPrice == other.buyPrice && sellPrice == other.sellPrice && stock == other.stock
+            && worldName.equals(other.worldName) && itemId.equals(other.itemId)
+            && Objects.equals(currencyItemId, other.currencyItemId) && ownerName.equals(other.ownerName);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(worldName, x, y, z, slot, itemId, currencyItemId, buyPrice, sellPrice, stock, ownerName);
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.barterchest.core.inventory;
+
+import com.example.barterchest.core.item.ItemIds;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Counting, adding, removing and moving items in {@link SlotContainer}s.
+ * Item IDs are compared with {@link ItemIds#matches}.
+ */
+public final class Inventories {
+    
+    /** Stack limit used when adding plain items by ID */
+    public static final int DEFAULT_MAX_STACK = 64;
+    
+    private Inventories() {
+    }
+    
+    /**
+     * Count how many of a specific item are in the container.
+     */
+    public static <S> int countItems(@Nonnull SlotContainer<S> container, @Nonnull ItemModel<S> model, @Nonnull String itemId) {
+        int count = 0;
+        int capacity = container.getCapacity();
+        for (int i = 0; i < capacity; i++) {
+            S stack = container.getStack(i);
+            if (!model.isEmpty(stack) && ItemIds.matches(itemId, model.getItemId(stack))) {
+                count += model.getQuantity(stack);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Get available space for a specific item (considering stacking).
+     * For items with maxStack=1 (tools, armor), each slot can only hold 1.
+     */
+    public static <S> int getAvailableSpace(@Nonnull SlotContainer<S> container, @Nonnull ItemModel<S> model, @Nonnull String itemId) {
+        int space = 0;
+        int maxStackSize = model.getMaxStack(itemId);
+        int capacity = container.getCapacity();
+        
+        for (int i = 0; i < capacity; i++) {
+            S stack = container.getStack(i);
+            if (model.isEmpty(stack)) {
+                // Empty slot can hold up to maxStackSize
+                space += maxStackSize;
+            } else if (maxStackSize > 1 && ItemIds.matches(itemId, model.getItemId(stack))) {
+                // Only count stacking space if maxStack > 1
+                space += Math.max(0, maxStackSize - model.getQuantity(stack));
+            }
+            // For maxStack=1 items, occupied slots contribute nothing
+        }
+        return space;
+    }
+    
+    /**
+     * Move items from one container to another, keeping their stacks' properties.
+     * This properly handles non-stackable items (like tools with durability).
+     * Either all items move or, if the source runs short or the destination fills up,
+     * both containers are restored exactly as they were.
+     * 
+     * @return true if all items were transferred
+     */
+    public static <S> boolean transferItems(@Nonnull SlotContainer<S> source, @Nonnull SlotContainer<S> dest,
+                                            @Nonnull ItemModel<S> model, @Nonnull String itemId, int quantity) {
+        // Nothing is touched if the source runs short
+        if (countItems(source, model, itemId) < quantity) {
+            return false;
+        }
+        
+        Journal<S> journal = new Journal<>();
+        int remaining = quantity;
+        int sourceCapacity = source.getCapacity();
+        
+        for (int i = 0; i < sourceCapacity && remaining > 0; i++) {
+            S stack = source.getStack(i);
+            if (!model.isEmpty(stack) && ItemIds.matches(itemId, model.getItemId(stack))) {
+                int stackQuantity = model.getQuantity(stack);
+                int toTake = Math.min(remaining, stackQuantity);
+                
+                S moving;
+                journal.record(source, i, stack);
+                if (toTake == stackQuantity) {
+                    // Take the whole stack
+                    moving = stack;
+                    source.setStack(i, null);
+                } else {
+                    // Split the stack - create a new one with same properties
+                    moving = model.withQuantity(stack, toTake);
+                    source.setStack(i, model.withQuantity(stack, stackQuantity - toTake));
+                }
+                
+                if (!addStack(dest, model, moving, journal)) {
+                    journal.rollBack();
+                    return false;
+                }
+                remaining -= toTake;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Add a stack to a container, keeping its properties.
+     * Will stack with compatible items (if maxStack > 1) or use empty slots.
+     */
+    public static <S> boolean addStack(@Nonnull SlotContainer<S> container, @Nonnull ItemModel<S> model, @Nonnull S itemStack) {
+        return addStack(container, model, itemStack, null);
+    }
+    
+    private static <S> boolean addStack(@Nonnull SlotContainer<S> container, @Nonnull ItemModel<S> model,
+                                        @Nonnull S itemStack, @Nullable Journal<S> journal) {
+        if (model.isEmpty(itemStack)) {
+            return true;
+        }
+        
+        int remaining = model.getQuantity(itemStack);
+        int maxStackSize = model.getMaxStack(model.getItemId(itemStack));
+        int capacity = container.getCapacity();
+        
+        // Only try to stack if maxStackSize > 1 (armor, tools, etc. with maxStack=1 should never stack)
+        if (maxStackSize > 1) {
+            for (int i = 0; i < capacity && remaining > 0; i++) {
+                S existing = container.getStack(i);
+                if (!model.isEmpty(existing) && model.isStackable(existing, itemStack)) {
+                    int existingQuantity = model.getQuantity(existing);
+                    int canAdd = maxStackSize - existingQuantity;
+                    if (canAdd > 0) {
+                        int toAdd = Math.min(remaining, canAdd);
+                        if (journal != null) {
+                            journal.record(container, i, existing);
+                        }
+                        container.setStack(i, model.withQuantity(existing, existingQuantity + toAdd));
+                        remaining -= toAdd;
+                    }
+                }
+            }
+        }
+        
+        // Use empty slots for remaining items
+        for (int i = 0; i < capacity && remaining > 0; i++) {
+            S existing = container.getStack(i);
+            if (model.isEmpty(existing)) {
+                int toAdd = Math.min(remaining, maxStackSize);
+                if (journal != null) {
+                    journal.record(container, i, existing);
+                }
+                // New stack keeps durability/metadata from the original
+                container.setStack(i, model.withQuantity(itemStack, toAdd));
+                remaining -= toAdd;
+            }
+        }
+        
+        return remaining == 0;
+    }
+    
+    /**
+     * Remove items from a container.
+     */
+    public static <S> boolean removeItems(@Nonnull SlotContainer<S> container, @Nonnull ItemModel<S> model,
+                                          @Nonnull String itemId, int quantity) {
+        int remaining = quantity;
+        int capacity = container.getCapacity();
+        
+        for (int i = 0; i < capacity && remaining > 0; i++) {
+            S stack = container.getStack(i);
+            if (!model.isEmpty(stack) && ItemIds.matches(itemId, model.getItemId(stack))) {
+                int stackQuantity = model.getQuantity(stack);
+                int toRemove = Math.min(remaining, stackQuantity);
+                int newQuantity = stackQuantity - toRemove;
+                
+                container.setStack(i, newQuantity > 0 ? model.withQuantity(stack, newQuantity) : null);
+                remaining -= toRemove;
+            }
+        }
+        
+        return remaining == 0;
+    }
+    
+    /**
+     * Remove items from a specific slot.
+     */
+    public static <S> boolean removeItemsFromSlot(@Nonnull SlotContainer<S> container, @Nonnull ItemModel<S> model,
+                                                  int slot, int quantity) {
+        S stack = container.getStack(slot);
+        if (model.isEmpty(stack)) {
+            return false;
+        }
+        
+        int stackQuantity = model.getQuantity(stack);
+        if (stackQuantity < quantity) {
+            return false;
+        }
+        
+        int newQuantity = stackQuantity - quantity;
+        container.setStack(slot, newQuantity > 0 ? model.create(model.getItemId(stack), newQuantity) : null);
+        return true;
+    }
+    
+    /**
+     * Add plain items to a container (anywhere there's space), up to {@link #DEFAULT_MAX_STACK} per slot.
+     */
+    public static <S> boolean addItems(@Nonnull SlotContainer<S> container, @Nonnull ItemModel<S> model,
+                                       @Nonnull String itemId, int quantity) {
+        int remaining = quantity;
+        int capacity = container.getCapacity();
+        
+        // First, try to stack with existing items
+        for (int i = 0; i < capacity && remaining > 0; i++) {
+            S stack = container.getStack(i);
+            if (!model.isEmpty(stack) && ItemIds.matches(itemId, model.getItemId(stack))) {
+                int stackQuantity = model.getQuantity(stack);
+                int canAdd = DEFAULT_MAX_STACK - stackQuantity;
+                if (canAdd > 0) {
+                    int toAdd = Math.min(remaining, canAdd);
+                    container.setStack(i, model.withQuantity(stack, stackQuantity + toAdd));
+                    remaining -= toAdd;
+                }
+            }
+        }
+        
+        // Then, use empty slots
+        for (int i = 0; i < capacity && remaining > 0; i++) {
+            if (model.isEmpty(container.getStack(i))) {
+                int toAdd = Math.min(remaining, DEFAULT_MAX_STACK);
+                container.setStack(i, model.create(itemId, toAdd));
+                remaining -= toAdd;
+            }
+        }
+        
+        return remaining == 0;
+    }
+    
+    /**
+     * Add plain items to a specific slot (or stack if compatible), up to {@link #DEFAULT_MAX_STACK}.
+     */
+    public static <S> boolean addItemsToSlot(@Nonnull SlotContainer<S> container, @Nonnull ItemModel<S> model,
+                                             int slot, @Nonnull String itemId, int quantity) {
+        S existing = container.getStack(slot);
+        
+        if (model.isEmpty(existing)) {
+            // Empty slot, add new stack
+            if (quantity <= DEFAULT_MAX_STACK) {
+                container.setStack(slot, model.create(itemId, quantity));
+                return true;
+            }
+            return false;
+        }
+        
+        if (ItemIds.matches(itemId, model.getItemId(existing))) {
+            // Same item, try to stack
+            int newQuantity = model.getQuantity(existing) + quantity;
+            if (newQuantity <= DEFAULT_MAX_STACK) {
+                container.setStack(slot, model.withQuantity(existing, newQuantity));
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * The slots a {@link #transferItems} call changed and what they held before, so a
+     * transfer that fails halfway can put back just those slots.
+     */
+    private static final class Journal<S> {
+        // A trade usually touches a slot or two on each side
+        private Object[] containers = new Object[4];
+        private int[] slots = new int[4];
+        private Object[] stacks = new Object[4];
+        private int size;
+        
+        void record(@Nonnull SlotContainer<S> container, int slot, @Nullable S previous) {
+            if (size == slots.length) {
+                containers = Arrays.copyOf(containers, size * 2);
+                slots = Arrays.copyOf(slots, size * 2);
+                stacks = Arrays.copyOf(stacks, size * 2);
+            }
+            containers[size] = container;
+            slots[size] = slot;
+            stacks[size] = previous;
+            size++;
+        }
+        
+        /**
+         * Restore the recorded slots, latest change first, so a slot changed twice ends up
+         * with what it held before the first change.
+         */
+        @SuppressWarnings("unchecked")
+        void rollBack() {
+            for (int i = size - 1; i >= 0; i--) {
+                ((SlotContainer<S>) containers[i]).setStack(slots[i], (S) stacks[i]);
+            }
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.barterchest.core.inventory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * What the core needs to know about stacks and items: identity, quantity and stacking rules.
+ * 
+ * @param <S> the stack type
+ */
+public interface ItemModel<S> {
+    
+    /**
+     * True for null and for stacks that hold nothing.
+     */
+    boolean isEmpty(@Nullable S stack);
+    
+    @Nonnull
+    String getItemId(@Nonnull S stack);
+    
+    int getQuantity(@Nonnull S stack);
+    
+    /**
+     * Copy a stack with another quantity, keeping everything else (durability, metadata).
+     */
+    @Nonnull
+    S withQuantity(@Nonnull S stack, int quantity);
+    
+    /**
+     * Create a plain stack of an item.
+     */
+    @Nonnull
+    S create(@Nonnull String itemId, int quantity);
+    
+    /**
+     * True if two stacks may be merged into one.
+     */
+    boolean isStackable(@Nonnull S stack, @Nonnull S other);
+    
+    /**
+     * How many of an item fit in one slot.
+     */
+    int getMaxStack(@Nonnull String itemId);
+}
@@ -0,0 +1,27 @@
+package com.example.barterchest.core.inventory;
+
+import javax.annotation.Nullable;
+
+/**
+ * A fixed number of slots, each holding one stack or nothing.
+ * 
+ * The core never looks inside a stack; it asks an {@link ItemModel} instead, so the
+ * server's item stacks (with durability and other metadata) pass through untouched.
+ * 
+ * @param <S> the stack type
+ */
+public interface SlotContainer<S> {
+    
+    int getCapacity();
+    
+    /**
+     * Get the stack in a slot, or null if the slot is empty.
+     */
+    @Nullable
+    S getStack(int slot);
+    
+    /**
+     * Replace the stack in a slot; null empties the slot.
+     */
+    void setStack(int slot, @Nullable S stack);
+}
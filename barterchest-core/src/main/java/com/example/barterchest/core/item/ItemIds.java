@@ -0,0 +1,41 @@
+package com.example.barterchest.core.item;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Item ID comparison rules shared by trading, naming and search.
+ */
+public final class ItemIds {
+    
+    private ItemIds() {
+    }
+    
+    /**
+     * Check if two item IDs refer to the same item (case-insensitive, with or without namespace).
+     */
+    public static boolean matches(@Nullable String id1, @Nullable String id2) {
+        if (id1 == null || id2 == null) {
+            return false;
+        }
+        // Direct match first
+        if (id1.equals(id2)) {
+            return true;
+        }
+        // Case-insensitive match
+        if (id1.equalsIgnoreCase(id2)) {
+            return true;
+        }
+        // Try matching without namespaces
+        return canonicalize(id1).equalsIgnoreCase(canonicalize(id2));
+    }
+    
+    /**
+     * Strip the namespace from an item ID (e.g. "hytale:iron_bar" -> "iron_bar").
+     */
+    @Nonnull
+    public static String canonicalize(@Nonnull String itemId) {
+        int colonIndex = itemId.lastIndexOf(':');
+        return colonIndex >= 0 ? itemId.substring(colonIndex + 1) : itemId;
+    }
+}
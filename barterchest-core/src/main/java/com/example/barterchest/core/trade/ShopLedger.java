@@ -0,0 +1,17 @@
+package com.example.barterchest.core.trade;
+
+/**
+ * The shop side of a trade's bookkeeping.
+ */
+public interface ShopLedger {
+    
+    /**
+     * Record currency the shop earned from a sale.
+     */
+    void addEarnings(long amount);
+    
+    /**
+     * Record that the shop's contents changed and need saving.
+     */
+    void markDirty();
+}
@@ -0,0 +1,196 @@
+package com.example.barterchest.core.trade;
+
+import com.example.barterchest.core.inventory.Inventories;
+import com.example.barterchest.core.inventory.ItemModel;
+import com.example.barterchest.core.inventory.SlotContainer;
+
+import javax.annotation.Nonnull;
+import java.util.function.Function;
+
+/**
+ * Plans and executes barter trades between a shop inventory and a customer inventory.
+ * 
+ * Buy: Customer gives currency items, receives shop items
+ * Sell: Customer gives items, receives currency items from shop
+ * 
+ * Every check runs before anything moves, so a rejected trade leaves both sides untouched.
+ * The checks count stacking space by item ID, so a move can still fail when stacks of
+ * that item don't merge (e.g. different durability); such a trade is rolled back.
+ */
+public final class TradeEngine {
+    
+    private TradeEngine() {
+    }
+    
+    /**
+     * Buy items from a shop.
+     * 
+     * @param itemNames display names for messages
+     */
+    @Nonnull
+    public static <S> TransactionResult buy(@Nonnull TradeTerms terms, @Nonnull ShopLedger ledger,
+                                            @Nonnull SlotContainer<S> shopInventory, @Nonnull SlotContainer<S> customerInventory,
+                                            @Nonnull ItemModel<S> model, @Nonnull Function<String, String> itemNames, int quantity) {
+        // Validate listing
+        if (!terms.canBuyFrom()) {
+            return TransactionResult.failure(TransactionResult.Status.SHOP_DOESNT_SELL,
+                "This item is not for sale.");
+        }
+        
+        if (quantity <= 0) {
+            return TransactionResult.failure(TransactionResult.Status.INVALID_QUANTITY,
+                "Invalid quantity.");
+        }
+        
+        // Get the CONFIGURED item ID - this is the ONLY item this listing trades
+        String itemId = terms.getItemId();
+        if (itemId == null || itemId.isEmpty()) {
+            return TransactionResult.failure(TransactionResult.Status.SHOP_NOT_CONFIGURED,
+                "This listing hasn't been configured with an item.");
+        }
+        
+        String currencyItemId = terms.getCurrencyItemId();
+        int totalCost = terms.getBuyPrice() * quantity;
+        
+        // Count available stock of the CONFIGURED item across the ENTIRE chest
+        int availableStock = Inventories.countItems(shopInventory, model, itemId);
+        
+        if (availableStock <= 0) {
+            return TransactionResult.failure(TransactionResult.Status.INSUFFICIENT_STOCK,
+                "This item is out of stock.");
+        }
+        
+        if (availableStock < quantity) {
+            return TransactionResult.failure(TransactionResult.Status.INSUFFICIENT_STOCK,
+                "Not enough stock. Available: " + availableStock);
+        }
+        
+        // Check if customer has enough currency
+        int customerCurrency = Inventories.countItems(customerInventory, model, currencyItemId);
+        if (customerCurrency < totalCost) {
+            return TransactionResult.failure(TransactionResult.Status.INSUFFICIENT_FUNDS,
+                "You need " + totalCost + " " + itemNames.apply(currencyItemId) + " but only have " + customerCurrency + ".");
+        }
+        
+        // Check if customer has space for the items
+        int customerSpace = Inventories.getAvailableSpace(customerInventory, model, itemId);
+        if (customerSpace < quantity) {
+            return TransactionResult.failure(TransactionResult.Status.INVENTORY_FULL,
+                "Not enough inventory space. You can only fit " + customerSpace + " more.");
+        }
+        
+        // Check if shop has space for currency
+        int shopCurrencySpace = Inventories.getAvailableSpace(shopInventory, model, currencyItemId);
+        if (shopCurrencySpace < totalCost) {
+            return TransactionResult.failure(TransactionResult.Status.INSUFFICIENT_SPACE,
+                "Shop doesn't have space for the payment.");
+        }
+        
+        // Execute the transaction
+        // 1. Remove currency from customer
+        if (!Inventories.removeItems(customerInventory, model, currencyItemId, totalCost)) {
+            return TransactionResult.failure(TransactionResult.Status.TRANSACTION_ERROR,
+                "Failed to process payment.");
+        }
+        
+        // 2. Transfer items from shop to customer (preserves durability/metadata, moves nothing on failure)
+        if (!Inventories.transferItems(shopInventory, customerInventory, model, itemId, quantity)) {
+            // Rollback: give currency back
+            Inventories.addItems(customerInventory, model, currencyItemId, totalCost);
+            return TransactionResult.failure(TransactionResult.Status.TRANSACTION_ERROR,
+                "Failed to retrieve items from shop.");
+        }
+        
+        // 3. Add currency to shop; can't fail since space was checked
+        Inventories.addItems(shopInventory, model, currencyItemId, totalCost);
+        
+        // Record earnings
+        ledger.addEarnings(totalCost);
+        ledger.markDirty();
+        
+        return TransactionResult.success(quantity,
+            "Bought " + quantity + "x " + itemNames.apply(itemId) + " for " + totalCost + "x " + itemNames.apply(currencyItemId));
+    }
+    
+    /**
+     * Sell items to a shop.
+     * 
+     * @param itemNames display names for messages
+     */
+    @Nonnull
+    public static <S> TransactionResult sell(@Nonnull TradeTerms terms, @Nonnull ShopLedger ledger,
+                                             @Nonnull SlotContainer<S> shopInventory, @Nonnull SlotContainer<S> customerInventory,
+                                             @Nonnull ItemModel<S> model, @Nonnull Function<String, String> itemNames, int quantity) {
+        // Validate listing
+        if (!terms.canSellTo()) {
+            return TransactionResult.failure(TransactionResult.Status.SHOP_DOESNT_BUY,
+                "This shop doesn't buy this item.");
+        }
+        
+        if (quantity <= 0) {
+            return TransactionResult.failure(TransactionResult.Status.INVALID_QUANTITY,
+                "Invalid quantity.");
+        }
+        
+        // Get the CONFIGURED item ID - this is the ONLY item this listing trades
+        String itemId = terms.getItemId();
+        if (itemId == null || itemId.isEmpty()) {
+            return TransactionResult.failure(TransactionResult.Status.SHOP_NOT_CONFIGURED,
+                "This listing hasn't been configured with an item.");
+        }
+        
+        String currencyItemId = terms.getCurrencyItemId();
+        int totalPayment = terms.getSellPrice() * quantity;
+        
+        // Check if customer has the configured items to sell
+        int customerItems = Inventories.countItems(customerInventory, model, itemId);
+        if (customerItems < quantity) {
+            return TransactionResult.failure(TransactionResult.Status.INSUFFICIENT_STOCK,
+                "You don't have enough " + itemNames.apply(itemId) + ". You have " + customerItems + ".");
+        }
+        
+        // Check if shop has enough currency to pay
+        int shopCurrency = Inventories.countItems(shopInventory, model, currencyItemId);
+        if (shopCurrency < totalPayment) {
+            return TransactionResult.failure(TransactionResult.Status.INSUFFICIENT_FUNDS,
+                "Shop doesn't have enough " + itemNames.apply(currencyItemId) + " to pay you.");
+        }
+        
+        // Check if shop has space for the items
+        int shopSpace = Inventories.getAvailableSpace(shopInventory, model, itemId);
+        if (shopSpace < quantity) {
+            return TransactionResult.failure(TransactionResult.Status.INSUFFICIENT_SPACE,
+                "Shop doesn't have space for more items.");
+        }
+        
+        // Check if customer has space for currency
+        int customerCurrencySpace = Inventories.getAvailableSpace(customerInventory, model, currencyItemId);
+        if (customerCurrencySpace < totalPayment) {
+            return TransactionResult.failure(TransactionResult.Status.INVENTORY_FULL,
+                "You don't have space for the payment.");
+        }
+        
+        // Execute the transaction
+        // 1. Transfer items from customer to shop (preserves durability/metadata, moves nothing on failure)
+        if (!Inventories.transferItems(customerInventory, shopInventory, model, itemId, quantity)) {
+            return TransactionResult.failure(TransactionResult.Status.TRANSACTION_ERROR,
+                "Failed to take your items.");
+        }
+        
+        // 2. Remove currency from shop
+        if (!Inventories.removeItems(shopInventory, model, currencyItemId, totalPayment)) {
+            // Rollback: give items back
+            Inventories.transferItems(shopInventory, customerInventory, model, itemId, quantity);
+            return TransactionResult.failure(TransactionResult.Status.TRANSACTION_ERROR,
+                "Failed to get payment from shop.");
+        }
+        
+        // 3. Add currency to customer; can't fail since space was checked
+        Inventories.addItems(customerInventory, model, currencyItemId, totalPayment);
+        
+        ledger.markDirty();
+        
+        return TransactionResult.success(quantity,
+            "Sold " + quantity + "x " + itemNames.apply(itemId) + " for " + totalPayment + "x " + itemNames.apply(currencyItemId));
+    }
+}
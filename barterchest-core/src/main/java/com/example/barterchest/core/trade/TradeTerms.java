@@ -0,0 +1,39 @@
+package com.example.barterchest.core.trade;
+
+import javax.annotation.Nullable;
+
+/**
+ * What a listing trades and at which prices.
+ */
+public interface TradeTerms {
+    
+    /** The traded item */
+    @Nullable
+    String getItemId();
+    
+    /** The item used as payment */
+    @Nullable
+    String getCurrencyItemId();
+    
+    /** Price customers pay per item, 0 if the shop doesn't sell */
+    int getBuyPrice();
+    
+    /** Price the shop pays per item, 0 if the shop doesn't buy */
+    int getSellPrice();
+    
+    /**
+     * Returns true if customers can buy this item from the shop.
+     */
+    default boolean canBuyFrom() {
+        String currencyItemId = getCurrencyItemId();
+        return getBuyPrice() > 0 && currencyItemId != null && !currencyItemId.isEmpty();
+    }
+    
+    /**
+     * Returns true if customers can sell this item to the shop.
+     */
+    default boolean canSellTo() {
+        String currencyItemId = getCurrencyItemId();
+        return getSellPrice() > 0 && currencyItemId != null && !currencyItemId.isEmpty();
+    }
+}
@@ -1,4 +1,4 @@
-package com.example.barterchest.transaction;
+package com.example.barterchest.core.trade;
 
 import javax.annotation.Nonnull;
 
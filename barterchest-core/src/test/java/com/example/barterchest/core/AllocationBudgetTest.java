@@ -0,0 +1,159 @@
+package com.example.barterchest.core;
+
+import com.example.barterchest.core.inventory.Inventories;
+import com.example.barterchest.core.inventory.MemoryItemModel;
+import com.example.barterchest.core.inventory.MemorySlotContainer;
+import com.example.barterchest.core.item.ItemIds;
+import com.example.barterchest.core.trade.ShopLedger;
+import com.example.barterchest.core.trade.TradeEngine;
+import com.example.barterchest.core.trade.TradeTerms;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.lang.management.ManagementFactory;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation budgets for the core's hot paths, in bytes per operation.
+ * 
+ * Each operation is warmed up so the JIT has compiled it, then run in a few rounds on one
+ * thread; the lowest round counts, since a round can catch a deoptimization or a lazily
+ * initialized cache. When a change is meant to allocate less, lower the budget with it.
+ * The plugin's server-backed paths are measured by {@code ./gradlew allocationCheck}.
+ */
+class AllocationBudgetTest {
+    
+    /** Bytes per operation a measurement may exceed its budget by, for counter noise */
+    private static final double TOLERANCE = 1.0;
+    
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 20_000;
+    private static final int ROUNDS = 3;
+    
+    private static final String ITEM = "Ingredient_Bar_Iron";
+    private static final String CURRENCY = "Ingredient_Bar_Copper";
+    private static final int MAX_STACK = Inventories.DEFAULT_MAX_STACK;
+    
+    /** Equal prices, so a buy followed by a sell leaves both sides as they were */
+    private static final TradeTerms TERMS = new TradeTerms() {
+        @Override
+        public String getItemId() {
+            return ITEM;
+        }
+        
+        @Override
+        public String getCurrencyItemId() {
+            return CURRENCY;
+        }
+        
+        @Override
+        public int getBuyPrice() {
+            return 2;
+        }
+        
+        @Override
+        public int getSellPrice() {
+            return 2;
+        }
+    };
+    
+    private static final ShopLedger LEDGER = new ShopLedger() {
+        @Override
+        public void addEarnings(long amount) {
+        }
+        
+        @Override
+        public void markDirty() {
+        }
+    };
+    
+    private static final Function<String, String> NAMES = Function.identity();
+    
+    /** Keeps results live so the JIT can't drop the measured work */
+    static volatile Object sink;
+    
+    private final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final MemoryItemModel model = new MemoryItemModel();
+    private MemorySlotContainer chest;
+    private MemorySlotContainer customer;
+    private MemorySlotContainer broke;
+    
+    @BeforeEach
+    void setUp() {
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "This JVM can't measure per-thread allocation");
+        
+        chest = new MemorySlotContainer(27);
+        chest.fill(ITEM, 4 * MAX_STACK, MAX_STACK);
+        chest.fill(CURRENCY, 4 * MAX_STACK, MAX_STACK);
+        customer = new MemorySlotContainer(36);
+        customer.fill(CURRENCY, MAX_STACK, MAX_STACK);
+        broke = new MemorySlotContainer(36);
+    }
+    
+    @Test
+    void itemIdMatching() {
+        String id = "Ingredient_Bar_Iron";
+        String copy = new String(id);
+        String lowerCase = "ingredient_bar_iron";
+        String namespaced = "hytale:Ingredient_Bar_Iron";
+        String other = "Ingredient_Bar_Gold";
+        
+        assertWithinBudget("item-ids.matches.equal", 0, () -> sink = ItemIds.matches(id, copy));
+        assertWithinBudget("item-ids.matches.ignore-case", 0, () -> sink = ItemIds.matches(id, lowerCase));
+        assertWithinBudget("item-ids.matches.namespaced", 64, () -> sink = ItemIds.matches(namespaced, id));
+        assertWithinBudget("item-ids.matches.different", 0, () -> sink = ItemIds.matches(id, other));
+        assertWithinBudget("item-ids.canonicalize.plain", 0, () -> sink = ItemIds.canonicalize(id));
+        assertWithinBudget("item-ids.canonicalize.namespaced", 64, () -> sink = ItemIds.canonicalize(namespaced));
+    }
+    
+    @Test
+    void inventoryScans() {
+        assertWithinBudget("inventory.count-items", 16, () -> sink = Inventories.countItems(chest, model, ITEM));
+        assertWithinBudget("inventory.available-space", 16, () -> sink = Inventories.getAvailableSpace(chest, model, ITEM));
+    }
+    
+    @Test
+    void inventoryTransfers() {
+        assertWithinBudget("inventory.transfer-items.round-trip", 352, () -> {
+            Inventories.transferItems(chest, customer, model, ITEM, 1);
+            sink = Inventories.transferItems(customer, chest, model, ITEM, 1);
+        });
+    }
+    
+    @Test
+    void trades() {
+        assertWithinBudget("trade.buy-sell.round-trip", 696, () -> {
+            TradeEngine.buy(TERMS, LEDGER, chest, customer, model, NAMES, 1);
+            sink = TradeEngine.sell(TERMS, LEDGER, chest, customer, model, NAMES, 1);
+        });
+        assertWithinBudget("trade.buy.insufficient-funds", 120,
+            () -> sink = TradeEngine.buy(TERMS, LEDGER, chest, broke, model, NAMES, 1));
+        assertWithinBudget("trade.sell.insufficient-stock", 120,
+            () -> sink = TradeEngine.sell(TERMS, LEDGER, chest, broke, model, NAMES, 1));
+    }
+    
+    private void assertWithinBudget(@Nonnull String name, long budget, @Nonnull Runnable operation) {
+        for (int i = 0; i < WARMUP; i++) {
+            operation.run();
+        }
+        
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < ITERATIONS; i++) {
+                operation.run();
+            }
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            best = Math.min(best, (double) allocated / ITERATIONS);
+        }
+        
+        double bytes = best;
+        assertTrue(bytes <= budget + TOLERANCE,
+            () -> name + " allocates " + bytes + " bytes per operation, over its budget of " + budget);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.barterchest.core.index;
+
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OfferIndexTest {
+    
+    private static final String WORLD = "default";
+    private static final String ITEM = "Ingredient_Bar_Iron";
+    private static final String OTHER = "Ingredient_Bar_Gold";
+    private static final String COPPER = "Ingredient_Bar_Copper";
+    private static final String SILVER = "Ingredient_Bar_Silver";
+    private static final String ITEM_KEY = OfferIndex.key(ITEM);
+    
+    private final OfferIndex index = new OfferIndex();
+    
+    @Test
+    void updateLeavesUnchangedOffersInPlace() {
+        ShopOffer iron = offer(0, 0, ITEM, COPPER, 5, 0, 10);
+        ShopOffer gold = offer(0, 1, OTHER, COPPER, 9, 0, 10);
+        index.update(WORLD, 0, List.of(iron, gold));
+        
+        // An equal copy of the iron offer, and a new gold price
+        ShopOffer ironCopy = offer(0, 0, ITEM, COPPER, 5, 0, 10);
+        ShopOffer cheaperGold = offer(0, 1, OTHER, COPPER, 7, 0, 10);
+        index.update(WORLD, 0, List.of(ironCopy, cheaperGold));
+        
+        // The iron offer was never taken out and put back
+        assertSame(iron, index.findSellers(ITEM_KEY, 10).get(0).getOffers().get(0));
+        assertEquals(List.of(cheaperGold), index.findSellers(OfferIndex.key(OTHER), 10).get(0).getOffers());
+    }
+    
+    @Test
+    void updateReplacesAnOfferThatOnlyChangedStock() {
+        index.update(WORLD, 0, List.of(offer(0, 0, ITEM, COPPER, 5, 0, 10)));
+        ShopOffer restocked = offer(0, 0, ITEM, COPPER, 5, 0, 20);
+        index.update(WORLD, 0, List.of(restocked));
+        
+        assertEquals(List.of(restocked), index.findSellers(ITEM_KEY, 10).get(0).getOffers());
+    }
+    
+    @Test
+    void updateDropsOffersTheShopNoLongerHas() {
+        index.update(WORLD, 0, List.of(offer(0, 0, ITEM, COPPER, 5, 0, 10), offer(0, 1, OTHER, COPPER, 5, 0, 10)));
+        index.update(WORLD, 0, List.of(offer(0, 1, OTHER, COPPER, 5, 0, 10)));
+        
+        assertFalse(index.hasItem(ITEM_KEY));
+        assertTrue(index.hasItem(OfferIndex.key(OTHER)));
+        
+        index.update(WORLD, 0, List.of());
+        assertFalse(index.contains(WORLD, 0));
+        assertTrue(index.getItemKeys().isEmpty());
+    }
+    
+    @Test
+    void soldOutOffersAreOnlyListedAsBuyers() {
+        index.update(WORLD, 0, List.of(offer(0, 0, ITEM, COPPER, 5, 3, 0)));
+        
+        assertTrue(index.findSellers(ITEM_KEY, 10).isEmpty());
+        assertEquals(1, index.findBuyers(ITEM_KEY, 10).size());
+    }
+    
+    @Test
+    void equalPricesInDifferentCurrenciesAreGroupedApart() {
+        ShopOffer copper = offer(0, 0, ITEM, COPPER, 5, 0, 10);
+        ShopOffer silver = offer(1, 0, ITEM, SILVER, 5, 0, 10);
+        ShopOffer copperTie = offer(2, 0, ITEM, COPPER, 5, 0, 10);
+        ShopOffer cheaperSilver = offer(3, 0, ITEM, SILVER, 2, 0, 10);
+        index.update(WORLD, 0, List.of(copper));
+        index.update(WORLD, 1, List.of(silver));
+        index.update(WORLD, 2, List.of(copperTie));
+        index.update(WORLD, 3, List.of(cheaperSilver));
+        
+        List<OfferIndex.CurrencyGroup> groups = index.findSellers(ITEM_KEY, 10);
+        
+        // Groups by currency key; ties within a currency are all kept, ordered by location
+        assertEquals(2, groups.size());
+        assertEquals(COPPER, groups.get(0).getCurrencyItemId());
+        assertEquals(List.of(copper, copperTie), groups.get(0).getOffers());
+        assertEquals(SILVER, groups.get(1).getCurrencyItemId());
+        assertEquals(List.of(cheaperSilver, silver), groups.get(1).getOffers());
+    }
+    
+    @Test
+    void unpricedOffersFormTheirOwnGroup() {
+        index.update(WORLD, 0, List.of(offer(0, 0, ITEM, null, 5, 0, 10)));
+        index.update(WORLD, 1, List.of(offer(1, 0, ITEM, COPPER, 5, 0, 10)));
+        
+        List<OfferIndex.CurrencyGroup> groups = index.findSellers(ITEM_KEY, 10);
+        assertEquals(2, groups.size());
+        assertNull(groups.get(0).getCurrencyItemId());
+    }
+    
+    @Test
+    void pickDealsOffersToCurrenciesInTurn() {
+        ShopOffer copper1 = offer(0, 0, ITEM, COPPER, 1, 0, 10);
+        ShopOffer copper2 = offer(1, 0, ITEM, COPPER, 2, 0, 10);
+        ShopOffer copper3 = offer(2, 0, ITEM, COPPER, 3, 0, 10);
+        ShopOffer silver1 = offer(3, 0, ITEM, SILVER, 1, 0, 10);
+        List<OfferIndex.CurrencyGroup> groups = List.of(
+            new OfferIndex.CurrencyGroup(COPPER, List.of(copper1, copper2, copper3)),
+            new OfferIndex.CurrencyGroup(SILVER, List.of(silver1)));
+        
+        assertEquals(List.of(copper1, silver1), OfferIndex.pick(groups, 2));
+        assertEquals(List.of(copper1, copper2, silver1), OfferIndex.pick(groups, 3));
+        assertEquals(List.of(copper1, copper2, copper3, silver1), OfferIndex.pick(groups, 10));
+        assertTrue(OfferIndex.pick(List.of(), 5).isEmpty());
+    }
+    
+    private static ShopOffer offer(int x, int slot, String itemId, @Nullable String currencyItemId,
+                                   int buyPrice, int sellPrice, int stock) {
+        return new ShopOffer(WORLD, x, 64, 0, slot, itemId, currencyItemId, buyPrice, sellPrice, stock, "Owner");
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.barterchest.core.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoriesTest {
+    
+    private static final String ITEM = "Ingredient_Bar_Iron";
+    private static final String OTHER = "Ingredient_Bar_Gold";
+    private static final String TOOL = "Tool_Pickaxe_Iron";
+    
+    private final MemoryItemModel model = new MemoryItemModel().withMaxStack(TOOL, 1);
+    
+    @Test
+    void countItemsSumsMatchingStacks() {
+        MemorySlotContainer container = new MemorySlotContainer(6);
+        container.setStack(0, new MemoryStack(ITEM, 10));
+        container.setStack(1, new MemoryStack(OTHER, 20));
+        container.setStack(3, new MemoryStack("hytale:" + ITEM.toLowerCase(), 5, 3));
+        
+        assertEquals(15, Inventories.countItems(container, model, ITEM));
+        assertEquals(20, Inventories.countItems(container, model, OTHER));
+        assertEquals(0, Inventories.countItems(container, model, TOOL));
+    }
+    
+    @Test
+    void availableSpaceCountsEmptySlotsAndPartialStacks() {
+        MemorySlotContainer container = new MemorySlotContainer(4);
+        container.setStack(0, new MemoryStack(ITEM, 60));
+        container.setStack(1, new MemoryStack(OTHER, 1));
+        
+        assertEquals(4 + 2 * 64, Inventories.getAvailableSpace(container, model, ITEM));
+    }
+    
+    @Test
+    void availableSpaceOfUnstackableItemsIsOnePerEmptySlot() {
+        MemorySlotContainer container = new MemorySlotContainer(4);
+        container.setStack(0, new MemoryStack(TOOL, 1));
+        
+        assertEquals(3, Inventories.getAvailableSpace(container, model, TOOL));
+    }
+    
+    @Test
+    void addItemsTopsUpStacksBeforeUsingEmptySlots() {
+        MemorySlotContainer container = new MemorySlotContainer(3);
+        container.setStack(1, new MemoryStack(ITEM, 60));
+        
+        assertTrue(Inventories.addItems(container, model, ITEM, 70));
+        
+        assertEquals(new MemoryStack(ITEM, 64), container.getStack(1));
+        assertEquals(new MemoryStack(ITEM, 64), container.getStack(0));
+        assertEquals(new MemoryStack(ITEM, 2), container.getStack(2));
+    }
+    
+    @Test
+    void addItemsReportsWhatDidntFit() {
+        MemorySlotContainer container = new MemorySlotContainer(1);
+        
+        assertFalse(Inventories.addItems(container, model, ITEM, 65));
+        assertEquals(64, Inventories.countItems(container, model, ITEM));
+    }
+    
+    @Test
+    void addStackOnlyMergesStackableStacks() {
+        MemorySlotContainer container = new MemorySlotContainer(3);
+        container.setStack(0, new MemoryStack(ITEM, 10, 5));
+        container.setStack(1, new MemoryStack(ITEM, 10, 0));
+        
+        assertTrue(Inventories.addStack(container, model, new MemoryStack(ITEM, 20, 5)));
+        
+        assertEquals(new MemoryStack(ITEM, 30, 5), container.getStack(0));
+        assertEquals(new MemoryStack(ITEM, 10, 0), container.getStack(1));
+        assertNull(container.getStack(2));
+    }
+    
+    @Test
+    void addStackNeverStacksUnstackableItems() {
+        MemorySlotContainer container = new MemorySlotContainer(2);
+        container.setStack(0, new MemoryStack(TOOL, 1, 7));
+        
+        assertTrue(Inventories.addStack(container, model, new MemoryStack(TOOL, 1, 7)));
+        assertFalse(Inventories.addStack(container, model, new MemoryStack(TOOL, 1, 7)));
+        
+        assertEquals(new MemoryStack(TOOL, 1, 7), container.getStack(1));
+    }
+    
+    @Test
+    void removeItemsTakesFromSeveralSlots() {
+        MemorySlotContainer container = new MemorySlotContainer(3);
+        container.setStack(0, new MemoryStack(ITEM, 5));
+        container.setStack(1, new MemoryStack(OTHER, 5));
+        container.setStack(2, new MemoryStack(ITEM, 10, 4));
+        
+        assertTrue(Inventories.removeItems(container, model, ITEM, 8));
+        
+        assertNull(container.getStack(0));
+        assertEquals(new MemoryStack(OTHER, 5), container.getStack(1));
+        assertEquals(new MemoryStack(ITEM, 7, 4), container.getStack(2));
+    }
+    
+    @Test
+    void removeItemsReportsMissingItems() {
+        MemorySlotContainer container = new MemorySlotContainer(2);
+        container.setStack(0, new MemoryStack(ITEM, 5));
+        
+        assertFalse(Inventories.removeItems(container, model, ITEM, 6));
+        assertEquals(0, Inventories.countItems(container, model, ITEM));
+    }
+    
+    @Test
+    void removeItemsFromSlotNeedsEnoughItems() {
+        MemorySlotContainer container = new MemorySlotContainer(2);
+        container.setStack(0, new MemoryStack(ITEM, 5));
+        
+        assertFalse(Inventories.removeItemsFromSlot(container, model, 0, 6));
+        assertFalse(Inventories.removeItemsFromSlot(container, model, 1, 1));
+        assertTrue(Inventories.removeItemsFromSlot(container, model, 0, 2));
+        assertEquals(new MemoryStack(ITEM, 3), container.getStack(0));
+        assertTrue(Inventories.removeItemsFromSlot(container, model, 0, 3));
+        assertNull(container.getStack(0));
+    }
+    
+    @Test
+    void addItemsToSlotStacksOrFillsTheSlot() {
+        MemorySlotContainer container = new MemorySlotContainer(2);
+        container.setStack(0, new MemoryStack(ITEM, 60));
+        
+        assertTrue(Inventories.addItemsToSlot(container, model, 0, ITEM, 4));
+        assertFalse(Inventories.addItemsToSlot(container, model, 0, ITEM, 1));
+        assertFalse(Inventories.addItemsToSlot(container, model, 0, OTHER, 1));
+        assertFalse(Inventories.addItemsToSlot(container, model, 1, OTHER, 65));
+        assertTrue(Inventories.addItemsToSlot(container, model, 1, OTHER, 64));
+        
+        assertEquals(new MemoryStack(ITEM, 64), container.getStack(0));
+        assertEquals(new MemoryStack(OTHER, 64), container.getStack(1));
+    }
+    
+    @Test
+    void transferItemsSplitsStacksAndKeepsMetadata() {
+        MemorySlotContainer source = new MemorySlotContainer(3);
+        MemorySlotContainer dest = new MemorySlotContainer(3);
+        source.setStack(0, new MemoryStack(ITEM, 10, 2));
+        source.setStack(1, new MemoryStack(ITEM, 10, 3));
+        
+        assertTrue(Inventories.transferItems(source, dest, model, ITEM, 15));
+        
+        assertNull(source.getStack(0));
+        assertEquals(new MemoryStack(ITEM, 5, 3), source.getStack(1));
+        assertEquals(new MemoryStack(ITEM, 10, 2), dest.getStack(0));
+        assertEquals(new MemoryStack(ITEM, 5, 3), dest.getStack(1));
+    }
+    
+    @Test
+    void transferItemsChangesNothingWhenTheDestinationIsFull() {
+        MemorySlotContainer source = new MemorySlotContainer(3);
+        MemorySlotContainer dest = new MemorySlotContainer(2);
+        source.setStack(0, new MemoryStack(ITEM, 64));
+        source.setStack(1, new MemoryStack(ITEM, 30));
+        source.setStack(2, new MemoryStack(OTHER, 5));
+        dest.setStack(0, new MemoryStack(ITEM, 10, 9));
+        List<MemoryStack> sourceBefore = contents(source);
+        List<MemoryStack> destBefore = contents(dest);
+        
+        assertFalse(Inventories.transferItems(source, dest, model, ITEM, 94));
+        
+        assertEquals(sourceBefore, contents(source));
+        assertEquals(destBefore, contents(dest));
+    }
+    
+    @Test
+    void transferItemsRestoresASlotToppedUpTwice() {
+        MemorySlotContainer source = new MemorySlotContainer(3);
+        MemorySlotContainer dest = new MemorySlotContainer(1);
+        source.setStack(0, new MemoryStack(ITEM, 2));
+        source.setStack(1, new MemoryStack(ITEM, 2));
+        source.setStack(2, new MemoryStack(ITEM, 10));
+        dest.setStack(0, new MemoryStack(ITEM, 60));
+        List<MemoryStack> sourceBefore = contents(source);
+        
+        // The first two stacks fill the destination's slot, the third doesn't fit
+        assertFalse(Inventories.transferItems(source, dest, model, ITEM, 14));
+        
+        assertEquals(sourceBefore, contents(source));
+        assertEquals(new MemoryStack(ITEM, 60), dest.getStack(0));
+    }
+    
+    @Test
+    void transferItemsChangesNothingWhenTheSourceRunsShort() {
+        MemorySlotContainer source = new MemorySlotContainer(2);
+        MemorySlotContainer dest = new MemorySlotContainer(2);
+        source.setStack(0, new MemoryStack(ITEM, 5));
+        List<MemoryStack> sourceBefore = contents(source);
+        
+        assertFalse(Inventories.transferItems(source, dest, model, ITEM, 6));
+        
+        assertEquals(sourceBefore, contents(source));
+        assertEquals(List.of(), contents(dest).stream().filter(s -> s != null).toList());
+    }
+    
+    private static List<MemoryStack> contents(MemorySlotContainer container) {
+        List<MemoryStack> stacks = new ArrayList<>();
+        for (int i = 0; i < container.getCapacity(); i++) {
+            stacks.add(container.getStack(i));
+        }
+        return stacks;
+    }
+}
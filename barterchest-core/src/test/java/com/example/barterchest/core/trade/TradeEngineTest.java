@@ -0,0 +1,342 @@
+package com.example.barterchest.core.trade;
+
+import com.example.barterchest.core.inventory.Inventories;
+import com.example.barterchest.core.inventory.MemoryItemModel;
+import com.example.barterchest.core.inventory.MemorySlotContainer;
+import com.example.barterchest.core.inventory.MemoryStack;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TradeEngineTest {
+    
+    private static final String ITEM = "Ingredient_Bar_Iron";
+    private static final String CURRENCY = "Ingredient_Bar_Copper";
+    private static final String OTHER = "Ingredient_Bar_Gold";
+    private static final String TOOL = "Tool_Pickaxe_Iron";
+    
+    private static final Function<String, String> NAMES = Function.identity();
+    
+    private final MemoryItemModel model = new MemoryItemModel().withMaxStack(TOOL, 1);
+    private MemorySlotContainer shop;
+    private MemorySlotContainer customer;
+    private Ledger ledger;
+    
+    @BeforeEach
+    void setUp() {
+        shop = new MemorySlotContainer(9);
+        customer = new MemorySlotContainer(9);
+        ledger = new Ledger();
+    }
+    
+    // --- Buy ---
+    
+    @Test
+    void buyMovesItemsAndCurrency() {
+        shop.fill(ITEM, 100, 64);
+        customer.fill(CURRENCY, 20, 64);
+        
+        TransactionResult result = TradeEngine.buy(terms(ITEM, 2, 0), ledger, shop, customer, model, NAMES, 8);
+        
+        assertTrue(result.isSuccess(), result::toString);
+        assertEquals(8, result.getQuantityTransacted());
+        assertEquals(92, count(shop, ITEM));
+        assertEquals(16, count(shop, CURRENCY));
+        assertEquals(8, count(customer, ITEM));
+        assertEquals(4, count(customer, CURRENCY));
+        assertEquals(16, ledger.earnings);
+        assertEquals(1, ledger.dirty);
+    }
+    
+    @Test
+    void buyKeepsItemMetadata() {
+        shop.setStack(0, new MemoryStack(TOOL, 1, 37));
+        customer.fill(CURRENCY, 5, 64);
+        
+        TransactionResult result = TradeEngine.buy(terms(TOOL, 5, 0), ledger, shop, customer, model, NAMES, 1);
+        
+        assertTrue(result.isSuccess(), result::toString);
+        assertTrue(contents(customer).contains(new MemoryStack(TOOL, 1, 37)), customer::toString);
+    }
+    
+    @Test
+    void buyMatchesNamespacedItemIds() {
+        shop.fill("hytale:" + ITEM, 10, 64);
+        customer.fill(CURRENCY, 10, 64);
+        
+        TransactionResult result = TradeEngine.buy(terms(ITEM, 1, 0), ledger, shop, customer, model, NAMES, 10);
+        
+        assertTrue(result.isSuccess(), result::toString);
+        assertEquals(0, count(shop, ITEM));
+    }
+    
+    @Test
+    void buyRejectsListingsThatDontSell() {
+        shop.fill(ITEM, 10, 64);
+        customer.fill(CURRENCY, 10, 64);
+        
+        assertRejected(TransactionResult.Status.SHOP_DOESNT_SELL,
+            () -> TradeEngine.buy(terms(ITEM, 0, 1), ledger, shop, customer, model, NAMES, 1));
+        assertRejected(TransactionResult.Status.SHOP_DOESNT_SELL,
+            () -> TradeEngine.buy(new Terms(ITEM, null, 1, 0), ledger, shop, customer, model, NAMES, 1));
+    }
+    
+    @Test
+    void buyRejectsInvalidQuantities() {
+        shop.fill(ITEM, 10, 64);
+        customer.fill(CURRENCY, 10, 64);
+        
+        assertRejected(TransactionResult.Status.INVALID_QUANTITY,
+            () -> TradeEngine.buy(terms(ITEM, 1, 0), ledger, shop, customer, model, NAMES, 0));
+        assertRejected(TransactionResult.Status.INVALID_QUANTITY,
+            () -> TradeEngine.buy(terms(ITEM, 1, 0), ledger, shop, customer, model, NAMES, -3));
+    }
+    
+    @Test
+    void buyRejectsUnconfiguredListings() {
+        customer.fill(CURRENCY, 10, 64);
+        
+        assertRejected(TransactionResult.Status.SHOP_NOT_CONFIGURED,
+            () -> TradeEngine.buy(terms("", 1, 0), ledger, shop, customer, model, NAMES, 1));
+        assertRejected(TransactionResult.Status.SHOP_NOT_CONFIGURED,
+            () -> TradeEngine.buy(terms(null, 1, 0), ledger, shop, customer, model, NAMES, 1));
+    }
+    
+    @Test
+    void buyRejectsMissingStock() {
+        customer.fill(CURRENCY, 64, 64);
+        shop.fill(OTHER, 10, 64);
+        
+        assertRejected(TransactionResult.Status.INSUFFICIENT_STOCK,
+            () -> TradeEngine.buy(terms(ITEM, 1, 0), ledger, shop, customer, model, NAMES, 1));
+        
+        shop.fill(ITEM, 5, 64);
+        assertRejected(TransactionResult.Status.INSUFFICIENT_STOCK,
+            () -> TradeEngine.buy(terms(ITEM, 1, 0), ledger, shop, customer, model, NAMES, 6));
+    }
+    
+    @Test
+    void buyRejectsMissingCurrency() {
+        shop.fill(ITEM, 10, 64);
+        customer.fill(CURRENCY, 5, 64);
+        
+        assertRejected(TransactionResult.Status.INSUFFICIENT_FUNDS,
+            () -> TradeEngine.buy(terms(ITEM, 2, 0), ledger, shop, customer, model, NAMES, 3));
+    }
+    
+    @Test
+    void buyRejectsFullCustomerInventory() {
+        shop.fill(ITEM, 10, 64);
+        customer.fill(CURRENCY, 64, 64);
+        customer.fill(OTHER, 8 * 64, 64);
+        
+        assertRejected(TransactionResult.Status.INVENTORY_FULL,
+            () -> TradeEngine.buy(terms(ITEM, 1, 0), ledger, shop, customer, model, NAMES, 1));
+    }
+    
+    @Test
+    void buyRejectsPaymentTheShopCantHold() {
+        shop.fill(ITEM, 9 * 64, 64);
+        customer.fill(CURRENCY, 10, 64);
+        
+        assertRejected(TransactionResult.Status.INSUFFICIENT_SPACE,
+            () -> TradeEngine.buy(terms(ITEM, 1, 0), ledger, shop, customer, model, NAMES, 1));
+    }
+    
+    @Test
+    void buyRollsBackWhenItemsDontFitAfterAll() {
+        // The customer's damaged iron counts as room for more iron, but none of the shop's
+        // iron merges into it, so only the one empty slot is usable
+        shop.setStack(0, new MemoryStack(ITEM, 30, 0));
+        shop.setStack(1, new MemoryStack(ITEM, 30, 1));
+        customer.setStack(0, new MemoryStack(ITEM, 10, 5));
+        customer.setStack(1, new MemoryStack(CURRENCY, 64));
+        customer.setStack(3, new MemoryStack(OTHER, 64));
+        customer.fill(OTHER, 5 * 64, 64);
+        List<MemoryStack> shopBefore = contents(shop);
+        List<MemoryStack> customerBefore = contents(customer);
+        
+        TransactionResult result = TradeEngine.buy(terms(ITEM, 1, 0), ledger, shop, customer, model, NAMES, 60);
+        
+        assertEquals(TransactionResult.Status.TRANSACTION_ERROR, result.getStatus());
+        assertEquals(shopBefore, contents(shop));
+        assertEquals(customerBefore, contents(customer));
+        assertEquals(0, ledger.earnings);
+        assertEquals(0, ledger.dirty);
+    }
+    
+    // --- Sell ---
+    
+    @Test
+    void sellMovesItemsAndCurrency() {
+        shop.fill(CURRENCY, 30, 64);
+        customer.fill(ITEM, 12, 64);
+        
+        TransactionResult result = TradeEngine.sell(terms(ITEM, 0, 3), ledger, shop, customer, model, NAMES, 10);
+        
+        assertTrue(result.isSuccess(), result::toString);
+        assertEquals(10, result.getQuantityTransacted());
+        assertEquals(10, count(shop, ITEM));
+        assertEquals(0, count(shop, CURRENCY));
+        assertEquals(2, count(customer, ITEM));
+        assertEquals(30, count(customer, CURRENCY));
+        assertEquals(0, ledger.earnings);
+        assertEquals(1, ledger.dirty);
+    }
+    
+    @Test
+    void sellRejectsListingsThatDontBuy() {
+        shop.fill(CURRENCY, 10, 64);
+        customer.fill(ITEM, 10, 64);
+        
+        assertRejected(TransactionResult.Status.SHOP_DOESNT_BUY,
+            () -> TradeEngine.sell(terms(ITEM, 1, 0), ledger, shop, customer, model, NAMES, 1));
+    }
+    
+    @Test
+    void sellRejectsInvalidQuantitiesAndUnconfiguredListings() {
+        shop.fill(CURRENCY, 10, 64);
+        customer.fill(ITEM, 10, 64);
+        
+        assertRejected(TransactionResult.Status.INVALID_QUANTITY,
+            () -> TradeEngine.sell(terms(ITEM, 0, 1), ledger, shop, customer, model, NAMES, 0));
+        assertRejected(TransactionResult.Status.SHOP_NOT_CONFIGURED,
+            () -> TradeEngine.sell(terms(null, 0, 1), ledger, shop, customer, model, NAMES, 1));
+    }
+    
+    @Test
+    void sellRejectsMissingItems() {
+        shop.fill(CURRENCY, 10, 64);
+        customer.fill(ITEM, 3, 64);
+        
+        assertRejected(TransactionResult.Status.INSUFFICIENT_STOCK,
+            () -> TradeEngine.sell(terms(ITEM, 0, 1), ledger, shop, customer, model, NAMES, 4));
+    }
+    
+    @Test
+    void sellRejectsWhenTheShopCantPay() {
+        shop.fill(CURRENCY, 5, 64);
+        customer.fill(ITEM, 10, 64);
+        
+        assertRejected(TransactionResult.Status.INSUFFICIENT_FUNDS,
+            () -> TradeEngine.sell(terms(ITEM, 0, 2), ledger, shop, customer, model, NAMES, 3));
+    }
+    
+    @Test
+    void sellRejectsItemsTheShopCantHold() {
+        shop.fill(CURRENCY, 10, 64);
+        shop.fill(OTHER, 8 * 64, 64);
+        customer.fill(ITEM, 10, 64);
+        
+        assertRejected(TransactionResult.Status.INSUFFICIENT_SPACE,
+            () -> TradeEngine.sell(terms(ITEM, 0, 1), ledger, shop, customer, model, NAMES, 1));
+    }
+    
+    @Test
+    void sellRejectsPaymentTheCustomerCantHold() {
+        shop.fill(CURRENCY, 64, 64);
+        customer.fill(ITEM, 9 * 64, 64);
+        
+        assertRejected(TransactionResult.Status.INVENTORY_FULL,
+            () -> TradeEngine.sell(terms(ITEM, 0, 1), ledger, shop, customer, model, NAMES, 1));
+    }
+    
+    @Test
+    void sellLeavesBothSidesUntouchedWhenItemsDontFitAfterAll() {
+        // The shop's damaged iron counts as room for more iron, but the customer's iron
+        // won't merge into it, so only the one empty slot is usable
+        shop.setStack(0, new MemoryStack(ITEM, 10, 5));
+        shop.fill(CURRENCY, 2 * 64, 64);
+        shop.fill(OTHER, 5 * 64, 64);
+        customer.fill(ITEM, 100, 64);
+        List<MemoryStack> shopBefore = contents(shop);
+        List<MemoryStack> customerBefore = contents(customer);
+        
+        TransactionResult result = TradeEngine.sell(terms(ITEM, 0, 1), ledger, shop, customer, model, NAMES, 100);
+        
+        assertEquals(TransactionResult.Status.TRANSACTION_ERROR, result.getStatus());
+        assertEquals(shopBefore, contents(shop));
+        assertEquals(customerBefore, contents(customer));
+        assertEquals(0, ledger.dirty);
+    }
+    
+    // --- Helpers ---
+    
+    private void assertRejected(TransactionResult.Status status, Supplier<TransactionResult> trade) {
+        List<MemoryStack> shopBefore = contents(shop);
+        List<MemoryStack> customerBefore = contents(customer);
+        
+        TransactionResult result = trade.get();
+        
+        assertEquals(status, result.getStatus(), result::toString);
+        assertFalse(result.isSuccess());
+        assertEquals(0, result.getQuantityTransacted());
+        assertEquals(shopBefore, contents(shop), "shop changed by a rejected trade");
+        assertEquals(customerBefore, contents(customer), "customer changed by a rejected trade");
+        assertEquals(0, ledger.earnings);
+        assertEquals(0, ledger.dirty);
+    }
+    
+    private int count(MemorySlotContainer container, String itemId) {
+        return Inventories.countItems(container, model, itemId);
+    }
+    
+    private static List<MemoryStack> contents(MemorySlotContainer container) {
+        List<MemoryStack> stacks = new ArrayList<>();
+        for (int i = 0; i < container.getCapacity(); i++) {
+            stacks.add(container.getStack(i));
+        }
+        return stacks;
+    }
+    
+    private static Terms terms(@Nullable String itemId, int buyPrice, int sellPrice) {
+        return new Terms(itemId, CURRENCY, buyPrice, sellPrice);
+    }
+    
+    private record Terms(String itemId, String currencyItemId, int buyPrice, int sellPrice) implements TradeTerms {
+        
+        @Override
+        public String getItemId() {
+            return itemId;
+        }
+        
+        @Override
+        public String getCurrencyItemId() {
+            return currencyItemId;
+        }
+        
+        @Override
+        public int getBuyPrice() {
+            return buyPrice;
+        }
+        
+        @Override
+        public int getSellPrice() {
+            return sellPrice;
+        }
+    }
+    
+    private static final class Ledger implements ShopLedger {
+        long earnings;
+        int dirty;
+        
+        @Override
+        public void addEarnings(long amount) {
+            earnings += amount;
+        }
+        
+        @Override
+        public void markDirty() {
+            dirty++;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.barterchest.core.inventory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@link ItemModel} of {@link MemoryStack}s. Items stack to
+ * {@link Inventories#DEFAULT_MAX_STACK} unless given another limit.
+ */
+public class MemoryItemModel implements ItemModel<MemoryStack> {
+    
+    private final Map<String, Integer> maxStacks = new HashMap<>();
+    
+    /**
+     * Set how many of an item fit in one slot (e.g. 1 for tools).
+     */
+    @Nonnull
+    public MemoryItemModel withMaxStack(@Nonnull String itemId, int maxStack) {
+        maxStacks.put(itemId, maxStack);
+        return this;
+    }
+    
+    @Override
+    public boolean isEmpty(@Nullable MemoryStack stack) {
+        return stack == null || stack.quantity() <= 0;
+    }
+    
+    @Nonnull
+    @Override
+    public String getItemId(@Nonnull MemoryStack stack) {
+        return stack.itemId();
+    }
+    
+    @Override
+    public int getQuantity(@Nonnull MemoryStack stack) {
+        return stack.quantity();
+    }
+    
+    @Nonnull
+    @Override
+    public MemoryStack withQuantity(@Nonnull MemoryStack stack, int quantity) {
+        return new MemoryStack(stack.itemId(), quantity, stack.durability());
+    }
+    
+    @Nonnull
+    @Override
+    public MemoryStack create(@Nonnull String itemId, int quantity) {
+        return new MemoryStack(itemId, quantity);
+    }
+    
+    @Override
+    public boolean isStackable(@Nonnull MemoryStack stack, @Nonnull MemoryStack other) {
+        return stack.itemId().equals(other.itemId()) && stack.durability() == other.durability();
+    }
+    
+    @Override
+    public int getMaxStack(@Nonnull String itemId) {
+        return maxStacks.getOrDefault(itemId, Inventories.DEFAULT_MAX_STACK);
+    }
+}
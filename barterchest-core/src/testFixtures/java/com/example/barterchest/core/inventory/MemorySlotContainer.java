@@ -0,0 +1,60 @@
+package com.example.barterchest.core.inventory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * A {@link SlotContainer} backed by an array, standing in for chests and player
+ * inventories in tests, benchmarks and simulations.
+ */
+public class MemorySlotContainer implements SlotContainer<MemoryStack> {
+    
+    private final MemoryStack[] slots;
+    
+    public MemorySlotContainer(int capacity) {
+        this.slots = new MemoryStack[capacity];
+    }
+    
+    @Override
+    public int getCapacity() {
+        return slots.length;
+    }
+    
+    @Nullable
+    @Override
+    public MemoryStack getStack(int slot) {
+        return slots[slot];
+    }
+    
+    @Override
+    public void setStack(int slot, @Nullable MemoryStack stack) {
+        slots[slot] = stack;
+    }
+    
+    /**
+     * Empty every slot.
+     */
+    public void clear() {
+        Arrays.fill(slots, null);
+    }
+    
+    /**
+     * Put stacks of an item into the first empty slots, at most {@code maxStack} per slot,
+     * dropping what doesn't fit.
+     */
+    public void fill(@Nonnull String itemId, int quantity, int maxStack) {
+        for (int i = 0; i < slots.length && quantity > 0; i++) {
+            if (slots[i] == null) {
+                int amount = Math.min(quantity, maxStack);
+                slots[i] = new MemoryStack(itemId, amount);
+                quantity -= amount;
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return Arrays.toString(slots);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.barterchest.core.inventory;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An item stack held in memory. {@code durability} stands in for the metadata a server
+ * stack carries: stacks only merge when it matches, and it survives splits and moves.
+ */
+public record MemoryStack(@Nonnull String itemId, int quantity, int durability) {
+    
+    public MemoryStack(@Nonnull String itemId, int quantity) {
+        this(itemId, quantity, 0);
+    }
+}
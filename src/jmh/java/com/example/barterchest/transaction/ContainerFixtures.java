@@ -0,0 +1,65 @@
+package com.example.barterchest.transaction;
+
+import com.example.barterchest.state.BarterChestBlockState;
+import com.example.barterchest.testing.ShopFixtures;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+
+import javax.annotation.Nonnull;
+import java.util.UUID;
+
+/**
+ * Benchmark layouts of the traded item on top of the shared {@link ShopFixtures}.
+ */
+final class ContainerFixtures {
+    
+    static final String ITEM = "Ingredient_Bar_Iron";
+    static final String CURRENCY = "Ingredient_Bar_Copper";
+    static final String OTHER = "Ingredient_Bar_Gold";
+    
+    /**
+     * How the traded item is spread over the occupied slots.
+     */
+    enum Fragmentation {
+        /** Full stacks of the traded item */
+        FULL_STACKS,
+        /** Small stacks of 1-7 items, so every operation walks many slots */
+        PARTIAL_STACKS,
+        /** Half stacks of the traded item alternating with an unrelated item */
+        INTERLEAVED
+    }
+    
+    private ContainerFixtures() {
+    }
+    
+    /**
+     * Clear a container and occupy {@code fill} of its slots with {@code itemId}, laid out
+     * according to {@code fragmentation}.
+     */
+    static void fill(@Nonnull ItemContainer container, @Nonnull String itemId, double fill, @Nonnull Fragmentation fragmentation) {
+        short capacity = container.getCapacity();
+        int occupied = (int) Math.round(capacity * fill);
+        for (short i = 0; i < capacity; i++) {
+            container.setItemStackForSlot(i, i < occupied ? stack(itemId, i, fragmentation) : null);
+        }
+    }
+    
+    @Nonnull
+    private static ItemStack stack(@Nonnull String itemId, int slot, @Nonnull Fragmentation fragmentation) {
+        return switch (fragmentation) {
+            case FULL_STACKS -> new ItemStack(itemId, ShopFixtures.MAX_STACK);
+            case PARTIAL_STACKS -> new ItemStack(itemId, 1 + slot % 7);
+            case INTERLEAVED -> new ItemStack(slot % 2 == 0 ? itemId : OTHER, ShopFixtures.MAX_STACK / 2);
+        };
+    }
+    
+    /**
+     * Create a shop that is not attached to any chunk, backed by {@code inventory}.
+     */
+    @Nonnull
+    static BarterChestBlockState shop(@Nonnull ItemContainer inventory) {
+        BarterChestBlockState shop = BarterChestBlockState.create(new UUID(0, 1), "Benchmark");
+        ShopFixtures.attach(shop, inventory);
+        return shop;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.barterchest.transaction;
+
+import com.example.barterchest.testing.ShopFixtures;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the read-only container scans every trade starts with, across the same
+ * chest sizes, fill levels and fragmentation patterns as {@link TransactionBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContainerScanBenchmark {
+    
+    @Param({"9", "27", "54"})
+    public int chestSize;
+    
+    @Param({"0.25", "0.75", "1.0"})
+    public double fill;
+    
+    @Param({"FULL_STACKS", "PARTIAL_STACKS", "INTERLEAVED"})
+    public ContainerFixtures.Fragmentation fragmentation;
+    
+    private ItemContainer shopInventory;
+    
+    @Setup(Level.Trial)
+    public void createFixtures() {
+        shopInventory = ShopFixtures.container(chestSize);
+        ContainerFixtures.fill(shopInventory, ContainerFixtures.ITEM, fill, fragmentation);
+    }
+    
+    @Benchmark
+    public int countItems() {
+        return BarterTransactionManager.countItems(shopInventory, ContainerFixtures.ITEM);
+    }
+    
+    @Benchmark
+    public int getAvailableSpaceForItem() {
+        return BarterTransactionManager.getAvailableSpaceForItem(shopInventory, ContainerFixtures.ITEM);
+    }
+}
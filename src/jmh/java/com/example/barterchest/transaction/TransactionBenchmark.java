@@ -0,0 +1,97 @@
+package com.example.barterchest.transaction;
+
+import com.example.barterchest.core.trade.TransactionResult;
+import com.example.barterchest.state.BarterChestBlockState;
+import com.example.barterchest.state.BarterListing;
+import com.example.barterchest.testing.ShopFixtures;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the mutating {@link BarterTransactionManager} operations across chest
+ * sizes, fill levels and stack fragmentation. Run with {@code ./gradlew jmh}; the gc
+ * profiler adds allocation per operation ({@code gc.alloc.rate.norm}) to the results.
+ * Read-only scans are in {@link ContainerScanBenchmark}.
+ * 
+ * Both containers are restored before every invocation so each call sees the same layout. The restore is not measured, and the operations walk
+ * whole containers, so the per-invocation setup overhead stays small in comparison.
+ * Full chests with full stacks exercise the "no space" rejection path for buys.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionBenchmark {
+    
+    /** Customer inventory size (hotbar + storage) */
+    private static final int CUSTOMER_CAPACITY = 36;
+    
+    @Param({"9", "27", "54"})
+    public int chestSize;
+    
+    @Param({"0.25", "0.75", "1.0"})
+    public double fill;
+    
+    @Param({"FULL_STACKS", "PARTIAL_STACKS", "INTERLEAVED"})
+    public ContainerFixtures.Fragmentation fragmentation;
+    
+    private ItemContainer shopInventory;
+    private ItemContainer customerInventory;
+    private BarterChestBlockState shop;
+    private BarterListing listing;
+    private ItemStack incomingStack;
+    
+    @Setup(Level.Trial)
+    public void createFixtures() {
+        shopInventory = ShopFixtures.container(chestSize);
+        customerInventory = ShopFixtures.container(CUSTOMER_CAPACITY);
+        shop = ContainerFixtures.shop(shopInventory);
+        listing = new BarterListing(0, ContainerFixtures.ITEM, ContainerFixtures.CURRENCY, 2, 1);
+        incomingStack = new ItemStack(ContainerFixtures.ITEM, 16);
+    }
+    
+    @Setup(Level.Invocation)
+    public void resetContainers() {
+        ContainerFixtures.fill(shopInventory, ContainerFixtures.ITEM, fill, fragmentation);
+        
+        // A customer with currency and items to sell, and room to spare
+        ContainerFixtures.fill(customerInventory, ContainerFixtures.ITEM, 0.25, ContainerFixtures.Fragmentation.PARTIAL_STACKS);
+        ShopFixtures.add(customerInventory, ContainerFixtures.CURRENCY, 4 * ShopFixtures.MAX_STACK);
+    }
+    
+    @Benchmark
+    public TransactionResult buyFromShop() {
+        return BarterTransactionManager.buyFromShop(shop, listing, customerInventory, 8);
+    }
+    
+    @Benchmark
+    public TransactionResult sellToShop() {
+        return BarterTransactionManager.sellToShop(shop, listing, customerInventory, 8);
+    }
+    
+    @Benchmark
+    public boolean transferItems() {
+        return BarterTransactionManager.transferItems(shopInventory, customerInventory, ContainerFixtures.ITEM, 8);
+    }
+    
+    @Benchmark
+    public boolean addItemStack() {
+        return BarterTransactionManager.addItemStack(shopInventory, incomingStack);
+    }
+}
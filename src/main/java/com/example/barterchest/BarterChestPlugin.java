@@ -1,19 +1,32 @@
 package com.example.barterchest;
 
+import com.example.barterchest.admin.AdminModeManager;
+import com.example.barterchest.catalog.ShopCatalog;
 import com.example.barterchest.command.BarterChestCommand;
 import com.example.barterchest.config.BarterConfig;
-import com.example.barterchest.integration.SimpleClaimsIntegration;
+import com.example.barterchest.config.ConfigWatcher;
+import com.example.barterchest.diagnostics.InteractTrace;
+import com.example.barterchest.diagnostics.MetricsExporter;
+import com.example.barterchest.integration.ProtectionManager;
 import com.example.barterchest.interaction.BarterLicenseInteraction;
+import com.example.barterchest.search.ShopSearchIndex;
 import com.example.barterchest.state.BarterChestBlockState;
+import com.example.barterchest.state.ShopIndex;
+import com.example.barterchest.state.ShopSnapshots;
 import com.example.barterchest.system.BarterBreakProtectionSystem;
 import com.example.barterchest.system.BarterChestMergeProtectionSystem;
 import com.example.barterchest.system.BarterInteractSystem;
+import com.example.barterchest.ui.ShopViewerRegistry;
 import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
 import com.hypixel.hytale.server.core.modules.interaction.interaction.config.Interaction;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
 
 import javax.annotation.Nonnull;
+import java.util.UUID;
 import java.util.logging.Level;
 
 /**
@@ -44,8 +57,8 @@ public class BarterChestPlugin extends JavaPlugin {
         // Load configuration
         BarterConfig.load();
         
-        // Initialize optional SimpleClaims integration
-        SimpleClaimsIntegration.initialize();
+        // Discover land protection providers (SimpleClaims, region file, ...)
+        ProtectionManager.initialize();
         
         // Register the barter chest block state
         getBlockStateRegistry().registerBlockState(
@@ -71,20 +84,62 @@ public class BarterChestPlugin extends JavaPlugin {
         // Register the chest merge protection system
         getEntityStoreRegistry().registerSystem(new BarterChestMergeProtectionSystem());
         
+        // Keep search and the catalog up to date from published shop snapshots
+        ShopSnapshots.addListener(ShopSearchIndex::onShopChanged);
+        ShopSnapshots.addListener(ShopCatalog::onShopChanged);
+        
         // Register the barterchest command
         getCommandRegistry().registerCommand(new BarterChestCommand());
         
+        // Drop per-session player state on disconnect
+        getEventRegistry().register(PlayerDisconnectEvent.class, this::onPlayerDisconnect);
+        
+        // Drop per-world state when a world is removed
+        getEventRegistry().registerGlobal(RemoveWorldEvent.class, this::onWorldRemoved);
+        
         LOGGER.at(Level.INFO).log("BarterChest plugin setup complete");
     }
     
+    /**
+     * Clean up everything cached for a player's session.
+     */
+    private void onPlayerDisconnect(@Nonnull PlayerDisconnectEvent event) {
+        UUID playerUUID = event.getPlayerRef().getUuid();
+        AdminModeManager.onPlayerDisconnect(playerUUID);
+        ProtectionManager.invalidatePlayer(playerUUID);
+        InteractTrace.clear(playerUUID);
+    }
+    
+    /**
+     * Clean up everything held for a removed world.
+     */
+    private void onWorldRemoved(@Nonnull RemoveWorldEvent event) {
+        World world = event.getWorld();
+        ShopViewerRegistry.onWorldRemoved(world);
+        ShopSnapshots.onWorldRemoved(world);
+        ShopIndex.onWorldRemoved(world);
+    }
+    
     @Override
     protected void start() {
+        // Pick up config.json edits without a restart
+        ConfigWatcher.start();
+        
+        // Open the shop catalogs; this also makes their shops searchable before their chunks load
+        ShopCatalog.start();
+        
+        // Dump metrics for Prometheus scrapers
+        MetricsExporter.start();
+        
         LOGGER.at(Level.INFO).log("BarterChest plugin started!");
     }
     
     @Override
     protected void shutdown() {
         LOGGER.at(Level.INFO).log("Shutting down BarterChest plugin...");
+        ConfigWatcher.stop();
+        ShopCatalog.stop();
+        MetricsExporter.stop();
         instance = null;
     }
 }
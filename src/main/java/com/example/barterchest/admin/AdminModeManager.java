@@ -1,8 +1,9 @@
 package com.example.barterchest.admin;
 
-import java.util.HashSet;
-import java.util.Set;
+import javax.annotation.Nonnull;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages admin mode state for players.
@@ -11,16 +12,28 @@ import java.util.UUID;
  * and management for any shop, not just their own.
  * 
  * When admin mode is disabled, admins interact with shops like customers.
+ * 
+ * State is kept in a concurrent map of per-session {@link PlayerCapabilities}, so the
+ * async admin command and the world thread can use it at the same time.
  */
 public class AdminModeManager {
     
-    private static final Set<UUID> adminModeEnabled = new HashSet<>();
+    private static final Map<UUID, PlayerCapabilities> capabilities = new ConcurrentHashMap<>();
+    
+    /**
+     * Get the capabilities of a player for this session, creating them on first use.
+     */
+    @Nonnull
+    public static PlayerCapabilities getCapabilities(@Nonnull UUID playerUUID) {
+        return capabilities.computeIfAbsent(playerUUID, uuid -> new PlayerCapabilities());
+    }
     
     /**
      * Check if admin mode is enabled for a player.
      */
     public static boolean isAdminModeEnabled(UUID playerUUID) {
-        return adminModeEnabled.contains(playerUUID);
+        PlayerCapabilities caps = capabilities.get(playerUUID);
+        return caps != null && caps.isAdminMode();
     }
     
     /**
@@ -28,33 +41,52 @@ public class AdminModeManager {
      * @return true if admin mode is now enabled, false if disabled
      */
     public static boolean toggleAdminMode(UUID playerUUID) {
-        if (adminModeEnabled.contains(playerUUID)) {
-            adminModeEnabled.remove(playerUUID);
-            return false;
-        } else {
-            adminModeEnabled.add(playerUUID);
-            return true;
-        }
+        PlayerCapabilities caps = getCapabilities(playerUUID);
+        // The command just checked the permission, so resolve it again on next use
+        caps.invalidatePermissions();
+        return caps.toggleAdminMode();
     }
     
     /**
      * Enable admin mode for a player.
      */
     public static void enableAdminMode(UUID playerUUID) {
-        adminModeEnabled.add(playerUUID);
+        getCapabilities(playerUUID).setAdminMode(true);
     }
     
     /**
      * Disable admin mode for a player.
      */
     public static void disableAdminMode(UUID playerUUID) {
-        adminModeEnabled.remove(playerUUID);
+        PlayerCapabilities caps = capabilities.get(playerUUID);
+        if (caps != null) {
+            caps.setAdminMode(false);
+        }
+    }
+    
+    /**
+     * Called when a player's permissions or groups change.
+     */
+    public static void onPermissionsChanged(UUID playerUUID) {
+        PlayerCapabilities caps = capabilities.get(playerUUID);
+        if (caps != null) {
+            caps.invalidatePermissions();
+        }
+    }
+    
+    /**
+     * Called when permissions may have changed for everyone (e.g. a group was edited).
+     */
+    public static void onPermissionsChanged() {
+        for (PlayerCapabilities caps : capabilities.values()) {
+            caps.invalidatePermissions();
+        }
     }
     
     /**
      * Called when a player disconnects to clean up their state.
      */
     public static void onPlayerDisconnect(UUID playerUUID) {
-        adminModeEnabled.remove(playerUUID);
+        capabilities.remove(playerUUID);
     }
 }
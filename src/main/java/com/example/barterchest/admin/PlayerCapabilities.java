@@ -0,0 +1,84 @@
+package com.example.barterchest.admin;
+
+import com.example.barterchest.state.BarterChestBlockState;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Per-session shop capabilities of one player: the admin-mode flag and the
+ * resolved admin permission.
+ * 
+ * Reads are plain volatile reads so the world thread never locks. The permission
+ * is resolved on first use and re-resolved after {@link #PERMISSION_TTL_MILLIS},
+ * or right away after {@link #invalidatePermissions()}. A resolution is only cached
+ * if no invalidation happened while it ran, so a stale answer can't overwrite one.
+ */
+public final class PlayerCapabilities {
+    
+    /** How long a resolved permission is trusted before asking the permission system again */
+    static final long PERMISSION_TTL_MILLIS = 30_000;
+    
+    private volatile boolean adminMode;
+    
+    private volatile boolean adminPermission;
+    
+    /** When {@link #adminPermission} must be re-resolved; 0 = never resolved */
+    private volatile long permissionExpiresAt;
+    
+    /** Bumped by every invalidation; guarded by this for writes */
+    private volatile int permissionGeneration;
+    
+    PlayerCapabilities() {
+    }
+    
+    public boolean isAdminMode() {
+        return adminMode;
+    }
+    
+    /**
+     * Check if the player has the admin permission, resolving it if the cached value is stale.
+     */
+    public boolean hasAdminPermission(@Nonnull Player player) {
+        long now = System.currentTimeMillis();
+        if (now < permissionExpiresAt) {
+            return adminPermission;
+        }
+        
+        // Resolve outside the lock, then cache only if nothing was invalidated meanwhile
+        int generation = permissionGeneration;
+        boolean granted = player.hasPermission(BarterChestBlockState.ADMIN_PERMISSION);
+        synchronized (this) {
+            if (generation == permissionGeneration) {
+                adminPermission = granted;
+                permissionExpiresAt = now + PERMISSION_TTL_MILLIS;
+            }
+        }
+        return granted;
+    }
+    
+    /**
+     * Check if the player manages shops as an admin right now: admin mode on and permission granted.
+     * The permission is only resolved when admin mode is on.
+     */
+    public boolean isAdminManaging(@Nonnull Player player) {
+        return adminMode && hasAdminPermission(player);
+    }
+    
+    synchronized boolean toggleAdminMode() {
+        adminMode = !adminMode;
+        return adminMode;
+    }
+    
+    void setAdminMode(boolean enabled) {
+        adminMode = enabled;
+    }
+    
+    /**
+     * Forget the resolved permission so the next check asks the permission system.
+     */
+    public synchronized void invalidatePermissions() {
+        permissionGeneration++;
+        permissionExpiresAt = 0;
+    }
+}
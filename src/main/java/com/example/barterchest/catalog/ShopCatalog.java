@@ -0,0 +1,627 @@
+package com.example.barterchest.catalog;
+
+import com.example.barterchest.search.ShopSearchIndex;
+import com.example.barterchest.state.ShopIndex;
+import com.example.barterchest.state.ShopSnapshot;
+import com.example.barterchest.state.ShopSnapshots;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.Constants;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Per-world catalog of shop summaries, kept on disk next to the config so shop data
+ * can be read without loading chunks.
+ * 
+ * Each world has an append-only file {@code <universe>/BarterChest/catalog/<world>.dat}:
+ * a header with the world name, then one record per change (a summary, or a tombstone
+ * when a shop is removed). On startup the file is memory-mapped and only the record
+ * headers are scanned to find the latest record of every shop; summaries are decoded
+ * on demand and kept in a bounded LRU cache. Files are compacted once most of their
+ * records are superseded, on open and by the writer thread as records are appended;
+ * readers keep using the old file until the compacted one is swapped in. Only the first
+ * 2 GB of a file are mapped, anything past that is read with positional reads.
+ * 
+ * Shops are summarized from each new {@link ShopSnapshots snapshot} and written by a
+ * single background thread, which also opens the file of a world first seen at runtime.
+ * Reads may run on any thread.
+ */
+public final class ShopCatalog {
+    
+    private static final HytaleLogger LOGGER = HytaleLogger.get("BarterChest/Catalog");
+    
+    static final Path CATALOG_DIR = Constants.UNIVERSE_PATH.resolve("BarterChest").resolve("catalog");
+    
+    /** "BCT1" */
+    private static final int MAGIC = 0x42435431;
+    
+    /** Record header: payload length, packed position, flags */
+    private static final int RECORD_HEADER = 4 + 8 + 1;
+    private static final byte FLAG_REMOVED = 1;
+    
+    /** Decoded summaries kept in memory per world */
+    private static final int CACHE_SIZE = 512;
+    
+    /** Compact once this many records are superseded (and they outnumber live ones) */
+    private static final int COMPACT_THRESHOLD = 256;
+    
+    /** Most bytes of a file that are memory-mapped */
+    private static final long MAX_MAPPED = Integer.MAX_VALUE;
+    
+    /** Marks a removal that is not written yet */
+    private static final ShopSummary REMOVED = new ShopSummary(0, 0, 0, null, "", null, Collections.emptyList());
+    
+    /** World name -> catalog */
+    private static final Map<String, ShopCatalog> catalogs = new ConcurrentHashMap<>();
+    
+    private static volatile ExecutorService writer;
+    
+    private final String worldName;
+    private final Path file;
+    
+    /**
+     * The open file and its record index; replaced as a whole when the file is compacted.
+     * Null until the writer thread has opened the file, or if it can't be used.
+     */
+    @Nullable
+    private volatile Storage storage;
+    
+    /**
+     * Packed position -> summary (or {@link #REMOVED}) queued but not written yet.
+     * A record moves from here to the storage's offsets under this map's lock.
+     */
+    private final Map<Long, ShopSummary> unwritten = new ConcurrentHashMap<>();
+    
+    /** Packed position -> decoded summary, access-ordered */
+    private final Map<Long, ShopSummary> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, ShopSummary> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    
+    private ShopCatalog(@Nonnull String worldName, @Nonnull Path file) {
+        this.worldName = worldName;
+        this.file = file;
+    }
+    
+    /**
+     * One open catalog file with the offsets of its latest records.
+     */
+    private static final class Storage {
+        
+        /** Read/write channel; written only by the writer thread, read with positional reads */
+        final FileChannel channel;
+        
+        /** Read-only view of (up to {@link #MAX_MAPPED} bytes of) the file as it was when opened */
+        final MappedByteBuffer mapped;
+        
+        /** Packed position -> offset of the shop's latest record */
+        final Map<Long, Long> offsets = new ConcurrentHashMap<>();
+        
+        /** End of the file, where the next record goes. Writer thread only after open. */
+        long end;
+        
+        /** Records in the file, including superseded ones. Writer thread only after open. */
+        int records;
+        
+        Storage(@Nonnull FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), MAX_MAPPED));
+        }
+        
+        /**
+         * Read bytes at an offset, from the mapping if they lie inside it, else from the channel.
+         */
+        @Nonnull
+        byte[] read(long position, int length) throws IOException {
+            byte[] bytes = new byte[length];
+            if (position + length <= mapped.limit()) {
+                mapped.get((int) position, bytes);
+                return bytes;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException("Unexpected end of catalog file");
+                }
+            }
+            return bytes;
+        }
+        
+        /**
+         * Length of the payload of the record at an offset.
+         */
+        int payloadLength(long position) throws IOException {
+            return ByteBuffer.wrap(read(position, 4)).getInt();
+        }
+        
+        /**
+         * Superseded records outnumber live ones by enough to be worth a rewrite.
+         */
+        boolean needsCompaction() {
+            int superseded = records - offsets.size();
+            return superseded > COMPACT_THRESHOLD && superseded > offsets.size();
+        }
+    }
+    
+    // --- Lifecycle ---
+    
+    /**
+     * Start the writer thread and open the catalog of every world seen before,
+     * seeding the search index with their shops. Call once on plugin start.
+     */
+    public static synchronized void start() {
+        if (writer != null) {
+            return;
+        }
+        writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "BarterChest-Catalog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        if (!Files.isDirectory(CATALOG_DIR)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(CATALOG_DIR, "*.dat")) {
+            for (Path path : files) {
+                String worldName = readWorldName(path);
+                ShopCatalog catalog = worldName != null ? new ShopCatalog(worldName, path) : null;
+                if (catalog != null && catalog.openFile(false)) {
+                    catalogs.put(catalog.worldName, catalog);
+                    catalog.forEach(summary -> ShopSearchIndex.seed(catalog.worldName, summary));
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.at(Level.WARNING).log("Failed to list shop catalogs: " + e.getMessage());
+        }
+        LOGGER.at(Level.INFO).log("Opened %d shop catalogs", catalogs.size());
+    }
+    
+    /**
+     * Write everything still queued and close all catalogs. Call on plugin shutdown.
+     */
+    public static synchronized void stop() {
+        ExecutorService executor = writer;
+        if (executor == null) {
+            return;
+        }
+        writer = null;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                LOGGER.at(Level.WARNING).log("Shop catalog writes did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        for (ShopCatalog catalog : catalogs.values()) {
+            catalog.close();
+        }
+        catalogs.clear();
+    }
+    
+    /**
+     * Get the catalog of a world, or null if no shop of that world was ever recorded.
+     */
+    @Nullable
+    public static ShopCatalog get(@Nonnull String worldName) {
+        return catalogs.get(worldName);
+    }
+    
+    /**
+     * Get the catalog of a world, creating it if needed. A new catalog's file is opened by
+     * the writer thread ahead of its first write, so the caller never waits for disk.
+     */
+    @Nonnull
+    private static ShopCatalog getOrOpen(@Nonnull String worldName) {
+        ShopCatalog catalog = catalogs.get(worldName);
+        if (catalog != null) {
+            return catalog;
+        }
+        
+        ShopCatalog created = new ShopCatalog(worldName, CATALOG_DIR.resolve(fileName(worldName)));
+        catalog = catalogs.putIfAbsent(worldName, created);
+        if (catalog != null) {
+            return catalog;
+        }
+        submit(() -> created.openFile(true));
+        return created;
+    }
+    
+    // --- Change tracking ---
+    
+    /**
+     * {@link ShopSnapshots.Listener}: record a shop's new snapshot, or its removal.
+     * The write happens in the background, and only if the summary differs from the recorded one.
+     */
+    public static void onShopChanged(@Nonnull String worldName, int x, int y, int z, @Nullable ShopSnapshot snapshot) {
+        if (writer == null) {
+            return;
+        }
+        long key = ShopIndex.pack(x, y, z);
+        if (snapshot != null) {
+            getOrOpen(worldName).put(key, ShopSummary.of(snapshot));
+        } else {
+            ShopCatalog catalog = catalogs.get(worldName);
+            if (catalog != null) {
+                catalog.delete(key);
+            }
+        }
+    }
+    
+    // --- Queries ---
+    
+    /**
+     * Get the last known summary of the shop at a position, or null if none is recorded.
+     * May read from disk on a cache miss; never loads chunks.
+     */
+    @Nullable
+    public ShopSummary get(int x, int y, int z) {
+        long key = ShopIndex.pack(x, y, z);
+        ShopSummary summary = unwritten.get(key);
+        if (summary != null) {
+            return summary != REMOVED ? summary : null;
+        }
+        
+        synchronized (cache) {
+            summary = cache.get(key);
+        }
+        if (summary != null) {
+            return summary;
+        }
+        
+        summary = readLatest(key);
+        if (summary != null) {
+            synchronized (cache) {
+                cache.put(key, summary);
+            }
+        }
+        return summary;
+    }
+    
+    /**
+     * Visit every recorded shop. Decodes straight from disk without filling the cache,
+     * so scanning a large catalog doesn't evict the hot entries.
+     */
+    public void forEach(@Nonnull Consumer<ShopSummary> action) {
+        Storage current = storage;
+        Map<Long, Long> offsets = current != null ? current.offsets : Collections.emptyMap();
+        for (Long key : offsets.keySet()) {
+            ShopSummary summary = unwritten.get(key);
+            if (summary == null) {
+                summary = readLatest(key);
+            }
+            if (summary != null && summary != REMOVED) {
+                action.accept(summary);
+            }
+        }
+        for (ShopSummary summary : unwritten.values()) {
+            if (summary != REMOVED && !offsets.containsKey(ShopIndex.pack(summary.getX(), summary.getY(), summary.getZ()))) {
+                action.accept(summary);
+            }
+        }
+    }
+    
+    /**
+     * Number of recorded shops.
+     */
+    public int size() {
+        Storage current = storage;
+        return current != null ? current.offsets.size() : 0;
+    }
+    
+    @Nonnull
+    public String getWorldName() {
+        return worldName;
+    }
+    
+    // --- Writes ---
+    
+    /**
+     * Queue a summary unless it equals the one held in memory. Runs on the world thread, so
+     * it never reads the file: a shop whose summary is only on disk is simply written again.
+     */
+    private void put(long key, @Nonnull ShopSummary summary) {
+        ShopSummary known = unwritten.get(key);
+        if (known == null) {
+            synchronized (cache) {
+                known = cache.get(key);
+            }
+        }
+        if (summary.equals(known)) {
+            return; // Nothing changed that the catalog records
+        }
+        unwritten.put(key, summary);
+        synchronized (cache) {
+            cache.put(key, summary);
+        }
+        submit(() -> append(key, summary));
+    }
+    
+    private void delete(long key) {
+        // Under the lock append() publishes records with, so a record being written is
+        // seen either as queued or as recorded
+        synchronized (unwritten) {
+            Storage current = storage;
+            if (!unwritten.containsKey(key) && (current == null || !current.offsets.containsKey(key))) {
+                return;
+            }
+            unwritten.put(key, REMOVED);
+        }
+        synchronized (cache) {
+            cache.remove(key);
+        }
+        submit(() -> append(key, REMOVED));
+    }
+    
+    private static void submit(@Nonnull Runnable write) {
+        ExecutorService executor = writer;
+        if (executor != null) {
+            executor.execute(write);
+        }
+    }
+    
+    /**
+     * Append one record, compacting the file once superseded records dominate. Writer thread only.
+     */
+    private void append(long key, @Nonnull ShopSummary summary) {
+        Storage current = storage;
+        if (current == null) {
+            unwritten.remove(key, summary); // The file couldn't be opened
+            return;
+        }
+        
+        long offset = current.end;
+        try {
+            byte[] payload = summary != REMOVED ? encode(summary) : new byte[0];
+            ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + payload.length);
+            record.putInt(payload.length).putLong(key).put(summary != REMOVED ? 0 : FLAG_REMOVED).put(payload).flip();
+            
+            while (record.hasRemaining()) {
+                current.channel.write(record, offset + record.position());
+            }
+            current.end += record.limit();
+            current.records++;
+        } catch (IOException e) {
+            LOGGER.at(Level.WARNING).log("Failed to write shop catalog for %s: %s", worldName, e.getMessage());
+            unwritten.remove(key, summary);
+            return;
+        }
+        
+        synchronized (unwritten) {
+            if (summary != REMOVED) {
+                current.offsets.put(key, offset);
+            } else {
+                current.offsets.remove(key);
+            }
+            unwritten.remove(key, summary);
+        }
+        
+        if (current.needsCompaction()) {
+            try {
+                compact();
+            } catch (IOException e) {
+                LOGGER.at(Level.WARNING).log("Failed to compact shop catalog for %s: %s", worldName, e.getMessage());
+            }
+        }
+    }
+    
+    // --- File format ---
+    
+    /**
+     * Read the world name from a catalog file's header.
+     * 
+     * @return the name, or null if the file is not a catalog
+     */
+    @Nullable
+    private static String readWorldName(@Nonnull Path path) {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            if (in.readInt() != MAGIC) {
+                LOGGER.at(Level.WARNING).log("Ignoring invalid shop catalog " + path);
+                return null;
+            }
+            byte[] name = new byte[in.readUnsignedShort()];
+            in.readFully(name);
+            return new String(name, StandardCharsets.UTF_8);
+        } catch (EOFException e) {
+            LOGGER.at(Level.WARNING).log("Ignoring invalid shop catalog " + path);
+            return null;
+        } catch (IOException e) {
+            LOGGER.at(Level.WARNING).log("Failed to open shop catalog %s: %s", path, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Open (or create) this catalog's file: map it, index its records, drop a torn tail
+     * and compact it if most records are superseded. Writer thread only, after start.
+     * 
+     * @param create write a new file if there is none
+     * @return false if the file can't be used
+     */
+    private boolean openFile(boolean create) {
+        try {
+            Files.createDirectories(file.getParent());
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            
+            ByteBuffer expected = header(worldName);
+            if (channel.size() == 0) {
+                if (!create) {
+                    channel.close();
+                    return false;
+                }
+                while (expected.hasRemaining()) {
+                    channel.write(expected);
+                }
+                expected.rewind();
+            }
+            
+            // Also catches two worlds whose names map to the same file name
+            Storage opened = new Storage(channel);
+            if (channel.size() < expected.limit()
+                    || !ByteBuffer.wrap(opened.read(0, expected.limit())).equals(expected)) {
+                LOGGER.at(Level.WARNING).log("Ignoring shop catalog %s, it is not the catalog of %s", file, worldName);
+                channel.close();
+                return false;
+            }
+            
+            scan(opened, expected.limit());
+            storage = opened;
+            
+            if (opened.needsCompaction()) {
+                compact();
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.at(Level.WARNING).log("Failed to open shop catalog %s: %s", file, e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Index the record headers of a file. Truncates a partially written last record.
+     */
+    private void scan(@Nonnull Storage storage, long start) throws IOException {
+        long size = storage.channel.size();
+        long position = start;
+        while (position + RECORD_HEADER <= size) {
+            ByteBuffer header = ByteBuffer.wrap(storage.read(position, RECORD_HEADER));
+            int length = header.getInt(0);
+            if (length < 0 || position + RECORD_HEADER + length > size) {
+                break; // Torn write at the end, e.g. the server was killed mid-append
+            }
+            long key = header.getLong(4);
+            if ((header.get(12) & FLAG_REMOVED) != 0) {
+                storage.offsets.remove(key);
+            } else {
+                storage.offsets.put(key, position);
+            }
+            storage.records++;
+            position += RECORD_HEADER + length;
+        }
+        
+        storage.end = position;
+        if (position < size) {
+            LOGGER.at(Level.WARNING).log("Dropping %d bytes of incomplete records from %s", size - position, file);
+            storage.channel.truncate(position);
+        }
+    }
+    
+    /**
+     * Rewrite the file with only the latest record of every shop, then switch to the new file.
+     * Readers still on the old file finish there or retry on the new one. Writer thread only after open.
+     */
+    private void compact() throws IOException {
+        Storage old = storage;
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = header(worldName);
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            for (long offset : old.offsets.values()) {
+                ByteBuffer record = ByteBuffer.wrap(old.read(offset, RECORD_HEADER + old.payloadLength(offset)));
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+            }
+        }
+        
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        
+        Storage compacted = new Storage(FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        scan(compacted, header(worldName).limit());
+        storage = compacted;
+        old.channel.close();
+        LOGGER.at(Level.INFO).log("Compacted shop catalog %s: %d -> %d records", worldName, old.records, compacted.records);
+    }
+    
+    /**
+     * Decode the latest record of a shop, or return null if it has none.
+     * Retries on the new file if the file was compacted during the read.
+     */
+    @Nullable
+    private ShopSummary readLatest(long key) {
+        while (true) {
+            Storage current = storage;
+            Long offset = current != null ? current.offsets.get(key) : null;
+            if (offset == null) {
+                return null;
+            }
+            try {
+                byte[] payload = current.read(offset + RECORD_HEADER, current.payloadLength(offset));
+                return ShopSummary.read(new DataInputStream(new ByteArrayInputStream(payload)));
+            } catch (IOException e) {
+                if (current != storage) {
+                    continue; // Compacted meanwhile; the old channel is closed
+                }
+                LOGGER.at(Level.WARNING).log("Failed to read shop catalog for %s: %s", worldName, e.getMessage());
+                return null;
+            }
+        }
+    }
+    
+    private void close() {
+        Storage current = storage;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.channel.close();
+        } catch (IOException e) {
+            LOGGER.at(Level.WARNING).log("Failed to close shop catalog for %s: %s", worldName, e.getMessage());
+        }
+    }
+    
+    @Nonnull
+    private static byte[] encode(@Nonnull ShopSummary summary) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        summary.write(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+    
+    @Nonnull
+    private static ByteBuffer header(@Nonnull String worldName) {
+        byte[] name = worldName.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(6 + name.length);
+        header.putInt(MAGIC).putShort((short) name.length).put(name).flip();
+        return header;
+    }
+    
+    /**
+     * File name for a world, with anything unsafe in a path replaced.
+     */
+    @Nonnull
+    private static String fileName(@Nonnull String worldName) {
+        return worldName.replaceAll("[^A-Za-z0-9_-]", "_") + ".dat";
+    }
+}
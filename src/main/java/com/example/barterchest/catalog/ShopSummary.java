@@ -0,0 +1,224 @@
+package com.example.barterchest.catalog;
+
+import com.example.barterchest.state.ShopSnapshot;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * What the catalog knows about one shop: where it is, who owns it and what it
+ * trades, with the stock as of the shop's last change. Immutable.
+ */
+public final class ShopSummary {
+    
+    private final int x;
+    private final int y;
+    private final int z;
+    private final UUID ownerUUID;
+    private final String ownerName;
+    private final String shopName;
+    private final List<ListingSummary> listings;
+    
+    /**
+     * One traded item of a shop.
+     */
+    public static final class ListingSummary {
+        private final int slot;
+        private final String itemId;
+        private final String currencyItemId;
+        private final int buyPrice;
+        private final int sellPrice;
+        private final int stock;
+        
+        ListingSummary(int slot, @Nonnull String itemId, @Nullable String currencyItemId,
+                       int buyPrice, int sellPrice, int stock) {
+            this.slot = slot;
+            this.itemId = itemId;
+            this.currencyItemId = currencyItemId;
+            this.buyPrice = buyPrice;
+            this.sellPrice = sellPrice;
+            this.stock = stock;
+        }
+        
+        public int getSlot() {
+            return slot;
+        }
+        
+        @Nonnull
+        public String getItemId() {
+            return itemId;
+        }
+        
+        @Nullable
+        public String getCurrencyItemId() {
+            return currencyItemId;
+        }
+        
+        public int getBuyPrice() {
+            return buyPrice;
+        }
+        
+        public int getSellPrice() {
+            return sellPrice;
+        }
+        
+        public int getStock() {
+            return stock;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ListingSummary other)) return false;
+            return slot == other.slot && buyPrice == other.buyPrice && sellPrice == other.sellPrice
+                && stock == other.stock && itemId.equals(other.itemId)
+                && Objects.equals(currencyItemId, other.currencyItemId);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(slot, itemId, currencyItemId, buyPrice, sellPrice, stock);
+        }
+    }
+    
+    ShopSummary(int x, int y, int z, @Nullable UUID ownerUUID, @Nonnull String ownerName,
+                @Nullable String shopName, @Nonnull List<ListingSummary> listings) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.ownerUUID = ownerUUID;
+        this.ownerName = ownerName;
+        this.shopName = shopName;
+        this.listings = listings;
+    }
+    
+    /**
+     * Summarize a shop snapshot. Listings without an item or without any price are left out.
+     */
+    @Nonnull
+    public static ShopSummary of(@Nonnull ShopSnapshot snapshot) {
+        List<ListingSummary> listings = new ArrayList<>(snapshot.getListings().size());
+        for (ShopSnapshot.ListingSnapshot listing : snapshot.getListings()) {
+            String itemId = listing.getItemId();
+            if (itemId == null || itemId.isEmpty() || (listing.getBuyPrice() <= 0 && listing.getSellPrice() <= 0)) {
+                continue;
+            }
+            listings.add(new ListingSummary(listing.getSlot(), itemId, listing.getCurrencyItemId(),
+                listing.getBuyPrice(), listing.getSellPrice(), listing.getStock()));
+        }
+        return new ShopSummary(snapshot.getX(), snapshot.getY(), snapshot.getZ(), snapshot.getOwnerUUID(),
+            snapshot.getOwnerName(), snapshot.getShopName(), Collections.unmodifiableList(listings));
+    }
+    
+    public int getX() {
+        return x;
+    }
+    
+    public int getY() {
+        return y;
+    }
+    
+    public int getZ() {
+        return z;
+    }
+    
+    @Nullable
+    public UUID getOwnerUUID() {
+        return ownerUUID;
+    }
+    
+    @Nonnull
+    public String getOwnerName() {
+        return ownerName;
+    }
+    
+    @Nullable
+    public String getShopName() {
+        return shopName;
+    }
+    
+    /**
+     * Traded listings, in slot order.
+     */
+    @Nonnull
+    public List<ListingSummary> getListings() {
+        return listings;
+    }
+    
+    // --- Serialization (catalog record payload) ---
+    
+    void write(@Nonnull DataOutput out) throws IOException {
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeInt(z);
+        out.writeBoolean(ownerUUID != null);
+        if (ownerUUID != null) {
+            out.writeLong(ownerUUID.getMostSignificantBits());
+            out.writeLong(ownerUUID.getLeastSignificantBits());
+        }
+        out.writeUTF(ownerName);
+        writeNullable(out, shopName);
+        
+        out.writeShort(listings.size());
+        for (ListingSummary listing : listings) {
+            out.writeInt(listing.slot);
+            out.writeUTF(listing.itemId);
+            writeNullable(out, listing.currencyItemId);
+            out.writeInt(listing.buyPrice);
+            out.writeInt(listing.sellPrice);
+            out.writeInt(listing.stock);
+        }
+    }
+    
+    @Nonnull
+    static ShopSummary read(@Nonnull DataInput in) throws IOException {
+        int x = in.readInt();
+        int y = in.readInt();
+        int z = in.readInt();
+        UUID ownerUUID = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+        String ownerName = in.readUTF();
+        String shopName = readNullable(in);
+        
+        int count = in.readUnsignedShort();
+        List<ListingSummary> listings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            listings.add(new ListingSummary(in.readInt(), in.readUTF(), readNullable(in),
+                in.readInt(), in.readInt(), in.readInt()));
+        }
+        return new ShopSummary(x, y, z, ownerUUID, ownerName, shopName, Collections.unmodifiableList(listings));
+    }
+    
+    private static void writeNullable(@Nonnull DataOutput out, @Nullable String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+    
+    @Nullable
+    private static String readNullable(@Nonnull DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ShopSummary other)) return false;
+        return x == other.x && y == other.y && z == other.z && Objects.equals(ownerUUID, other.ownerUUID)
+            && ownerName.equals(other.ownerName) && Objects.equals(shopName, other.shopName)
+            && listings.equals(other.listings);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(x, y, z, ownerUUID, ownerName, shopName, listings);
+    }
+}
@@ -12,6 +12,11 @@ import java.util.concurrent.CompletableFuture;
  * Subcommands:
  * - admin: Toggle admin mode for shop management
  * - cleanup [radius]: Remove orphaned display items nearby
+ * - trace: Dump recent shop interaction traces
+ * - find <item>: Find the best shops for an item
+ * - stats: Show runtime metrics
+ * - profile <seconds>: Capture a tick cost profile
+ * - record <seconds>: Record a replayable trade trace
  */
 public class BarterChestCommand extends AbstractAsyncCommand {
     
@@ -21,6 +26,11 @@ public class BarterChestCommand extends AbstractAsyncCommand {
         // Register subcommands
         addSubCommand(new AdminCommand());
         addSubCommand(new CleanupCommand());
+        addSubCommand(new TraceCommand());
+        addSubCommand(new FindCommand());
+        addSubCommand(new StatsCommand());
+        addSubCommand(new ProfileCommand());
+        addSubCommand(new RecordCommand());
     }
     
     @Override
@@ -29,6 +39,11 @@ public class BarterChestCommand extends AbstractAsyncCommand {
         context.sendMessage(com.hypixel.hytale.server.core.Message.raw("BarterChest Commands:"));
         context.sendMessage(com.hypixel.hytale.server.core.Message.raw("  /barterchest admin - Toggle admin mode"));
         context.sendMessage(com.hypixel.hytale.server.core.Message.raw("  /barterchest cleanup - Refresh display for nearby shop"));
+        context.sendMessage(com.hypixel.hytale.server.core.Message.raw("  /barterchest trace - Dump recent interaction traces"));
+        context.sendMessage(com.hypixel.hytale.server.core.Message.raw("  /barterchest find <item> - Find the best shops for an item"));
+        context.sendMessage(com.hypixel.hytale.server.core.Message.raw("  /barterchest stats - Show runtime metrics"));
+        context.sendMessage(com.hypixel.hytale.server.core.Message.raw("  /barterchest profile <seconds> - Capture a tick cost profile"));
+        context.sendMessage(com.hypixel.hytale.server.core.Message.raw("  /barterchest record <seconds> - Record a replayable trade trace"));
         return CompletableFuture.completedFuture(null);
     }
 }
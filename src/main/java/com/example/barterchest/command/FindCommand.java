@@ -0,0 +1,105 @@
+package com.example.barterchest.command;
+
+import com.example.barterchest.core.index.OfferIndex;
+import com.example.barterchest.core.index.ShopOffer;
+import com.example.barterchest.i18n.ItemNames;
+import com.example.barterchest.search.ShopSearchIndex;
+import com.example.barterchest.ui.ShopSearchPage;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.CommandSender;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractAsyncCommand;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import java.awt.Color;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Subcommand: /barterchest find <item>
+ * 
+ * Finds the shops selling an item cheapest and buying it for the most, per currency.
+ * Players get the search page; the console gets the results in text.
+ * Answered from the search index, so no chunks are loaded.
+ */
+public class FindCommand extends AbstractAsyncCommand {
+    
+    /** Results per side and currency when printing to the console */
+    private static final int TEXT_RESULTS = 5;
+    
+    private final RequiredArg<String> itemArg;
+    
+    public FindCommand() {
+        super("find", "Find the best shops for an item");
+        itemArg = withRequiredArg("item", "Item ID or name, use _ for spaces", ArgTypes.STRING);
+    }
+    
+    @Nonnull
+    @Override
+    protected CompletableFuture<Void> executeAsync(CommandContext context) {
+        String query = context.get(itemArg);
+        String itemKey = ShopSearchIndex.resolveItem(query);
+        if (itemKey == null) {
+            context.sendMessage(Message.raw("No shop trades '" + query + "'.").color(Color.YELLOW));
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        CommandSender sender = context.sender();
+        if (sender instanceof Player player) {
+            Ref<EntityStore> ref = player.getReference();
+            if (ref != null && ref.isValid()) {
+                Store<EntityStore> store = ref.getStore();
+                World world = store.getExternalData().getWorld();
+                
+                // Pages must be opened on the world thread
+                return CompletableFuture.runAsync(() -> {
+                    PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
+                    if (playerRef != null) {
+                        player.getPageManager().openCustomPage(ref, store, new ShopSearchPage(playerRef, itemKey));
+                    }
+                }, world);
+            }
+        }
+        
+        String itemId = ShopSearchIndex.getItemId(itemKey);
+        String itemName = ItemNames.get(itemId != null ? itemId : itemKey);
+        
+        List<OfferIndex.CurrencyGroup> sellers = ShopSearchIndex.findSellers(itemKey, TEXT_RESULTS);
+        context.sendMessage(Message.raw("Selling " + itemName + ":").color(Color.GREEN));
+        sendOffers(context, sellers, false);
+        
+        List<OfferIndex.CurrencyGroup> buyers = ShopSearchIndex.findBuyers(itemKey, TEXT_RESULTS);
+        context.sendMessage(Message.raw("Buying " + itemName + ":").color(Color.GREEN));
+        sendOffers(context, buyers, true);
+        
+        return CompletableFuture.completedFuture(null);
+    }
+    
+    /**
+     * Print the offers of each currency under its own heading, best first within a currency.
+     */
+    private static void sendOffers(@Nonnull CommandContext context, @Nonnull List<OfferIndex.CurrencyGroup> groups,
+                                   boolean buying) {
+        if (groups.isEmpty()) {
+            context.sendMessage(Message.raw("  (none)").color(Color.GRAY));
+            return;
+        }
+        for (OfferIndex.CurrencyGroup group : groups) {
+            context.sendMessage(Message.raw("  For " + ShopSearchPage.formatCurrency(group.getCurrencyItemId()) + ":")
+                .color(Color.GRAY));
+            for (ShopOffer offer : group.getOffers()) {
+                String stock = buying ? "" : ", " + offer.getStock() + " in stock";
+                context.sendMessage(Message.raw("    " + ShopSearchPage.formatPrice(offer, buying) + " - "
+                    + offer.getOwnerName() + " at " + offer.getLocationText() + stock));
+            }
+        }
+    }
+}
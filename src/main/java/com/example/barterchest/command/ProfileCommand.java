@@ -0,0 +1,64 @@
+package com.example.barterchest.command;
+
+import com.example.barterchest.diagnostics.TickProfiler;
+import com.example.barterchest.state.BarterChestBlockState;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractAsyncCommand;
+
+import javax.annotation.Nonnull;
+import java.awt.Color;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Subcommand: /barterchest profile <seconds>
+ * 
+ * Times the plugin's systems and per-tick flushes for a while, then writes a report
+ * with per-system costs and the slowest events to the profiles folder and shows
+ * the per-system summary.
+ */
+public class ProfileCommand extends AbstractAsyncCommand {
+    
+    private final RequiredArg<Integer> secondsArg;
+    
+    public ProfileCommand() {
+        super("profile", "Profile the plugin's tick cost for a number of seconds");
+        requirePermission(BarterChestBlockState.ADMIN_PERMISSION);
+        secondsArg = withRequiredArg("seconds", "Capture length, 1-" + TickProfiler.MAX_SECONDS, ArgTypes.INTEGER);
+    }
+    
+    @Nonnull
+    @Override
+    protected CompletableFuture<Void> executeAsync(CommandContext context) {
+        int seconds = context.get(secondsArg);
+        if (seconds < 1 || seconds > TickProfiler.MAX_SECONDS) {
+            context.sendMessage(Message.raw("Seconds must be between 1 and " + TickProfiler.MAX_SECONDS + ".").color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        CompletableFuture<TickProfiler.Report> report = TickProfiler.start(seconds);
+        if (report == null) {
+            context.sendMessage(Message.raw("A profile is already running.").color(Color.YELLOW));
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        context.sendMessage(Message.raw("Profiling for " + seconds + " seconds...").color(Color.GREEN));
+        return report.handle((result, error) -> {
+            if (error != null) {
+                context.sendMessage(Message.raw("Could not write the profile: " + error.getMessage()).color(Color.RED));
+                return null;
+            }
+            
+            context.sendMessage(Message.raw("Profile written to " + result.file()).color(Color.GREEN));
+            // Header and the per-section table; the slowest events are in the file
+            for (String line : result.lines().subList(0, Math.min(result.lines().size(), 3 + TickProfiler.Section.values().length))) {
+                if (!line.isEmpty()) {
+                    context.sendMessage(Message.raw(line).color(Color.GRAY));
+                }
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.barterchest.command;
+
+import com.example.barterchest.diagnostics.TradeRecorder;
+import com.example.barterchest.state.BarterChestBlockState;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractAsyncCommand;
+
+import javax.annotation.Nonnull;
+import java.awt.Color;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Subcommand: /barterchest record <seconds>
+ * 
+ * Records every trade, with the shop and inventory state it started from, into a trace
+ * file in the traces folder, for replaying the workload offline.
+ */
+public class RecordCommand extends AbstractAsyncCommand {
+    
+    private final RequiredArg<Integer> secondsArg;
+    
+    public RecordCommand() {
+        super("record", "Record trades into a replayable trace for a number of seconds");
+        requirePermission(BarterChestBlockState.ADMIN_PERMISSION);
+        secondsArg = withRequiredArg("seconds", "Capture length, 1-" + TradeRecorder.MAX_SECONDS, ArgTypes.INTEGER);
+    }
+    
+    @Nonnull
+    @Override
+    protected CompletableFuture<Void> executeAsync(CommandContext context) {
+        int seconds = context.get(secondsArg);
+        if (seconds < 1 || seconds > TradeRecorder.MAX_SECONDS) {
+            context.sendMessage(Message.raw("Seconds must be between 1 and " + TradeRecorder.MAX_SECONDS + ".").color(Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        CompletableFuture<TradeRecorder.Summary> summary = TradeRecorder.start(seconds);
+        if (summary == null) {
+            context.sendMessage(Message.raw("A trade recording is already running.").color(Color.YELLOW));
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        context.sendMessage(Message.raw("Recording trades for " + seconds + " seconds...").color(Color.GREEN));
+        return summary.handle((result, error) -> {
+            if (error != null) {
+                context.sendMessage(Message.raw("Could not write the trace: " + error.getMessage()).color(Color.RED));
+                return null;
+            }
+            
+            context.sendMessage(Message.raw("Trace written to " + result.file()).color(Color.GREEN));
+            context.sendMessage(Message.raw(result.trades() + " trades, " + result.shops() + " shops, "
+                + result.customers() + " customers, " + (result.bytes() + 1023) / 1024 + " KB").color(Color.GRAY));
+            if (result.truncated()) {
+                context.sendMessage(Message.raw("The trace reached its size limit and stopped early.").color(Color.YELLOW));
+            }
+            return null;
+        });
+    }
+}
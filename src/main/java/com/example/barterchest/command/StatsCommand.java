@@ -0,0 +1,35 @@
+package com.example.barterchest.command;
+
+import com.example.barterchest.diagnostics.BarterMetrics;
+import com.example.barterchest.state.BarterChestBlockState;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractAsyncCommand;
+
+import javax.annotation.Nonnull;
+import java.awt.Color;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Subcommand: /barterchest stats
+ * 
+ * Shows the plugin's runtime metrics since startup: trades by result, latencies,
+ * display entity churn and dirty marks.
+ */
+public class StatsCommand extends AbstractAsyncCommand {
+    
+    public StatsCommand() {
+        super("stats", "Show BarterChest runtime metrics");
+        requirePermission(BarterChestBlockState.ADMIN_PERMISSION);
+    }
+    
+    @Nonnull
+    @Override
+    protected CompletableFuture<Void> executeAsync(CommandContext context) {
+        context.sendMessage(Message.raw("BarterChest stats since startup:").color(Color.GREEN));
+        for (String line : BarterMetrics.summary()) {
+            context.sendMessage(Message.raw("  " + line).color(Color.GRAY));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.barterchest.command;
+
+import com.example.barterchest.diagnostics.InteractTrace;
+import com.example.barterchest.state.BarterChestBlockState;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.CommandSender;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractAsyncCommand;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+
+import javax.annotation.Nonnull;
+import java.awt.Color;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+/**
+ * Subcommand: /barterchest trace
+ * 
+ * Dumps the recent block interaction traces of all players to the server log,
+ * and shows the caller their own trace in chat.
+ */
+public class TraceCommand extends AbstractAsyncCommand {
+    
+    private static final HytaleLogger LOGGER = HytaleLogger.get("BarterChest/Trace");
+    
+    public TraceCommand() {
+        super("trace", "Dump recent shop interaction traces to the server log");
+        requirePermission(BarterChestBlockState.ADMIN_PERMISSION);
+    }
+    
+    @Nonnull
+    @Override
+    protected CompletableFuture<Void> executeAsync(CommandContext context) {
+        Map<UUID, List<String>> traces = InteractTrace.dumpAll();
+        
+        int entries = 0;
+        for (Map.Entry<UUID, List<String>> trace : traces.entrySet()) {
+            LOGGER.at(Level.INFO).log("Interaction trace for %s (%d entries):", trace.getKey(), trace.getValue().size());
+            for (String line : trace.getValue()) {
+                LOGGER.at(Level.INFO).log("  %s", line);
+            }
+            entries += trace.getValue().size();
+        }
+        
+        context.sendMessage(Message.raw("Dumped " + entries + " trace entries for " + traces.size() + " players to the server log.").color(Color.GREEN));
+        
+        // Show the caller their own trace
+        CommandSender sender = context.sender();
+        if (sender instanceof Player) {
+            List<String> own = traces.get(sender.getUuid());
+            if (own != null) {
+                for (String line : own) {
+                    context.sendMessage(Message.raw(line).color(Color.GRAY));
+                }
+            }
+        }
+        
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.barterchest.config;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.server.core.Constants;
 
 import java.io.Reader;
@@ -9,19 +10,28 @@ import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
 
 /**
  * Configuration manager for BarterChest plugin.
  * Handles loading and saving of currency options and other settings.
+ * 
+ * Each loaded config is an immutable snapshot: it is parsed and validated off to the
+ * side and then published with a single volatile write, so readers never lock and
+ * never see a half-loaded config. {@link ConfigWatcher} reloads it when the file changes.
  */
 public class BarterConfig {
     
-    private static final Path CONFIG_DIR = Constants.UNIVERSE_PATH.resolve("BarterChest");
-    private static final Path CONFIG_FILE = CONFIG_DIR.resolve("config.json");
+    static final Path CONFIG_DIR = Constants.UNIVERSE_PATH.resolve("BarterChest");
+    static final Path CONFIG_FILE = CONFIG_DIR.resolve("config.json");
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final HytaleLogger LOGGER = HytaleLogger.get("BarterChest/Config");
     
-    private static BarterConfig instance;
+    private static volatile BarterConfig instance;
     
     // Configuration fields
     private String defaultCurrency = "Ingredient_Bar_Copper";
@@ -39,6 +49,13 @@ public class BarterConfig {
     private int craftingOutputQuantity = 1;
     private List<CraftingIngredient> craftingRecipe = new ArrayList<>();
     
+    // Diagnostics
+    private int metricsDumpIntervalSeconds = 15;
+    private double tradeAuditSampleRate = 0.01;
+    
+    /** Currency item ID -> configured display name, built by {@link #validate()} (not serialized) */
+    private transient Map<String, String> currencyNames = new HashMap<>();
+    
     public static class CurrencyOption {
         public String itemId;
         public String displayName;
@@ -75,11 +92,20 @@ public class BarterConfig {
         craftingRecipe.add(new CraftingIngredient("Ingredient_Bar_Gold", 1));
     }
     
+    /**
+     * Get the current config snapshot. Never blocks once the first config is loaded.
+     */
     public static BarterConfig get() {
-        if (instance == null) {
-            load();
+        BarterConfig config = instance;
+        if (config == null) {
+            synchronized (BarterConfig.class) {
+                if (instance == null) {
+                    load();
+                }
+                config = instance;
+            }
         }
-        return instance;
+        return config;
     }
     
     /**
@@ -89,69 +115,141 @@ public class BarterConfig {
         return get();
     }
     
-    public static void load() {
+    /**
+     * Load the config file, writing the defaults if it doesn't exist yet.
+     * Falls back to the defaults if the file can't be read.
+     */
+    public static synchronized void load() {
         if (Files.exists(CONFIG_FILE)) {
-            try (Reader reader = Files.newBufferedReader(CONFIG_FILE)) {
-                instance = GSON.fromJson(reader, BarterConfig.class);
-                if (instance == null) {
-                    instance = new BarterConfig();
-                }
-                // Ensure defaults are set if missing
-                if (instance.defaultCurrencies == null || instance.defaultCurrencies.isEmpty()) {
-                    instance.defaultCurrencies = new ArrayList<>();
-                    instance.defaultCurrencies.add(new CurrencyOption("Ingredient_Bar_Copper", "Copper Bar"));
-                    instance.defaultCurrencies.add(new CurrencyOption("Ingredient_Bar_Iron", "Iron Bar"));
-                    instance.defaultCurrencies.add(new CurrencyOption("Ingredient_Bar_Silver", "Silver Bar"));
-                    instance.defaultCurrencies.add(new CurrencyOption("Ingredient_Bar_Gold", "Gold Bar"));
-                }
-                if (instance.defaultCurrency == null) {
-                    instance.defaultCurrency = "Ingredient_Bar_Copper";
-                }
-                if (instance.licenseItemModel == null) {
-                    instance.licenseItemModel = "Items/Ingredient_Fabric_Scrap_Linen.fbx";
-                }
-                if (instance.licenseItemTexture == null) {
-                    instance.licenseItemTexture = "Items/Ingredient_Fabric_Scrap_Linen.png";
-                }
-                if (instance.licenseItemName == null) {
-                    instance.licenseItemName = "Barter License";
-                }
-                if (instance.licenseItemDescription == null) {
-                    instance.licenseItemDescription = "Use on a chest to create a barter shop";
-                }
-                // Crafting defaults
-                if (instance.craftingStation == null) {
-                    instance.craftingStation = "Workbench";
-                }
-                if (instance.craftingRecipe == null || instance.craftingRecipe.isEmpty()) {
-                    instance.craftingRecipe = new ArrayList<>();
-                    instance.craftingRecipe.add(new CraftingIngredient("Ingredient_Fabric_Scrap_Linen", 5));
-                    instance.craftingRecipe.add(new CraftingIngredient("Ingredient_Bar_Gold", 1));
-                }
-                if (instance.craftingOutputQuantity <= 0) {
-                    instance.craftingOutputQuantity = 1;
-                }
-                System.out.println("[BarterChest] Loaded config from " + CONFIG_FILE);
+            try {
+                instance = read();
+                LOGGER.at(Level.INFO).log("Loaded config from %s", CONFIG_FILE);
             } catch (Exception e) {
-                System.err.println("[BarterChest] Error loading config: " + e.getMessage());
-                instance = new BarterConfig();
+                LOGGER.at(Level.WARNING).log("Error loading config, using defaults: %s", e.getMessage());
+                instance = new BarterConfig().validate();
             }
         } else {
-            instance = new BarterConfig();
+            instance = new BarterConfig().validate();
             save();
         }
     }
     
-    public static void save() {
+    /**
+     * Re-read the config file and publish it if it is valid.
+     * On error the current config stays in place.
+     * 
+     * @return true if a new config was published
+     */
+    public static synchronized boolean reload() {
+        try {
+            instance = read();
+            LOGGER.at(Level.INFO).log("Reloaded config from %s", CONFIG_FILE);
+            return true;
+        } catch (Exception e) {
+            LOGGER.at(Level.WARNING).log("Keeping previous config, error reloading: %s", e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Parse and validate the config file into a new snapshot.
+     */
+    private static BarterConfig read() throws Exception {
+        try (Reader reader = Files.newBufferedReader(CONFIG_FILE)) {
+            BarterConfig config = GSON.fromJson(reader, BarterConfig.class);
+            if (config == null) {
+                config = new BarterConfig();
+            }
+            return config.validate();
+        }
+    }
+    
+    /**
+     * Fill in missing values, drop invalid entries, precompute lookups and freeze the lists.
+     * Runs before the snapshot is published, never after.
+     */
+    private BarterConfig validate() {
+        // Ensure defaults are set if missing
+        List<CurrencyOption> currencies = new ArrayList<>();
+        Map<String, String> names = new HashMap<>();
+        if (defaultCurrencies != null) {
+            for (CurrencyOption currency : defaultCurrencies) {
+                if (currency == null || currency.itemId == null || currency.itemId.isBlank()
+                        || names.containsKey(currency.itemId)) {
+                    continue; // Skip invalid and duplicate entries
+                }
+                currencies.add(currency);
+                if (currency.displayName != null && !currency.displayName.isBlank()) {
+                    names.put(currency.itemId, currency.displayName);
+                }
+            }
+        }
+        if (currencies.isEmpty()) {
+            for (CurrencyOption currency : new BarterConfig().defaultCurrencies) {
+                currencies.add(currency);
+                names.put(currency.itemId, currency.displayName);
+            }
+        }
+        defaultCurrencies = Collections.unmodifiableList(currencies);
+        currencyNames = names;
+        
+        if (defaultCurrency == null || defaultCurrency.isBlank()) {
+            defaultCurrency = "Ingredient_Bar_Copper";
+        }
+        if (licenseItemModel == null) {
+            licenseItemModel = "Items/Ingredient_Fabric_Scrap_Linen.fbx";
+        }
+        if (licenseItemTexture == null) {
+            licenseItemTexture = "Items/Ingredient_Fabric_Scrap_Linen.png";
+        }
+        if (licenseItemName == null) {
+            licenseItemName = "Barter License";
+        }
+        if (licenseItemDescription == null) {
+            licenseItemDescription = "Use on a chest to create a barter shop";
+        }
+        
+        // Crafting defaults
+        if (craftingStation == null) {
+            craftingStation = "Workbench";
+        }
+        List<CraftingIngredient> recipe = new ArrayList<>();
+        if (craftingRecipe != null) {
+            for (CraftingIngredient ingredient : craftingRecipe) {
+                if (ingredient != null && ingredient.itemId != null && ingredient.quantity > 0) {
+                    recipe.add(ingredient);
+                }
+            }
+        }
+        if (recipe.isEmpty()) {
+            recipe.add(new CraftingIngredient("Ingredient_Fabric_Scrap_Linen", 5));
+            recipe.add(new CraftingIngredient("Ingredient_Bar_Gold", 1));
+        }
+        craftingRecipe = Collections.unmodifiableList(recipe);
+        if (craftingOutputQuantity <= 0) {
+            craftingOutputQuantity = 1;
+        }
+        if (metricsDumpIntervalSeconds < 0) {
+            metricsDumpIntervalSeconds = 0;
+        }
+        if (!(tradeAuditSampleRate >= 0)) {
+            tradeAuditSampleRate = 0;
+        } else if (tradeAuditSampleRate > 1) {
+            tradeAuditSampleRate = 1;
+        }
+        return this;
+    }
+    
+    public static synchronized void save() {
         if (instance == null) return;
         try {
             Files.createDirectories(CONFIG_DIR);
             try (Writer writer = Files.newBufferedWriter(CONFIG_FILE)) {
                 GSON.toJson(instance, writer);
-                System.out.println("[BarterChest] Saved config to " + CONFIG_FILE);
+                LOGGER.at(Level.INFO).log("Saved config to %s", CONFIG_FILE);
             }
         } catch (Exception e) {
-            System.err.println("[BarterChest] Error saving config: " + e.getMessage());
+            LOGGER.at(Level.WARNING).log("Error saving config: %s", e.getMessage());
         }
     }
     
@@ -159,82 +257,56 @@ public class BarterConfig {
         return defaultCurrency;
     }
     
-    public void setDefaultCurrency(String defaultCurrency) {
-        this.defaultCurrency = defaultCurrency;
-    }
-    
     public List<CurrencyOption> getDefaultCurrencies() {
         return defaultCurrencies;
     }
     
-    public void setDefaultCurrencies(List<CurrencyOption> currencies) {
-        this.defaultCurrencies = currencies;
-    }
-    
     public String getLicenseItemModel() {
         return licenseItemModel;
     }
     
-    public void setLicenseItemModel(String licenseItemModel) {
-        this.licenseItemModel = licenseItemModel;
-    }
-    
     public String getLicenseItemTexture() {
         return licenseItemTexture;
     }
     
-    public void setLicenseItemTexture(String licenseItemTexture) {
-        this.licenseItemTexture = licenseItemTexture;
-    }
-    
     public String getLicenseItemName() {
         return licenseItemName;
     }
     
-    public void setLicenseItemName(String licenseItemName) {
-        this.licenseItemName = licenseItemName;
-    }
-    
     public String getLicenseItemDescription() {
         return licenseItemDescription;
     }
     
-    public void setLicenseItemDescription(String licenseItemDescription) {
-        this.licenseItemDescription = licenseItemDescription;
-    }
-    
-    // Crafting getters/setters
+    // Crafting getters
     
     public boolean isCraftingEnabled() {
         return craftingEnabled;
     }
     
-    public void setCraftingEnabled(boolean craftingEnabled) {
-        this.craftingEnabled = craftingEnabled;
-    }
-    
     public String getCraftingStation() {
         return craftingStation;
     }
     
-    public void setCraftingStation(String craftingStation) {
-        this.craftingStation = craftingStation;
-    }
-    
     public int getCraftingOutputQuantity() {
         return craftingOutputQuantity;
     }
     
-    public void setCraftingOutputQuantity(int craftingOutputQuantity) {
-        this.craftingOutputQuantity = craftingOutputQuantity;
-    }
-    
     public List<CraftingIngredient> getCraftingRecipe() {
         return craftingRecipe;
     }
     
-    public void setCraftingRecipe(List<CraftingIngredient> craftingRecipe) {
-        this.craftingRecipe = craftingRecipe;
+    /**
+     * Seconds between Prometheus metrics dumps, or 0 to not write them.
+     */
+    public int getMetricsDumpIntervalSeconds() {
+        return metricsDumpIntervalSeconds;
+    }
+    
+    /**
+     * Fraction of trades whose item and currency movements are verified, from 0 (none) to 1 (all).
+     */
+    public double getTradeAuditSampleRate() {
+        return tradeAuditSampleRate;
     }
     
     /**
@@ -245,46 +317,10 @@ public class BarterConfig {
     }
     
     /**
-     * Get the display name for a currency item ID.
-     * Returns the configured display name if found, otherwise formats the item ID.
+     * Get the display name configured for a currency item ID, or null if there is none.
+     * Use {@link com.example.barterchest.i18n.ItemNames} to get the name to show.
      */
-    public String getCurrencyDisplayName(String itemId) {
-        if (itemId == null || itemId.isEmpty()) {
-            return "Unknown";
-        }
-        
-        // Check configured currencies
-        for (CurrencyOption currency : defaultCurrencies) {
-            if (currency.itemId != null && currency.itemId.equals(itemId)) {
-                return currency.displayName;
-            }
-        }
-        
-        // Format the item ID as a display name
-        // Remove namespace prefix if present
-        String name = itemId;
-        if (name.contains(":")) {
-            name = name.substring(name.indexOf(":") + 1);
-        }
-        
-        // Replace underscores with spaces and title case
-        name = name.replace("_", " ");
-        
-        // Simple title case
-        StringBuilder result = new StringBuilder();
-        boolean capitalizeNext = true;
-        for (char c : name.toCharArray()) {
-            if (Character.isWhitespace(c)) {
-                capitalizeNext = true;
-                result.append(c);
-            } else if (capitalizeNext) {
-                result.append(Character.toUpperCase(c));
-                capitalizeNext = false;
-            } else {
-                result.append(Character.toLowerCase(c));
-            }
-        }
-        
-        return result.toString();
+    public String getConfiguredCurrencyName(String itemId) {
+        return itemId != null ? currencyNames.get(itemId) : null;
     }
 }
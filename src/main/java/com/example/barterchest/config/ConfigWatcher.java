@@ -0,0 +1,110 @@
+package com.example.barterchest.config;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Watches config.json and reloads {@link BarterConfig} when it changes.
+ * 
+ * Runs on its own daemon thread. Editors often write a file in several steps,
+ * so a change is only picked up once the file has been quiet for a moment.
+ */
+public class ConfigWatcher {
+    
+    private static final HytaleLogger LOGGER = HytaleLogger.get("BarterChest/Config");
+    
+    /** Wait this long after the last change before reloading */
+    private static final long SETTLE_MILLIS = 250;
+    
+    private static WatchService watchService;
+    private static Thread thread;
+    
+    /**
+     * Start watching the config file. Does nothing if already running.
+     */
+    public static synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        
+        try {
+            Files.createDirectories(BarterConfig.CONFIG_DIR);
+            watchService = BarterConfig.CONFIG_DIR.getFileSystem().newWatchService();
+            BarterConfig.CONFIG_DIR.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            LOGGER.at(Level.WARNING).log("Config hot reload disabled: %s", e.getMessage());
+            return;
+        }
+        
+        thread = new Thread(() -> run(watchService), "BarterChest-ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Stop watching the config file.
+     */
+    public static synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // Closing anyway
+        }
+        thread.interrupt();
+        thread = null;
+        watchService = null;
+    }
+    
+    private static void run(WatchService service) {
+        Path fileName = BarterConfig.CONFIG_FILE.getFileName();
+        
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = service.take();
+                boolean changed = containsConfigFile(key, fileName);
+                key.reset();
+                if (!changed) {
+                    continue;
+                }
+                
+                // Let the writer finish, swallowing the follow-up events it causes
+                WatchKey next;
+                while ((next = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    next.pollEvents();
+                    next.reset();
+                }
+                
+                if (BarterConfig.reload()) {
+                    LOGGER.at(Level.INFO).log("Applied changes from %s", BarterConfig.CONFIG_FILE);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+    
+    private static boolean containsConfigFile(WatchKey key, Path fileName) {
+        boolean found = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (fileName.equals(event.context())) {
+                found = true;
+            }
+        }
+        return found;
+    }
+}
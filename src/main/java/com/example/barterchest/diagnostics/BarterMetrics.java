@@ -0,0 +1,200 @@
+package com.example.barterchest.diagnostics;
+
+import com.example.barterchest.core.trade.TransactionResult;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime metrics of the plugin: trade results and latencies, protection check
+ * latency, UI build times, display entity churn, dirty marks and trade audits.
+ * 
+ * Counters are {@link LongAdder}s and latencies go into {@link LatencyHistogram}s,
+ * so recording from world threads never contends. Read through
+ * {@code /barterchest stats} and the Prometheus dump written by {@link MetricsExporter}.
+ */
+public final class BarterMetrics {
+    
+    private static final TransactionResult.Status[] STATUSES = TransactionResult.Status.values();
+    
+    /** Trades by result status */
+    private static final LongAdder[] trades = new LongAdder[STATUSES.length];
+    
+    static {
+        for (int i = 0; i < trades.length; i++) {
+            trades[i] = new LongAdder();
+        }
+    }
+    
+    /** Duration of a buy or sell, from request to result */
+    public static final LatencyHistogram TRADE_LATENCY = new LatencyHistogram();
+    
+    /** Duration of a shop creation protection check, cached or not */
+    public static final LatencyHistogram PROTECTION_CHECK_LATENCY = new LatencyHistogram();
+    
+    /** Duration of a shop page build or delta update, until the commands are ready to send */
+    public static final LatencyHistogram SHOP_PAGE_BUILD = new LatencyHistogram();
+    
+    /** Duration of a config page build or delta update, until the commands are ready to send */
+    public static final LatencyHistogram CONFIG_PAGE_BUILD = new LatencyHistogram();
+    
+    private static final LongAdder displaySpawns = new LongAdder();
+    private static final LongAdder displayRemovals = new LongAdder();
+    private static final LongAdder dirtyMarks = new LongAdder();
+    private static final LongAdder tradeAudits = new LongAdder();
+    private static final LongAdder tradeAuditViolations = new LongAdder();
+    
+    private BarterMetrics() {
+    }
+    
+    /**
+     * Record a finished trade.
+     */
+    public static void recordTrade(@Nonnull TransactionResult.Status status, long nanos) {
+        trades[status.ordinal()].increment();
+        TRADE_LATENCY.record(nanos);
+    }
+    
+    public static void recordDisplaySpawn() {
+        displaySpawns.increment();
+    }
+    
+    public static void recordDisplayRemoval() {
+        displayRemovals.increment();
+    }
+    
+    public static void recordDirtyMark() {
+        dirtyMarks.increment();
+    }
+    
+    /**
+     * Record a sampled trade audit.
+     * 
+     * @param violated true if the trade didn't move exactly what it reported
+     */
+    public static void recordTradeAudit(boolean violated) {
+        tradeAudits.increment();
+        if (violated) {
+            tradeAuditViolations.increment();
+        }
+    }
+    
+    public static long getTrades(@Nonnull TransactionResult.Status status) {
+        return trades[status.ordinal()].sum();
+    }
+    
+    /**
+     * Human-readable summary, one line per metric, for chat and the console.
+     */
+    @Nonnull
+    public static List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        
+        long total = 0;
+        StringBuilder byStatus = new StringBuilder();
+        for (TransactionResult.Status status : STATUSES) {
+            long count = getTrades(status);
+            total += count;
+            if (count > 0) {
+                byStatus.append(byStatus.isEmpty() ? " (" : ", ")
+                    .append(status.name().toLowerCase(Locale.ROOT)).append(' ').append(count);
+            }
+        }
+        if (!byStatus.isEmpty()) {
+            byStatus.append(')');
+        }
+        lines.add("Trades: " + total + byStatus);
+        lines.add(latencyLine("Trade latency", TRADE_LATENCY));
+        lines.add(latencyLine("Protection checks", PROTECTION_CHECK_LATENCY));
+        lines.add(latencyLine("Shop page builds", SHOP_PAGE_BUILD));
+        lines.add(latencyLine("Config page builds", CONFIG_PAGE_BUILD));
+        lines.add("Displays: " + displaySpawns.sum() + " spawned, " + displayRemovals.sum() + " removed");
+        lines.add("Dirty marks: " + dirtyMarks.sum());
+        lines.add("Trade audits: " + tradeAudits.sum() + " sampled, " + tradeAuditViolations.sum() + " violations");
+        return lines;
+    }
+    
+    @Nonnull
+    private static String latencyLine(@Nonnull String label, @Nonnull LatencyHistogram histogram) {
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        if (snapshot.getCount() == 0) {
+            return label + ": none";
+        }
+        return label + ": p50 " + formatNanos(snapshot.getPercentile(0.5))
+            + ", p99 " + formatNanos(snapshot.getPercentile(0.99))
+            + ", max " + formatNanos(snapshot.getMax())
+            + " (" + snapshot.getCount() + ")";
+    }
+    
+    @Nonnull
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000_000) {
+            return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+        }
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1e6);
+    }
+    
+    /**
+     * Write all metrics in the Prometheus text exposition format.
+     * Latencies are summaries in seconds with p50, p90, p99 and p99.9 quantiles.
+     */
+    public static void writePrometheus(@Nonnull StringBuilder out) {
+        out.append("# HELP barterchest_trades_total Shop trades by result status.\n");
+        out.append("# TYPE barterchest_trades_total counter\n");
+        for (TransactionResult.Status status : STATUSES) {
+            out.append("barterchest_trades_total{status=\"").append(status.name().toLowerCase(Locale.ROOT))
+                .append("\"} ").append(getTrades(status)).append('\n');
+        }
+        
+        writeSummary(out, "barterchest_trade_duration_seconds", "Duration of shop trades.", "", TRADE_LATENCY);
+        writeSummary(out, "barterchest_protection_check_duration_seconds",
+            "Duration of shop creation protection checks.", "", PROTECTION_CHECK_LATENCY);
+        
+        out.append("# HELP barterchest_ui_build_duration_seconds Duration of full UI page builds.\n");
+        out.append("# TYPE barterchest_ui_build_duration_seconds summary\n");
+        writeSummaryValues(out, "barterchest_ui_build_duration_seconds", "page=\"shop\"", SHOP_PAGE_BUILD);
+        writeSummaryValues(out, "barterchest_ui_build_duration_seconds", "page=\"config\"", CONFIG_PAGE_BUILD);
+        
+        writeCounter(out, "barterchest_display_spawns_total", "Floating display entities spawned.", displaySpawns);
+        writeCounter(out, "barterchest_display_removals_total", "Floating display entities removed.", displayRemovals);
+        writeCounter(out, "barterchest_dirty_marks_total", "Shop state changes marked for saving.", dirtyMarks);
+        writeCounter(out, "barterchest_trade_audits_total", "Trades whose item movements were verified.", tradeAudits);
+        writeCounter(out, "barterchest_trade_audit_violations_total",
+            "Audited trades that duplicated or lost items or currency.", tradeAuditViolations);
+    }
+    
+    private static void writeCounter(@Nonnull StringBuilder out, @Nonnull String name, @Nonnull String help,
+                                     @Nonnull LongAdder counter) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        out.append(name).append(' ').append(counter.sum()).append('\n');
+    }
+    
+    private static void writeSummary(@Nonnull StringBuilder out, @Nonnull String name, @Nonnull String help,
+                                     @Nonnull String labels, @Nonnull LatencyHistogram histogram) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" summary\n");
+        writeSummaryValues(out, name, labels, histogram);
+    }
+    
+    private static void writeSummaryValues(@Nonnull StringBuilder out, @Nonnull String name,
+                                           @Nonnull String labels, @Nonnull LatencyHistogram histogram) {
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (double quantile : new double[] {0.5, 0.9, 0.99, 0.999}) {
+            out.append(name).append("{").append(prefix).append("quantile=\"").append(quantile).append("\"} ")
+                .append(seconds(snapshot.getPercentile(quantile))).append('\n');
+        }
+        String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(suffix).append(' ').append(seconds(snapshot.getSum())).append('\n');
+        out.append(name).append("_count").append(suffix).append(' ').append(snapshot.getCount()).append('\n');
+    }
+    
+    @Nonnull
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.barterchest.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for spawning the floating item display above a shop.
+ */
+@Name("barterchest.DisplaySpawn")
+@Label("Shop Display Spawn")
+@Category("BarterChest")
+@Description("The floating item entity above a shop being created")
+@StackTrace(false)
+public class DisplaySpawnEvent extends Event {
+    
+    @Label("World")
+    public String world;
+    
+    @Label("X")
+    public int x;
+    
+    @Label("Y")
+    public int y;
+    
+    @Label("Z")
+    public int z;
+    
+    @Label("Item")
+    public String itemId;
+}
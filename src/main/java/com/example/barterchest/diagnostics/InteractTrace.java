@@ -0,0 +1,155 @@
+package com.example.barterchest.diagnostics;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Per-player trace of recent block interactions seen by the interact system.
+ * 
+ * Recording only stores a few primitives into a fixed-size ring buffer, nothing is
+ * formatted until an admin dumps the trace. Interactions with shops are always
+ * recorded; interactions with other blocks are sampled (1 in {@link #SAMPLE_EVERY} at
+ * random, decided before any lock is taken) so busy servers don't pay for them.
+ */
+public final class InteractTrace {
+    
+    /** What the interact system did with an event */
+    public enum Outcome {
+        /** Block is not a shop, event left alone */
+        NOT_SHOP,
+        /** Manager crouching, default chest access */
+        CHEST_ACCESS,
+        /** Config page opened */
+        CONFIG_PAGE,
+        /** Shop page opened */
+        SHOP_PAGE
+    }
+    
+    /** Entries kept per player */
+    private static final int CAPACITY = 32;
+    
+    /** Record one in this many non-shop interactions */
+    private static final int SAMPLE_EVERY = 16;
+    
+    /** Players traced at once; the least recently active player is dropped first */
+    private static final int MAX_PLAYERS = 256;
+    
+    private static final Map<UUID, Ring> rings = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Ring> eldest) {
+            return size() > MAX_PLAYERS;
+        }
+    };
+    
+    private InteractTrace() {
+    }
+    
+    /**
+     * Record an interaction. Cheap enough to call for every block use.
+     * 
+     * @param wasCancelled true if another system had cancelled the event before we saw it
+     */
+    public static void record(@Nonnull UUID playerUUID, int x, int y, int z,
+                              @Nonnull Outcome outcome, boolean wasCancelled) {
+        if (outcome == Outcome.NOT_SHOP && ThreadLocalRandom.current().nextInt(SAMPLE_EVERY) != 0) {
+            return;
+        }
+        
+        Ring ring;
+        synchronized (rings) {
+            ring = rings.get(playerUUID);
+            if (ring == null) {
+                ring = new Ring();
+                rings.put(playerUUID, ring);
+            }
+        }
+        ring.add(x, y, z, outcome, wasCancelled);
+    }
+    
+    /**
+     * Format the trace of one player, oldest entry first.
+     */
+    @Nonnull
+    public static List<String> dump(@Nonnull UUID playerUUID) {
+        Ring ring;
+        synchronized (rings) {
+            ring = rings.get(playerUUID);
+        }
+        return ring != null ? ring.format() : new ArrayList<>();
+    }
+    
+    /**
+     * Format the traces of all players, keyed by player UUID.
+     */
+    @Nonnull
+    public static Map<UUID, List<String>> dumpAll() {
+        Map<UUID, Ring> copy;
+        synchronized (rings) {
+            copy = new LinkedHashMap<>(rings);
+        }
+        
+        Map<UUID, List<String>> result = new LinkedHashMap<>();
+        for (Map.Entry<UUID, Ring> entry : copy.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().format());
+        }
+        return result;
+    }
+    
+    /**
+     * Drop a player's trace, e.g. when they disconnect.
+     */
+    public static void clear(@Nonnull UUID playerUUID) {
+        synchronized (rings) {
+            rings.remove(playerUUID);
+        }
+    }
+    
+    /**
+     * Fixed-size ring of trace entries stored as parallel primitive arrays.
+     */
+    private static final class Ring {
+        
+        private final long[] time = new long[CAPACITY];
+        private final int[] x = new int[CAPACITY];
+        private final int[] y = new int[CAPACITY];
+        private final int[] z = new int[CAPACITY];
+        private final byte[] outcome = new byte[CAPACITY];
+        private final boolean[] cancelled = new boolean[CAPACITY];
+        
+        private int next = 0;
+        private int size = 0;
+        
+        synchronized void add(int bx, int by, int bz, Outcome result, boolean wasCancelled) {
+            time[next] = System.currentTimeMillis();
+            x[next] = bx;
+            y[next] = by;
+            z[next] = bz;
+            outcome[next] = (byte) result.ordinal();
+            cancelled[next] = wasCancelled;
+            
+            next = (next + 1) % CAPACITY;
+            if (size < CAPACITY) {
+                size++;
+            }
+        }
+        
+        synchronized List<String> format() {
+            List<String> lines = new ArrayList<>(size);
+            Outcome[] outcomes = Outcome.values();
+            long now = System.currentTimeMillis();
+            
+            for (int i = 0; i < size; i++) {
+                int slot = (next - size + i + CAPACITY) % CAPACITY;
+                lines.add(String.format("-%.1fs %d,%d,%d %s%s",
+                    (now - time[slot]) / 1000.0, x[slot], y[slot], z[slot],
+                    outcomes[outcome[slot]], cancelled[slot] ? " (was cancelled)" : ""));
+            }
+            return lines;
+        }
+    }
+}
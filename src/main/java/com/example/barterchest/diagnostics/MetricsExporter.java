@@ -0,0 +1,95 @@
+package com.example.barterchest.diagnostics;
+
+import com.example.barterchest.config.BarterConfig;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.Constants;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Level;
+
+/**
+ * Periodically writes {@link BarterMetrics} in the Prometheus text format to
+ * {@code <universe>/BarterChest/metrics.prom}, for node_exporter's textfile collector
+ * or any scraper that reads files.
+ * 
+ * Runs on its own daemon thread. The file is replaced atomically, so readers never
+ * see a partial dump. The interval comes from {@code metricsDumpIntervalSeconds}
+ * and is re-read after every dump, so config reloads apply; 0 pauses the dump.
+ */
+public class MetricsExporter {
+    
+    private static final HytaleLogger LOGGER = HytaleLogger.get("BarterChest/Metrics");
+    
+    static final Path METRICS_FILE = Constants.UNIVERSE_PATH.resolve("BarterChest").resolve("metrics.prom");
+    
+    /** How often to look at the config again while the dump is paused */
+    private static final long PAUSED_POLL_MILLIS = 5_000;
+    
+    private static Thread thread;
+    
+    /**
+     * Start the periodic dump. Does nothing if already running.
+     */
+    public static synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        
+        thread = new Thread(MetricsExporter::run, "BarterChest-Metrics");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Stop the periodic dump, writing one last time so the file has the final values.
+     */
+    public static synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        
+        thread.interrupt();
+        thread = null;
+        if (BarterConfig.get().getMetricsDumpIntervalSeconds() > 0) {
+            write();
+        }
+    }
+    
+    private static void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                int interval = BarterConfig.get().getMetricsDumpIntervalSeconds();
+                if (interval <= 0) {
+                    Thread.sleep(PAUSED_POLL_MILLIS);
+                    continue;
+                }
+                
+                Thread.sleep(interval * 1_000L);
+                write();
+            }
+        } catch (InterruptedException e) {
+            // Stopped
+        }
+    }
+    
+    /**
+     * Write the current metrics to the metrics file.
+     */
+    static void write() {
+        StringBuilder out = new StringBuilder(4096);
+        BarterMetrics.writePrometheus(out);
+        
+        try {
+            Files.createDirectories(METRICS_FILE.getParent());
+            Path temp = METRICS_FILE.resolveSibling(METRICS_FILE.getFileName() + ".tmp");
+            Files.writeString(temp, out, StandardCharsets.UTF_8);
+            Files.move(temp, METRICS_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.at(Level.WARNING).log("Could not write %s: %s", METRICS_FILE, e.getMessage());
+        }
+    }
+}
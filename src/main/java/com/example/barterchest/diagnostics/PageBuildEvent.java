@@ -0,0 +1,35 @@
+package com.example.barterchest.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a full build of a shop or config page.
+ */
+@Name("barterchest.PageBuild")
+@Label("Shop Page Build")
+@Category("BarterChest")
+@Description("A full build of the shop page or the shop config page")
+@StackTrace(false)
+public class PageBuildEvent extends Event {
+    
+    @Label("Page")
+    @Description("\"shop\" or \"config\"")
+    public String page;
+    
+    @Label("World")
+    public String world;
+    
+    @Label("X")
+    public int x;
+    
+    @Label("Y")
+    public int y;
+    
+    @Label("Z")
+    public int z;
+}
@@ -0,0 +1,37 @@
+package com.example.barterchest.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a shop creation protection check.
+ */
+@Name("barterchest.ProtectionCheck")
+@Label("Shop Protection Check")
+@Category("BarterChest")
+@Description("Whether a player may create a shop at a location, from the cache or the protection providers")
+@StackTrace(false)
+public class ProtectionCheckEvent extends Event {
+    
+    @Label("Player")
+    public String player;
+    
+    @Label("Dimension")
+    public String dimension;
+    
+    @Label("X")
+    public int x;
+    
+    @Label("Z")
+    public int z;
+    
+    @Label("Providers")
+    public int providers;
+    
+    @Label("Allowed")
+    public boolean allowed;
+}
@@ -0,0 +1,236 @@
+package com.example.barterchest.diagnostics;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.Constants;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Opt-in timing of the plugin's per-tick work, for attributing tick spikes.
+ * 
+ * While a capture runs, every event handled by the plugin's ECS systems and every
+ * per-tick flush is timed: count, total and maximum per {@link Section}, plus the
+ * slowest events with their position. When the capture ends, a report is written to
+ * {@code <universe>/BarterChest/profiles/}.
+ * 
+ * Callers check {@link #isCapturing()} before reading the clock, so with no capture
+ * running the cost is one volatile read per event.
+ */
+public final class TickProfiler {
+    
+    private static final HytaleLogger LOGGER = HytaleLogger.get("BarterChest/Profiler");
+    
+    private static final Path PROFILES_DIR = Constants.UNIVERSE_PATH.resolve("BarterChest").resolve("profiles");
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    /** Longest capture allowed */
+    public static final int MAX_SECONDS = 600;
+    
+    /** Slowest events kept per capture */
+    private static final int TOP_EVENTS = 20;
+    
+    /**
+     * Timed units of work.
+     */
+    public enum Section {
+        INTERACT("BarterInteractSystem"),
+        DAMAGE_PROTECTION("BarterBreakProtectionSystem"),
+        BREAK_PROTECTION("BreakBlockProtectionSystem"),
+        MERGE_PROTECTION("BarterChestMergeProtectionSystem"),
+        SNAPSHOT_FLUSH("ShopSnapshots flush"),
+        PAGE_REFRESH("ShopViewerRegistry flush");
+        
+        private final String label;
+        
+        Section(String label) {
+            this.label = label;
+        }
+        
+        @Nonnull
+        public String getLabel() {
+            return label;
+        }
+    }
+    
+    /**
+     * Result of a finished capture.
+     */
+    public record Report(@Nonnull Path file, @Nonnull List<String> lines) {
+    }
+    
+    /** Running capture, or null */
+    private static volatile Capture capture;
+    
+    private TickProfiler() {
+    }
+    
+    /**
+     * Check if a capture is running. Cheap enough to call for every event.
+     */
+    public static boolean isCapturing() {
+        return capture != null;
+    }
+    
+    /**
+     * Record a timed event at a block. Does nothing if no capture is running.
+     */
+    public static void record(@Nonnull Section section, long nanos, @Nonnull World world, @Nullable Vector3i position) {
+        Capture current = capture;
+        if (current != null) {
+            current.record(section, nanos, world.getName(), position);
+        }
+    }
+    
+    /**
+     * Start a capture of the given length.
+     * 
+     * @return Completes with the report once the capture ends, or null if a capture is already running
+     */
+    @Nullable
+    public static synchronized CompletableFuture<Report> start(int seconds) {
+        if (capture != null) {
+            return null;
+        }
+        
+        capture = new Capture(seconds);
+        LOGGER.at(Level.INFO).log("Tick profile started for %d seconds", seconds);
+        return CompletableFuture.supplyAsync(TickProfiler::finish,
+            CompletableFuture.delayedExecutor(seconds, TimeUnit.SECONDS));
+    }
+    
+    @Nonnull
+    private static Report finish() {
+        Capture finished;
+        synchronized (TickProfiler.class) {
+            finished = capture;
+            capture = null;
+        }
+        
+        List<String> lines = finished.report();
+        Path file = PROFILES_DIR.resolve("profile-" + FILE_TIME.format(finished.startedAt) + ".txt");
+        try {
+            Files.createDirectories(PROFILES_DIR);
+            Files.write(file, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOGGER.at(Level.WARNING).log("Could not write tick profile %s: %s", file, e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+        
+        LOGGER.at(Level.INFO).log("Tick profile written to %s", file);
+        return new Report(file, lines);
+    }
+    
+    /**
+     * One of the slowest events of a capture.
+     */
+    private record SlowEvent(Section section, long nanos, String worldName, boolean positioned, int x, int y, int z) {
+    }
+    
+    /**
+     * Measurements of one capture. Recorded from any world thread.
+     */
+    private static final class Capture {
+        
+        private final int seconds;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        
+        private final LongAdder[] counts = new LongAdder[Section.values().length];
+        private final LongAdder[] totals = new LongAdder[Section.values().length];
+        private final LongAccumulator[] maxima = new LongAccumulator[Section.values().length];
+        
+        /** Slowest events, fastest first. Guarded by itself. */
+        private final PriorityQueue<SlowEvent> slowest = new PriorityQueue<>(Comparator.comparingLong(SlowEvent::nanos));
+        
+        /** Events at or below this can't make the top list, so they skip the lock */
+        private volatile long slowThreshold = 0;
+        
+        Capture(int seconds) {
+            this.seconds = seconds;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+                totals[i] = new LongAdder();
+                maxima[i] = new LongAccumulator(Math::max, 0);
+            }
+        }
+        
+        void record(@Nonnull Section section, long nanos, @Nonnull String worldName, @Nullable Vector3i position) {
+            int i = section.ordinal();
+            counts[i].increment();
+            totals[i].add(nanos);
+            maxima[i].accumulate(nanos);
+            
+            if (nanos > slowThreshold) {
+                synchronized (slowest) {
+                    slowest.add(position != null
+                        ? new SlowEvent(section, nanos, worldName, true, position.getX(), position.getY(), position.getZ())
+                        : new SlowEvent(section, nanos, worldName, false, 0, 0, 0));
+                    if (slowest.size() > TOP_EVENTS) {
+                        slowest.poll();
+                    }
+                    if (slowest.size() == TOP_EVENTS) {
+                        slowThreshold = slowest.peek().nanos();
+                    }
+                }
+            }
+        }
+        
+        @Nonnull
+        List<String> report() {
+            double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+            List<String> lines = new ArrayList<>();
+            lines.add(String.format(Locale.ROOT, "BarterChest tick profile, %d s requested, %.1f s captured, started %s",
+                seconds, elapsedSeconds, startedAt));
+            lines.add("");
+            lines.add(String.format(Locale.ROOT, "%-34s %10s %12s %10s %10s %10s",
+                "Section", "Events", "Total ms", "Mean us", "Max us", "ms/s"));
+            
+            for (Section section : Section.values()) {
+                int i = section.ordinal();
+                long count = counts[i].sum();
+                long total = totals[i].sum();
+                lines.add(String.format(Locale.ROOT, "%-34s %10d %12.3f %10.1f %10.1f %10.3f",
+                    section.getLabel(), count, total / 1e6, count > 0 ? total / 1e3 / count : 0.0,
+                    maxima[i].get() / 1e3, total / 1e6 / Math.max(elapsedSeconds, 1e-9)));
+            }
+            
+            List<SlowEvent> events;
+            synchronized (slowest) {
+                events = new ArrayList<>(slowest);
+            }
+            events.sort(Comparator.comparingLong(SlowEvent::nanos).reversed());
+            
+            lines.add("");
+            lines.add("Slowest events:");
+            if (events.isEmpty()) {
+                lines.add("  none");
+            }
+            for (SlowEvent event : events) {
+                String where = event.positioned() ? event.x() + ", " + event.y() + ", " + event.z() : "-";
+                lines.add(String.format(Locale.ROOT, "  %10.1f us  %-34s %s @ %s",
+                    event.nanos() / 1e3, event.section().getLabel(), event.worldName(), where));
+            }
+            return lines;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.barterchest.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a buy or sell, from request to result.
+ */
+@Name("barterchest.Trade")
+@Label("Shop Trade")
+@Category("BarterChest")
+@Description("A customer buying from or selling to a shop")
+@StackTrace(false)
+public class TradeEvent extends Event {
+    
+    @Label("World")
+    public String world;
+    
+    @Label("X")
+    public int x;
+    
+    @Label("Y")
+    public int y;
+    
+    @Label("Z")
+    public int z;
+    
+    @Label("Buying")
+    @Description("True if the customer bought from the shop, false if they sold to it")
+    public boolean buying;
+    
+    @Label("Item")
+    public String itemId;
+    
+    @Label("Currency")
+    public String currencyItemId;
+    
+    @Label("Requested Quantity")
+    public int requestedQuantity;
+    
+    @Label("Quantity")
+    @Description("Items that changed hands")
+    public int quantity;
+    
+    @Label("Status")
+    public String status;
+}
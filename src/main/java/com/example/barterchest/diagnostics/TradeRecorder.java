@@ -0,0 +1,456 @@
+package com.example.barterchest.diagnostics;
+
+import com.example.barterchest.core.trade.TransactionResult;
+import com.example.barterchest.state.BarterChestBlockState;
+import com.example.barterchest.state.BarterListing;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.Constants;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Opt-in recording of trades into a {@link TradeTrace}, for replaying a live server's
+ * workload offline.
+ * 
+ * While a capture runs, every trade through the transaction manager is written along with
+ * the shop's listings, the shop's chest and the customer's inventory as they were when it
+ * started. Listings and containers are only written when they changed since the last
+ * trade that touched them, e.g. after a config save or a restock. When the capture ends,
+ * the trace is written to {@code <universe>/BarterChest/traces/}.
+ * 
+ * Only item IDs and quantities are kept, not durability or other stack metadata, and
+ * customers are numbered rather than identified.
+ */
+public final class TradeRecorder {
+    
+    private static final HytaleLogger LOGGER = HytaleLogger.get("BarterChest/Recorder");
+    
+    private static final Path TRACES_DIR = Constants.UNIVERSE_PATH.resolve("BarterChest").resolve("traces");
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    /** Longest capture allowed */
+    public static final int MAX_SECONDS = 3_600;
+    
+    /** Uncompressed trace size at which a capture stops recording early */
+    private static final int MAX_BYTES = 64 * 1024 * 1024;
+    
+    /**
+     * Result of a finished capture.
+     * 
+     * @param truncated true if the capture hit the size limit before its time was up
+     */
+    public record Summary(@Nonnull Path file, int trades, int shops, int customers, long bytes, boolean truncated) {
+    }
+    
+    /**
+     * A trade whose starting state was recorded, to be finished with {@link #afterTrade}.
+     */
+    public static final class Pending {
+        
+        private final Capture capture;
+        private final TrackedShop shop;
+        private final TrackedCustomer customer;
+        private final ItemContainer chest;
+        private final ItemContainer inventory;
+        
+        private Pending(@Nonnull Capture capture, @Nonnull TrackedShop shop, @Nonnull TrackedCustomer customer,
+                        @Nonnull ItemContainer chest, @Nonnull ItemContainer inventory) {
+            this.capture = capture;
+            this.shop = shop;
+            this.customer = customer;
+            this.chest = chest;
+            this.inventory = inventory;
+        }
+    }
+    
+    /** Running capture, or null */
+    private static volatile Capture capture;
+    
+    private TradeRecorder() {
+    }
+    
+    /**
+     * Check if a capture is running. Cheap enough to call for every trade.
+     */
+    public static boolean isRecording() {
+        return capture != null;
+    }
+    
+    /**
+     * Record the state a trade starts from. Call on the world thread, right before the trade.
+     * 
+     * @return Pass to {@link #afterTrade} once the trade is done, or null if nothing is recording
+     */
+    @Nullable
+    public static Pending beforeTrade(@Nonnull BarterChestBlockState shop, @Nonnull ItemContainer customerInventory) {
+        Capture current = capture;
+        ItemContainer chest = shop.getItemContainer();
+        if (current == null || chest == null) {
+            return null;
+        }
+        return current.beforeTrade(shop, chest, customerInventory);
+    }
+    
+    /**
+     * Record the outcome of a trade started with {@link #beforeTrade}.
+     */
+    public static void afterTrade(@Nonnull Pending pending, @Nonnull BarterListing listing, boolean buying,
+                                  int quantity, @Nonnull TransactionResult result, long nanos) {
+        pending.capture.afterTrade(pending, listing, buying, quantity, result, nanos);
+    }
+    
+    /**
+     * Start a capture of the given length.
+     * 
+     * @return Completes with a summary once the trace is written, or null if a capture is already running
+     */
+    @Nullable
+    public static synchronized CompletableFuture<Summary> start(int seconds) {
+        if (capture != null) {
+            return null;
+        }
+        
+        capture = new Capture();
+        LOGGER.at(Level.INFO).log("Trade recording started for %d seconds", seconds);
+        return CompletableFuture.supplyAsync(TradeRecorder::finish,
+            CompletableFuture.delayedExecutor(seconds, TimeUnit.SECONDS));
+    }
+    
+    @Nonnull
+    private static Summary finish() {
+        Capture finished;
+        synchronized (TradeRecorder.class) {
+            finished = capture;
+            capture = null;
+        }
+        
+        Path file = TRACES_DIR.resolve("trades-" + FILE_TIME.format(finished.startedAt) + ".trace.gz");
+        Summary summary;
+        try {
+            Files.createDirectories(TRACES_DIR);
+            summary = finished.writeTo(file);
+        } catch (IOException e) {
+            LOGGER.at(Level.WARNING).log("Could not write trade trace %s: %s", file, e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+        
+        LOGGER.at(Level.INFO).log("Trade trace with %d trades written to %s", summary.trades(), file);
+        return summary;
+    }
+    
+    /**
+     * Recorded state of a shop, to tell whether it changed between trades.
+     */
+    private static final class TrackedShop {
+        
+        private final int id;
+        private List<BarterListing> listings = List.of();
+        private final ContainerCopy chest = new ContainerCopy();
+        
+        private TrackedShop(int id) {
+            this.id = id;
+        }
+    }
+    
+    /**
+     * Recorded state of a customer's inventory.
+     */
+    private static final class TrackedCustomer {
+        
+        private final int id;
+        private final ContainerCopy inventory = new ContainerCopy();
+        
+        private TrackedCustomer(int id) {
+            this.id = id;
+        }
+    }
+    
+    /**
+     * Item IDs and quantities of a container's slots.
+     */
+    private static final class ContainerCopy {
+        
+        private String[] itemIds = new String[0];
+        private int[] quantities = new int[0];
+        
+        boolean matches(@Nonnull ItemContainer container) {
+            short capacity = container.getCapacity();
+            if (capacity != itemIds.length) {
+                return false;
+            }
+            for (short i = 0; i < capacity; i++) {
+                ItemStack stack = container.getItemStack(i);
+                if (stack == null || ItemStack.isEmpty(stack)) {
+                    if (itemIds[i] != null) {
+                        return false;
+                    }
+                } else if (!stack.getItemId().equals(itemIds[i]) || stack.getQuantity() != quantities[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        void copy(@Nonnull ItemContainer container) {
+            short capacity = container.getCapacity();
+            if (capacity != itemIds.length) {
+                itemIds = new String[capacity];
+                quantities = new int[capacity];
+            }
+            for (short i = 0; i < capacity; i++) {
+                ItemStack stack = container.getItemStack(i);
+                boolean empty = stack == null || ItemStack.isEmpty(stack);
+                itemIds[i] = empty ? null : stack.getItemId();
+                quantities[i] = empty ? 0 : stack.getQuantity();
+            }
+        }
+    }
+    
+    /**
+     * An in-memory trace being recorded. Trades come from every world thread, so all
+     * writes happen under the capture's lock.
+     */
+    private static final class Capture {
+        
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        
+        private final Map<String, Integer> strings = new HashMap<>();
+        
+        /** Shops by world and position; detached shops by their block state */
+        private final Map<Object, TrackedShop> shops = new HashMap<>();
+        
+        /** Customers by inventory; the same player trades through the same container */
+        private final Map<ItemContainer, TrackedCustomer> customers = new IdentityHashMap<>();
+        
+        private long lastNanos = System.nanoTime();
+        private int trades = 0;
+        private boolean truncated = false;
+        private boolean closed = false;
+        
+        private Capture() {
+            try {
+                out.writeInt(TradeTrace.MAGIC);
+                out.writeByte(TradeTrace.VERSION);
+                out.writeLong(System.currentTimeMillis());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        @Nullable
+        synchronized Pending beforeTrade(@Nonnull BarterChestBlockState shop, @Nonnull ItemContainer chest,
+                                         @Nonnull ItemContainer inventory) {
+            if (closed) {
+                return null;
+            }
+            try {
+                TrackedShop trackedShop = shop(shop);
+                if (!sameListings(trackedShop.listings, shop.getListings())) {
+                    writeListings(trackedShop, shop.getListings());
+                }
+                if (!trackedShop.chest.matches(chest)) {
+                    writeContainer(TradeTrace.TAG_SHOP_CHEST, trackedShop.id, chest);
+                    trackedShop.chest.copy(chest);
+                }
+                
+                TrackedCustomer customer = customers.get(inventory);
+                if (customer == null) {
+                    customer = new TrackedCustomer(customers.size());
+                    customers.put(inventory, customer);
+                }
+                if (!customer.inventory.matches(inventory)) {
+                    writeContainer(TradeTrace.TAG_CUSTOMER_INVENTORY, customer.id, inventory);
+                    customer.inventory.copy(inventory);
+                }
+                return new Pending(this, trackedShop, customer, chest, inventory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        synchronized void afterTrade(@Nonnull Pending pending, @Nonnull BarterListing listing, boolean buying,
+                                     int quantity, @Nonnull TransactionResult result, long nanos) {
+            if (closed) {
+                return;
+            }
+            try {
+                int status = string(result.getStatus().name());
+                writeHeader(TradeTrace.TAG_TRADE);
+                TradeTrace.writeVarInt(out, pending.shop.id);
+                TradeTrace.writeVarInt(out, pending.customer.id);
+                TradeTrace.writeVarInt(out, listing.getSlot());
+                out.writeBoolean(buying);
+                TradeTrace.writeVarInt(out, quantity);
+                TradeTrace.writeVarInt(out, status);
+                TradeTrace.writeVarInt(out, result.getQuantityTransacted());
+                TradeTrace.writeVarLong(out, nanos);
+                trades++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            
+            // What the trade left behind is what the replay will have too
+            pending.shop.chest.copy(pending.chest);
+            pending.customer.inventory.copy(pending.inventory);
+            
+            if (bytes.size() >= MAX_BYTES) {
+                truncated = true;
+                closed = true;
+                LOGGER.at(Level.WARNING).log("Trade recording reached %d MB and stopped early", MAX_BYTES / (1024 * 1024));
+            }
+        }
+        
+        @Nonnull
+        private TrackedShop shop(@Nonnull BarterChestBlockState shop) throws IOException {
+            World world = shop.getShopWorld();
+            Vector3i position = shop.getShopPosition();
+            Object key = world != null && position != null
+                ? world.getName() + ":" + position.getX() + "," + position.getY() + "," + position.getZ()
+                : shop;
+            
+            TrackedShop tracked = shops.get(key);
+            if (tracked == null) {
+                tracked = new TrackedShop(shops.size());
+                shops.put(key, tracked);
+                
+                int worldName = world != null ? string(world.getName()) : 0;
+                writeHeader(TradeTrace.TAG_SHOP);
+                TradeTrace.writeVarInt(out, tracked.id);
+                TradeTrace.writeVarInt(out, worldName);
+                out.writeBoolean(position != null);
+                if (position != null) {
+                    TradeTrace.writeZigZag(out, position.getX());
+                    TradeTrace.writeZigZag(out, position.getY());
+                    TradeTrace.writeZigZag(out, position.getZ());
+                }
+            }
+            return tracked;
+        }
+        
+        private void writeListings(@Nonnull TrackedShop shop, @Nonnull List<BarterListing> listings) throws IOException {
+            int[] items = new int[listings.size()];
+            int[] currencies = new int[listings.size()];
+            for (int i = 0; i < listings.size(); i++) {
+                items[i] = string(listings.get(i).getItemId());
+                currencies[i] = string(listings.get(i).getCurrencyItemId());
+            }
+            
+            writeHeader(TradeTrace.TAG_LISTINGS);
+            TradeTrace.writeVarInt(out, shop.id);
+            TradeTrace.writeVarInt(out, listings.size());
+            BarterListing[] copies = new BarterListing[listings.size()];
+            for (int i = 0; i < listings.size(); i++) {
+                BarterListing listing = listings.get(i);
+                TradeTrace.writeVarInt(out, listing.getSlot());
+                TradeTrace.writeVarInt(out, items[i]);
+                TradeTrace.writeVarInt(out, currencies[i]);
+                TradeTrace.writeVarInt(out, listing.getBuyPrice());
+                TradeTrace.writeVarInt(out, listing.getSellPrice());
+                copies[i] = new BarterListing(listing.getSlot(), listing.getItemId(), listing.getCurrencyItemId(),
+                    listing.getBuyPrice(), listing.getSellPrice());
+            }
+            shop.listings = List.of(copies);
+        }
+        
+        private void writeContainer(int tag, int id, @Nonnull ItemContainer container) throws IOException {
+            short capacity = container.getCapacity();
+            int[] slots = new int[capacity];
+            int[] items = new int[capacity];
+            int count = 0;
+            for (short i = 0; i < capacity; i++) {
+                ItemStack stack = container.getItemStack(i);
+                if (stack != null && !ItemStack.isEmpty(stack)) {
+                    slots[count] = i;
+                    items[count] = string(stack.getItemId());
+                    count++;
+                }
+            }
+            
+            writeHeader(tag);
+            TradeTrace.writeVarInt(out, id);
+            TradeTrace.writeVarInt(out, capacity);
+            TradeTrace.writeVarInt(out, count);
+            for (int i = 0; i < count; i++) {
+                TradeTrace.writeVarInt(out, slots[i]);
+                TradeTrace.writeVarInt(out, items[i]);
+                TradeTrace.writeVarInt(out, container.getItemStack((short) slots[i]).getQuantity());
+            }
+        }
+        
+        /**
+         * Reference to a string, writing it first if this is its first use.
+         */
+        private int string(@Nullable String value) throws IOException {
+            if (value == null) {
+                return 0;
+            }
+            Integer index = strings.get(value);
+            if (index == null) {
+                index = strings.size();
+                strings.put(value, index);
+                writeHeader(TradeTrace.TAG_STRING);
+                out.writeUTF(value);
+            }
+            return index + 1;
+        }
+        
+        private void writeHeader(int tag) throws IOException {
+            long now = System.nanoTime();
+            long micros = (now - lastNanos) / 1_000;
+            lastNanos += micros * 1_000;
+            out.writeByte(tag);
+            TradeTrace.writeVarLong(out, micros);
+        }
+        
+        @Nonnull
+        synchronized Summary writeTo(@Nonnull Path file) throws IOException {
+            closed = true;
+            out.writeByte(TradeTrace.TAG_END);
+            try (OutputStream gzip = new GZIPOutputStream(Files.newOutputStream(file))) {
+                bytes.writeTo(gzip);
+            }
+            return new Summary(file, trades, shops.size(), customers.size(), Files.size(file), truncated);
+        }
+        
+        private static boolean sameListings(@Nonnull List<BarterListing> recorded, @Nonnull List<BarterListing> current) {
+            if (recorded.size() != current.size()) {
+                return false;
+            }
+            for (int i = 0; i < recorded.size(); i++) {
+                BarterListing a = recorded.get(i);
+                BarterListing b = current.get(i);
+                if (a.getSlot() != b.getSlot() || a.getBuyPrice() != b.getBuyPrice() || a.getSellPrice() != b.getSellPrice()
+                        || !Objects.equals(a.getItemId(), b.getItemId())
+                        || !Objects.equals(a.getCurrencyItemId(), b.getCurrencyItemId())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
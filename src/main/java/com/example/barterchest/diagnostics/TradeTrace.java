@@ -0,0 +1,225 @@
+package com.example.barterchest.diagnostics;
+
+import com.example.barterchest.state.BarterListing;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Binary format of the trade traces written by {@link TradeRecorder}, and a reader for them.
+ * 
+ * A trace is a gzip stream: a header ({@link #MAGIC}, {@link #VERSION}, start time in epoch
+ * milliseconds) followed by records. Each record is a tag byte, the microseconds since the
+ * previous record and a payload. Integers are unsigned varints (coordinates zigzag-encoded),
+ * and strings are written once and then referred to by their index plus one, zero meaning none.
+ * 
+ * Shops and customers are numbered in order of appearance. Their listings and containers
+ * are written before a trade whenever they differ from what the previous trade left behind,
+ * so a reader that applies the records in order sees every trade start from the recorded state.
+ */
+public final class TradeTrace {
+    
+    /** "BCTR" */
+    public static final int MAGIC = 0x42435452;
+    
+    public static final int VERSION = 1;
+    
+    static final int TAG_END = 0;
+    static final int TAG_STRING = 1;
+    static final int TAG_SHOP = 2;
+    static final int TAG_LISTINGS = 3;
+    static final int TAG_SHOP_CHEST = 4;
+    static final int TAG_CUSTOMER_INVENTORY = 5;
+    static final int TAG_TRADE = 6;
+    
+    private TradeTrace() {
+    }
+    
+    /**
+     * A recorded trade and how it turned out on the server.
+     * 
+     * @param micros Microseconds since the trace started
+     * @param nanos Time the trade took on the server
+     */
+    public record Trade(long micros, int shop, int customer, int listingSlot, boolean buying, int quantity,
+                        @Nonnull String status, int quantityTransacted, long nanos) {
+    }
+    
+    /**
+     * Receives the records of a trace in order.
+     */
+    public interface Visitor {
+        
+        void start(long startedAtMillis);
+        
+        /**
+         * A shop seen for the first time.
+         * 
+         * @param positioned false if the shop had no world position
+         */
+        void shop(int shop, @Nullable String world, boolean positioned, int x, int y, int z);
+        
+        void listings(int shop, @Nonnull List<BarterListing> listings);
+        
+        /**
+         * Contents of a shop's chest, one entry per slot, null for empty slots.
+         */
+        void shopChest(int shop, @Nonnull ItemStack[] stacks);
+        
+        /**
+         * Contents of a customer's inventory, one entry per slot, null for empty slots.
+         */
+        void customerInventory(int customer, @Nonnull ItemStack[] stacks);
+        
+        void trade(@Nonnull Trade trade);
+    }
+    
+    /**
+     * Read a trace file, passing its records to a visitor. A trace cut off mid-record
+     * (e.g. by a crash while writing) is read up to the last complete record.
+     * 
+     * @throws IOException if the file can't be read or isn't a trade trace
+     */
+    public static void read(@Nonnull Path file, @Nonnull Visitor visitor) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a trade trace");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException(file + " is trace version " + version + ", expected " + VERSION);
+            }
+            visitor.start(in.readLong());
+            
+            List<String> strings = new ArrayList<>();
+            long micros = 0;
+            try {
+                while (true) {
+                    int tag = in.readUnsignedByte();
+                    if (tag == TAG_END) {
+                        return;
+                    }
+                    micros += readVarLong(in);
+                    
+                    switch (tag) {
+                        case TAG_STRING -> strings.add(in.readUTF());
+                        case TAG_SHOP -> {
+                            int shop = readVarInt(in);
+                            String world = string(strings, readVarInt(in));
+                            boolean positioned = in.readBoolean();
+                            int x = positioned ? readZigZag(in) : 0;
+                            int y = positioned ? readZigZag(in) : 0;
+                            int z = positioned ? readZigZag(in) : 0;
+                            visitor.shop(shop, world, positioned, x, y, z);
+                        }
+                        case TAG_LISTINGS -> {
+                            int shop = readVarInt(in);
+                            int count = readVarInt(in);
+                            List<BarterListing> listings = new ArrayList<>(count);
+                            for (int i = 0; i < count; i++) {
+                                listings.add(new BarterListing(readVarInt(in), string(strings, readVarInt(in)),
+                                    string(strings, readVarInt(in)), readVarInt(in), readVarInt(in)));
+                            }
+                            visitor.listings(shop, listings);
+                        }
+                        case TAG_SHOP_CHEST -> visitor.shopChest(readVarInt(in), readStacks(in, strings));
+                        case TAG_CUSTOMER_INVENTORY -> visitor.customerInventory(readVarInt(in), readStacks(in, strings));
+                        case TAG_TRADE -> {
+                            int shop = readVarInt(in);
+                            int customer = readVarInt(in);
+                            int slot = readVarInt(in);
+                            boolean buying = in.readBoolean();
+                            int quantity = readVarInt(in);
+                            String status = string(strings, readVarInt(in));
+                            int transacted = readVarInt(in);
+                            long nanos = readVarLong(in);
+                            visitor.trade(new Trade(micros, shop, customer, slot, buying, quantity,
+                                status != null ? status : "", transacted, nanos));
+                        }
+                        default -> throw new IOException("Unknown record tag " + tag + " in " + file);
+                    }
+                }
+            } catch (EOFException e) {
+                // Truncated trace; everything before the cut was delivered
+            }
+        }
+    }
+    
+    @Nonnull
+    private static ItemStack[] readStacks(@Nonnull DataInput in, @Nonnull List<String> strings) throws IOException {
+        ItemStack[] stacks = new ItemStack[readVarInt(in)];
+        int count = readVarInt(in);
+        for (int i = 0; i < count; i++) {
+            int slot = readVarInt(in);
+            String itemId = string(strings, readVarInt(in));
+            int quantity = readVarInt(in);
+            if (itemId != null && slot < stacks.length) {
+                stacks[slot] = new ItemStack(itemId, quantity);
+            }
+        }
+        return stacks;
+    }
+    
+    @Nullable
+    private static String string(@Nonnull List<String> strings, int reference) throws IOException {
+        if (reference == 0) {
+            return null;
+        }
+        if (reference > strings.size()) {
+            throw new IOException("Trace refers to unknown string " + (reference - 1));
+        }
+        return strings.get(reference - 1);
+    }
+    
+    // --- Varints ---
+    
+    static void writeVarInt(@Nonnull DataOutput out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+    
+    static void writeVarLong(@Nonnull DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+    
+    static void writeZigZag(@Nonnull DataOutput out, int value) throws IOException {
+        writeVarInt(out, (value << 1) ^ (value >> 31));
+    }
+    
+    static int readVarInt(@Nonnull DataInput in) throws IOException {
+        return (int) readVarLong(in);
+    }
+    
+    static long readVarLong(@Nonnull DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+    
+    static int readZigZag(@Nonnull DataInput in) throws IOException {
+        int value = readVarInt(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
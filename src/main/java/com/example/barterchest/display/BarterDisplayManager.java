@@ -1,5 +1,7 @@
 package com.example.barterchest.display;
 
+import com.example.barterchest.diagnostics.BarterMetrics;
+import com.example.barterchest.diagnostics.DisplaySpawnEvent;
 import com.example.barterchest.state.BarterChestBlockState;
 import com.example.barterchest.state.BarterListing;
 import com.hypixel.hytale.component.AddReason;
@@ -104,8 +106,22 @@ public class BarterDisplayManager {
             );
             
             if (displayHolder != null) {
+                DisplaySpawnEvent event = new DisplaySpawnEvent();
+                event.begin();
+                
                 // Add the entity to the world
                 entityStore.addEntities(new Holder[] { displayHolder }, AddReason.SPAWN);
+                BarterMetrics.recordDisplaySpawn();
+                
+                event.end();
+                if (event.shouldCommit()) {
+                    event.world = world.getName();
+                    event.x = blockX;
+                    event.y = blockY;
+                    event.z = blockZ;
+                    event.itemId = displayItemId;
+                    event.commit();
+                }
                 
                 // Get the UUID and store it in the shop
                 UUIDComponent uuidComponent = displayHolder.getComponent(UUIDComponent.getComponentType());
@@ -138,6 +154,7 @@ public class BarterDisplayManager {
             
             if (entityRef != null && entityRef.isValid()) {
                 store.removeEntity(entityRef, RemoveReason.REMOVE);
+                BarterMetrics.recordDisplayRemoval();
                 LOGGER.at(Level.FINE).log("Removed display entity %s", displayUUID);
             }
             
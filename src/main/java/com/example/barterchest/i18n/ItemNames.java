@@ -0,0 +1,209 @@
+package com.example.barterchest.i18n;
+
+import com.example.barterchest.config.BarterConfig;
+import com.example.barterchest.core.item.ItemIds;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.modules.i18n.I18nModule;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Resolves item IDs to the names shown in messages and UI labels.
+ * 
+ * Names are resolved in this order:
+ * 1. The display name configured for a currency in config.json
+ * 2. The localized item name from the item asset and language files
+ * 3. The item ID formatted for display ("hytale:iron_bar" -> "Iron Bar")
+ * 
+ * Results are cached per canonical item ID (namespace stripped) and language,
+ * in a bounded LRU per language. The cache is dropped when the config is reloaded.
+ * If the asset or language lookup fails, formatted IDs are used without being cached
+ * and the lookup is retried after a backoff; it is only given up for good when the
+ * server doesn't provide the API at all.
+ */
+public final class ItemNames {
+    
+    private static final HytaleLogger LOGGER = HytaleLogger.get("BarterChest/Names");
+    
+    /** Language used for server-generated text */
+    public static final String DEFAULT_LANGUAGE = "en-US";
+    
+    /** Cached names per language */
+    private static final int MAX_ENTRIES_PER_LANGUAGE = 1024;
+    
+    /** Language -> canonical item ID -> name */
+    private static final Map<String, Map<String, String>> cache = new ConcurrentHashMap<>();
+    
+    /** Config snapshot the cache was built against */
+    private static volatile BarterConfig cachedConfig;
+    
+    /** Wait after the first failed lookup; doubled on every further failure */
+    private static final long INITIAL_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MINUTES.toNanos(5);
+    
+    /** False once the localization API turned out to be missing from the server */
+    private static volatile boolean localizationSupported = true;
+    
+    /** Current backoff, zero while lookups succeed */
+    private static volatile long backoffNanos = 0;
+    
+    /** When lookups may be tried again after a failure ({@link System#nanoTime()}) */
+    private static volatile long retryAtNanos = 0;
+    
+    private ItemNames() {
+    }
+    
+    /**
+     * Get the display name of an item in the server language.
+     */
+    @Nonnull
+    public static String get(@Nullable String itemId) {
+        return get(itemId, DEFAULT_LANGUAGE);
+    }
+    
+    /**
+     * Get the display name of an item in a language (e.g. "en-US").
+     */
+    @Nonnull
+    public static String get(@Nullable String itemId, @Nonnull String language) {
+        if (itemId == null || itemId.isEmpty()) {
+            return "Unknown";
+        }
+        
+        // Configured currency names may have changed
+        BarterConfig config = BarterConfig.get();
+        if (config != cachedConfig) {
+            cache.clear();
+            cachedConfig = config;
+        }
+        
+        String canonicalId = canonicalize(itemId);
+        Map<String, String> names = cache.computeIfAbsent(language, l -> newLruMap());
+        synchronized (names) {
+            String name = names.get(canonicalId);
+            if (name == null) {
+                name = resolve(config, itemId, canonicalId, language);
+                if (name == null) {
+                    // Localization is failing right now; don't pin the fallback in the cache
+                    return format(canonicalId);
+                }
+                names.put(canonicalId, name);
+            }
+            return name;
+        }
+    }
+    
+    /**
+     * Strip the namespace from an item ID (e.g. "hytale:iron_bar" -> "iron_bar").
+     */
+    @Nonnull
+    public static String canonicalize(@Nonnull String itemId) {
+        return ItemIds.canonicalize(itemId);
+    }
+    
+    /**
+     * Resolve a name for the cache, or return null if localization is temporarily failing.
+     */
+    @Nullable
+    private static String resolve(@Nonnull BarterConfig config, @Nonnull String itemId,
+                                  @Nonnull String canonicalId, @Nonnull String language) {
+        String configured = config.getConfiguredCurrencyName(itemId);
+        if (configured == null && !canonicalId.equals(itemId)) {
+            configured = config.getConfiguredCurrencyName(canonicalId);
+        }
+        if (configured != null) {
+            return configured;
+        }
+        
+        if (!localizationSupported) {
+            return format(canonicalId);
+        }
+        if (backoffNanos != 0 && System.nanoTime() - retryAtNanos < 0) {
+            return null;
+        }
+        
+        String localized;
+        try {
+            localized = localize(canonicalId, language);
+        } catch (LinkageError e) {
+            // The server has no asset or language API - stick to formatted IDs from now on
+            localizationSupported = false;
+            LOGGER.at(Level.WARNING).log("Localized item names not supported, using item IDs: %s", e.getMessage());
+            return format(canonicalId);
+        } catch (Exception e) {
+            long backoff = backoffNanos == 0 ? INITIAL_BACKOFF_NANOS : Math.min(backoffNanos * 2, MAX_BACKOFF_NANOS);
+            if (backoffNanos == 0) {
+                LOGGER.at(Level.WARNING).log("Localized item names unavailable, retrying later: %s", e.getMessage());
+            }
+            backoffNanos = backoff;
+            retryAtNanos = System.nanoTime() + backoff;
+            return null;
+        }
+        
+        if (backoffNanos != 0) {
+            backoffNanos = 0;
+            LOGGER.at(Level.INFO).log("Localized item names available again");
+        }
+        return localized != null ? localized : format(canonicalId);
+    }
+    
+    /**
+     * Look up the localized name of an item, or null if the item or translation is missing.
+     * 
+     * @throws LinkageError if the server lacks the asset or language API
+     */
+    @Nullable
+    private static String localize(@Nonnull String canonicalId, @Nonnull String language) {
+        Item item = Item.getAssetMap().getAsset(canonicalId);
+        if (item == null) {
+            return null;
+        }
+        
+        String key = item.getTranslationKey();
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+        
+        String message = I18nModule.get().getMessage(language, key);
+        return message != null && !message.isEmpty() && !message.equals(key) ? message : null;
+    }
+    
+    /**
+     * Format a canonical item ID for display (e.g. "iron_bar" -> "Iron Bar").
+     */
+    @Nonnull
+    private static String format(@Nonnull String canonicalId) {
+        char[] chars = canonicalId.toCharArray();
+        boolean capitalizeNext = true;
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            if (c == '_' || Character.isWhitespace(c)) {
+                chars[i] = ' ';
+                capitalizeNext = true;
+            } else if (capitalizeNext) {
+                chars[i] = Character.toUpperCase(c);
+                capitalizeNext = false;
+            } else {
+                chars[i] = Character.toLowerCase(c);
+            }
+        }
+        return new String(chars);
+    }
+    
+    @Nonnull
+    private static Map<String, String> newLruMap() {
+        return new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > MAX_ENTRIES_PER_LANGUAGE;
+            }
+        };
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.barterchest.integration;
+
+import com.example.barterchest.diagnostics.BarterMetrics;
+import com.example.barterchest.diagnostics.ProtectionCheckEvent;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.util.ChunkUtil;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * Combines all installed {@link ProtectionProvider}s.
+ * 
+ * A player may create a shop if no provider denies it. A provider that throws
+ * counts as a denial, so a broken integration never lets shops into protected land.
+ * 
+ * Combined decisions are cached per area and player for {@link #DECISION_TTL_MILLIS}
+ * in a bounded LRU of areas, so a check costs one map lookup no matter how many
+ * providers are installed. An area is a chunk if every provider decides per chunk
+ * (see {@link ProtectionProvider#getGranularity()}), otherwise a single block.
+ */
+public class ProtectionManager {
+    
+    private static final HytaleLogger LOGGER = HytaleLogger.get("BarterChest/Protection");
+    
+    /** How long a decision stays valid */
+    private static final long DECISION_TTL_MILLIS = 5_000;
+    
+    /** Areas with cached decisions; the least recently checked area is dropped first */
+    private static final int MAX_CACHED_AREAS = 1024;
+    
+    private static volatile ProtectionProvider[] providers = new ProtectionProvider[0];
+    
+    /** True if every provider decides per chunk, so decisions are cached per chunk */
+    private static volatile boolean chunkGranular = true;
+    
+    /** (dimension, chunk or block) -> player -> decision. Guarded by itself. */
+    private static final Map<AreaKey, Map<UUID, CachedDecision>> decisions = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<AreaKey, Map<UUID, CachedDecision>> eldest) {
+            return size() > MAX_CACHED_AREAS;
+        }
+    };
+    
+    /**
+     * Cache key of an area. For chunk-granular caching the block coordinates are 0;
+     * the chunk index is always set so a chunk's entries can be invalidated together.
+     */
+    private record AreaKey(String dimension, long chunkIndex, int blockX, int blockZ) {
+        
+        static AreaKey of(@Nonnull String dimension, int blockX, int blockZ, boolean chunkGranular) {
+            long chunkIndex = ChunkUtil.indexChunkFromBlock(blockX, blockZ);
+            return chunkGranular
+                ? new AreaKey(dimension, chunkIndex, 0, 0)
+                : new AreaKey(dimension, chunkIndex, blockX, blockZ);
+        }
+    }
+    
+    private record CachedDecision(boolean allowed, long expiresAt) {
+    }
+    
+    /**
+     * Discover and initialize providers. Call once during plugin startup.
+     */
+    public static synchronized void initialize() {
+        List<ProtectionProvider> active = new ArrayList<>();
+        boolean allChunkGranular = true;
+        
+        Iterator<ProtectionProvider> iterator = ServiceLoader.load(ProtectionProvider.class, ProtectionManager.class.getClassLoader()).iterator();
+        while (true) {
+            ProtectionProvider provider;
+            try {
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                provider = iterator.next();
+            } catch (ServiceConfigurationError e) {
+                LOGGER.at(Level.WARNING).log("Skipping protection provider: %s", e.getMessage());
+                continue;
+            }
+            
+            try {
+                if (provider.initialize()) {
+                    ProtectionProvider.Granularity granularity = provider.getGranularity();
+                    allChunkGranular &= granularity == ProtectionProvider.Granularity.CHUNK;
+                    active.add(provider);
+                    LOGGER.at(Level.INFO).log("Protection provider enabled: %s (%s granularity)",
+                        provider.getName(), granularity);
+                }
+            } catch (Exception e) {
+                LOGGER.at(Level.WARNING).log("Error initializing protection provider %s: %s", provider.getName(), e.getMessage());
+            }
+        }
+        
+        chunkGranular = allChunkGranular;
+        providers = active.toArray(new ProtectionProvider[0]);
+        invalidateAll();
+        
+        if (active.isEmpty()) {
+            LOGGER.at(Level.INFO).log("No protection providers found - shops can be created anywhere");
+        }
+    }
+    
+    /**
+     * Check if a player can create a shop at the given location.
+     * 
+     * @param playerUUID The player's UUID
+     * @param dimension The dimension name (e.g., "overworld")
+     * @param blockX Block X coordinate
+     * @param blockZ Block Z coordinate
+     * @return true if the player can create a shop, false otherwise
+     */
+    public static boolean canCreateShop(@Nonnull UUID playerUUID, @Nonnull String dimension, int blockX, int blockZ) {
+        ProtectionProvider[] current = providers;
+        if (current.length == 0) {
+            return true;
+        }
+        
+        long start = System.nanoTime();
+        ProtectionCheckEvent event = new ProtectionCheckEvent();
+        event.begin();
+        boolean allowed = decide(current, playerUUID, dimension, blockX, blockZ);
+        BarterMetrics.PROTECTION_CHECK_LATENCY.record(System.nanoTime() - start);
+        
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = playerUUID.toString();
+            event.dimension = dimension;
+            event.x = blockX;
+            event.z = blockZ;
+            event.providers = current.length;
+            event.allowed = allowed;
+            event.commit();
+        }
+        return allowed;
+    }
+    
+    /**
+     * Combined decision of the providers, from the cache if it is still valid.
+     */
+    private static boolean decide(@Nonnull ProtectionProvider[] current, @Nonnull UUID playerUUID,
+                                  @Nonnull String dimension, int blockX, int blockZ) {
+        long now = System.currentTimeMillis();
+        AreaKey key = AreaKey.of(dimension, blockX, blockZ, chunkGranular);
+        synchronized (decisions) {
+            Map<UUID, CachedDecision> byPlayer = decisions.get(key);
+            CachedDecision cached = byPlayer != null ? byPlayer.get(playerUUID) : null;
+            if (cached != null && cached.expiresAt() > now) {
+                return cached.allowed();
+            }
+        }
+        
+        // Ask the providers outside the lock
+        boolean allowed = true;
+        boolean cacheable = true;
+        for (ProtectionProvider provider : current) {
+            try {
+                if (provider.canCreateShop(playerUUID, dimension, blockX, blockZ) == ProtectionProvider.Decision.DENY) {
+                    allowed = false;
+                    break;
+                }
+            } catch (Exception | LinkageError e) {
+                // Fail closed, and ask again next time
+                LOGGER.at(Level.WARNING).log("Error checking %s protection: %s", provider.getName(), e.getMessage());
+                allowed = false;
+                cacheable = false;
+                break;
+            }
+        }
+        
+        if (cacheable) {
+            synchronized (decisions) {
+                decisions.computeIfAbsent(key, k -> new HashMap<>())
+                    .put(playerUUID, new CachedDecision(allowed, now + DECISION_TTL_MILLIS));
+            }
+        }
+        return allowed;
+    }
+    
+    /**
+     * Get the name of whoever protects a location, if any.
+     * 
+     * @return The owner name, or null if unprotected
+     */
+    @Nullable
+    public static String getOwnerName(@Nonnull String dimension, int blockX, int blockZ) {
+        for (ProtectionProvider provider : providers) {
+            try {
+                String name = provider.getOwnerName(dimension, blockX, blockZ);
+                if (name != null) {
+                    return name;
+                }
+            } catch (Exception | LinkageError e) {
+                LOGGER.at(Level.FINE).log("Error getting owner from %s: %s", provider.getName(), e.getMessage());
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Forget all cached decisions for a player (e.g. on disconnect or party change).
+     */
+    public static void invalidatePlayer(@Nonnull UUID playerUUID) {
+        synchronized (decisions) {
+            for (Map<UUID, CachedDecision> byPlayer : decisions.values()) {
+                byPlayer.remove(playerUUID);
+            }
+        }
+    }
+    
+    /**
+     * Forget all cached decisions for the chunk containing a block (e.g. after a claim change).
+     */
+    public static void invalidateChunk(@Nonnull String dimension, int blockX, int blockZ) {
+        long chunkIndex = ChunkUtil.indexChunkFromBlock(blockX, blockZ);
+        synchronized (decisions) {
+            decisions.keySet().removeIf(key -> key.chunkIndex() == chunkIndex && key.dimension().equals(dimension));
+        }
+    }
+    
+    /**
+     * Forget all cached decisions.
+     */
+    public static void invalidateAll() {
+        synchronized (decisions) {
+            decisions.clear();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.barterchest.integration;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.UUID;
+
+/**
+ * A source of land protection (claims, regions) that shop creation must respect.
+ * 
+ * Providers are discovered with {@link java.util.ServiceLoader} at startup: list the
+ * implementation class in {@code META-INF/services/com.example.barterchest.integration.ProtectionProvider}
+ * and give it a public no-argument constructor. Decisions of all providers are combined
+ * and cached by {@link ProtectionManager}, so providers don't need their own cache.
+ * Providers whose decisions hold for whole chunks say so with {@link #getGranularity()}
+ * and get a cache entry per chunk instead of per block.
+ */
+public interface ProtectionProvider {
+    
+    /**
+     * Outcome of a provider check.
+     */
+    enum Decision {
+        /** The provider protects this location and the player may build here */
+        ALLOW,
+        /** The provider protects this location and the player may not build here */
+        DENY,
+        /** The provider doesn't protect this location */
+        ABSTAIN
+    }
+    
+    /**
+     * Smallest area over which a provider's decisions are guaranteed not to change.
+     */
+    enum Granularity {
+        /** Every block of a chunk gets the same decision (e.g. chunk claims) */
+        CHUNK,
+        /** Decisions may differ between blocks of the same chunk */
+        BLOCK
+    }
+    
+    /**
+     * Short name for logs (e.g. "SimpleClaims").
+     */
+    @Nonnull
+    String getName();
+    
+    /**
+     * Called once at startup. Providers whose backing plugin or data is missing return false
+     * and are not consulted.
+     */
+    boolean initialize();
+    
+    /**
+     * Granularity of this provider's decisions, asked after {@link #initialize()}.
+     * Defaults to {@link Granularity#BLOCK}, which is always correct but caches less.
+     */
+    @Nonnull
+    default Granularity getGranularity() {
+        return Granularity.BLOCK;
+    }
+    
+    /**
+     * Check whether a player may create a shop at a block. Called from world threads.
+     * Throwing is treated as {@link Decision#DENY}.
+     */
+    @Nonnull
+    Decision canCreateShop(@Nonnull UUID playerUUID, @Nonnull String dimension, int blockX, int blockZ) throws Exception;
+    
+    /**
+     * Name of whoever protects the location, for messages, or null if unprotected.
+     */
+    @Nullable
+    String getOwnerName(@Nonnull String dimension, int blockX, int blockZ) throws Exception;
+}
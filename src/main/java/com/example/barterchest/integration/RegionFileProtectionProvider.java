@@ -0,0 +1,125 @@
+package com.example.barterchest.integration;
+
+import com.google.gson.Gson;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.Constants;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * Built-in protection provider reading rectangular regions from
+ * {@code <universe>/BarterChest/regions.json}. Meant for testing and for servers
+ * without a claims plugin. Inactive when the file doesn't exist.
+ * 
+ * Only the region's owner and members may create shops inside it. Region edges need not
+ * follow chunk borders, so this provider keeps the default {@link Granularity#BLOCK}.
+ */
+public class RegionFileProtectionProvider implements ProtectionProvider {
+    
+    private static final HytaleLogger LOGGER = HytaleLogger.get("BarterChest/Regions");
+    private static final Path REGIONS_FILE = Constants.UNIVERSE_PATH.resolve("BarterChest").resolve("regions.json");
+    private static final Gson GSON = new Gson();
+    
+    private List<Region> regions = new ArrayList<>();
+    
+    /**
+     * File layout: {"regions": [...]}
+     */
+    private static class RegionFile {
+        List<Region> regions;
+    }
+    
+    private static class Region {
+        String name;
+        String dimension;
+        int minX;
+        int minZ;
+        int maxX;
+        int maxZ;
+        UUID owner;
+        List<UUID> members;
+        
+        boolean contains(String dim, int x, int z) {
+            return dimension.equals(dim) && x >= minX && x <= maxX && z >= minZ && z <= maxZ;
+        }
+        
+        boolean isMember(UUID playerUUID) {
+            return playerUUID.equals(owner) || (members != null && members.contains(playerUUID));
+        }
+    }
+    
+    @Nonnull
+    @Override
+    public String getName() {
+        return "RegionFile";
+    }
+    
+    @Override
+    public boolean initialize() {
+        if (!Files.exists(REGIONS_FILE)) {
+            return false;
+        }
+        
+        try (Reader reader = Files.newBufferedReader(REGIONS_FILE)) {
+            RegionFile file = GSON.fromJson(reader, RegionFile.class);
+            List<Region> loaded = new ArrayList<>();
+            if (file != null && file.regions != null) {
+                for (Region region : file.regions) {
+                    if (region == null || region.dimension == null) {
+                        continue;
+                    }
+                    // Accept corners in any order
+                    int minX = Math.min(region.minX, region.maxX);
+                    int maxX = Math.max(region.minX, region.maxX);
+                    int minZ = Math.min(region.minZ, region.maxZ);
+                    int maxZ = Math.max(region.minZ, region.maxZ);
+                    region.minX = minX;
+                    region.maxX = maxX;
+                    region.minZ = minZ;
+                    region.maxZ = maxZ;
+                    loaded.add(region);
+                }
+            }
+            regions = loaded;
+            LOGGER.at(Level.INFO).log("Loaded %d protected regions from %s", loaded.size(), REGIONS_FILE);
+            return true;
+        } catch (Exception e) {
+            LOGGER.at(Level.WARNING).log("Error loading %s: %s", REGIONS_FILE, e.getMessage());
+            return false;
+        }
+    }
+    
+    @Nonnull
+    @Override
+    public Decision canCreateShop(@Nonnull UUID playerUUID, @Nonnull String dimension, int blockX, int blockZ) {
+        Decision decision = Decision.ABSTAIN;
+        for (Region region : regions) {
+            if (region.contains(dimension, blockX, blockZ)) {
+                if (!region.isMember(playerUUID)) {
+                    return Decision.DENY;
+                }
+                decision = Decision.ALLOW;
+            }
+        }
+        return decision;
+    }
+    
+    @Nullable
+    @Override
+    public String getOwnerName(@Nonnull String dimension, int blockX, int blockZ) {
+        for (Region region : regions) {
+            if (region.contains(dimension, blockX, blockZ)) {
+                return region.name != null ? region.name : "a protected region";
+            }
+        }
+        return null;
+    }
+}
@@ -4,7 +4,9 @@ import com.hypixel.hytale.logger.HytaleLogger;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.UUID;
 import java.util.function.Predicate;
 import java.util.logging.Level;
@@ -14,51 +16,97 @@ import java.util.logging.Level;
  * 
  * This class uses reflection to interact with SimpleClaims so that
  * the BarterChest plugin can work both with and without SimpleClaims installed.
+ * The SimpleClaims methods are looked up once and bound to method handles, so a
+ * check costs about as much as a direct call.
  * 
  * When SimpleClaims is present, shop creation is only allowed if:
  * - The chunk is unclaimed, OR
  * - The player is a member of the party that owns the claim
+ * 
+ * Used through {@link SimpleClaimsProtectionProvider}; decisions are cached by {@link ProtectionManager}.
  */
 public class SimpleClaimsIntegration {
     
     private static final HytaleLogger LOGGER = HytaleLogger.get("BarterChest/SimpleClaims");
     
+    /** Predicate passed to SimpleClaims: party-level permissions (e.g. public build) never count, membership is required */
+    private static final Predicate<Object> REQUIRE_MEMBERSHIP = party -> false;
+    
     private static boolean initialized = false;
     private static boolean available = false;
     
-    // Cached reflection objects
-    private static Class<?> claimManagerClass;
-    private static Method getInstanceMethod;
-    private static Method isAllowedToInteractMethod;
-    private static Method getChunkRawCoordsMethod;
-    private static Method getPartyByIdMethod;
-    private static Method getPartyOwnerMethod;
+    // Bound SimpleClaims methods
+    private static ClaimCheck claimCheck;
+    private static ChunkOwnerLookup chunkOwnerLookup;
+    
+    /**
+     * isAllowedToInteract bound to the claim manager.
+     */
+    @FunctionalInterface
+    private interface ClaimCheck {
+        boolean isAllowed(UUID playerUUID, String dimension, int blockX, int blockZ) throws Throwable;
+    }
+    
+    /**
+     * Chunk -> owning party name, bound to the claim manager.
+     */
+    @FunctionalInterface
+    private interface ChunkOwnerLookup {
+        @Nullable
+        String ownerName(String dimension, int blockX, int blockZ) throws Throwable;
+    }
     
     /**
      * Initialize the SimpleClaims integration.
      * Call this once during plugin startup.
      */
-    public static void initialize() {
+    public static synchronized void initialize() {
         if (initialized) return;
         initialized = true;
         
         try {
             // Try to load SimpleClaims classes
-            claimManagerClass = Class.forName("com.buuz135.simpleclaims.claim.ClaimManager");
-            getInstanceMethod = claimManagerClass.getMethod("getInstance");
+            Class<?> claimManagerClass = Class.forName("com.buuz135.simpleclaims.claim.ClaimManager");
+            Class<?> partyInfoClass = Class.forName("com.buuz135.simpleclaims.claim.party.PartyInfo");
+            Class<?> chunkInfoClass = Class.forName("com.buuz135.simpleclaims.claim.chunk.ChunkInfo");
+            
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
             
-            // Get the isAllowedToInteract method - this handles all permission checks
+            // Adapt every handle to a fixed erased signature so calls can use invokeExact
+            MethodHandle getInstance = lookup.unreflect(claimManagerClass.getMethod("getInstance"))
+                .asType(MethodType.methodType(Object.class));
+            
+            // isAllowedToInteract handles all permission checks
             // Signature: isAllowedToInteract(UUID playerUUID, String dimension, int chunkX, int chunkZ, Predicate<PartyInfo> interactMethod)
-            Class<?> partyInfoClass = Class.forName("com.buuz135.simpleclaims.claim.party.PartyInfo");
-            isAllowedToInteractMethod = claimManagerClass.getMethod("isAllowedToInteract", 
-                UUID.class, String.class, int.class, int.class, Predicate.class);
+            MethodHandle isAllowedToInteract = lookup.unreflect(claimManagerClass.getMethod("isAllowedToInteract",
+                    UUID.class, String.class, int.class, int.class, Predicate.class))
+                .asType(MethodType.methodType(boolean.class, Object.class, UUID.class, String.class, int.class, int.class, Predicate.class));
+            MethodHandle getChunkRawCoords = lookup.unreflect(claimManagerClass.getMethod("getChunkRawCoords", String.class, int.class, int.class))
+                .asType(MethodType.methodType(Object.class, Object.class, String.class, int.class, int.class));
+            MethodHandle getPartyById = lookup.unreflect(claimManagerClass.getMethod("getPartyById", UUID.class))
+                .asType(MethodType.methodType(Object.class, Object.class, UUID.class));
+            MethodHandle getPartyOwner = lookup.unreflect(chunkInfoClass.getMethod("getPartyOwner"))
+                .asType(MethodType.methodType(UUID.class, Object.class));
+            MethodHandle getPartyName = lookup.unreflect(partyInfoClass.getMethod("getName"))
+                .asType(MethodType.methodType(String.class, Object.class));
             
-            getChunkRawCoordsMethod = claimManagerClass.getMethod("getChunkRawCoords", String.class, int.class, int.class);
-            getPartyByIdMethod = claimManagerClass.getMethod("getPartyById", UUID.class);
+            claimCheck = (playerUUID, dimension, blockX, blockZ) -> {
+                Object claimManager = (Object) getInstance.invokeExact();
+                return (boolean) isAllowedToInteract.invokeExact(claimManager, playerUUID, dimension, blockX, blockZ,
+                    (Predicate) REQUIRE_MEMBERSHIP);
+            };
             
-            // ChunkInfo class
-            Class<?> chunkInfoClass = Class.forName("com.buuz135.simpleclaims.claim.chunk.ChunkInfo");
-            getPartyOwnerMethod = chunkInfoClass.getMethod("getPartyOwner");
+            chunkOwnerLookup = (dimension, blockX, blockZ) -> {
+                Object claimManager = (Object) getInstance.invokeExact();
+                Object chunkInfo = (Object) getChunkRawCoords.invokeExact(claimManager, dimension, blockX, blockZ);
+                if (chunkInfo == null) return null;
+                
+                UUID partyId = (UUID) getPartyOwner.invokeExact(chunkInfo);
+                if (partyId == null) return null;
+                
+                Object party = (Object) getPartyById.invokeExact(claimManager, partyId);
+                return party != null ? (String) getPartyName.invokeExact(party) : null;
+            };
             
             available = true;
             LOGGER.at(Level.INFO).log("SimpleClaims integration enabled - shop creation will respect claims");
@@ -81,79 +129,28 @@ public class SimpleClaimsIntegration {
     }
     
     /**
-     * Check if a player can create a shop at the given location.
+     * Ask SimpleClaims whether a player may build at a location: the chunk is unclaimed,
+     * or the player is a member of the owning party. Only call when {@link #isAvailable()}.
      * 
-     * @param playerUUID The player's UUID
-     * @param dimension The dimension name (e.g., "overworld")
-     * @param blockX Block X coordinate
-     * @param blockZ Block Z coordinate
-     * @return true if the player can create a shop, false otherwise
+     * @throws Throwable whatever SimpleClaims throws
      */
-    public static boolean canCreateShop(@Nonnull UUID playerUUID, @Nonnull String dimension, int blockX, int blockZ) {
-        if (!initialized) initialize();
-        
-        // If SimpleClaims is not available, allow shop creation
-        if (!available) {
-            return true;
-        }
-        
-        try {
-            Object claimManager = getInstanceMethod.invoke(null);
-            
-            // Use SimpleClaims' isAllowedToInteract method with a predicate that always returns false
-            // This means we only allow if the player has permission (member, ally, admin, etc.)
-            // The predicate is for party-level permissions like "allowPublicBuild" - we want to require membership
-            Predicate<?> alwaysFalse = (obj) -> false;
-            
-            Boolean allowed = (Boolean) isAllowedToInteractMethod.invoke(claimManager, 
-                playerUUID, dimension, blockX, blockZ, alwaysFalse);
-            
-            LOGGER.at(Level.FINE).log("SimpleClaims check for %s at %s (%d, %d): %s", 
+    static boolean isAllowed(@Nonnull UUID playerUUID, @Nonnull String dimension, int blockX, int blockZ) throws Throwable {
+        boolean allowed = claimCheck.isAllowed(playerUUID, dimension, blockX, blockZ);
+        if (LOGGER.at(Level.FINE).isEnabled()) {
+            LOGGER.at(Level.FINE).log("SimpleClaims check for %s at %s (%d, %d): %s",
                 playerUUID, dimension, blockX, blockZ, allowed);
-            
-            return allowed != null && allowed;
-            
-        } catch (Exception e) {
-            LOGGER.at(Level.WARNING).log("Error checking SimpleClaims permission: " + e.getMessage());
-            e.printStackTrace();
-            // On error, default to allowing (fail open)
-            return true;
         }
+        return allowed;
     }
     
     /**
-     * Get the name of the party that owns a chunk, if any.
+     * Get the name of the party that owns a chunk, or null if unclaimed.
+     * Only call when {@link #isAvailable()}.
      * 
-     * @param dimension The dimension name
-     * @param blockX Block X coordinate
-     * @param blockZ Block Z coordinate
-     * @return The party name, or null if unclaimed or SimpleClaims unavailable
+     * @throws Throwable whatever SimpleClaims throws
      */
     @Nullable
-    public static String getChunkOwnerName(@Nonnull String dimension, int blockX, int blockZ) {
-        if (!initialized) initialize();
-        if (!available) return null;
-        
-        try {
-            Object claimManager = getInstanceMethod.invoke(null);
-            Object chunkInfo = getChunkRawCoordsMethod.invoke(claimManager, dimension, blockX, blockZ);
-            
-            if (chunkInfo == null) return null;
-            
-            UUID chunkOwnerPartyId = (UUID) getPartyOwnerMethod.invoke(chunkInfo);
-            if (chunkOwnerPartyId == null) return null;
-            
-            Object party = getPartyByIdMethod.invoke(claimManager, chunkOwnerPartyId);
-            
-            if (party != null) {
-                Method getNameMethod = party.getClass().getMethod("getName");
-                return (String) getNameMethod.invoke(party);
-            }
-            
-        } catch (Exception e) {
-            LOGGER.at(Level.FINE).log("Error getting chunk owner: " + e.getMessage());
-        }
-        
-        return null;
+    static String getChunkOwnerName(@Nonnull String dimension, int blockX, int blockZ) throws Throwable {
+        return chunkOwnerLookup.ownerName(dimension, blockX, blockZ);
     }
 }
@@ -0,0 +1,55 @@
+package com.example.barterchest.integration;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.UUID;
+
+/**
+ * Protection provider backed by the SimpleClaims plugin, if installed.
+ */
+public class SimpleClaimsProtectionProvider implements ProtectionProvider {
+    
+    @Nonnull
+    @Override
+    public String getName() {
+        return "SimpleClaims";
+    }
+    
+    @Override
+    public boolean initialize() {
+        return SimpleClaimsIntegration.isAvailable();
+    }
+    
+    /**
+     * SimpleClaims claims whole chunks.
+     */
+    @Nonnull
+    @Override
+    public Granularity getGranularity() {
+        return Granularity.CHUNK;
+    }
+    
+    @Nonnull
+    @Override
+    public Decision canCreateShop(@Nonnull UUID playerUUID, @Nonnull String dimension, int blockX, int blockZ) throws Exception {
+        try {
+            return SimpleClaimsIntegration.isAllowed(playerUUID, dimension, blockX, blockZ) ? Decision.ALLOW : Decision.DENY;
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new Exception(t);
+        }
+    }
+    
+    @Nullable
+    @Override
+    public String getOwnerName(@Nonnull String dimension, int blockX, int blockZ) throws Exception {
+        try {
+            return SimpleClaimsIntegration.getChunkOwnerName(dimension, blockX, blockZ);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new Exception(t);
+        }
+    }
+}
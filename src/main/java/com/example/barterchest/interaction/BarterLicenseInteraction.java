@@ -1,7 +1,8 @@
 package com.example.barterchest.interaction;
 
-import com.example.barterchest.integration.SimpleClaimsIntegration;
+import com.example.barterchest.integration.ProtectionManager;
 import com.example.barterchest.state.BarterChestBlockState;
+import com.example.barterchest.state.ShopIndex;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
@@ -123,12 +124,12 @@ public class BarterLicenseInteraction extends SimpleInstantInteraction {
             return;
         }
         
-        // Check SimpleClaims permission (if SimpleClaims is installed)
+        // Check land protection (SimpleClaims and any other installed providers)
         UUID playerUUID = playerRef.getUuid();
         String dimension = world.getName();
-        if (!SimpleClaimsIntegration.canCreateShop(playerUUID, dimension, targetBlock.x, targetBlock.z)) {
+        if (!ProtectionManager.canCreateShop(playerUUID, dimension, targetBlock.x, targetBlock.z)) {
             playerRef.sendMessage(MSG_NOT_ALLOWED_CLAIM);
-            String ownerName = SimpleClaimsIntegration.getChunkOwnerName(dimension, targetBlock.x, targetBlock.z);
+            String ownerName = ProtectionManager.getOwnerName(dimension, targetBlock.x, targetBlock.z);
             if (ownerName != null) {
                 playerRef.sendMessage(Message.raw("This area is claimed by: " + ownerName));
             }
@@ -176,6 +177,7 @@ public class BarterLicenseInteraction extends SimpleInstantInteraction {
         
         // Set the new state on the chunk
         chunk.setState(targetBlock.x, targetBlock.y, targetBlock.z, shopState);
+        ShopIndex.add(world, targetBlock.x, targetBlock.y, targetBlock.z);
         
         // Consume one barter license from the held item
         consumeHeldItem(context);
@@ -0,0 +1,133 @@
+package com.example.barterchest.search;
+
+import com.example.barterchest.catalog.ShopSummary;
+import com.example.barterchest.core.index.OfferIndex;
+import com.example.barterchest.core.index.ShopOffer;
+import com.example.barterchest.i18n.ItemNames;
+import com.example.barterchest.state.ShopIndex;
+import com.example.barterchest.state.ShopSnapshot;
+import com.example.barterchest.state.ShopSnapshots;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Cross-shop search over an {@link OfferIndex} of every known shop.
+ * 
+ * Shops are re-indexed from each new {@link ShopSnapshots snapshot}. Queries only read
+ * the index and never load chunks; shops in unloaded chunks keep their last indexed
+ * offers, and shops not loaded since startup are seeded from the {@code ShopCatalog}.
+ * 
+ * Updates run on world threads, queries may run on any thread.
+ */
+public final class ShopSearchIndex {
+    
+    private static final OfferIndex index = new OfferIndex();
+    
+    private ShopSearchIndex() {
+    }
+    
+    /**
+     * {@link ShopSnapshots.Listener}: re-index a shop from its new snapshot.
+     */
+    public static void onShopChanged(@Nonnull String worldName, int x, int y, int z, @Nullable ShopSnapshot snapshot) {
+        if (snapshot != null) {
+            update(worldName, ShopSummary.of(snapshot));
+        } else {
+            index.remove(worldName, ShopIndex.pack(x, y, z));
+        }
+    }
+    
+    /**
+     * Seed the index with a shop recorded in the catalog, unless the shop is already
+     * indexed from live state. Lets searches find shops whose chunks aren't loaded.
+     */
+    public static void seed(@Nonnull String worldName, @Nonnull ShopSummary summary) {
+        if (!index.contains(worldName, ShopIndex.pack(summary.getX(), summary.getY(), summary.getZ()))) {
+            update(worldName, summary);
+        }
+    }
+    
+    /**
+     * Replace the indexed offers of a shop with those of its current summary.
+     */
+    public static void update(@Nonnull String worldName, @Nonnull ShopSummary summary) {
+        int x = summary.getX();
+        int y = summary.getY();
+        int z = summary.getZ();
+        List<ShopOffer> offers = new ArrayList<>(summary.getListings().size());
+        for (ShopSummary.ListingSummary listing : summary.getListings()) {
+            offers.add(new ShopOffer(worldName, x, y, z, listing.getSlot(), listing.getItemId(), listing.getCurrencyItemId(),
+                listing.getBuyPrice(), listing.getSellPrice(), listing.getStock(), summary.getOwnerName()));
+        }
+        index.update(worldName, ShopIndex.pack(x, y, z), offers);
+    }
+    
+    /**
+     * Get the cheapest in-stock offers for an item, grouped by currency.
+     * 
+     * @param itemKey a key from {@link #resolveItem}
+     */
+    @Nonnull
+    public static List<OfferIndex.CurrencyGroup> findSellers(@Nonnull String itemKey, int limitPerCurrency) {
+        return index.findSellers(itemKey, limitPerCurrency);
+    }
+    
+    /**
+     * Get the shops paying the most for an item, grouped by currency.
+     * 
+     * @param itemKey a key from {@link #resolveItem}
+     */
+    @Nonnull
+    public static List<OfferIndex.CurrencyGroup> findBuyers(@Nonnull String itemKey, int limitPerCurrency) {
+        return index.findBuyers(itemKey, limitPerCurrency);
+    }
+    
+    /**
+     * Turn what a player typed into an index key. Accepts item IDs with or without namespace
+     * ("Ingredient_Bar_Iron") and display names ("iron bar" or "iron_bar"); exact matches win over partial ones.
+     * 
+     * @return the item key, or null if no traded item matches
+     */
+    @Nullable
+    public static String resolveItem(@Nonnull String query) {
+        String trimmed = query.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        
+        String asId = OfferIndex.key(trimmed.replace(' ', '_'));
+        if (index.hasItem(asId)) {
+            return asId;
+        }
+        
+        // Fall back to display names; only items that are actually traded are scanned
+        String lower = trimmed.replace('_', ' ').toLowerCase(Locale.ROOT);
+        String partial = null;
+        for (String key : index.getItemKeys()) {
+            String itemId = index.getItemId(key);
+            if (itemId == null) {
+                continue;
+            }
+            String name = ItemNames.get(itemId).toLowerCase(Locale.ROOT);
+            if (name.equals(lower)) {
+                return key;
+            }
+            if (partial == null && name.contains(lower)) {
+                partial = key;
+            }
+        }
+        return partial;
+    }
+    
+    /**
+     * Get an item ID for an index key, for display.
+     */
+    @Nullable
+    public static String getItemId(@Nonnull String itemKey) {
+        return index.getItemId(itemKey);
+    }
+}
@@ -1,16 +1,23 @@
 package com.example.barterchest.state;
 
+import com.example.barterchest.core.trade.ShopLedger;
+import com.example.barterchest.diagnostics.BarterMetrics;
+import com.example.barterchest.ui.ShopViewerRegistry;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
 import com.hypixel.hytale.codec.codecs.array.ArrayCodec;
 import com.hypixel.hytale.component.ComponentAccessor;
 import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.inventory.ItemStack;
 import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
 import com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
 import com.hypixel.hytale.server.core.universe.world.meta.state.BreakValidatedBlockState;
 import com.hypixel.hytale.server.core.universe.world.meta.state.ItemContainerState;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
@@ -26,8 +33,9 @@ import java.util.UUID;
  * Block state for player-owned shop chests.
  * Extends ItemContainerState to inherit chest inventory functionality.
  * Implements BreakValidatedBlockState to control who can break the shop.
+ * Implements ShopLedger so trades can record earnings.
  */
-public class BarterChestBlockState extends ItemContainerState implements BreakValidatedBlockState {
+public class BarterChestBlockState extends ItemContainerState implements BreakValidatedBlockState, ShopLedger {
     
     /** Permission node for admin bypass */
     public static final String ADMIN_PERMISSION = "barterchest.admin";
@@ -118,6 +126,10 @@ public class BarterChestBlockState extends ItemContainerState implements BreakVa
     private long createdAt;
     private long totalEarnings = 0L;
     
+    /** Copy-on-write view for other threads, replaced after each committed change */
+    @Nullable
+    private volatile ShopSnapshot snapshot;
+    
     // --- Constructors ---
     
     // Default constructor for codec
@@ -333,6 +345,7 @@ public class BarterChestBlockState extends ItemContainerState implements BreakVa
         markNeedsSave();
     }
     
+    @Override
     public void addEarnings(long amount) {
         this.totalEarnings += amount;
         markNeedsSave();
@@ -360,10 +373,29 @@ public class BarterChestBlockState extends ItemContainerState implements BreakVa
     /**
      * Alias for markNeedsSave for compatibility.
      */
+    @Override
     public void markDirty() {
         markNeedsSave();
     }
     
+    /**
+     * Register in the {@link ShopIndex} and queue a snapshot if the state is already
+     * attached to a chunk. States initialized before they are attached are registered by
+     * whoever attaches them, or by the first interaction that finds them.
+     */
+    @Override
+    public boolean initialize(BlockType blockType) {
+        boolean initialized = super.initialize(blockType);
+        
+        World world = getShopWorld();
+        Vector3i position = getShopPosition();
+        if (world != null && position != null) {
+            ShopIndex.add(world, position.getX(), position.getY(), position.getZ());
+            ShopSnapshots.markChanged(world, position.getX(), position.getY(), position.getZ());
+        }
+        return initialized;
+    }
+    
     /**
      * Override onDestroy to prevent crashes when the connected block system
      * corrupts our state. This can happen when explosions or other effects
@@ -374,6 +406,12 @@ public class BarterChestBlockState extends ItemContainerState implements BreakVa
         try {
             // Check if chunk is still valid before calling parent
             if (getChunk() != null) {
+                World world = getShopWorld();
+                Vector3i position = getShopPosition();
+                if (world != null && position != null) {
+                    ShopIndex.remove(world, position.getX(), position.getY(), position.getZ());
+                    ShopSnapshots.remove(world.getName(), position.getX(), position.getY(), position.getZ());
+                }
                 super.onDestroy();
             } else {
                 // Chunk is null - state is corrupted, just clean up silently
@@ -392,13 +430,61 @@ public class BarterChestBlockState extends ItemContainerState implements BreakVa
     public void markNeedsSave() {
         try {
             if (getChunk() != null) {
+                BarterMetrics.recordDirtyMark();
                 super.markNeedsSave();
+                notifyChanged();
             }
         } catch (Exception e) {
             // Ignore - state may be in invalid state
         }
     }
     
+    /**
+     * Let open shop pages know this shop changed so they can push fresh stock and prices,
+     * and queue a new snapshot. Every mutation goes through markNeedsSave, so this is the single hook point.
+     */
+    private void notifyChanged() {
+        World world = getShopWorld();
+        Vector3i position = getShopPosition();
+        if (world != null && position != null) {
+            ShopViewerRegistry.markChanged(world, position.getX(), position.getY(), position.getZ());
+            ShopSnapshots.markChanged(world, position.getX(), position.getY(), position.getZ());
+        }
+    }
+    
+    /**
+     * Get the latest published snapshot of this shop, or null before the first one.
+     * Unlike the shop itself, the snapshot may be read from any thread.
+     */
+    @Nullable
+    public ShopSnapshot getSnapshot() {
+        return snapshot;
+    }
+    
+    /**
+     * Replace the published snapshot. Called by {@link ShopSnapshots} on the world thread.
+     */
+    void publishSnapshot(@Nonnull ShopSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+    
+    /**
+     * Get the world this shop lives in, or null if the state is detached from its chunk.
+     */
+    @Nullable
+    public World getShopWorld() {
+        WorldChunk chunk = getChunk();
+        return chunk != null ? chunk.getWorld() : null;
+    }
+    
+    /**
+     * Get the world block position of this shop, or null if the state is detached from its chunk.
+     */
+    @Nullable
+    public Vector3i getShopPosition() {
+        return getChunk() != null ? getBlockPosition() : null;
+    }
+    
     /**
      * Override onItemChange to safely handle inventory modifications.
      * The parent class registers this as an event listener, but we need
@@ -1,5 +1,6 @@
 package com.example.barterchest.state;
 
+import com.example.barterchest.core.trade.TradeTerms;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
@@ -16,7 +17,7 @@ import javax.annotation.Nullable;
  * - Buy price: how many currency items customers pay to buy 1 item
  * - Sell price: how many currency items the shop pays when customers sell 1 item
  */
-public class BarterListing {
+public class BarterListing implements TradeTerms {
     
     @SuppressWarnings("unchecked")
     public static final Codec<BarterListing> CODEC = (Codec<BarterListing>)
@@ -85,6 +86,7 @@ public class BarterListing {
     }
     
     @Nullable
+    @Override
     public String getItemId() {
         return itemId;
     }
@@ -94,6 +96,7 @@ public class BarterListing {
     }
     
     @Nullable
+    @Override
     public String getCurrencyItemId() {
         return currencyItemId;
     }
@@ -102,6 +105,7 @@ public class BarterListing {
         this.currencyItemId = currencyItemId;
     }
     
+    @Override
     public int getBuyPrice() {
         return buyPrice;
     }
@@ -110,6 +114,7 @@ public class BarterListing {
         this.buyPrice = buyPrice;
     }
     
+    @Override
     public int getSellPrice() {
         return sellPrice;
     }
@@ -120,20 +125,6 @@ public class BarterListing {
     
     // --- Helper Methods ---
     
-    /**
-     * Returns true if customers can buy this item from the shop.
-     */
-    public boolean canBuyFrom() {
-        return buyPrice > 0 && currencyItemId != null && !currencyItemId.isEmpty();
-    }
-    
-    /**
-     * Returns true if customers can sell this item to the shop.
-     */
-    public boolean canSellTo() {
-        return sellPrice > 0 && currencyItemId != null && !currencyItemId.isEmpty();
-    }
-    
     /**
      * Returns true if this listing is fully configured (has item, currency, and at least one price).
      */
@@ -0,0 +1,119 @@
+package com.example.barterchest.state;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The data behind {@link ShopIndex}, without server types so it can be tested headlessly.
+ * 
+ * Holds the packed positions of known shops per world, and which block types were seen
+ * to hold a container. A position that isn't indexed is only ruled out if its block type
+ * is known not to be a container; block types never seen before count as containers, so a
+ * shop that was never indexed is still looked up instead of being treated as a plain block.
+ * 
+ * @param <W> the world type
+ * @param <T> the block type
+ */
+final class PositionIndex<W, T> {
+    
+    /**
+     * Reads blocks of a world.
+     */
+    interface Blocks<W, T> {
+        
+        /** Block type at a position, or null if there is none */
+        @Nullable
+        T getBlockType(@Nonnull W world, int x, int y, int z);
+        
+        /** Block state at a position, or null if there is none */
+        @Nullable
+        Object getState(@Nonnull W world, int x, int y, int z);
+        
+        /** True if a block state holds a container (and so may be a shop) */
+        boolean isContainer(@Nullable Object state);
+    }
+    
+    /** World -> packed shop positions */
+    private final Map<W, Set<Long>> shops = new ConcurrentHashMap<>();
+    
+    /** Block type -> whether its blocks hold a container */
+    private final Map<T, Boolean> containerTypes = new ConcurrentHashMap<>();
+    
+    void add(@Nonnull W world, int x, int y, int z) {
+        shops.computeIfAbsent(world, w -> ConcurrentHashMap.newKeySet()).add(pack(x, y, z));
+    }
+    
+    void remove(@Nonnull W world, int x, int y, int z) {
+        Set<Long> positions = shops.get(world);
+        if (positions != null) {
+            positions.remove(pack(x, y, z));
+        }
+    }
+    
+    void removeWorld(@Nonnull W world) {
+        shops.remove(world);
+    }
+    
+    boolean contains(@Nonnull W world, int x, int y, int z) {
+        Set<Long> positions = shops.get(world);
+        return positions != null && positions.contains(pack(x, y, z));
+    }
+    
+    /**
+     * Find the shop at a position, keeping the index in step with what the block state says:
+     * a shop that wasn't indexed is added, an indexed position that holds no shop is removed.
+     * Block state is only fetched for indexed positions and for block types that may hold
+     * a container.
+     * 
+     * @return the shop's block state, or null if the block is not a shop
+     */
+    @Nullable
+    <S> S findShop(@Nonnull W world, int x, int y, int z, @Nonnull Blocks<W, T> blocks, @Nonnull Class<S> shopType) {
+        boolean indexed = contains(world, x, y, z);
+        T blockType = null;
+        if (!indexed) {
+            blockType = blocks.getBlockType(world, x, y, z);
+            if (blockType == null || !containerTypes.getOrDefault(blockType, Boolean.TRUE)) {
+                return null;
+            }
+        }
+        
+        Object state = blocks.getState(world, x, y, z);
+        if (blockType != null) {
+            // Once a type has held a container it stays one
+            containerTypes.merge(blockType, blocks.isContainer(state), Boolean::logicalOr);
+        }
+        if (!shopType.isInstance(state)) {
+            if (indexed) {
+                remove(world, x, y, z);
+            }
+            return null;
+        }
+        if (!indexed) {
+            add(world, x, y, z);
+        }
+        return shopType.cast(state);
+    }
+    
+    /**
+     * Pack a block position into a single long key (26 bits x, 12 bits y, 26 bits z).
+     */
+    static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (y & 0xFFF) << 26) | (z & 0x3FFFFFF);
+    }
+    
+    static int unpackX(long packed) {
+        return (int) (packed >> 38);
+    }
+    
+    static int unpackY(long packed) {
+        return (int) ((packed >> 26) & 0xFFF);
+    }
+    
+    static int unpackZ(long packed) {
+        return (int) (packed << 38 >> 38);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.barterchest.state;
+
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.meta.state.ItemContainerState;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Positions of known shops, per world.
+ * 
+ * Lets hot paths like block interaction reject non-shop blocks with a set lookup
+ * instead of fetching block state. Shops register themselves when they are
+ * initialized while attached to a chunk, when a license creates them, and when
+ * an interaction finds one that wasn't registered (e.g. loaded with its chunk before
+ * it was attached); they unregister when destroyed or converted back to a normal chest.
+ * 
+ * The index may miss a loaded shop, so a position that isn't indexed only counts as
+ * "not a shop" if its block type is known not to hold a container (see
+ * {@link #findShop}). Entries for unloaded chunks are kept, so the index may also
+ * contain stale positions.
+ */
+public final class ShopIndex {
+    
+    private static final PositionIndex<World, BlockType> index = new PositionIndex<>();
+    
+    private static final PositionIndex.Blocks<World, BlockType> WORLD_BLOCKS = new PositionIndex.Blocks<>() {
+        @Nullable
+        @Override
+        public BlockType getBlockType(@Nonnull World world, int x, int y, int z) {
+            return world.getBlockType(x, y, z);
+        }
+        
+        @Nullable
+        @Override
+        public Object getState(@Nonnull World world, int x, int y, int z) {
+            return world.getState(x, y, z, true);
+        }
+        
+        @Override
+        public boolean isContainer(@Nullable Object state) {
+            return state instanceof ItemContainerState;
+        }
+    };
+    
+    private ShopIndex() {
+    }
+    
+    /**
+     * Register a shop position.
+     */
+    public static void add(@Nonnull World world, int x, int y, int z) {
+        index.add(world, x, y, z);
+    }
+    
+    /**
+     * Unregister a shop position.
+     */
+    public static void remove(@Nonnull World world, int x, int y, int z) {
+        index.remove(world, x, y, z);
+    }
+    
+    /**
+     * Forget every position of a world that was removed.
+     */
+    public static void onWorldRemoved(@Nonnull World world) {
+        index.removeWorld(world);
+    }
+    
+    /**
+     * Get the shop at a block, or null if it is not one. Non-shop blocks are rejected
+     * without fetching block state if they aren't indexed and their block type is known
+     * not to hold a container; a shop the index missed is found and registered.
+     */
+    @Nullable
+    public static BarterChestBlockState findShop(@Nonnull World world, int x, int y, int z) {
+        return index.findShop(world, x, y, z, WORLD_BLOCKS, BarterChestBlockState.class);
+    }
+    
+    /**
+     * Pack a block position into a single long key (26 bits x, 12 bits y, 26 bits z).
+     */
+    public static long pack(int x, int y, int z) {
+        return PositionIndex.pack(x, y, z);
+    }
+    
+    /** X coordinate of a {@link #pack packed} position */
+    public static int unpackX(long packed) {
+        return PositionIndex.unpackX(packed);
+    }
+    
+    /** Y coordinate of a {@link #pack packed} position */
+    public static int unpackY(long packed) {
+        return PositionIndex.unpackY(packed);
+    }
+    
+    /** Z coordinate of a {@link #pack packed} position */
+    public static int unpackZ(long packed) {
+        return PositionIndex.unpackZ(packed);
+    }
+}
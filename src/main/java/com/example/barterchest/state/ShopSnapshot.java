@@ -0,0 +1,185 @@
+package com.example.barterchest.state;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable copy of a shop as of its last committed change.
+ * 
+ * Built on the world thread by {@link ShopSnapshots} and safe to read from any
+ * thread, so async commands, search and metrics don't need to schedule onto the
+ * world executor to look at a shop.
+ */
+public final class ShopSnapshot {
+    
+    private final String worldName;
+    private final int x;
+    private final int y;
+    private final int z;
+    private final UUID ownerUUID;
+    private final String ownerName;
+    private final String shopName;
+    private final String displayName;
+    private final long createdAt;
+    private final long totalEarnings;
+    private final List<ListingSnapshot> listings;
+    
+    /**
+     * One listing with its stock and space at snapshot time.
+     */
+    public static final class ListingSnapshot {
+        private final int slot;
+        private final String itemId;
+        private final String currencyItemId;
+        private final int buyPrice;
+        private final int sellPrice;
+        private final int stock;
+        private final int availableSpace;
+        private final boolean configured;
+        
+        private ListingSnapshot(@Nonnull BarterListing listing, int stock, int availableSpace) {
+            this.slot = listing.getSlot();
+            this.itemId = listing.getItemId();
+            this.currencyItemId = listing.getCurrencyItemId();
+            this.buyPrice = listing.getBuyPrice();
+            this.sellPrice = listing.getSellPrice();
+            this.stock = stock;
+            this.availableSpace = availableSpace;
+            this.configured = listing.isConfigured();
+        }
+        
+        public int getSlot() {
+            return slot;
+        }
+        
+        @Nullable
+        public String getItemId() {
+            return itemId;
+        }
+        
+        @Nullable
+        public String getCurrencyItemId() {
+            return currencyItemId;
+        }
+        
+        public int getBuyPrice() {
+            return buyPrice;
+        }
+        
+        public int getSellPrice() {
+            return sellPrice;
+        }
+        
+        /** Items of this listing in the chest */
+        public int getStock() {
+            return stock;
+        }
+        
+        /** How many more of this item the chest can take */
+        public int getAvailableSpace() {
+            return availableSpace;
+        }
+        
+        /** See {@link BarterListing#isConfigured()} */
+        public boolean isConfigured() {
+            return configured;
+        }
+    }
+    
+    private ShopSnapshot(@Nonnull String worldName, int x, int y, int z, @Nonnull BarterChestBlockState shop,
+                         @Nonnull List<ListingSnapshot> listings) {
+        this.worldName = worldName;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.ownerUUID = shop.getOwnerUUID();
+        this.ownerName = shop.getOwnerName();
+        this.shopName = shop.getShopName();
+        this.displayName = shop.getDisplayName();
+        this.createdAt = shop.getCreatedAt();
+        this.totalEarnings = shop.getTotalEarnings();
+        this.listings = listings;
+    }
+    
+    /**
+     * Copy a shop. Must run on the shop's world thread.
+     */
+    @Nonnull
+    static ShopSnapshot of(@Nonnull String worldName, int x, int y, int z, @Nonnull BarterChestBlockState shop) {
+        List<ListingSnapshot> listings = new ArrayList<>(shop.getListings().size());
+        for (BarterListing listing : shop.getListings()) {
+            listings.add(new ListingSnapshot(listing, shop.getStock(listing), shop.getAvailableSpace(listing)));
+        }
+        return new ShopSnapshot(worldName, x, y, z, shop, Collections.unmodifiableList(listings));
+    }
+    
+    @Nonnull
+    public String getWorldName() {
+        return worldName;
+    }
+    
+    public int getX() {
+        return x;
+    }
+    
+    public int getY() {
+        return y;
+    }
+    
+    public int getZ() {
+        return z;
+    }
+    
+    @Nullable
+    public UUID getOwnerUUID() {
+        return ownerUUID;
+    }
+    
+    @Nonnull
+    public String getOwnerName() {
+        return ownerName;
+    }
+    
+    @Nullable
+    public String getShopName() {
+        return shopName;
+    }
+    
+    @Nonnull
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    public long getCreatedAt() {
+        return createdAt;
+    }
+    
+    public long getTotalEarnings() {
+        return totalEarnings;
+    }
+    
+    /**
+     * All listings, configured or not.
+     */
+    @Nonnull
+    public List<ListingSnapshot> getListings() {
+        return listings;
+    }
+    
+    /**
+     * Get the listing for a chest slot, or null if that slot isn't listed.
+     */
+    @Nullable
+    public ListingSnapshot getListing(int slot) {
+        for (ListingSnapshot listing : listings) {
+            if (listing.getSlot() == slot) {
+                return listing;
+            }
+        }
+        return null;
+    }
+}
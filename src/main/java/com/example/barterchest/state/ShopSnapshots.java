@@ -0,0 +1,190 @@
+package com.example.barterchest.state;
+
+import com.example.barterchest.diagnostics.TickProfiler;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.meta.BlockState;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes a {@link ShopSnapshot} of every loaded shop after it changes.
+ * 
+ * Changes are coalesced per tick: however many times a shop changes during a tick
+ * (one trade moves several stacks), it is copied once, on the world thread, when the
+ * tick's work is done. The new snapshot replaces the old one in a copy-on-write
+ * reference, so readers on any thread always see a complete, committed shop.
+ * Listeners (search, catalog) are told about each new snapshot on the world thread.
+ */
+public final class ShopSnapshots {
+    
+    /**
+     * Notified on the world thread when a shop's snapshot is published or the shop is removed.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param snapshot the new snapshot, or null if the shop no longer exists
+         */
+        void onShopChanged(@Nonnull String worldName, int x, int y, int z, @Nullable ShopSnapshot snapshot);
+    }
+    
+    /** World name -> packed position -> latest snapshot */
+    private static final Map<String, Map<Long, ShopSnapshot>> snapshots = new ConcurrentHashMap<>();
+    
+    /** World -> shops changed since the last flush */
+    private static final Map<World, PendingChanges> pending = new ConcurrentHashMap<>();
+    
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Shops changed in one world, and whether a flush is queued on its executor.
+     */
+    private static final class PendingChanges {
+        final Set<Long> changed = ConcurrentHashMap.newKeySet();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+    }
+    
+    private ShopSnapshots() {
+    }
+    
+    /**
+     * Register a listener for published snapshots.
+     */
+    public static void addListener(@Nonnull Listener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Mark a shop as changed. A new snapshot is published once on the next run of
+     * the world executor, however many times it changes before then.
+     */
+    public static void markChanged(@Nonnull World world, int x, int y, int z) {
+        PendingChanges changes = pending.computeIfAbsent(world, w -> new PendingChanges());
+        changes.changed.add(ShopIndex.pack(x, y, z));
+        schedule(world, changes);
+    }
+    
+    /**
+     * Queue a flush unless one is already queued. The flag is set before the task is
+     * submitted, so a change made while a flush drains is always picked up by a flush.
+     */
+    private static void schedule(@Nonnull World world, @Nonnull PendingChanges changes) {
+        if (changes.scheduled.compareAndSet(false, true)) {
+            world.execute(() -> flush(world));
+        }
+    }
+    
+    /**
+     * Forget the pending changes of a world that was removed. Its published snapshots are kept,
+     * like those of shops in unloaded chunks.
+     */
+    public static void onWorldRemoved(@Nonnull World world) {
+        pending.remove(world);
+    }
+    
+    private static void flush(@Nonnull World world) {
+        if (!TickProfiler.isCapturing()) {
+            flushChanges(world);
+            return;
+        }
+        
+        long start = System.nanoTime();
+        flushChanges(world);
+        TickProfiler.record(TickProfiler.Section.SNAPSHOT_FLUSH, System.nanoTime() - start, world, null);
+    }
+    
+    /**
+     * Publish a snapshot of every shop changed since the last flush. Runs on the world thread.
+     */
+    private static void flushChanges(@Nonnull World world) {
+        PendingChanges changes = pending.get(world);
+        if (changes == null) {
+            return;
+        }
+        
+        // Cleared before draining: a change made from here on queues another flush
+        changes.scheduled.set(false);
+        
+        String worldName = world.getName();
+        Set<Long> changed = changes.changed;
+        for (Long key : changed.toArray(new Long[0])) {
+            changed.remove(key);
+            int x = ShopIndex.unpackX(key);
+            int y = ShopIndex.unpackY(key);
+            int z = ShopIndex.unpackZ(key);
+            
+            BlockState state = world.getState(x, y, z, true);
+            if (state instanceof BarterChestBlockState shop) {
+                ShopSnapshot snapshot = ShopSnapshot.of(worldName, x, y, z, shop);
+                shop.publishSnapshot(snapshot);
+                snapshots.computeIfAbsent(worldName, w -> new ConcurrentHashMap<>()).put(key, snapshot);
+                notifyListeners(worldName, x, y, z, snapshot);
+            } else {
+                remove(worldName, x, y, z);
+            }
+        }
+        
+        // Anything changed while draining that the loop above did not pick up
+        if (!changed.isEmpty()) {
+            schedule(world, changes);
+        }
+    }
+    
+    /**
+     * Drop the snapshot of a removed shop and tell the listeners. Must run on the world thread.
+     */
+    public static void remove(@Nonnull String worldName, int x, int y, int z) {
+        Map<Long, ShopSnapshot> world = snapshots.get(worldName);
+        if (world != null) {
+            world.remove(ShopIndex.pack(x, y, z));
+        }
+        notifyListeners(worldName, x, y, z, null);
+    }
+    
+    private static void notifyListeners(@Nonnull String worldName, int x, int y, int z, @Nullable ShopSnapshot snapshot) {
+        for (Listener listener : listeners) {
+            listener.onShopChanged(worldName, x, y, z, snapshot);
+        }
+    }
+    
+    /**
+     * Get the latest snapshot of a shop, or null if none was published since startup.
+     * Shops in unloaded chunks keep their last snapshot. Safe from any thread.
+     */
+    @Nullable
+    public static ShopSnapshot get(@Nonnull String worldName, int x, int y, int z) {
+        Map<Long, ShopSnapshot> world = snapshots.get(worldName);
+        return world != null ? world.get(ShopIndex.pack(x, y, z)) : null;
+    }
+    
+    /**
+     * Get the latest snapshots of all shops published in a world. Safe from any thread.
+     */
+    @Nonnull
+    public static Collection<ShopSnapshot> getAll(@Nonnull String worldName) {
+        Map<Long, ShopSnapshot> world = snapshots.get(worldName);
+        return world != null ? Collections.unmodifiableCollection(world.values()) : Collections.emptyList();
+    }
+    
+    /**
+     * Get the latest snapshots of all shops in all worlds. Safe from any thread.
+     */
+    @Nonnull
+    public static List<ShopSnapshot> getAll() {
+        List<ShopSnapshot> all = new ArrayList<>();
+        for (Map<Long, ShopSnapshot> world : snapshots.values()) {
+            all.addAll(world.values());
+        }
+        return all;
+    }
+}
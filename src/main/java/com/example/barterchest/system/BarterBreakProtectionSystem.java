@@ -1,5 +1,6 @@
 package com.example.barterchest.system;
 
+import com.example.barterchest.diagnostics.TickProfiler;
 import com.example.barterchest.state.BarterChestBlockState;
 import com.hypixel.hytale.component.ArchetypeChunk;
 import com.hypixel.hytale.component.CommandBuffer;
@@ -44,6 +45,20 @@ public class BarterBreakProtectionSystem extends EntityEventSystem<EntityStore,
     public void handle(int index, @Nonnull ArchetypeChunk<EntityStore> archetypeChunk, 
                        @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer, 
                        @Nonnull DamageBlockEvent event) {
+        if (!TickProfiler.isCapturing()) {
+            process(index, archetypeChunk, store, commandBuffer, event);
+            return;
+        }
+        
+        long start = System.nanoTime();
+        process(index, archetypeChunk, store, commandBuffer, event);
+        TickProfiler.record(TickProfiler.Section.DAMAGE_PROTECTION, System.nanoTime() - start,
+            store.getExternalData().getWorld(), event.getTargetBlock());
+    }
+    
+    private void process(int index, @Nonnull ArchetypeChunk<EntityStore> archetypeChunk, 
+                         @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer, 
+                         @Nonnull DamageBlockEvent event) {
         
         if (event.isCancelled()) {
             return;
@@ -137,6 +152,20 @@ public class BarterBreakProtectionSystem extends EntityEventSystem<EntityStore,
         public void handle(int index, @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
                            @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer,
                            @Nonnull BreakBlockEvent event) {
+            if (!TickProfiler.isCapturing()) {
+                process(index, archetypeChunk, store, commandBuffer, event);
+                return;
+            }
+            
+            long start = System.nanoTime();
+            process(index, archetypeChunk, store, commandBuffer, event);
+            TickProfiler.record(TickProfiler.Section.BREAK_PROTECTION, System.nanoTime() - start,
+                store.getExternalData().getWorld(), event.getTargetBlock());
+        }
+        
+        private void process(int index, @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+                             @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer,
+                             @Nonnull BreakBlockEvent event) {
             
             if (event.isCancelled()) {
                 return;
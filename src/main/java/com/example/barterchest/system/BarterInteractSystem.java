@@ -1,7 +1,10 @@
 package com.example.barterchest.system;
 
 import com.example.barterchest.admin.AdminModeManager;
+import com.example.barterchest.diagnostics.InteractTrace;
+import com.example.barterchest.diagnostics.TickProfiler;
 import com.example.barterchest.state.BarterChestBlockState;
+import com.example.barterchest.state.ShopIndex;
 import com.example.barterchest.ui.BarterConfigPage;
 import com.example.barterchest.ui.BarterUIPage;
 import com.hypixel.hytale.component.ArchetypeChunk;
@@ -12,6 +15,7 @@ import com.hypixel.hytale.component.dependency.Dependency;
 import com.hypixel.hytale.component.dependency.RootDependency;
 import com.hypixel.hytale.component.query.Query;
 import com.hypixel.hytale.component.system.EntityEventSystem;
+import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.math.vector.Vector3i;
 import com.hypixel.hytale.protocol.MovementStates;
 import com.hypixel.hytale.server.core.entity.entities.Player;
@@ -19,7 +23,6 @@ import com.hypixel.hytale.server.core.entity.movement.MovementStatesComponent;
 import com.hypixel.hytale.server.core.event.events.ecs.UseBlockEvent;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.World;
-import com.hypixel.hytale.server.core.universe.world.meta.BlockState;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import javax.annotation.Nonnull;
@@ -27,6 +30,7 @@ import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.Set;
 import java.util.UUID;
+import java.util.logging.Level;
 
 /**
  * System that intercepts right-click interactions on shop blocks.
@@ -38,6 +42,8 @@ import java.util.UUID;
  */
 public class BarterInteractSystem extends EntityEventSystem<EntityStore, UseBlockEvent.Pre> {
     
+    private static final HytaleLogger LOGGER = HytaleLogger.get("BarterChest/Interact");
+    
     public BarterInteractSystem() {
         super(UseBlockEvent.Pre.class);
     }
@@ -57,19 +63,20 @@ public class BarterInteractSystem extends EntityEventSystem<EntityStore, UseBloc
     public void handle(int index, @Nonnull ArchetypeChunk<EntityStore> archetypeChunk, 
                        @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer, 
                        @Nonnull UseBlockEvent.Pre event) {
-        
-        Ref<EntityStore> ref = archetypeChunk.getReferenceTo(index);
-        Player player = store.getComponent(ref, Player.getComponentType());
-        PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
-        
-        if (player == null || playerRef == null) {
+        if (!TickProfiler.isCapturing()) {
+            process(index, archetypeChunk, store, commandBuffer, event);
             return;
         }
         
-        World world = player.getWorld();
-        if (world == null) {
-            return;
-        }
+        long start = System.nanoTime();
+        process(index, archetypeChunk, store, commandBuffer, event);
+        TickProfiler.record(TickProfiler.Section.INTERACT, System.nanoTime() - start,
+            store.getExternalData().getWorld(), event.getTargetBlock());
+    }
+    
+    private void process(int index, @Nonnull ArchetypeChunk<EntityStore> archetypeChunk, 
+                         @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer, 
+                         @Nonnull UseBlockEvent.Pre event) {
         
         // Get the target block position
         Vector3i targetBlock = event.getTargetBlock();
@@ -77,52 +84,50 @@ public class BarterInteractSystem extends EntityEventSystem<EntityStore, UseBloc
             return;
         }
         
-        // Check if the target block is a shop
-        BlockState state = world.getState(targetBlock.getX(), targetBlock.getY(), targetBlock.getZ(), true);
+        Ref<EntityStore> ref = archetypeChunk.getReferenceTo(index);
+        PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
+        if (playerRef == null) {
+            return;
+        }
         
-        // Debug: Log what type of block state we're seeing
-        com.hypixel.hytale.logger.HytaleLogger.get("BarterChest/Interact").at(java.util.logging.Level.INFO)
-            .log("Block at %d,%d,%d has state type: %s (event cancelled: %b)", 
-                targetBlock.getX(), targetBlock.getY(), targetBlock.getZ(),
-                state != null ? state.getClass().getSimpleName() : "null",
-                event.isCancelled());
+        // Fast reject: most block uses are not on shops, so don't touch block state, crouch
+        // state or permissions unless the position is indexed or its block type can hold a
+        // container. The index may miss a shop (e.g. one loaded with its chunk), and a missed
+        // shop must never open as a plain chest, so containers are always looked up.
+        World world = store.getExternalData().getWorld();
+        BarterChestBlockState shop = ShopIndex.findShop(world, targetBlock.getX(), targetBlock.getY(), targetBlock.getZ());
+        if (shop == null) {
+            InteractTrace.record(playerRef.getUuid(), targetBlock.getX(), targetBlock.getY(), targetBlock.getZ(),
+                InteractTrace.Outcome.NOT_SHOP, event.isCancelled());
+            return;
+        }
         
-        if (!(state instanceof BarterChestBlockState shop)) {
+        Player player = store.getComponent(ref, Player.getComponentType());
+        if (player == null) {
             return;
         }
         
         // IMPORTANT: If this is a BarterChest, we handle it ourselves.
         // Un-cancel the event if it was cancelled by another system (like SimpleClaims)
         // because BarterChest shops are meant to be publicly accessible.
-        if (event.isCancelled()) {
-            com.hypixel.hytale.logger.HytaleLogger.get("BarterChest/Interact").at(java.util.logging.Level.INFO)
-                .log("Event was cancelled (likely by SimpleClaims) - allowing BarterChest interaction");
+        boolean wasCancelled = event.isCancelled();
+        if (wasCancelled) {
             event.setCancelled(false);
         }
         
-        // Debug: Log interaction
-        com.hypixel.hytale.logger.HytaleLogger.get("BarterChest/Interact").at(java.util.logging.Level.INFO)
-            .log("Player %s interacting with shop at %d,%d,%d", 
-                playerRef.getUsername(), targetBlock.getX(), targetBlock.getY(), targetBlock.getZ());
-        
         // Check if player is the owner
         UUID playerUUID = playerRef.getUuid();
         UUID ownerUUID = shop.getOwnerUUID();
         
         boolean isOwner = ownerUUID != null && ownerUUID.equals(playerUUID);
-        boolean hasAdminPermission = player.hasPermission(BarterChestBlockState.ADMIN_PERMISSION);
         
-        // Admin mode must be explicitly enabled for admins to manage other players' shops
-        boolean isAdminManaging = hasAdminPermission && AdminModeManager.isAdminModeEnabled(playerUUID);
+        // Admin mode must be explicitly enabled for admins to manage other players' shops.
+        // Owners skip this entirely; others only resolve the (cached) permission with admin mode on.
+        boolean isAdminManaging = !isOwner && AdminModeManager.getCapabilities(playerUUID).isAdminManaging(player);
         
         // Can manage = owner OR admin with admin mode enabled
         boolean canManage = isOwner || isAdminManaging;
         
-        // Debug: Log permission state
-        com.hypixel.hytale.logger.HytaleLogger.get("BarterChest/Interact").at(java.util.logging.Level.INFO)
-            .log("isOwner=%b, hasAdminPermission=%b, isAdminManaging=%b, canManage=%b", 
-                isOwner, hasAdminPermission, isAdminManaging, canManage);
-        
         // Check if player is crouching (sneaking)
         boolean isCrouching = false;
         MovementStatesComponent movementComponent = store.getComponent(ref, MovementStatesComponent.getComponentType());
@@ -133,11 +138,21 @@ public class BarterInteractSystem extends EntityEventSystem<EntityStore, UseBloc
             }
         }
         
+        InteractTrace.Outcome outcome = canManage
+            ? (isCrouching ? InteractTrace.Outcome.CHEST_ACCESS : InteractTrace.Outcome.CONFIG_PAGE)
+            : InteractTrace.Outcome.SHOP_PAGE;
+        InteractTrace.record(playerUUID, targetBlock.getX(), targetBlock.getY(), targetBlock.getZ(), outcome, wasCancelled);
+        
+        // Check the level first so nothing is formatted when debug logging is off
+        if (LOGGER.at(Level.FINE).isEnabled()) {
+            LOGGER.at(Level.FINE).log("%s used shop at %d,%d,%d: %s (isOwner=%b, isAdminManaging=%b, wasCancelled=%b)",
+                playerRef.getUsername(), targetBlock.getX(), targetBlock.getY(), targetBlock.getZ(),
+                outcome, isOwner, isAdminManaging, wasCancelled);
+        }
+        
         // If manager (owner or admin in admin mode) is crouching, let them access the chest inventory normally
-        if (canManage && isCrouching) {
+        if (outcome == InteractTrace.Outcome.CHEST_ACCESS) {
             // Don't cancel - let the default chest opening happen
-            com.hypixel.hytale.logger.HytaleLogger.get("BarterChest/Interact").at(java.util.logging.Level.INFO)
-                .log("Owner crouching - allowing chest access");
             return;
         }
         
@@ -145,17 +160,13 @@ public class BarterInteractSystem extends EntityEventSystem<EntityStore, UseBloc
         event.setCancelled(true);
         
         // If manager (not crouching), open config UI
-        if (canManage) {
-            com.hypixel.hytale.logger.HytaleLogger.get("BarterChest/Interact").at(java.util.logging.Level.INFO)
-                .log("Opening config page for owner/admin");
+        if (outcome == InteractTrace.Outcome.CONFIG_PAGE) {
             BarterConfigPage configPage = new BarterConfigPage(playerRef, targetBlock, world);
             player.getPageManager().openCustomPage(ref, store, configPage);
             return;
         }
         
         // For everyone else (customers, admins without admin mode): open shop UI
-        com.hypixel.hytale.logger.HytaleLogger.get("BarterChest/Interact").at(java.util.logging.Level.INFO)
-            .log("Opening shop UI for customer");
         BarterUIPage page = new BarterUIPage(playerRef, targetBlock, world);
         player.getPageManager().openCustomPage(ref, store, page);
     }
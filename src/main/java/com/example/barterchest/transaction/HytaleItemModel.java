@@ -0,0 +1,74 @@
+package com.example.barterchest.transaction;
+
+import com.example.barterchest.core.inventory.ItemModel;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * {@link ItemModel} for the server's {@link ItemStack}s. Stack limits come from the item assets.
+ */
+public final class HytaleItemModel implements ItemModel<ItemStack> {
+    
+    public static final HytaleItemModel INSTANCE = new HytaleItemModel();
+    
+    /** Stack limit for items without an asset */
+    private static final int DEFAULT_MAX_STACK = 64;
+    
+    private HytaleItemModel() {
+    }
+    
+    @Override
+    public boolean isEmpty(@Nullable ItemStack stack) {
+        return stack == null || ItemStack.isEmpty(stack);
+    }
+    
+    @Nonnull
+    @Override
+    public String getItemId(@Nonnull ItemStack stack) {
+        return stack.getItemId();
+    }
+    
+    @Override
+    public int getQuantity(@Nonnull ItemStack stack) {
+        return stack.getQuantity();
+    }
+    
+    @Nonnull
+    @Override
+    public ItemStack withQuantity(@Nonnull ItemStack stack, int quantity) {
+        return stack.withQuantity(quantity);
+    }
+    
+    @Nonnull
+    @Override
+    public ItemStack create(@Nonnull String itemId, int quantity) {
+        return new ItemStack(itemId, quantity);
+    }
+    
+    @Override
+    public boolean isStackable(@Nonnull ItemStack stack, @Nonnull ItemStack other) {
+        return stack.isStackableWith(other);
+    }
+    
+    /**
+     * Get the max stack size for an item. Items with durability typically stack to 1.
+     */
+    @Override
+    public int getMaxStack(@Nonnull String itemId) {
+        try {
+            Item item = Item.getAssetMap().getAsset(itemId);
+            if (item != null) {
+                int maxStack = item.getMaxStack();
+                if (maxStack > 0) {
+                    return maxStack;
+                }
+            }
+        } catch (Exception e) {
+            // Ignore, use default
+        }
+        return DEFAULT_MAX_STACK;
+    }
+}
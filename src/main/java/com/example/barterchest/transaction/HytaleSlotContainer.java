@@ -0,0 +1,51 @@
+package com.example.barterchest.transaction;
+
+import com.example.barterchest.core.inventory.SlotContainer;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * {@link SlotContainer} view of a server {@link ItemContainer}.
+ */
+public final class HytaleSlotContainer implements SlotContainer<ItemStack> {
+    
+    private final ItemContainer container;
+    
+    private HytaleSlotContainer(@Nonnull ItemContainer container) {
+        this.container = container;
+    }
+    
+    @Nonnull
+    public static HytaleSlotContainer of(@Nonnull ItemContainer container) {
+        return new HytaleSlotContainer(container);
+    }
+    
+    @Override
+    public int getCapacity() {
+        return container.getCapacity();
+    }
+    
+    @Nullable
+    @Override
+    public ItemStack getStack(int slot) {
+        return container.getItemStack((short) slot);
+    }
+    
+    @Override
+    public void setStack(int slot, @Nullable ItemStack stack) {
+        try {
+            if (stack == null) {
+                container.removeItemStackFromSlot((short) slot);
+            } else {
+                container.setItemStackForSlot((short) slot, stack);
+            }
+        } catch (NullPointerException e) {
+            // The container's change listener can throw when it tries to mark dirty
+            // on a block state without a chunk reference. The slot is still updated,
+            // this is just a save notification issue.
+        }
+    }
+}
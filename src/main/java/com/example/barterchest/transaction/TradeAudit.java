@@ -0,0 +1,136 @@
+package com.example.barterchest.transaction;
+
+import com.example.barterchest.config.BarterConfig;
+import com.example.barterchest.core.item.ItemIds;
+import com.example.barterchest.core.trade.TransactionResult;
+import com.example.barterchest.diagnostics.BarterMetrics;
+import com.example.barterchest.state.BarterChestBlockState;
+import com.example.barterchest.state.BarterListing;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+
+/**
+ * Sampled check that trades move exactly what they report.
+ * 
+ * {@link HytaleSlotContainer#setStack} swallows exceptions from the server's containers and
+ * assumes the slot changed, so a failed write could duplicate or lose items without anyone
+ * noticing. For a fraction of trades ({@code tradeAuditSampleRate} in the config), the item and
+ * currency counts of the shop chest and the customer's inventory are taken before and after
+ * the trade and compared with what the result says moved. Mismatches are counted in
+ * {@link BarterMetrics} and logged with all counts.
+ */
+final class TradeAudit {
+    
+    private static final HytaleLogger LOGGER = HytaleLogger.get("BarterChest/Audit");
+    
+    private TradeAudit() {
+    }
+    
+    /**
+     * Counts taken before a sampled trade.
+     */
+    static final class Sample {
+        
+        private final ItemContainer shopInventory;
+        private final ItemContainer customerInventory;
+        private final String itemId;
+        private final String currencyItemId;
+        
+        /** Price per item the trade will use */
+        private final int price;
+        
+        private final int shopItems;
+        private final int shopCurrency;
+        private final int customerItems;
+        private final int customerCurrency;
+        
+        private Sample(@Nonnull ItemContainer shopInventory, @Nonnull ItemContainer customerInventory,
+                       @Nonnull String itemId, @Nonnull String currencyItemId, int price) {
+            this.shopInventory = shopInventory;
+            this.customerInventory = customerInventory;
+            this.itemId = itemId;
+            this.currencyItemId = currencyItemId;
+            this.price = price;
+            this.shopItems = BarterTransactionManager.countItems(shopInventory, itemId);
+            this.shopCurrency = BarterTransactionManager.countItems(shopInventory, currencyItemId);
+            this.customerItems = BarterTransactionManager.countItems(customerInventory, itemId);
+            this.customerCurrency = BarterTransactionManager.countItems(customerInventory, currencyItemId);
+        }
+    }
+    
+    /**
+     * Decide whether to audit a trade and, if so, take the counts it starts from.
+     * 
+     * @return The counts to pass to {@link #verify}, or null if this trade isn't sampled
+     */
+    @Nullable
+    static Sample sample(@Nonnull ItemContainer shopInventory, @Nonnull ItemContainer customerInventory,
+                         @Nonnull BarterListing listing, boolean buying) {
+        double rate = BarterConfig.get().getTradeAuditSampleRate();
+        if (rate <= 0 || ThreadLocalRandom.current().nextDouble() >= rate) {
+            return null;
+        }
+        
+        // Unconfigured listings are rejected before anything moves
+        String itemId = listing.getItemId();
+        String currencyItemId = listing.getCurrencyItemId();
+        if (itemId == null || itemId.isEmpty() || currencyItemId == null) {
+            return null;
+        }
+        return new Sample(shopInventory, customerInventory, itemId, currencyItemId,
+            buying ? listing.getBuyPrice() : listing.getSellPrice());
+    }
+    
+    /**
+     * Check the counts after a sampled trade against what its result says moved.
+     */
+    static void verify(@Nonnull Sample sample, @Nonnull BarterChestBlockState shop, boolean buying,
+                       int quantity, @Nonnull TransactionResult result) {
+        int moved = result.isSuccess() ? result.getQuantityTransacted() : 0;
+        int paid = moved * sample.price;
+        
+        // Change on the customer's side; the shop's is the opposite
+        int itemDelta = buying ? moved : -moved;
+        int currencyDelta = buying ? -paid : paid;
+        if (ItemIds.matches(sample.itemId, sample.currencyItemId)) {
+            // Item and currency are counted together
+            itemDelta += currencyDelta;
+            currencyDelta = itemDelta;
+        }
+        
+        int shopItems = BarterTransactionManager.countItems(sample.shopInventory, sample.itemId);
+        int shopCurrency = BarterTransactionManager.countItems(sample.shopInventory, sample.currencyItemId);
+        int customerItems = BarterTransactionManager.countItems(sample.customerInventory, sample.itemId);
+        int customerCurrency = BarterTransactionManager.countItems(sample.customerInventory, sample.currencyItemId);
+        
+        boolean violated = shopItems != sample.shopItems - itemDelta
+            || shopCurrency != sample.shopCurrency - currencyDelta
+            || customerItems != sample.customerItems + itemDelta
+            || customerCurrency != sample.customerCurrency + currencyDelta;
+        BarterMetrics.recordTradeAudit(violated);
+        if (!violated) {
+            return;
+        }
+        
+        World world = shop.getShopWorld();
+        Vector3i position = shop.getShopPosition();
+        LOGGER.at(Level.SEVERE).log(
+            "Trade audit failed: %s %dx %s for %s at %s %s, result %s x%d (%s). "
+                + "Shop %s %d -> %d (expected %d), %s %d -> %d (expected %d); "
+                + "customer %s %d -> %d (expected %d), %s %d -> %d (expected %d)",
+            buying ? "buy" : "sell", quantity, sample.itemId, sample.currencyItemId,
+            world != null ? world.getName() : "?", position != null ? position : "?",
+            result.getStatus(), result.getQuantityTransacted(), result.getMessage(),
+            sample.itemId, sample.shopItems, shopItems, sample.shopItems - itemDelta,
+            sample.currencyItemId, sample.shopCurrency, shopCurrency, sample.shopCurrency - currencyDelta,
+            sample.itemId, sample.customerItems, customerItems, sample.customerItems + itemDelta,
+            sample.currencyItemId, sample.customerCurrency, customerCurrency, sample.customerCurrency + currencyDelta);
+    }
+}
@@ -1,22 +1,22 @@
 package com.example.barterchest.ui;
 
 import com.example.barterchest.config.BarterConfig;
+import com.example.barterchest.diagnostics.BarterMetrics;
+import com.example.barterchest.diagnostics.PageBuildEvent;
+import com.example.barterchest.i18n.ItemNames;
 import com.example.barterchest.state.BarterChestBlockState;
 import com.example.barterchest.state.BarterListing;
-import com.hypixel.hytale.codec.Codec;
-import com.hypixel.hytale.codec.KeyedCodec;
-import com.hypixel.hytale.codec.builder.BuilderCodec;
+import com.example.barterchest.state.ShopIndex;
+import com.example.barterchest.state.ShopSnapshots;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.math.vector.Vector3i;
 import com.hypixel.hytale.math.util.ChunkUtil;
 import com.hypixel.hytale.protocol.packets.interface_.CustomPageLifetime;
-import com.hypixel.hytale.protocol.packets.interface_.CustomUIEventBindingType;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.entity.entities.player.pages.InteractiveCustomUIPage;
 import com.hypixel.hytale.server.core.inventory.Inventory;
 import com.hypixel.hytale.server.core.inventory.ItemStack;
-import com.hypixel.hytale.server.core.ui.builder.EventData;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
@@ -26,18 +26,47 @@ import com.hypixel.hytale.server.core.universe.world.meta.BlockState;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Configuration UI page for shop owners to set up their shops.
  */
-public class BarterConfigPage extends InteractiveCustomUIPage<BarterConfigPage.ConfigData> {
+public class BarterConfigPage extends InteractiveCustomUIPage<BarterEventData> implements ShopViewerRegistry.Viewer {
     
     private static final String UI_PAGE = "Pages/BarterChest_ConfigPage.ui";
     
+    /** Number of currency buttons in the page template */
+    private static final int CURRENCY_BUTTONS = 4;
+    
+    // Currency button selectors, precomputed so rendering doesn't concatenate them every time
+    private static final String[] CURRENCY_BUTTON = new String[CURRENCY_BUTTONS];
+    private static final String[] CURRENCY_TEXT = new String[CURRENCY_BUTTONS];
+    private static final String[] CURRENCY_VISIBLE = new String[CURRENCY_BUTTONS];
+    static {
+        for (int i = 0; i < CURRENCY_BUTTONS; i++) {
+            CURRENCY_BUTTON[i] = "#Currency" + i;
+            CURRENCY_TEXT[i] = CURRENCY_BUTTON[i] + ".Text";
+            CURRENCY_VISIBLE[i] = CURRENCY_BUTTON[i] + ".Visible";
+        }
+    }
+    
+    /** Actions this page handles */
+    private final Map<UIAction, UIActionHandler> handlers = new EnumMap<>(UIAction.class);
+    
     private final Vector3i shopPosition;
     private final World world;
     
+    /** Listing slot being edited */
+    private int listingSlot = 0;
+    
+    /** Current page of currency buttons (0-based) */
+    private int currencyPage = 0;
+    
     // Edited values
     private String selectedCurrencyId;
     private int buyPrice = 0;
@@ -45,20 +74,45 @@ public class BarterConfigPage extends InteractiveCustomUIPage<BarterConfigPage.C
     private String lastMessage = "";
     private boolean confirmRemove = false;
     
+    /** What the client currently shows, for delta updates */
+    private final PageViewState view = new PageViewState();
+    
     public BarterConfigPage(@Nonnull PlayerRef playerRef, @Nonnull Vector3i shopPosition, @Nonnull World world) {
-        super(playerRef, CustomPageLifetime.CanDismiss, ConfigData.CODEC);
+        super(playerRef, CustomPageLifetime.CanDismiss, BarterEventData.CODEC);
         this.shopPosition = shopPosition;
         this.world = world;
         
-        // Load existing config
+        handlers.put(UIAction.SELECT_LISTING, this::handleSelectListing);
+        handlers.put(UIAction.CURRENCY_PAGE, this::handleCurrencyPage);
+        handlers.put(UIAction.SELECT_CURRENCY, this::handleSelectCurrency);
+        handlers.put(UIAction.CURRENCY_FROM_HAND, this::handleCurrencyFromHand);
+        handlers.put(UIAction.ADJUST_BUY_PRICE, this::handleAdjustPrice);
+        handlers.put(UIAction.ADJUST_SELL_PRICE, this::handleAdjustPrice);
+        handlers.put(UIAction.SAVE, this::handleSave);
+        handlers.put(UIAction.REMOVE, this::handleRemove);
+        handlers.put(UIAction.CLOSE, (ref, store, data) -> close());
+        
+        // Load existing config of the first listing
         BarterChestBlockState shop = getShop();
-        if (shop != null) {
-            BarterListing listing = shop.getListing();
-            if (listing != null) {
-                this.selectedCurrencyId = listing.getCurrencyItemId();
-                this.buyPrice = listing.getBuyPrice();
-                this.sellPrice = listing.getSellPrice();
-            }
+        if (shop != null && !shop.getListings().isEmpty()) {
+            listingSlot = getListingSlots(shop)[0];
+        }
+        loadListing(shop);
+    }
+    
+    /**
+     * Load the edited values from the listing at {@link #listingSlot}, or defaults for a new listing.
+     */
+    private void loadListing(BarterChestBlockState shop) {
+        BarterListing listing = shop != null ? shop.getListing(listingSlot) : null;
+        if (listing != null) {
+            this.selectedCurrencyId = listing.getCurrencyItemId();
+            this.buyPrice = listing.getBuyPrice();
+            this.sellPrice = listing.getSellPrice();
+        } else {
+            this.selectedCurrencyId = null;
+            this.buyPrice = 0;
+            this.sellPrice = 0;
         }
         
         // Set default currency if not set
@@ -67,48 +121,114 @@ public class BarterConfigPage extends InteractiveCustomUIPage<BarterConfigPage.C
         }
     }
     
+    /**
+     * Get the sorted slots of the shop's listings.
+     */
+    private static int[] getListingSlots(@Nonnull BarterChestBlockState shop) {
+        List<BarterListing> listings = shop.getListings();
+        int[] slots = new int[listings.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = listings.get(i).getSlot();
+        }
+        Arrays.sort(slots);
+        return slots;
+    }
+    
     @Override
     public void build(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder commandBuilder, 
                       @Nonnull UIEventBuilder eventBuilder, @Nonnull Store<EntityStore> store) {
         
+        long start = System.nanoTime();
+        PageBuildEvent event = new PageBuildEvent();
+        event.begin();
         commandBuilder.append(UI_PAGE);
         
-        BarterChestBlockState shop = getShop();
-        if (shop == null) {
-            commandBuilder.set("#TitleText.Text", "Shop Not Found");
-            commandBuilder.set("#ItemLabel.Text", "Error: Shop no longer exists");
+        render(ref, store);
+        view.writeAll(commandBuilder, eventBuilder);
+        BarterMetrics.CONFIG_PAGE_BUILD.record(System.nanoTime() - start);
+        
+        event.end();
+        if (event.shouldCommit()) {
+            event.page = "config";
+            event.world = world.getName();
+            event.x = shopPosition.getX();
+            event.y = shopPosition.getY();
+            event.z = shopPosition.getZ();
+            event.commit();
+        }
+        
+        // Receive live stock/price updates while the page is open
+        ShopViewerRegistry.subscribe(world, shopPosition, this);
+    }
+    
+    /**
+     * Describe the full page state. Only the entries that changed since the
+     * last update are actually sent (see {@link PageViewState}).
+     */
+    private void render(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store) {
+        view.begin();
+        
+        ShopViewModel model = ShopViewModelCache.get(world, shopPosition);
+        if (!model.isFound()) {
+            view.set("#TitleText.Text", "Shop Not Found");
+            view.set("#ItemLabel.Text", "Error: Shop no longer exists");
             return;
         }
         
         // Title
-        commandBuilder.set("#TitleText.Text", "Configure Your Shop");
+        view.set("#TitleText.Text", "Configure Your Shop");
         
-        BarterListing listing = shop.getListing();
+        ShopViewModel.ListingView listing = model.getListing(listingSlot);
+        
+        // Listing selector
+        int listingCount = model.getListings().size();
+        int listingIndex = model.getListings().indexOf(listing);
+        if (listing != null) {
+            view.set("#ListingLabel.Text", "Listing " + (listingIndex + 1) + " / " + listingCount);
+        } else {
+            view.set("#ListingLabel.Text", "New listing");
+        }
+        view.bind("#ListingPrev", UIAction.SELECT_LISTING, 0, -1);
+        view.bind("#ListingNext", UIAction.SELECT_LISTING, 0, 1);
         
         // Show current item
         if (listing != null && listing.getItemId() != null && !listing.getItemId().isEmpty()) {
-            commandBuilder.set("#ItemLabel.Text", "Selling: " + formatItemName(listing.getItemId()));
+            view.set("#ItemLabel.Text", "Selling: " + listing.getItemName());
+        } else if (listingCount > 0 && listing == null) {
+            view.set("#ItemLabel.Text", "Item: Next unlisted item in the chest");
         } else {
-            commandBuilder.set("#ItemLabel.Text", "Item: Not configured (add items to chest)");
+            view.set("#ItemLabel.Text", "Item: Not configured (add items to chest)");
         }
         
-        // Set up currency buttons from config
+        // Set up currency buttons from config, a page at a time
         List<BarterConfig.CurrencyOption> currencies = BarterConfig.getInstance().getDefaultCurrencies();
-        for (int i = 0; i < 4 && i < currencies.size(); i++) {
-            BarterConfig.CurrencyOption currency = currencies.get(i);
-            String buttonId = "#Currency" + i;
+        int currencyPages = Math.max(1, (currencies.size() + CURRENCY_BUTTONS - 1) / CURRENCY_BUTTONS);
+        currencyPage = Math.max(0, Math.min(currencyPage, currencyPages - 1));
+        
+        for (int i = 0; i < CURRENCY_BUTTONS; i++) {
+            int index = currencyPage * CURRENCY_BUTTONS + i;
+            boolean visible = index < currencies.size();
+            view.set(CURRENCY_VISIBLE[i], visible);
+            view.bind(CURRENCY_BUTTON[i], UIAction.SELECT_CURRENCY, i, 1);
+            if (!visible) {
+                continue;
+            }
             
             // Highlight selected currency with marker in text
+            BarterConfig.CurrencyOption currency = currencies.get(index);
+            String displayName = ItemNames.get(currency.itemId);
             if (currency.itemId.equals(selectedCurrencyId)) {
-                commandBuilder.set(buttonId + ".Text", "> " + currency.displayName + " <");
+                view.set(CURRENCY_TEXT[i], "> " + displayName + " <");
             } else {
-                commandBuilder.set(buttonId + ".Text", currency.displayName);
+                view.set(CURRENCY_TEXT[i], displayName);
             }
-            
-            eventBuilder.addEventBinding(CustomUIEventBindingType.Activating, buttonId,
-                EventData.of("Action", "currency:" + i));
         }
         
+        view.set("#CurrencyPrev.Visible", currencyPages > 1);
+        view.set("#CurrencyNext.Visible", currencyPages > 1);
+        view.bind("#CurrencyPrev", UIAction.CURRENCY_PAGE, 0, -1);
+        view.bind("#CurrencyNext", UIAction.CURRENCY_PAGE, 0, 1);
+        
         // Get item in player's hand for the "Use Item in Hand" button
         Player player = store.getComponent(ref, Player.getComponentType());
         String handItemId = null;
@@ -123,291 +243,297 @@ public class BarterConfigPage extends InteractiveCustomUIPage<BarterConfigPage.C
         }
         
         if (handItemId != null) {
-            String displayName = BarterConfig.getInstance().getCurrencyDisplayName(handItemId);
+            String displayName = ItemNames.get(handItemId);
             
             // Check if this hand item is the selected currency
             if (handItemId.equals(selectedCurrencyId)) {
-                commandBuilder.set("#CurrencyFromHand.Text", "> " + displayName + " <");
+                view.set("#CurrencyFromHand.Text", "> " + displayName + " <");
             } else {
-                commandBuilder.set("#CurrencyFromHand.Text", "Use: " + displayName);
+                view.set("#CurrencyFromHand.Text", "Use: " + displayName);
             }
         } else {
-            commandBuilder.set("#CurrencyFromHand.Text", "Hold item to use as currency");
+            view.set("#CurrencyFromHand.Text", "Hold item to use as currency");
         }
         
-        eventBuilder.addEventBinding(CustomUIEventBindingType.Activating, "#CurrencyFromHand",
-            EventData.of("Action", "currencyFromHand"));
+        view.bind("#CurrencyFromHand", UIAction.CURRENCY_FROM_HAND);
         
         // Show prices
-        commandBuilder.set("#BuyPriceLabel.Text", String.valueOf(buyPrice));
-        commandBuilder.set("#SellPriceLabel.Text", String.valueOf(sellPrice));
+        view.set("#BuyPriceLabel.Text", String.valueOf(buyPrice));
+        view.set("#SellPriceLabel.Text", String.valueOf(sellPrice));
         
         // Price button events
-        eventBuilder.addEventBinding(CustomUIEventBindingType.Activating, "#BuyPlus",
-            EventData.of("Action", "buyPlus"));
-        eventBuilder.addEventBinding(CustomUIEventBindingType.Activating, "#BuyMinus",
-            EventData.of("Action", "buyMinus"));
-        eventBuilder.addEventBinding(CustomUIEventBindingType.Activating, "#SellPlus",
-            EventData.of("Action", "sellPlus"));
-        eventBuilder.addEventBinding(CustomUIEventBindingType.Activating, "#SellMinus",
-            EventData.of("Action", "sellMinus"));
+        view.bind("#BuyPlus", UIAction.ADJUST_BUY_PRICE, 0, 1);
+        view.bind("#BuyMinus", UIAction.ADJUST_BUY_PRICE, 0, -1);
+        view.bind("#SellPlus", UIAction.ADJUST_SELL_PRICE, 0, 1);
+        view.bind("#SellMinus", UIAction.ADJUST_SELL_PRICE, 0, -1);
         
         // Message
-        commandBuilder.set("#MessageLabel.Text", lastMessage);
+        view.set("#MessageLabel.Text", lastMessage);
         
         // Change remove button text if confirming
         if (confirmRemove) {
-            commandBuilder.set("#RemoveShopButton.Text", "CONFIRM DELETE");
+            view.set("#RemoveShopButton.Text", "CONFIRM DELETE");
         } else {
-            commandBuilder.set("#RemoveShopButton.Text", "Remove Shop");
+            view.set("#RemoveShopButton.Text", "Remove Shop");
         }
         
         // Bind main button events
-        eventBuilder.addEventBinding(CustomUIEventBindingType.Activating, "#SaveButton",
-            EventData.of("Action", "save"));
-        eventBuilder.addEventBinding(CustomUIEventBindingType.Activating, "#RemoveShopButton",
-            EventData.of("Action", "remove"));
-        eventBuilder.addEventBinding(CustomUIEventBindingType.Activating, "#CloseButton",
-            EventData.of("Action", "close"));
+        view.bind("#SaveButton", UIAction.SAVE);
+        view.bind("#RemoveShopButton", UIAction.REMOVE);
+        view.bind("#CloseButton", UIAction.CLOSE);
     }
     
     @Override
     public void handleDataEvent(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, 
-                                @Nonnull ConfigData data) {
-        
-        String action = data.action;
-        if (action == null || action.isEmpty()) {
+                                @Nonnull BarterEventData data) {
+        UIAction action = data.getAction();
+        UIActionHandler handler = action != null ? handlers.get(action) : null;
+        if (handler == null) {
             return;
         }
         
-        BarterConfig config = BarterConfig.getInstance();
-        
-        // Determine increment based on modifiers
-        // For now use base increment; shift/ctrl detection would need client-side support
-        int increment = config.getPriceIncrement();
-        
-        // Handle currency selection
-        if (action.startsWith("currency:")) {
-            int index = Integer.parseInt(action.substring("currency:".length()));
-            List<BarterConfig.CurrencyOption> currencies = config.getDefaultCurrencies();
-            if (index >= 0 && index < currencies.size()) {
-                selectedCurrencyId = currencies.get(index).itemId;
-                lastMessage = "Currency: " + currencies.get(index).displayName;
-            }
+        // Any other action cancels a pending remove confirmation
+        if (action != UIAction.REMOVE) {
             confirmRemove = false;
-            rebuildAndUpdate(ref, store);
-            return;
         }
-        
-        if ("currencyFromHand".equals(action)) {
-            Player player = store.getComponent(ref, Player.getComponentType());
-            if (player != null) {
-                Inventory inv = player.getInventory();
-                if (inv != null) {
-                    ItemStack handItem = inv.getItemInHand();
-                    if (handItem != null && !handItem.isEmpty()) {
-                        selectedCurrencyId = handItem.getItemId();
-                        lastMessage = "Currency: " + config.getCurrencyDisplayName(selectedCurrencyId);
-                    } else {
-                        lastMessage = "Hold an item to use as currency!";
-                    }
-                }
+        handler.handle(ref, store, data);
+    }
+    
+    /**
+     * Switch to the previous/next listing (one past the last is a new listing).
+     */
+    private void handleSelectListing(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, 
+                                     @Nonnull BarterEventData data) {
+        BarterChestBlockState shop = getShop();
+        if (shop != null) {
+            int[] slots = getListingSlots(shop);
+            int current = Arrays.binarySearch(slots, listingSlot);
+            if (current < 0) {
+                current = slots.length; // Editing a new listing
             }
-            confirmRemove = false;
-            rebuildAndUpdate(ref, store);
-            return;
+            int next = Math.max(0, Math.min(current + data.getRawQuantity(), slots.length));
+            listingSlot = next < slots.length ? slots[next] : (slots.length > 0 ? slots[slots.length - 1] + 1 : 0);
+            loadListing(shop);
+            lastMessage = "";
         }
-        
-        // Handle price adjustments
-        if ("buyPlus".equals(action)) {
-            buyPrice += increment;
-            confirmRemove = false;
-            rebuildAndUpdate(ref, store);
-            return;
+        rebuildAndUpdate(ref, store);
+    }
+    
+    private void handleCurrencyPage(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, 
+                                    @Nonnull BarterEventData data) {
+        currencyPage += data.getRawQuantity();
+        rebuildAndUpdate(ref, store);
+    }
+    
+    private void handleSelectCurrency(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, 
+                                      @Nonnull BarterEventData data) {
+        int index = currencyPage * CURRENCY_BUTTONS + data.getListing();
+        List<BarterConfig.CurrencyOption> currencies = BarterConfig.getInstance().getDefaultCurrencies();
+        if (data.getListing() >= 0 && index < currencies.size()) {
+            selectedCurrencyId = currencies.get(index).itemId;
+            lastMessage = "Currency: " + ItemNames.get(selectedCurrencyId);
         }
-        
-        if ("buyMinus".equals(action)) {
-            buyPrice = Math.max(0, buyPrice - increment);
-            confirmRemove = false;
-            rebuildAndUpdate(ref, store);
-            return;
+        rebuildAndUpdate(ref, store);
+    }
+    
+    private void handleCurrencyFromHand(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, 
+                                        @Nonnull BarterEventData data) {
+        Player player = store.getComponent(ref, Player.getComponentType());
+        if (player != null) {
+            Inventory inv = player.getInventory();
+            if (inv != null) {
+                ItemStack handItem = inv.getItemInHand();
+                if (handItem != null && !handItem.isEmpty()) {
+                    selectedCurrencyId = handItem.getItemId();
+                    lastMessage = "Currency: " + ItemNames.get(selectedCurrencyId);
+                } else {
+                    lastMessage = "Hold an item to use as currency!";
+                }
+            }
         }
-        
-        if ("sellPlus".equals(action)) {
-            sellPrice += increment;
-            confirmRemove = false;
+        rebuildAndUpdate(ref, store);
+    }
+    
+    /**
+     * Adjust the buy or sell price by the event quantity (+/-1, times 10 with shift) in config increments.
+     */
+    private void handleAdjustPrice(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, 
+                                   @Nonnull BarterEventData data) {
+        int delta = data.getQuantity() * BarterConfig.getInstance().getPriceIncrement();
+        if (data.getAction() == UIAction.ADJUST_BUY_PRICE) {
+            buyPrice = Math.max(0, buyPrice + delta);
+        } else {
+            sellPrice = Math.max(0, sellPrice + delta);
+        }
+        rebuildAndUpdate(ref, store);
+    }
+    
+    private void handleSave(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, 
+                            @Nonnull BarterEventData data) {
+        BarterChestBlockState shop = getShop();
+        if (shop == null) {
+            lastMessage = "Shop no longer exists!";
             rebuildAndUpdate(ref, store);
             return;
         }
         
-        if ("sellMinus".equals(action)) {
-            sellPrice = Math.max(0, sellPrice - increment);
-            confirmRemove = false;
+        // Validate prices
+        if (buyPrice <= 0 && sellPrice <= 0) {
+            lastMessage = "Set at least one price!";
             rebuildAndUpdate(ref, store);
             return;
         }
         
-        if ("save".equals(action)) {
-            BarterChestBlockState shop = getShop();
-            if (shop == null) {
-                lastMessage = "Shop no longer exists!";
+        // Auto-detect item from chest if not set
+        BarterListing existing = shop.getListing(listingSlot);
+        String itemId = existing != null ? existing.getItemId() : null;
+        if (itemId == null || itemId.isEmpty()) {
+            itemId = detectItemFromChest(shop);
+            if (itemId == null) {
+                lastMessage = shop.getListings().isEmpty() ? "Add items to chest first!" : "Add a new item to the chest first!";
                 rebuildAndUpdate(ref, store);
                 return;
             }
+        }
+        
+        // Save the configuration
+        BarterListing listing = shop.getOrCreateListing(listingSlot);
+        listing.setItemId(itemId);
+        listing.setCurrencyItemId(selectedCurrencyId);
+        listing.setBuyPrice(buyPrice);
+        listing.setSellPrice(sellPrice);
+        shop.markNeedsSave();
+        
+        // Update the floating display
+        shop.updateDisplay(world, shopPosition.getX(), shopPosition.getY(), shopPosition.getZ());
+        
+        // Send success message to player
+        Player player = store.getComponent(ref, Player.getComponentType());
+        if (player != null) {
+            String itemName = ItemNames.get(itemId);
+            String currencyName = ItemNames.get(selectedCurrencyId);
             
-            BarterListing listing = shop.getOrCreateListing(0);
+            // Send colored messages using proper Hytale Message API
+            player.sendMessage(com.hypixel.hytale.server.core.Message.raw("Shop is now open for business!").color(java.awt.Color.GREEN).bold(true));
+            player.sendMessage(com.hypixel.hytale.server.core.Message.raw("Selling: " + itemName).color(java.awt.Color.WHITE));
             
-            // Auto-detect item from chest if not set
-            String itemId = listing.getItemId();
-            if (itemId == null || itemId.isEmpty()) {
-                String detectedItem = detectItemFromChest(shop);
-                if (detectedItem != null) {
-                    itemId = detectedItem;
-                    listing.setItemId(detectedItem);
-                } else {
-                    lastMessage = "Add items to chest first!";
-                    rebuildAndUpdate(ref, store);
-                    return;
-                }
+            if (buyPrice > 0) {
+                player.sendMessage(com.hypixel.hytale.server.core.Message.raw("Buy price: " + buyPrice + " " + currencyName).color(new java.awt.Color(100, 255, 100)));
             }
-            
-            // Validate prices
-            if (buyPrice <= 0 && sellPrice <= 0) {
-                lastMessage = "Set at least one price!";
-                rebuildAndUpdate(ref, store);
-                return;
+            if (sellPrice > 0) {
+                player.sendMessage(com.hypixel.hytale.server.core.Message.raw("Sell price: " + sellPrice + " " + currencyName).color(new java.awt.Color(255, 180, 100)));
             }
-            
-            // Save the configuration
-            listing.setCurrencyItemId(selectedCurrencyId);
-            listing.setBuyPrice(buyPrice);
-            listing.setSellPrice(sellPrice);
-            shop.markNeedsSave();
-            
-            // Update the floating display
-            shop.updateDisplay(world, shopPosition.getX(), shopPosition.getY(), shopPosition.getZ());
-            
-            // Send success message to player
-            Player player = store.getComponent(ref, Player.getComponentType());
-            if (player != null) {
-                String itemName = BarterConfig.getInstance().getCurrencyDisplayName(itemId);
-                String currencyName = BarterConfig.getInstance().getCurrencyDisplayName(selectedCurrencyId);
-                
-                // Send colored messages using proper Hytale Message API
-                player.sendMessage(com.hypixel.hytale.server.core.Message.raw("Shop is now open for business!").color(java.awt.Color.GREEN).bold(true));
-                player.sendMessage(com.hypixel.hytale.server.core.Message.raw("Selling: " + itemName).color(java.awt.Color.WHITE));
-                
-                if (buyPrice > 0) {
-                    player.sendMessage(com.hypixel.hytale.server.core.Message.raw("Buy price: " + buyPrice + " " + currencyName).color(new java.awt.Color(100, 255, 100)));
-                }
-                if (sellPrice > 0) {
-                    player.sendMessage(com.hypixel.hytale.server.core.Message.raw("Sell price: " + sellPrice + " " + currencyName).color(new java.awt.Color(255, 180, 100)));
-                }
-            }
-            
-            // Close the GUI
-            close();
+        }
+        
+        // Close the GUI
+        close();
+    }
+    
+    private void handleRemove(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, 
+                              @Nonnull BarterEventData data) {
+        if (!confirmRemove) {
+            confirmRemove = true;
+            lastMessage = "Click again to confirm!";
+            rebuildAndUpdate(ref, store);
             return;
         }
         
-        if ("remove".equals(action)) {
-            if (!confirmRemove) {
-                confirmRemove = true;
-                lastMessage = "Click again to confirm!";
-                rebuildAndUpdate(ref, store);
-                return;
-            }
+        // Actually remove the shop
+        BarterChestBlockState shop = getShop();
+        if (shop != null) {
+            int x = shopPosition.getX();
+            int y = shopPosition.getY();
+            int z = shopPosition.getZ();
             
-            // Actually remove the shop
-            BarterChestBlockState shop = getShop();
-            if (shop != null) {
-                int x = shopPosition.getX();
-                int y = shopPosition.getY();
-                int z = shopPosition.getZ();
+            // First, remove the floating display entity
+            com.example.barterchest.display.BarterDisplayManager.removeDisplay(shop, world);
+            
+            // Get chunk
+            WorldChunk chunk = world.getChunk(ChunkUtil.indexChunkFromBlock(x, z));
+            if (chunk != null) {
+                // Get the block type to properly initialize new state
+                com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType blockType = chunk.getBlockType(x, y, z);
                 
-                // First, remove the floating display entity
-                com.example.barterchest.display.BarterDisplayManager.removeDisplay(shop, world);
+                // Get the container from the shop BEFORE replacing the state
+                com.hypixel.hytale.server.core.inventory.container.ItemContainer shopContainer = shop.getItemContainer();
+                com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer containerToTransfer = null;
                 
-                // Get chunk
-                WorldChunk chunk = world.getChunk(ChunkUtil.indexChunkFromBlock(x, z));
-                if (chunk != null) {
-                    // Get the block type to properly initialize new state
-                    com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType blockType = chunk.getBlockType(x, y, z);
-                    
-                    // Get the container from the shop BEFORE replacing the state
-                    com.hypixel.hytale.server.core.inventory.container.ItemContainer shopContainer = shop.getItemContainer();
-                    com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer containerToTransfer = null;
+                if (shopContainer instanceof com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer simpleContainer) {
+                    containerToTransfer = simpleContainer;
                     
-                    if (shopContainer instanceof com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer simpleContainer) {
-                        containerToTransfer = simpleContainer;
-                        
-                        // Replace the shop's container with an EMPTY container using reflection
-                        // This prevents onDestroy() from dropping the items when we replace the state
-                        try {
-                            java.lang.reflect.Field containerField = com.hypixel.hytale.server.core.universe.world.meta.state.ItemContainerState.class.getDeclaredField("itemContainer");
-                            containerField.setAccessible(true);
-                            containerField.set(shop, new com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer((short) 1));
-                        } catch (Exception e) {
-                            lastMessage = "Error: " + e.getMessage();
-                            rebuildAndUpdate(ref, store);
-                            return;
-                        }
-                    }
-                    
-                    // Create a new regular ItemContainerState
-                    com.hypixel.hytale.server.core.universe.world.meta.state.ItemContainerState newState = 
-                        new com.hypixel.hytale.server.core.universe.world.meta.state.ItemContainerState();
-                    
-                    // Use reflection to set fields directly
+                    // Replace the shop's container with an EMPTY container using reflection
+                    // This prevents onDestroy() from dropping the items when we replace the state
                     try {
-                        // Set custom = true so initialize() won't create a new container
-                        java.lang.reflect.Field customField = com.hypixel.hytale.server.core.universe.world.meta.state.ItemContainerState.class.getDeclaredField("custom");
-                        customField.setAccessible(true);
-                        customField.set(newState, true);
-                        
-                        // Set the container directly
-                        if (containerToTransfer != null) {
-                            java.lang.reflect.Field containerField = com.hypixel.hytale.server.core.universe.world.meta.state.ItemContainerState.class.getDeclaredField("itemContainer");
-                            containerField.setAccessible(true);
-                            containerField.set(newState, containerToTransfer);
-                        }
+                        java.lang.reflect.Field containerField = com.hypixel.hytale.server.core.universe.world.meta.state.ItemContainerState.class.getDeclaredField("itemContainer");
+                        containerField.setAccessible(true);
+                        containerField.set(shop, new com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer((short) 1));
                     } catch (Exception e) {
-                        lastMessage = "Error transferring items: " + e.getMessage();
+                        lastMessage = "Error: " + e.getMessage();
                         rebuildAndUpdate(ref, store);
                         return;
                     }
+                }
+                
+                // Create a new regular ItemContainerState
+                com.hypixel.hytale.server.core.universe.world.meta.state.ItemContainerState newState = 
+                    new com.hypixel.hytale.server.core.universe.world.meta.state.ItemContainerState();
+                
+                // Use reflection to set fields directly
+                try {
+                    // Set custom = true so initialize() won't create a new container
+                    java.lang.reflect.Field customField = com.hypixel.hytale.server.core.universe.world.meta.state.ItemContainerState.class.getDeclaredField("custom");
+                    customField.setAccessible(true);
+                    customField.set(newState, true);
                     
-                    // Now initialize (custom=true means it won't override our container)
-                    newState.initialize(blockType);
-                    
-                    // Replace shop state with regular container state
-                    chunk.setState(x, y, z, newState);
-                    
-                    Player player = store.getComponent(ref, Player.getComponentType());
-                    if (player != null) {
-                        player.sendMessage(com.hypixel.hytale.server.core.Message.raw("Shop removed! Items preserved in chest.").color(java.awt.Color.GREEN));
+                    // Set the container directly
+                    if (containerToTransfer != null) {
+                        java.lang.reflect.Field containerField = com.hypixel.hytale.server.core.universe.world.meta.state.ItemContainerState.class.getDeclaredField("itemContainer");
+                        containerField.setAccessible(true);
+                        containerField.set(newState, containerToTransfer);
                     }
+                } catch (Exception e) {
+                    lastMessage = "Error transferring items: " + e.getMessage();
+                    rebuildAndUpdate(ref, store);
+                    return;
+                }
+                
+                // Now initialize (custom=true means it won't override our container)
+                newState.initialize(blockType);
+                
+                // Replace shop state with regular container state
+                chunk.setState(x, y, z, newState);
+                ShopIndex.remove(world, x, y, z);
+                ShopSnapshots.remove(world.getName(), x, y, z);
+                
+                // Anyone still browsing this shop should see that it is gone
+                ShopViewerRegistry.markChanged(world, x, y, z);
+                
+                Player player = store.getComponent(ref, Player.getComponentType());
+                if (player != null) {
+                    player.sendMessage(com.hypixel.hytale.server.core.Message.raw("Shop removed! Items preserved in chest.").color(java.awt.Color.GREEN));
                 }
             }
-            
-            close();
-            return;
         }
         
-        if ("close".equals(action)) {
-            close();
-            return;
-        }
-        
-        confirmRemove = false;
+        close();
     }
     
+    /**
+     * Find the first item in the chest that no other listing already trades.
+     */
     private String detectItemFromChest(BarterChestBlockState shop) {
+        Set<String> listed = new HashSet<>();
+        for (BarterListing other : shop.getListings()) {
+            if (other.getSlot() != listingSlot && other.getItemId() != null) {
+                listed.add(other.getItemId());
+            }
+        }
+        
         var container = shop.getItemContainer();
         if (container != null) {
             for (int i = 0; i < container.getCapacity(); i++) {
                 ItemStack stack = container.getItemStack((short) i);
-                if (stack != null && !stack.isEmpty()) {
+                if (stack != null && !stack.isEmpty() && !listed.contains(stack.getItemId())) {
                     return stack.getItemId();
                 }
             }
@@ -415,11 +541,46 @@ public class BarterConfigPage extends InteractiveCustomUIPage<BarterConfigPage.C
         return null;
     }
     
+    @Override
+    public void onDismiss(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store) {
+        ShopViewerRegistry.unsubscribe(world, shopPosition, this);
+        super.onDismiss(ref, store);
+    }
+    
+    /**
+     * Called when the shop changed (e.g. another customer bought the last item).
+     */
+    @Override
+    public void onShopChanged() {
+        Ref<EntityStore> ref = playerRef.getReference();
+        if (ref == null || !ref.isValid()) {
+            ShopViewerRegistry.unsubscribe(world, shopPosition, this);
+            return;
+        }
+        rebuildAndUpdate(ref, ref.getStore());
+    }
+    
+    /**
+     * Push the current page state to the client, sending only what changed.
+     * A price +/- click ends up as a single label update.
+     */
     private void rebuildAndUpdate(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store) {
         UICommandBuilder commandBuilder = new UICommandBuilder();
         UIEventBuilder eventBuilder = new UIEventBuilder();
-        build(ref, commandBuilder, eventBuilder, store);
-        sendUpdate(commandBuilder, eventBuilder, true);
+        
+        long start = System.nanoTime();
+        render(ref, store);
+        if (view.needsRebuild()) {
+            build(ref, commandBuilder, eventBuilder, store);
+            sendUpdate(commandBuilder, eventBuilder, true);
+            return;
+        }
+        
+        boolean changed = view.writeChanges(commandBuilder, eventBuilder);
+        BarterMetrics.CONFIG_PAGE_BUILD.record(System.nanoTime() - start);
+        if (changed) {
+            sendUpdate(commandBuilder, eventBuilder, false);
+        }
     }
     
     private BarterChestBlockState getShop() {
@@ -429,21 +590,4 @@ public class BarterConfigPage extends InteractiveCustomUIPage<BarterConfigPage.C
         }
         return null;
     }
-    
-    private String formatItemName(String itemId) {
-        return BarterConfig.getInstance().getCurrencyDisplayName(itemId);
-    }
-    
-    /**
-     * Event data codec for config page
-     */
-    public static class ConfigData {
-        public static final BuilderCodec<ConfigData> CODEC = BuilderCodec.<ConfigData>builder(ConfigData.class, ConfigData::new)
-                .addField(new KeyedCodec<>("Action", Codec.STRING), (d, s) -> d.action = s, d -> d.action)
-                .build();
-        
-        private String action;
-        
-        public String getAction() { return action; }
-    }
 }
@@ -4,40 +4,82 @@ import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
 
+import javax.annotation.Nullable;
+
 /**
- * Event data sent from client when interacting with shop UI.
+ * Event data sent from client when interacting with the shop and config pages.
+ * 
+ * The client sends every field as a string; the codec decodes them once into an
+ * opcode and two integers so pages never parse strings themselves. Shop page trade
+ * buttons also carry the item ID and page number their row showed when clicked.
  */
 public class BarterEventData {
     
     public static final BuilderCodec<BarterEventData> CODEC = BuilderCodec.builder(BarterEventData.class, BarterEventData::new)
         .append(new KeyedCodec<>("Action", Codec.STRING), 
-            (data, s) -> data.action = s, 
-            data -> data.action)
+            (data, s) -> data.action = UIAction.fromName(s), 
+            data -> data.action != null ? data.action.name() : "")
+        .add()
+        .append(new KeyedCodec<>("Listing", Codec.STRING), 
+            (data, s) -> data.listing = decodeInt(s, 0), 
+            data -> String.valueOf(data.listing))
         .add()
         .append(new KeyedCodec<>("Quantity", Codec.STRING), 
-            (data, s) -> {
-                try {
-                    data.quantity = Integer.parseInt(s);
-                } catch (NumberFormatException e) {
-                    data.quantity = 1;
-                }
-            }, 
+            (data, s) -> data.quantity = decodeInt(s, 1), 
             data -> String.valueOf(data.quantity))
         .add()
+        .append(new KeyedCodec<>("@ItemId", Codec.STRING), 
+            (data, s) -> data.itemId = s != null && !s.isEmpty() ? s : null, 
+            data -> data.itemId != null ? data.itemId : "")
+        .add()
+        .append(new KeyedCodec<>("@Page", Codec.STRING), 
+            (data, s) -> data.page = decodeInt(s, -1), 
+            data -> String.valueOf(data.page))
+        .add()
         .append(new KeyedCodec<>("ShiftHeld", Codec.BOOLEAN), 
             (data, b) -> { if (b != null) data.shiftHeld = b; }, 
             data -> data.shiftHeld)
         .add()
         .build();
     
-    private String action = "";
+    private UIAction action;
+    private int listing = 0;
     private int quantity = 1;
+    private String itemId;
+    private int page = -1;
     private boolean shiftHeld = false;
     
-    public String getAction() {
+    /**
+     * Get the opcode, or null if the client sent an unknown action.
+     */
+    @Nullable
+    public UIAction getAction() {
         return action;
     }
     
+    /**
+     * Get the listing reference. For shop page trades this is the clicked row,
+     * for currency buttons the button index.
+     */
+    public int getListing() {
+        return listing;
+    }
+    
+    /**
+     * Get the item ID the client showed on the clicked element, or null if it carries none.
+     */
+    @Nullable
+    public String getItemId() {
+        return itemId;
+    }
+    
+    /**
+     * Get the page number the client showed the clicked element on, or -1 if it carries none.
+     */
+    public int getPage() {
+        return page;
+    }
+    
     /**
      * Get quantity, with shift modifier (10x when shift held).
      */
@@ -52,4 +94,15 @@ public class BarterEventData {
     public boolean isShiftHeld() {
         return shiftHeld;
     }
+    
+    private static int decodeInt(@Nullable String s, int fallback) {
+        if (s == null || s.isEmpty()) {
+            return fallback;
+        }
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
 }
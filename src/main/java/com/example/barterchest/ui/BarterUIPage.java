@@ -1,19 +1,19 @@
 package com.example.barterchest.ui;
 
+import com.example.barterchest.core.trade.TransactionResult;
+import com.example.barterchest.diagnostics.BarterMetrics;
+import com.example.barterchest.diagnostics.PageBuildEvent;
 import com.example.barterchest.state.BarterChestBlockState;
 import com.example.barterchest.state.BarterListing;
 import com.example.barterchest.transaction.BarterTransactionManager;
-import com.example.barterchest.transaction.TransactionResult;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.math.vector.Vector3i;
 import com.hypixel.hytale.protocol.packets.interface_.CustomPageLifetime;
-import com.hypixel.hytale.protocol.packets.interface_.CustomUIEventBindingType;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.entity.entities.player.pages.InteractiveCustomUIPage;
 import com.hypixel.hytale.server.core.inventory.Inventory;
 import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
-import com.hypixel.hytale.server.core.ui.builder.EventData;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
@@ -22,130 +22,172 @@ import com.hypixel.hytale.server.core.universe.world.meta.BlockState;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import javax.annotation.Nonnull;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Interactive shop UI page that allows players to buy/sell items.
+ * Shops with many listings are shown a page of rows at a time.
  */
-public class BarterUIPage extends InteractiveCustomUIPage<BarterEventData> {
+public class BarterUIPage extends InteractiveCustomUIPage<BarterEventData> implements ShopViewerRegistry.Viewer {
     
     private static final String UI_PAGE = "Pages/BarterChest_ShopPage.ui";
     
+    /** Number of listing rows in the page template */
+    static final int ROWS_PER_PAGE = 5;
+    
+    // Row selectors, precomputed so rendering doesn't concatenate them every time
+    private static final String[] ROW_VISIBLE = rowSelectors(".Visible");
+    private static final String[] ROW_NAME = rowSelectors("Name.Text");
+    private static final String[] ROW_INFO = rowSelectors("Info.Text");
+    private static final String[] ROW_BUY = rowSelectors("Buy");
+    private static final String[] ROW_SELL = rowSelectors("Sell");
+    private static final String[] ROW_ITEM_ID = rowSelectors("ItemId.Text");
+    
+    /** Hidden label holding the page number, read into trade events with the row's item ID */
+    private static final String PAGE_VALUE = "#PageValue.Text";
+    private static final PageViewState.ShownValues[] ROW_SHOWN = new PageViewState.ShownValues[ROWS_PER_PAGE];
+    static {
+        for (int row = 0; row < ROWS_PER_PAGE; row++) {
+            ROW_SHOWN[row] = new PageViewState.ShownValues(ROW_ITEM_ID[row], PAGE_VALUE);
+        }
+    }
+    
+    /** Actions this page handles */
+    private final Map<UIAction, UIActionHandler> handlers = new EnumMap<>(UIAction.class);
+    
     private final Vector3i shopPosition;
     private final World world;
     private String lastMessage = "";
     
+    /** Current page of listings (0-based) */
+    private int page = 0;
+    
+    /** What the client currently shows, for delta updates */
+    private final PageViewState view = new PageViewState();
+    
     public BarterUIPage(@Nonnull PlayerRef playerRef, @Nonnull Vector3i shopPosition, @Nonnull World world) {
         super(playerRef, CustomPageLifetime.CanDismiss, BarterEventData.CODEC);
         this.shopPosition = shopPosition;
         this.world = world;
+        
+        handlers.put(UIAction.PAGE, this::handlePage);
+        handlers.put(UIAction.BUY, this::handleTrade);
+        handlers.put(UIAction.SELL, this::handleTrade);
     }
     
     @Override
     public void build(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder commandBuilder, 
                       @Nonnull UIEventBuilder eventBuilder, @Nonnull Store<EntityStore> store) {
         
+        long start = System.nanoTime();
+        PageBuildEvent event = new PageBuildEvent();
+        event.begin();
+        
         // Load the base UI
         commandBuilder.append(UI_PAGE);
         
-        BarterChestBlockState shop = getShop();
-        if (shop == null) {
-            commandBuilder.set("#TitleText.Text", "Shop Not Found");
-            return;
-        }
-        
-        // Set title
-        String ownerName = shop.getOwnerName();
-        commandBuilder.set("#TitleText.Text", ownerName + "'s Shop");
+        render();
+        view.writeAll(commandBuilder, eventBuilder);
+        BarterMetrics.SHOP_PAGE_BUILD.record(System.nanoTime() - start);
         
-        BarterListing listing = shop.getListing();
-        
-        // Check if the listing is configured (has item ID and at least one price)
-        boolean isConfigured = listing != null && 
-                               listing.getItemId() != null && 
-                               !listing.getItemId().isEmpty() &&
-                               (listing.getBuyPrice() > 0 || listing.getSellPrice() > 0);
-        
-        if (!isConfigured) {
-            commandBuilder.set("#ItemName.Text", "Not Configured");
-            commandBuilder.set("#StockLabel.Text", "This shop has not been set up yet.");
-            commandBuilder.set("#BuyPriceLabel.Text", "Not for sale");
-            commandBuilder.set("#SellPriceLabel.Text", "Not buying");
-            return;
+        event.end();
+        if (event.shouldCommit()) {
+            event.page = "shop";
+            event.world = world.getName();
+            event.x = shopPosition.getX();
+            event.y = shopPosition.getY();
+            event.z = shopPosition.getZ();
+            event.commit();
         }
         
-        // Get item info
-        String itemId = listing.getItemId();
-        int stock = BarterTransactionManager.countItems(shop.getItemContainer(), itemId);
-        
-        // Set item name (the #ItemName label, NOT the stock label)
-        commandBuilder.set("#ItemName.Text", formatItemName(itemId));
-        commandBuilder.set("#StockLabel.Text", "Item: " + formatItemName(itemId) + " | Stock: " + stock);
-        
-        // Get currency info
-        String currencyId = listing.getCurrencyItemId();
-        String currencyName = currencyId != null ? formatItemName(currencyId) : "None";
+        // Receive live stock/price updates while the page is open
+        ShopViewerRegistry.subscribe(world, shopPosition, this);
+    }
+    
+    /**
+     * Describe the full page state. Only the entries that changed since the
+     * last update are actually sent (see {@link PageViewState}).
+     */
+    private void render() {
+        page = render(view, ShopViewModelCache.get(world, shopPosition), page, lastMessage);
+    }
+    
+    /**
+     * Render a shop model into a view. Only the rows of the requested page are rendered.
+     * Row buttons are bound to their row, and their events carry the item ID and page
+     * number the row showed, so bindings never change and flipping pages only sends the
+     * new row values. The trade handler resolves the row against the current page and
+     * rejects the click if that no longer matches what the player saw.
+     * 
+     * @return The page actually shown, clamped to the model's page count
+     */
+    static int render(@Nonnull PageViewState view, @Nonnull ShopViewModel model, int page, @Nonnull String message) {
+        view.begin();
         
-        // Set prices
-        int buyPrice = listing.getBuyPrice();
-        int sellPrice = listing.getSellPrice();
-        boolean canBuy = listing.canBuyFrom() && stock > 0;
-        boolean canSell = listing.canSellTo();
+        view.set("#TitleText.Text", model.getTitle());
+        view.set("#MessageLabel.Text", message);
         
-        if (buyPrice > 0) {
-            commandBuilder.set("#BuyPriceLabel.Text", buyPrice + " " + currencyName);
-        } else {
-            commandBuilder.set("#BuyPriceLabel.Text", "Not for sale");
-        }
+        List<ShopViewModel.ListingView> listings = model.getConfiguredListings();
+        int pageCount = Math.max(1, (listings.size() + ROWS_PER_PAGE - 1) / ROWS_PER_PAGE);
+        page = Math.max(0, Math.min(page, pageCount - 1));
         
-        if (sellPrice > 0) {
-            commandBuilder.set("#SellPriceLabel.Text", sellPrice + " " + currencyName);
-        } else {
-            commandBuilder.set("#SellPriceLabel.Text", "Not buying");
+        if (listings.isEmpty()) {
+            view.set("#EmptyLabel.Text", model.isFound() ? "This shop has not been set up yet." : "");
         }
+        view.set("#EmptyLabel.Visible", listings.isEmpty());
         
-        // Set message
-        commandBuilder.set("#MessageLabel.Text", lastMessage);
-        
-        // Bind button events - quantity is encoded in action string (buy:1, sell:1)
-        // Always bind if price is set - transaction manager will handle out of stock message
-        if (buyPrice > 0) {
-            eventBuilder.addEventBinding(CustomUIEventBindingType.Activating, "#BuyButton", 
-                EventData.of("Action", "buy:1"));
+        for (int row = 0; row < ROWS_PER_PAGE; row++) {
+            int index = page * ROWS_PER_PAGE + row;
+            boolean visible = index < listings.size();
+            view.set(ROW_VISIBLE[row], visible);
+            
+            if (visible) {
+                ShopViewModel.ListingView listing = listings.get(index);
+                view.set(ROW_NAME[row], listing.getItemName());
+                view.set(ROW_INFO[row], listing.getSummaryText());
+                view.set(ROW_ITEM_ID[row], Objects.requireNonNullElse(listing.getItemId(), ""));
+            } else {
+                // Hidden rows trade with nothing
+                view.set(ROW_ITEM_ID[row], "");
+            }
+            
+            // Always bound - the transaction manager reports "not for sale" etc.
+            view.bind(ROW_BUY[row], UIAction.BUY, row, 1, ROW_SHOWN[row]);
+            view.bind(ROW_SELL[row], UIAction.SELL, row, 1, ROW_SHOWN[row]);
         }
         
-        if (canSell) {
-            eventBuilder.addEventBinding(CustomUIEventBindingType.Activating, "#SellButton", 
-                EventData.of("Action", "sell:1"));
-        }
+        // Pagination
+        view.set("#Pager.Visible", pageCount > 1);
+        view.set("#PageLabel.Text", "Page " + (page + 1) + " / " + pageCount);
+        view.set(PAGE_VALUE, Integer.toString(page));
+        view.bind("#PrevPage", UIAction.PAGE, 0, -1);
+        view.bind("#NextPage", UIAction.PAGE, 0, 1);
+        return page;
     }
     
     @Override
     public void handleDataEvent(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, 
                                 @Nonnull BarterEventData data) {
-        String actionRaw = data.getAction();
-        
-        if (actionRaw == null || actionRaw.isEmpty()) {
-            return;
-        }
-        
-        // Parse action and quantity from format "action:quantity" (e.g., "buy:1", "sell:10")
-        String action = actionRaw;
-        int quantity = 1;
-        
-        int colonIndex = actionRaw.indexOf(':');
-        if (colonIndex > 0) {
-            action = actionRaw.substring(0, colonIndex);
-            try {
-                quantity = Integer.parseInt(actionRaw.substring(colonIndex + 1));
-            } catch (NumberFormatException e) {
-                quantity = 1;
-            }
-        }
-        
-        // Apply shift modifier if held (10x quantity)
-        if (data.isShiftHeld()) {
-            quantity *= 10;
+        UIAction action = data.getAction();
+        UIActionHandler handler = action != null ? handlers.get(action) : null;
+        if (handler != null) {
+            handler.handle(ref, store, data);
         }
+    }
+    
+    private void handlePage(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, 
+                            @Nonnull BarterEventData data) {
+        page += data.getRawQuantity();
+        rebuildAndUpdate(ref, store);
+    }
+    
+    private void handleTrade(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, 
+                             @Nonnull BarterEventData data) {
+        // Shift multiplies the bound quantity by 10
+        int quantity = data.getQuantity();
         
         BarterChestBlockState shop = getShop();
         if (shop == null) {
@@ -154,13 +196,29 @@ public class BarterUIPage extends InteractiveCustomUIPage<BarterEventData> {
             return;
         }
         
-        BarterListing listing = shop.getListing();
+        // The player may have clicked a row before a page flip reached the client
+        if (data.getPage() != page) {
+            lastMessage = "This listing just changed, please check it again.";
+            rebuildAndUpdate(ref, store);
+            return;
+        }
+        
+        // Resolve the clicked row to the listing currently shown in it
+        int slot = slotForRow(ShopViewModelCache.get(world, shopPosition), page, data.getListing());
+        BarterListing listing = slot >= 0 ? shop.getListing(slot) : null;
         if (listing == null) {
             lastMessage = "Shop not configured!";
             rebuildAndUpdate(ref, store);
             return;
         }
         
+        // The rows may have moved, or the owner changed the listing, after the player's page showed it
+        if (!Objects.equals(listing.getItemId(), data.getItemId())) {
+            lastMessage = "This listing just changed, please check it again.";
+            rebuildAndUpdate(ref, store);
+            return;
+        }
+        
         // Get player inventory
         Player playerComponent = store.getComponent(ref, Player.getComponentType());
         if (playerComponent == null) {
@@ -181,25 +239,76 @@ public class BarterUIPage extends InteractiveCustomUIPage<BarterEventData> {
             return;
         }
         
-        TransactionResult result;
-        
-        if ("buy".equals(action)) {
-            result = BarterTransactionManager.buyFromShop(shop, listing, playerInventory, quantity);
-        } else if ("sell".equals(action)) {
-            result = BarterTransactionManager.sellToShop(shop, listing, playerInventory, quantity);
-        } else {
-            return;
-        }
+        TransactionResult result = data.getAction() == UIAction.BUY
+            ? BarterTransactionManager.buyFromShop(shop, listing, playerInventory, quantity)
+            : BarterTransactionManager.sellToShop(shop, listing, playerInventory, quantity);
         
         lastMessage = result.getMessage();
         rebuildAndUpdate(ref, store);
     }
     
+    /**
+     * Resolve a row of a page to the listing slot it shows.
+     * 
+     * @return The listing slot, or -1 if the row is empty
+     */
+    static int slotForRow(@Nonnull ShopViewModel model, int page, int row) {
+        List<ShopViewModel.ListingView> listings = model.getConfiguredListings();
+        int index = page * ROWS_PER_PAGE + row;
+        return row >= 0 && row < ROWS_PER_PAGE && index < listings.size()
+            ? listings.get(index).getSlot()
+            : -1;
+    }
+    
+    @Override
+    public void onDismiss(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store) {
+        ShopViewerRegistry.unsubscribe(world, shopPosition, this);
+        super.onDismiss(ref, store);
+    }
+    
+    /**
+     * Called when the shop changed (e.g. another customer bought the last item).
+     */
+    @Override
+    public void onShopChanged() {
+        Ref<EntityStore> ref = playerRef.getReference();
+        if (ref == null || !ref.isValid()) {
+            ShopViewerRegistry.unsubscribe(world, shopPosition, this);
+            return;
+        }
+        rebuildAndUpdate(ref, ref.getStore());
+    }
+    
+    /**
+     * Push the current page state to the client, sending only what changed.
+     * Falls back to a full rebuild when a button binding has to be removed, which only
+     * happens if the client's page was built from an older template.
+     */
     private void rebuildAndUpdate(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store) {
         UICommandBuilder commandBuilder = new UICommandBuilder();
         UIEventBuilder eventBuilder = new UIEventBuilder();
-        build(ref, commandBuilder, eventBuilder, store);
-        sendUpdate(commandBuilder, eventBuilder, true);
+        
+        long start = System.nanoTime();
+        render();
+        if (view.needsRebuild()) {
+            build(ref, commandBuilder, eventBuilder, store);
+            sendUpdate(commandBuilder, eventBuilder, true);
+            return;
+        }
+        
+        boolean changed = view.writeChanges(commandBuilder, eventBuilder);
+        BarterMetrics.SHOP_PAGE_BUILD.record(System.nanoTime() - start);
+        if (changed) {
+            sendUpdate(commandBuilder, eventBuilder, false);
+        }
+    }
+    
+    private static String[] rowSelectors(String suffix) {
+        String[] selectors = new String[ROWS_PER_PAGE];
+        for (int i = 0; i < ROWS_PER_PAGE; i++) {
+            selectors[i] = "#Row" + i + suffix;
+        }
+        return selectors;
     }
     
     private BarterChestBlockState getShop() {
@@ -209,31 +318,4 @@ public class BarterUIPage extends InteractiveCustomUIPage<BarterEventData> {
         }
         return null;
     }
-    
-    private String formatItemName(String itemId) {
-        if (itemId == null || itemId.isEmpty()) {
-            return "Unknown";
-        }
-        
-        // Remove namespace (e.g., "hytale:oak_log" -> "oak_log")
-        int colonIndex = itemId.lastIndexOf(':');
-        String name = colonIndex >= 0 ? itemId.substring(colonIndex + 1) : itemId;
-        
-        // Replace underscores with spaces and capitalize each word
-        StringBuilder result = new StringBuilder();
-        boolean capitalizeNext = true;
-        for (char c : name.toCharArray()) {
-            if (c == '_') {
-                result.append(' ');
-                capitalizeNext = true;
-            } else if (capitalizeNext) {
-                result.append(Character.toUpperCase(c));
-                capitalizeNext = false;
-            } else {
-                result.append(c);
-            }
-        }
-        
-        return result.toString();
-    }
 }
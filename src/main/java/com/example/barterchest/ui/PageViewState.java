@@ -0,0 +1,174 @@
+package com.example.barterchest.ui;
+
+import com.hypixel.hytale.protocol.packets.interface_.CustomUIEventBindingType;
+import com.hypixel.hytale.server.core.ui.builder.EventData;
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * View-model diff layer for custom UI pages.
+ * 
+ * Pages describe their complete view on every render via {@link #set} and {@link #bind}.
+ * This class remembers what was last sent to the client so that follow-up updates
+ * only carry the labels that actually changed, instead of re-appending the template
+ * and clearing the page.
+ * 
+ * Event bindings cannot be removed without clearing the page, so a render that drops
+ * or changes a binding reports {@link #needsRebuild()} and the page falls back to a full build.
+ * Bindings should therefore stay the same across renders; what an element currently shows
+ * can travel with its event as {@link ShownValues} instead of being bound into it.
+ */
+class PageViewState {
+    
+    /**
+     * Element properties the client reads into an event when it fires, as the event's
+     * "@ItemId" and "@Page" fields. The binding only names the elements, so it stays the
+     * same while their values change.
+     * 
+     * @param itemId property holding the item ID the element shows (e.g. "#Row0ItemId.Text")
+     * @param page property holding the page number the element was shown on
+     */
+    record ShownValues(@Nonnull String itemId, @Nonnull String page) {
+    }
+    
+    /** Values and bindings the client currently has */
+    private final Map<String, Object> sentValues = new HashMap<>();
+    private final Map<String, Long> sentBindings = new HashMap<>();
+    private final Map<String, ShownValues> sentBindingShown = new HashMap<>();
+    
+    /** Values and bindings produced by the current render */
+    private final Map<String, Object> values = new LinkedHashMap<>();
+    private final Map<String, Long> bindings = new LinkedHashMap<>();
+    
+    /** Shown values read by bindings of the current render, for the bindings that have them */
+    private final Map<String, ShownValues> bindingShown = new HashMap<>();
+    
+    /**
+     * Start a new render pass.
+     */
+    void begin() {
+        values.clear();
+        bindings.clear();
+        bindingShown.clear();
+    }
+    
+    /**
+     * Set a property value (e.g. "#BuyPriceLabel.Text") for the current render.
+     */
+    void set(@Nonnull String selector, @Nonnull String value) {
+        values.put(selector, value);
+    }
+    
+    /**
+     * Set a boolean property (e.g. "#Row3.Visible") for the current render.
+     */
+    void set(@Nonnull String selector, boolean value) {
+        values.put(selector, value);
+    }
+    
+    /**
+     * Bind an activation event on an element for the current render.
+     * The event carries the opcode, a listing reference and a quantity (see {@link BarterEventData}).
+     */
+    void bind(@Nonnull String selector, @Nonnull UIAction action, int listing, int quantity) {
+        bindings.put(selector, packBinding(action, listing, quantity));
+    }
+    
+    /**
+     * Bind an activation event that also reports what the element showed when it was
+     * activated, so the handler can tell whether that is still what the listing reference
+     * resolves to.
+     */
+    void bind(@Nonnull String selector, @Nonnull UIAction action, int listing, int quantity, @Nonnull ShownValues shown) {
+        bind(selector, action, listing, quantity);
+        bindingShown.put(selector, shown);
+    }
+    
+    /**
+     * Bind an activation event that needs no arguments.
+     */
+    void bind(@Nonnull String selector, @Nonnull UIAction action) {
+        bind(selector, action, 0, 1);
+    }
+    
+    /**
+     * Check if the current render removed or changed a binding the client already has.
+     */
+    boolean needsRebuild() {
+        for (Map.Entry<String, Long> sent : sentBindings.entrySet()) {
+            if (!sent.getValue().equals(bindings.get(sent.getKey()))
+                    || !Objects.equals(sentBindingShown.get(sent.getKey()), bindingShown.get(sent.getKey()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Write the whole render after the page template was appended.
+     * Everything the client had before is forgotten, since a full build starts from the template.
+     */
+    void writeAll(@Nonnull UICommandBuilder commandBuilder, @Nonnull UIEventBuilder eventBuilder) {
+        sentValues.clear();
+        sentBindings.clear();
+        sentBindingShown.clear();
+        writeChanges(commandBuilder, eventBuilder);
+    }
+    
+    /**
+     * Write only the entries that differ from what the client already has.
+     * 
+     * @return true if anything was written
+     */
+    boolean writeChanges(@Nonnull UICommandBuilder commandBuilder, @Nonnull UIEventBuilder eventBuilder) {
+        boolean changed = false;
+        
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            Object value = entry.getValue();
+            Object previous = sentValues.put(entry.getKey(), value);
+            if (value.equals(previous)) {
+                continue;
+            }
+            
+            if (value instanceof Boolean flag) {
+                commandBuilder.set(entry.getKey(), flag.booleanValue());
+            } else {
+                commandBuilder.set(entry.getKey(), (String) value);
+            }
+            changed = true;
+        }
+        
+        for (Map.Entry<String, Long> entry : bindings.entrySet()) {
+            if (!sentBindings.containsKey(entry.getKey())) {
+                long binding = entry.getValue();
+                sentBindings.put(entry.getKey(), binding);
+                EventData data = EventData.of("Action", UIAction.values()[(int) (binding >>> 48)].name())
+                    .append("Listing", String.valueOf((short) (binding >>> 24)))
+                    .append("Quantity", String.valueOf((short) binding));
+                ShownValues shown = bindingShown.get(entry.getKey());
+                if (shown != null) {
+                    sentBindingShown.put(entry.getKey(), shown);
+                    data = data.append("@ItemId", shown.itemId()).append("@Page", shown.page());
+                }
+                eventBuilder.addEventBinding(CustomUIEventBindingType.Activating, entry.getKey(), data);
+                changed = true;
+            }
+        }
+        
+        return changed;
+    }
+    
+    /**
+     * Pack a binding into one long (16 bits opcode, then listing and quantity as 16-bit values)
+     * so renders can compare bindings without building event data.
+     */
+    private static long packBinding(@Nonnull UIAction action, int listing, int quantity) {
+        return ((long) action.ordinal() << 48) | ((long) (listing & 0xFFFF) << 24) | (quantity & 0xFFFF);
+    }
+}
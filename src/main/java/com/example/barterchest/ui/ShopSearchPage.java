@@ -0,0 +1,141 @@
+package com.example.barterchest.ui;
+
+import com.example.barterchest.core.index.OfferIndex;
+import com.example.barterchest.core.index.ShopOffer;
+import com.example.barterchest.i18n.ItemNames;
+import com.example.barterchest.search.ShopSearchIndex;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.protocol.packets.interface_.CustomPageLifetime;
+import com.hypixel.hytale.server.core.entity.entities.player.pages.InteractiveCustomUIPage;
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Read-only page listing the best shops for one item, from the {@link ShopSearchIndex}.
+ * Toggles between shops selling the item (cheapest first) and shops buying it
+ * (best payout first). Prices in different currencies aren't comparable, so rows are
+ * grouped by currency and ranked within each group; the rows are shared fairly between
+ * the currencies. Never touches shop block state.
+ */
+public class ShopSearchPage extends InteractiveCustomUIPage<BarterEventData> {
+    
+    private static final String UI_PAGE = "Pages/BarterChest_SearchPage.ui";
+    
+    /** Number of result rows in the page template */
+    public static final int ROWS = 8;
+    
+    private static final String[] ROW_VISIBLE = rowSelectors(".Visible");
+    private static final String[] ROW_NAME = rowSelectors("Name.Text");
+    private static final String[] ROW_INFO = rowSelectors("Info.Text");
+    
+    private final String itemKey;
+    private final String itemName;
+    
+    /** Show shops buying the item instead of shops selling it */
+    private boolean showBuyers;
+    
+    /** What the client currently shows, for delta updates */
+    private final PageViewState view = new PageViewState();
+    
+    /**
+     * @param itemKey an item key from {@link ShopSearchIndex#resolveItem}
+     */
+    public ShopSearchPage(@Nonnull PlayerRef playerRef, @Nonnull String itemKey) {
+        super(playerRef, CustomPageLifetime.CanDismiss, BarterEventData.CODEC);
+        this.itemKey = itemKey;
+        
+        String itemId = ShopSearchIndex.getItemId(itemKey);
+        this.itemName = ItemNames.get(itemId != null ? itemId : itemKey);
+    }
+    
+    @Override
+    public void build(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder commandBuilder, 
+                      @Nonnull UIEventBuilder eventBuilder, @Nonnull Store<EntityStore> store) {
+        commandBuilder.append(UI_PAGE);
+        
+        render();
+        view.writeAll(commandBuilder, eventBuilder);
+    }
+    
+    private void render() {
+        view.begin();
+        
+        view.set("#TitleText.Text", "Shops for " + itemName);
+        
+        List<ShopOffer> offers = OfferIndex.pick(showBuyers
+            ? ShopSearchIndex.findBuyers(itemKey, ROWS)
+            : ShopSearchIndex.findSellers(itemKey, ROWS), ROWS);
+        
+        if (offers.isEmpty()) {
+            view.set("#EmptyLabel.Text", showBuyers ? "No shop is buying this item." : "No shop has this item in stock.");
+        }
+        view.set("#EmptyLabel.Visible", offers.isEmpty());
+        
+        for (int row = 0; row < ROWS; row++) {
+            boolean visible = row < offers.size();
+            view.set(ROW_VISIBLE[row], visible);
+            
+            if (visible) {
+                ShopOffer offer = offers.get(row);
+                view.set(ROW_NAME[row], formatPrice(offer, showBuyers) + " - " + offer.getOwnerName() + "'s shop");
+                view.set(ROW_INFO[row], showBuyers
+                    ? offer.getLocationText()
+                    : offer.getLocationText() + " - " + offer.getStock() + " in stock");
+            }
+        }
+        
+        view.set("#ModeLabel.Text", showBuyers
+            ? "Shops buying, best price first per currency"
+            : "Shops selling, cheapest first per currency");
+        view.bind("#ShowSellers", UIAction.SEARCH_MODE, 0, 1);
+        view.bind("#ShowBuyers", UIAction.SEARCH_MODE, 1, 1);
+    }
+    
+    @Override
+    public void handleDataEvent(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, 
+                                @Nonnull BarterEventData data) {
+        if (data.getAction() != UIAction.SEARCH_MODE) {
+            return;
+        }
+        showBuyers = data.getListing() == 1;
+        
+        UICommandBuilder commandBuilder = new UICommandBuilder();
+        UIEventBuilder eventBuilder = new UIEventBuilder();
+        render();
+        if (view.writeChanges(commandBuilder, eventBuilder)) {
+            sendUpdate(commandBuilder, eventBuilder, false);
+        }
+    }
+    
+    /**
+     * "5 Copper Bar each" for the price relevant to the current mode.
+     */
+    @Nonnull
+    public static String formatPrice(@Nonnull ShopOffer offer, boolean buying) {
+        int price = buying ? offer.getSellPrice() : offer.getBuyPrice();
+        return price + " " + formatCurrency(offer.getCurrencyItemId()) + " each";
+    }
+    
+    /**
+     * Display name of a currency, "?" if the offer has none.
+     */
+    @Nonnull
+    public static String formatCurrency(@Nullable String currencyItemId) {
+        return currencyItemId != null ? ItemNames.get(currencyItemId) : "?";
+    }
+    
+    private static String[] rowSelectors(String suffix) {
+        String[] selectors = new String[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            selectors[i] = "#Row" + i + suffix;
+        }
+        return selectors;
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.barterchest.ui;
+
+import com.example.barterchest.i18n.ItemNames;
+import com.example.barterchest.state.BarterChestBlockState;
+import com.example.barterchest.state.BarterListing;
+import com.example.barterchest.transaction.BarterTransactionManager;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable, pre-formatted view of a shop for UI rendering.
+ * 
+ * Built once when a shop changes and shared by every open page for that shop
+ * (see {@link ShopViewModelCache}), so rendering a page only copies strings.
+ */
+public final class ShopViewModel {
+    
+    /** Model used when the shop no longer exists */
+    static final ShopViewModel NOT_FOUND = new ShopViewModel(false, "Shop Not Found", Collections.emptyList());
+    
+    private final boolean found;
+    private final String title;
+    private final List<ListingView> listings;
+    private final List<ListingView> configuredListings;
+    
+    private ShopViewModel(boolean found, @Nonnull String title, @Nonnull List<ListingView> listings) {
+        this.found = found;
+        this.title = title;
+        this.listings = listings;
+        
+        List<ListingView> configured = new ArrayList<>(listings.size());
+        for (ListingView view : listings) {
+            if (view.isConfigured()) {
+                configured.add(view);
+            }
+        }
+        this.configuredListings = Collections.unmodifiableList(configured);
+    }
+    
+    /**
+     * Build the view model from the live shop state. Must run on the world thread.
+     */
+    @Nonnull
+    static ShopViewModel of(@Nonnull BarterChestBlockState shop) {
+        List<ListingView> views = new ArrayList<>(shop.getListings().size());
+        for (BarterListing listing : shop.getListings()) {
+            views.add(ListingView.of(shop, listing));
+        }
+        return new ShopViewModel(true, shop.getOwnerName() + "'s Shop", Collections.unmodifiableList(views));
+    }
+    
+    public boolean isFound() {
+        return found;
+    }
+    
+    @Nonnull
+    public String getTitle() {
+        return title;
+    }
+    
+    @Nonnull
+    public List<ListingView> getListings() {
+        return listings;
+    }
+    
+    /**
+     * Listings customers can trade with, in shop order. This is what the shop page pages through.
+     */
+    @Nonnull
+    public List<ListingView> getConfiguredListings() {
+        return configuredListings;
+    }
+    
+    /**
+     * Get the view for a listing slot, or null if the shop has no such listing.
+     */
+    @Nullable
+    public ListingView getListing(int slot) {
+        for (ListingView view : listings) {
+            if (view.getSlot() == slot) {
+                return view;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Pre-formatted view of a single listing.
+     */
+    public static final class ListingView {
+        
+        private final int slot;
+        private final boolean configured;
+        private final String itemId;
+        private final String itemName;
+        private final String currencyName;
+        private final int buyPrice;
+        private final int sellPrice;
+        private final int stock;
+        private final boolean canBuy;
+        private final boolean canSell;
+        private final String stockText;
+        private final String buyPriceText;
+        private final String sellPriceText;
+        private final String summaryText;
+        
+        private ListingView(int slot, boolean configured, @Nullable String itemId, @Nonnull String itemName,
+                            @Nonnull String currencyName, int buyPrice, int sellPrice, int stock,
+                            boolean canBuy, boolean canSell, @Nonnull String stockText,
+                            @Nonnull String buyPriceText, @Nonnull String sellPriceText) {
+            this.slot = slot;
+            this.configured = configured;
+            this.itemId = itemId;
+            this.itemName = itemName;
+            this.currencyName = currencyName;
+            this.buyPrice = buyPrice;
+            this.sellPrice = sellPrice;
+            this.stock = stock;
+            this.canBuy = canBuy;
+            this.canSell = canSell;
+            this.stockText = stockText;
+            this.buyPriceText = buyPriceText;
+            this.sellPriceText = sellPriceText;
+            this.summaryText = "Stock: " + stock + " | Buy: " + buyPriceText + " | Sell: " + sellPriceText;
+        }
+        
+        @Nonnull
+        static ListingView of(@Nonnull BarterChestBlockState shop, @Nonnull BarterListing listing) {
+            String itemId = listing.getItemId();
+            
+            // Check if the listing is configured (has item ID and at least one price)
+            boolean configured = itemId != null && !itemId.isEmpty() &&
+                                 (listing.getBuyPrice() > 0 || listing.getSellPrice() > 0);
+            
+            if (!configured) {
+                String itemName = itemId != null && !itemId.isEmpty() ? ItemNames.get(itemId) : "Not Configured";
+                return new ListingView(listing.getSlot(), false, itemId, itemName, "None",
+                    listing.getBuyPrice(), listing.getSellPrice(), 0, false, false,
+                    "This shop has not been set up yet.", "Not for sale", "Not buying");
+            }
+            
+            int stock = BarterTransactionManager.countItems(shop.getItemContainer(), itemId);
+            String itemName = ItemNames.get(itemId);
+            
+            String currencyId = listing.getCurrencyItemId();
+            String currencyName = currencyId != null ? ItemNames.get(currencyId) : "None";
+            
+            int buyPrice = listing.getBuyPrice();
+            int sellPrice = listing.getSellPrice();
+            
+            return new ListingView(
+                listing.getSlot(),
+                true,
+                itemId,
+                itemName,
+                currencyName,
+                buyPrice,
+                sellPrice,
+                stock,
+                listing.canBuyFrom() && stock > 0,
+                listing.canSellTo(),
+                "Item: " + itemName + " | Stock: " + stock,
+                buyPrice > 0 ? buyPrice + " " + currencyName : "Not for sale",
+                sellPrice > 0 ? sellPrice + " " + currencyName : "Not buying"
+            );
+        }
+        
+        public int getSlot() {
+            return slot;
+        }
+        
+        public boolean isConfigured() {
+            return configured;
+        }
+        
+        @Nullable
+        public String getItemId() {
+            return itemId;
+        }
+        
+        @Nonnull
+        public String getItemName() {
+            return itemName;
+        }
+        
+        @Nonnull
+        public String getCurrencyName() {
+            return currencyName;
+        }
+        
+        public int getBuyPrice() {
+            return buyPrice;
+        }
+        
+        public int getSellPrice() {
+            return sellPrice;
+        }
+        
+        public int getStock() {
+            return stock;
+        }
+        
+        /** True if the listing sells and has stock */
+        public boolean canBuy() {
+            return canBuy;
+        }
+        
+        /** True if the listing buys from customers */
+        public boolean canSell() {
+            return canSell;
+        }
+        
+        @Nonnull
+        public String getStockText() {
+            return stockText;
+        }
+        
+        @Nonnull
+        public String getBuyPriceText() {
+            return buyPriceText;
+        }
+        
+        @Nonnull
+        public String getSellPriceText() {
+            return sellPriceText;
+        }
+        
+        /** One-line stock and price summary for listing rows */
+        @Nonnull
+        public String getSummaryText() {
+            return summaryText;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.barterchest.ui;
+
+import com.example.barterchest.state.BarterChestBlockState;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.meta.BlockState;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared cache of {@link ShopViewModel}s, keyed by world and shop position.
+ * 
+ * A model is built on first use and reused by every page showing the shop until
+ * the shop changes. Entries are dropped when the shop changes and when the last
+ * page for the shop closes, so only shops someone is looking at are cached.
+ */
+public class ShopViewModelCache {
+    
+    private static final Map<World, Map<Long, ShopViewModel>> models = new ConcurrentHashMap<>();
+    
+    /**
+     * Get the current view model for a shop, building it if needed. Must run on the world thread.
+     */
+    @Nonnull
+    static ShopViewModel get(@Nonnull World world, @Nonnull Vector3i position) {
+        Map<Long, ShopViewModel> byPosition = models.computeIfAbsent(world, w -> new ConcurrentHashMap<>());
+        long key = ShopViewerRegistry.pack(position.getX(), position.getY(), position.getZ());
+        
+        ShopViewModel model = byPosition.get(key);
+        if (model == null) {
+            model = build(world, position);
+            byPosition.put(key, model);
+        }
+        return model;
+    }
+    
+    /**
+     * Drop the cached model for a shop so the next render rebuilds it.
+     */
+    public static void invalidate(@Nonnull World world, int x, int y, int z) {
+        Map<Long, ShopViewModel> byPosition = models.get(world);
+        if (byPosition != null) {
+            byPosition.remove(ShopViewerRegistry.pack(x, y, z));
+        }
+    }
+    
+    /**
+     * Drop every cached model of a world, e.g. when it is removed.
+     */
+    static void invalidateAll(@Nonnull World world) {
+        models.remove(world);
+    }
+    
+    @Nonnull
+    private static ShopViewModel build(@Nonnull World world, @Nonnull Vector3i position) {
+        BlockState state = world.getState(position.getX(), position.getY(), position.getZ(), true);
+        if (state instanceof BarterChestBlockState shop) {
+            return ShopViewModel.of(shop);
+        }
+        return ShopViewModel.NOT_FOUND;
+    }
+}
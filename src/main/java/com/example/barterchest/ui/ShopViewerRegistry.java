@@ -0,0 +1,178 @@
+package com.example.barterchest.ui;
+
+import com.example.barterchest.diagnostics.TickProfiler;
+import com.example.barterchest.state.ShopIndex;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Tracks which shop pages are currently open for each shop position.
+ * 
+ * When a shop changes (container contents, listing config, removal), every
+ * open page for that shop gets a delta update. Changes are coalesced: however
+ * many times a shop changes during a tick, each viewer is refreshed once when
+ * the world executor drains its queue.
+ */
+public class ShopViewerRegistry {
+    
+    private static final HytaleLogger LOGGER = HytaleLogger.get("BarterChest/Viewers");
+    
+    /**
+     * An open page that displays a shop.
+     */
+    interface Viewer {
+        /**
+         * Re-render and push only what changed. Called on the world thread.
+         */
+        void onShopChanged();
+    }
+    
+    /** World -> packed shop position -> open pages */
+    private static final Map<World, Map<Long, Set<Viewer>>> viewers = new ConcurrentHashMap<>();
+    
+    /** World -> shops changed since the last flush */
+    private static final Map<World, PendingChanges> pending = new ConcurrentHashMap<>();
+    
+    /**
+     * Shops changed in one world, and whether a flush is queued on its executor.
+     */
+    private static final class PendingChanges {
+        final Set<Long> changed = ConcurrentHashMap.newKeySet();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+    }
+    
+    /**
+     * Register an open page for a shop. Safe to call repeatedly.
+     */
+    static void subscribe(@Nonnull World world, @Nonnull Vector3i position, @Nonnull Viewer viewer) {
+        viewers.computeIfAbsent(world, w -> new ConcurrentHashMap<>())
+            .computeIfAbsent(pack(position.getX(), position.getY(), position.getZ()), k -> ConcurrentHashMap.newKeySet())
+            .add(viewer);
+    }
+    
+    /**
+     * Unregister a page, e.g. when it is dismissed.
+     */
+    static void unsubscribe(@Nonnull World world, @Nonnull Vector3i position, @Nonnull Viewer viewer) {
+        Map<Long, Set<Viewer>> byPosition = viewers.get(world);
+        if (byPosition == null) {
+            return;
+        }
+        
+        long key = pack(position.getX(), position.getY(), position.getZ());
+        Set<Viewer> set = byPosition.get(key);
+        if (set != null) {
+            set.remove(viewer);
+            if (set.isEmpty()) {
+                byPosition.remove(key);
+                ShopViewModelCache.invalidate(world, position.getX(), position.getY(), position.getZ());
+            }
+        }
+    }
+    
+    /**
+     * Mark a shop as changed. Open pages for it are refreshed once, on the next
+     * run of the world executor, no matter how often this is called before then.
+     * The shop's cached view model is rebuilt once and shared by all of them.
+     */
+    public static void markChanged(@Nonnull World world, int x, int y, int z) {
+        // The shared view model is stale either way
+        ShopViewModelCache.invalidate(world, x, y, z);
+        
+        Map<Long, Set<Viewer>> byPosition = viewers.get(world);
+        long key = pack(x, y, z);
+        if (byPosition == null || !byPosition.containsKey(key)) {
+            return; // Nobody is looking at this shop
+        }
+        
+        PendingChanges changes = pending.computeIfAbsent(world, w -> new PendingChanges());
+        changes.changed.add(key);
+        schedule(world, changes);
+    }
+    
+    /**
+     * Queue a flush unless one is already queued.
+     */
+    private static void schedule(@Nonnull World world, @Nonnull PendingChanges changes) {
+        if (changes.scheduled.compareAndSet(false, true)) {
+            world.execute(() -> flush(world));
+        }
+    }
+    
+    /**
+     * Forget everything held for a world that was removed. Its pages are gone with it.
+     */
+    public static void onWorldRemoved(@Nonnull World world) {
+        viewers.remove(world);
+        pending.remove(world);
+        ShopViewModelCache.invalidateAll(world);
+    }
+    
+    private static void flush(@Nonnull World world) {
+        if (!TickProfiler.isCapturing()) {
+            flushChanges(world);
+            return;
+        }
+        
+        long start = System.nanoTime();
+        flushChanges(world);
+        TickProfiler.record(TickProfiler.Section.PAGE_REFRESH, System.nanoTime() - start, world, null);
+    }
+    
+    /**
+     * Push one delta update to every viewer of every shop changed since the last flush.
+     */
+    private static void flushChanges(@Nonnull World world) {
+        PendingChanges changes = pending.get(world);
+        if (changes == null) {
+            return;
+        }
+        
+        // Cleared before draining: a change made from here on queues another flush
+        changes.scheduled.set(false);
+        
+        Set<Long> changed = changes.changed;
+        Map<Long, Set<Viewer>> byPosition = viewers.get(world);
+        if (byPosition == null) {
+            changed.clear();
+            return;
+        }
+        
+        for (Long key : changed.toArray(new Long[0])) {
+            changed.remove(key);
+            Set<Viewer> set = byPosition.get(key);
+            if (set == null) {
+                continue;
+            }
+            
+            for (Viewer viewer : set.toArray(new Viewer[0])) {
+                try {
+                    viewer.onShopChanged();
+                } catch (Exception e) {
+                    LOGGER.at(Level.WARNING).log("Failed to refresh shop page: %s", e.getMessage());
+                    set.remove(viewer);
+                }
+            }
+        }
+        
+        // Anything changed while draining that the loop above did not pick up
+        if (!changed.isEmpty()) {
+            schedule(world, changes);
+        }
+    }
+    
+    /**
+     * Pack a block position into a single long key, same layout as {@link ShopIndex#pack}.
+     */
+    static long pack(int x, int y, int z) {
+        return ShopIndex.pack(x, y, z);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.barterchest.ui;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Opcodes for UI events sent from the shop, config and search pages.
+ * 
+ * Each event carries an opcode plus two integers (see {@link BarterEventData}):
+ * a listing reference and a quantity. What they mean depends on the opcode.
+ */
+public enum UIAction {
+    
+    // --- Shop page ---
+    
+    /** Buy from the listing shown in row {@code listing}, if it still holds the item shown. Quantity is multiplied by 10 with shift. */
+    BUY,
+    /** Sell to the listing shown in row {@code listing}, if it still holds the item shown. Quantity is multiplied by 10 with shift. */
+    SELL,
+    /** Move {@code quantity} pages forward (negative = back) */
+    PAGE,
+    
+    // --- Config page ---
+    
+    /** Move {@code quantity} listings forward (negative = back) */
+    SELECT_LISTING,
+    /** Move {@code quantity} currency pages forward (negative = back) */
+    CURRENCY_PAGE,
+    /** Pick the currency shown on button {@code listing} */
+    SELECT_CURRENCY,
+    /** Use the held item as currency */
+    CURRENCY_FROM_HAND,
+    /** Adjust the buy price by {@code quantity} increments */
+    ADJUST_BUY_PRICE,
+    /** Adjust the sell price by {@code quantity} increments */
+    ADJUST_SELL_PRICE,
+    /** Save the edited listing */
+    SAVE,
+    /** Remove the shop (needs a confirming second click) */
+    REMOVE,
+    /** Close the page */
+    CLOSE,
+    
+    // --- Search page ---
+    
+    /** Show shops selling the item ({@code listing} 0) or buying it (1) */
+    SEARCH_MODE;
+    
+    private static final Map<String, UIAction> BY_NAME = new HashMap<>();
+    
+    static {
+        for (UIAction action : values()) {
+            BY_NAME.put(action.name(), action);
+        }
+    }
+    
+    /**
+     * Look up an opcode by its wire name, or null if the client sent something unknown.
+     */
+    @Nullable
+    static UIAction fromName(@Nullable String name) {
+        return name != null ? BY_NAME.get(name) : null;
+    }
+}
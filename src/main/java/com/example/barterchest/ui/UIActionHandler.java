@@ -0,0 +1,16 @@
+package com.example.barterchest.ui;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Handles one {@link UIAction} on a page. Pages keep an EnumMap of these as their dispatch table.
+ */
+@FunctionalInterface
+interface UIActionHandler {
+    
+    void handle(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, @Nonnull BarterEventData data);
+}
@@ -0,0 +1,266 @@
+package com.example.barterchest.simulation;
+
+import com.example.barterchest.i18n.ItemNames;
+import com.example.barterchest.integration.ProtectionManager;
+import com.example.barterchest.state.BarterChestBlockState;
+import com.example.barterchest.state.BarterListing;
+import com.example.barterchest.testing.ShopFixtures;
+import com.example.barterchest.transaction.BarterTransactionManager;
+import com.example.barterchest.ui.ShopViewModel;
+import com.example.barterchest.ui.SimulatedShopPage;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Measures the bytes allocated per operation on the plugin's server-backed trade, protection
+ * check and shop page render paths, and fails if any exceeds its budget in
+ * {@code allocation-budgets.properties}. The core's own paths have budgets in its unit tests.
+ * 
+ * Each operation is warmed up so the JIT has compiled it, then run in a few rounds on one
+ * thread; the lowest round counts, since a round can catch a deoptimization or a lazily
+ * initialized cache. Operations without a budget are reported and skipped, so budgets can
+ * be recorded one path at a time.
+ * 
+ * Run with {@code ./gradlew allocationCheck}. {@code ./gradlew recordAllocationBudgets}
+ * rewrites the budgets from a run, after a change that is meant to allocate more or less.
+ */
+public final class AllocationCheck {
+    
+    private static final String BUDGETS = "allocation-budgets.properties";
+    
+    /** Bytes per operation a measurement may exceed its budget by, for counter noise */
+    private static final double TOLERANCE = 1.0;
+    
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 20_000;
+    private static final int ROUNDS = 3;
+    
+    private static final String ITEM = "Simulation_Item_00";
+    private static final String CURRENCY = ShopFixtures.CURRENCIES[1];
+    
+    /** Keeps results live so the JIT can't drop the measured work */
+    static volatile Object sink;
+    
+    private final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Map<String, Double> measured = new LinkedHashMap<>();
+    
+    private AllocationCheck() {
+    }
+    
+    /**
+     * @param args {@code --record <file>} to write the measurements as the new budgets
+     */
+    public static void main(String[] args) throws IOException {
+        Path recordTo = args.length == 2 && args[0].equals("--record") ? Path.of(args[1]) : null;
+        if (args.length > 0 && recordTo == null) {
+            System.err.println("Usage: AllocationCheck [--record <budgets file>]");
+            System.exit(2);
+        }
+        
+        if (!((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).isThreadAllocatedMemorySupported()) {
+            System.err.println("This JVM can't measure per-thread allocation");
+            System.exit(2);
+        }
+        
+        AllocationCheck check = new AllocationCheck();
+        check.run();
+        
+        if (recordTo != null) {
+            check.record(recordTo);
+            System.out.println("Recorded " + check.measured.size() + " budgets to " + recordTo);
+        } else if (!check.compare(loadBudgets())) {
+            System.exit(1);
+        }
+    }
+    
+    private void run() {
+        itemNames();
+        trades();
+        protection();
+        shopPage();
+    }
+    
+    // --- Checks ---
+    
+    private void itemNames() {
+        measure("item-names.get", () -> sink = ItemNames.get("Ingredient_Bar_Iron"));
+    }
+    
+    private void trades() {
+        // Equal prices, so a buy followed by a sell leaves both sides as they were
+        BarterChestBlockState shop = shop(2, 2);
+        BarterListing listing = shop.getListings().get(0);
+        ItemContainer chest = shop.getItemContainer();
+        ItemContainer customer = new SimpleItemContainer((short) 36);
+        ShopFixtures.add(customer, CURRENCY, ShopFixtures.MAX_STACK);
+        ItemContainer broke = new SimpleItemContainer((short) 36);
+        
+        measure("inventory.count-items", () -> sink = BarterTransactionManager.countItems(chest, ITEM));
+        measure("inventory.available-space", () -> sink = BarterTransactionManager.getAvailableSpaceForItem(chest, ITEM));
+        measure("inventory.transfer-items.round-trip", () -> {
+            BarterTransactionManager.transferItems(chest, customer, ITEM, 1);
+            sink = BarterTransactionManager.transferItems(customer, chest, ITEM, 1);
+        });
+        measure("trade.buy-sell.round-trip", () -> {
+            BarterTransactionManager.buyFromShop(shop, listing, customer, 1);
+            sink = BarterTransactionManager.sellToShop(shop, listing, customer, 1);
+        });
+        measure("trade.buy.insufficient-funds", () -> sink = BarterTransactionManager.buyFromShop(shop, listing, broke, 1));
+        measure("trade.sell.insufficient-stock", () -> sink = BarterTransactionManager.sellToShop(shop, listing, broke, 1));
+    }
+    
+    private void protection() {
+        // Every chunk claimed by customer 0, so each check reaches the provider's decision cache
+        SimulatedProtectionProvider.claimedPercent = 100;
+        SimulatedProtectionProvider.claimOwners = 1;
+        ProtectionManager.initialize();
+        
+        measure("protection.cached.allow", () -> sink = ProtectionManager.canCreateShop(Customer.uuid(0), "default", 100, 100));
+        measure("protection.cached.deny", () -> sink = ProtectionManager.canCreateShop(Customer.uuid(1), "default", 100, 100));
+    }
+    
+    private void shopPage() {
+        BarterChestBlockState shop = shop(4, 2);
+        ShopViewModel model = SimulatedShopPage.model(shop);
+        SimulatedShopPage page = new SimulatedShopPage();
+        page.render(model);
+        String[] messages = {"Bought 1x Item for 4x Iron Bar", "Sold 1x Item for 2x Iron Bar"};
+        int[] next = {0};
+        
+        measure("ui.view-model.build", () -> sink = SimulatedShopPage.model(shop));
+        measure("ui.render.unchanged", () -> sink = page.render(model));
+        measure("ui.render.message", () -> {
+            page.setMessage(messages[next[0]++ & 1]);
+            sink = page.render(model);
+        });
+    }
+    
+    /**
+     * A detached shop with one listing of {@link #ITEM} for {@link #CURRENCY}, stocked on both sides.
+     */
+    @Nonnull
+    private static BarterChestBlockState shop(int buyPrice, int sellPrice) {
+        ItemContainer chest = new SimpleItemContainer((short) 27);
+        BarterChestBlockState shop = BarterChestBlockState.create(Customer.uuid(0), Customer.name(0));
+        ShopFixtures.attach(shop, chest);
+        shop.getListings().add(new BarterListing(0, ITEM, CURRENCY, buyPrice, sellPrice));
+        ShopFixtures.add(chest, ITEM, 4 * ShopFixtures.MAX_STACK);
+        ShopFixtures.add(chest, CURRENCY, 4 * ShopFixtures.MAX_STACK);
+        return shop;
+    }
+    
+    // --- Measuring ---
+    
+    private void measure(@Nonnull String name, @Nonnull Runnable operation) {
+        for (int i = 0; i < WARMUP; i++) {
+            operation.run();
+        }
+        
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < ITERATIONS; i++) {
+                operation.run();
+            }
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            best = Math.min(best, (double) allocated / ITERATIONS);
+        }
+        measured.put(name, best);
+    }
+    
+    /**
+     * Print every measurement next to its budget.
+     * 
+     * @return true if no measurement is over its budget
+     */
+    private boolean compare(@Nonnull Map<String, Long> budgets) {
+        List<String> failures = new ArrayList<>();
+        List<String> unbudgeted = new ArrayList<>();
+        System.out.printf("%-40s %10s %10s%n", "operation", "bytes/op", "budget");
+        for (Map.Entry<String, Double> entry : measured.entrySet()) {
+            String name = entry.getKey();
+            double bytes = entry.getValue();
+            Long budget = budgets.get(name);
+            
+            String verdict;
+            if (budget == null) {
+                verdict = "skipped, no budget";
+                unbudgeted.add(name);
+            } else if (bytes > budget + TOLERANCE) {
+                verdict = "OVER BUDGET";
+                failures.add(name);
+            } else {
+                verdict = "ok";
+            }
+            System.out.printf("%-40s %10.1f %10s  %s%n", name, bytes, budget != null ? budget : "-", verdict);
+        }
+        
+        for (String name : budgets.keySet()) {
+            if (!measured.containsKey(name)) {
+                System.out.println("Budget for unknown operation: " + name);
+            }
+        }
+        
+        if (!unbudgeted.isEmpty()) {
+            System.out.println();
+            System.out.println(unbudgeted.size() + " operations have no budget yet; ./gradlew recordAllocationBudgets records them.");
+        }
+        
+        if (!failures.isEmpty()) {
+            System.out.println();
+            System.out.println("Allocation budget exceeded for " + String.join(", ", failures) + ".");
+            System.out.println("If the allocation is intended, run ./gradlew recordAllocationBudgets and commit the result.");
+            return false;
+        }
+        return true;
+    }
+    
+    @Nonnull
+    private static Map<String, Long> loadBudgets() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = AllocationCheck.class.getClassLoader().getResourceAsStream(BUDGETS)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        }
+        
+        Map<String, Long> budgets = new LinkedHashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            budgets.put(name, Long.parseLong(properties.getProperty(name).trim()));
+        }
+        return budgets;
+    }
+    
+    /**
+     * Write the measurements as budgets, rounded up to whole 8-byte words.
+     */
+    private void record(@Nonnull Path file) throws IOException {
+        StringBuilder out = new StringBuilder();
+        out.append("# Allowed bytes allocated per operation, checked by ./gradlew allocationCheck.\n");
+        out.append("# Written by ./gradlew recordAllocationBudgets; lower a budget when a path stops allocating.\n");
+        for (Map.Entry<String, Double> entry : measured.entrySet()) {
+            long budget = (long) Math.ceil(entry.getValue() / 8) * 8;
+            out.append(entry.getKey()).append('=').append(budget).append('\n');
+        }
+        
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(file, out, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.barterchest.simulation;
+
+import com.example.barterchest.core.trade.TransactionResult;
+import com.example.barterchest.state.BarterChestBlockState;
+import com.example.barterchest.state.BarterListing;
+import com.example.barterchest.testing.ShopFixtures;
+import com.example.barterchest.transaction.BarterTransactionManager;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency stress test for item conservation.
+ * 
+ * Several submitter threads request buys and sells from customers against a few shared shops
+ * per world. Like on a live server, each trade is queued onto the world thread that owns the
+ * shop and the customer, and calls {@link BarterTransactionManager}. While it runs, every world
+ * is paused now and then to check that:
+ * 
+ * - the total of each item and currency across all chests and inventories never changes
+ * - no container holds a negative amount of anything
+ * 
+ * Each trade also checks that it ran on its world thread, that a success moved exactly the
+ * requested quantity, and that it left no negative stacks behind.
+ * 
+ * Run with {@code ./gradlew stress}; exits with status 1 if any check failed.
+ * See {@link StressConfig} for options.
+ */
+public final class ConservationStress {
+    
+    /** Number of distinct traded items, kept small so customers can sell what shops list */
+    private static final int ITEM_TYPES = 8;
+    
+    /** Violations printed in full; the rest are only counted */
+    private static final int MAX_REPORTED = 20;
+    
+    private final StressConfig config;
+    private final List<StressWorld> worlds = new ArrayList<>();
+    private final List<List<Shop>> shops = new ArrayList<>();
+    private final List<List<Customer>> customers = new ArrayList<>();
+    private final List<ItemContainer> containers = new ArrayList<>();
+    
+    private final LongAdder[] trades = new LongAdder[TransactionResult.Status.values().length];
+    private final LongAdder itemsTraded = new LongAdder();
+    private final AtomicLong violationCount = new AtomicLong();
+    private final Queue<String> violations = new ConcurrentLinkedQueue<>();
+    private int checkpoints = 0;
+    
+    /** Totals of each item across every container, taken before any trade */
+    private Map<String, Long> expected;
+    
+    /**
+     * A shop and where it lives, for messages.
+     */
+    private record Shop(int world, int index, @Nonnull BarterChestBlockState state) {
+        
+        @Override
+        public String toString() {
+            return "world " + world + " shop " + index;
+        }
+    }
+    
+    private ConservationStress(@Nonnull StressConfig config) {
+        this.config = config;
+        for (int i = 0; i < trades.length; i++) {
+            trades[i] = new LongAdder();
+        }
+    }
+    
+    public static void main(String[] args) throws InterruptedException {
+        StressConfig config = StressConfig.parse(args);
+        System.out.println("BarterChest conservation stress: " + config);
+        
+        ConservationStress stress = new ConservationStress(config);
+        stress.populate();
+        stress.run();
+        if (!stress.report()) {
+            System.exit(1);
+        }
+    }
+    
+    // --- Population ---
+    
+    private void populate() {
+        Random random = new Random(config.seed);
+        for (int w = 0; w < config.worlds; w++) {
+            worlds.add(new StressWorld(w, t -> violation("Uncaught on world thread: " + t)));
+            
+            List<Shop> worldShops = new ArrayList<>();
+            for (int i = 0; i < config.shopsPerWorld; i++) {
+                worldShops.add(new Shop(w, i, createShop(random)));
+            }
+            shops.add(worldShops);
+            
+            List<Customer> worldCustomers = new ArrayList<>();
+            for (int i = 0; i < config.customersPerWorld; i++) {
+                worldCustomers.add(createCustomer(random, w * config.customersPerWorld + i));
+            }
+            customers.add(worldCustomers);
+        }
+        expected = totals();
+    }
+    
+    @Nonnull
+    private BarterChestBlockState createShop(@Nonnull Random random) {
+        ItemContainer chest = new SimpleItemContainer((short) config.chestSize);
+        BarterChestBlockState state = BarterChestBlockState.create(Customer.uuid(0), Customer.name(0));
+        ShopFixtures.attach(state, chest);
+        containers.add(chest);
+        
+        for (int slot = 0; slot < config.listings; slot++) {
+            String itemId = item(random.nextInt(ITEM_TYPES));
+            String currency = ShopFixtures.CURRENCIES[random.nextInt(ShopFixtures.CURRENCIES.length)];
+            int buyPrice = random.nextInt(5) > 0 ? 1 + random.nextInt(8) : 0;
+            int sellPrice = buyPrice == 0 || random.nextInt(5) < 3 ? 1 + random.nextInt(Math.max(1, buyPrice)) : 0;
+            state.getListings().add(new BarterListing(slot, itemId, currency, buyPrice, sellPrice));
+            
+            ShopFixtures.add(chest, itemId, 16 + random.nextInt(2 * ShopFixtures.MAX_STACK));
+            ShopFixtures.add(chest, currency, ShopFixtures.MAX_STACK);
+        }
+        return state;
+    }
+    
+    @Nonnull
+    private Customer createCustomer(@Nonnull Random random, int index) {
+        Customer customer = new Customer(index, config.inventorySize, 0, 0);
+        containers.add(customer.inventory);
+        
+        for (String currency : ShopFixtures.CURRENCIES) {
+            ShopFixtures.add(customer.inventory, currency, ShopFixtures.MAX_STACK + random.nextInt(ShopFixtures.MAX_STACK));
+        }
+        for (int i = 0; i < 4; i++) {
+            ShopFixtures.add(customer.inventory, item(random.nextInt(ITEM_TYPES)), 1 + random.nextInt(ShopFixtures.MAX_STACK));
+        }
+        return customer;
+    }
+    
+    @Nonnull
+    private static String item(int type) {
+        return String.format("Stress_Item_%02d", type);
+    }
+    
+    // --- Running ---
+    
+    private void run() throws InterruptedException {
+        for (StressWorld world : worlds) {
+            world.start();
+        }
+        
+        long start = System.nanoTime();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < config.submitters; i++) {
+            int index = i;
+            Thread thread = new Thread(() -> submit(index), "Stress-Submitter-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        
+        // Checkpoints need every world paused, which direct trades don't respect
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                if (config.direct || config.checkpointMillis <= 0) {
+                    thread.join();
+                } else {
+                    thread.join(config.checkpointMillis);
+                    if (thread.isAlive()) {
+                        checkpoint();
+                    }
+                }
+            }
+        }
+        for (StressWorld world : worlds) {
+            world.stop();
+        }
+        long elapsed = System.nanoTime() - start;
+        
+        checkTotals("end of run");
+        
+        long total = (long) config.submitters * config.trades;
+        System.out.printf("%,d trades in %,d ms (%,.0f/s)%n", total, TimeUnit.NANOSECONDS.toMillis(elapsed),
+            total * 1e9 / elapsed);
+    }
+    
+    private void submit(int index) {
+        Random random = new Random(config.seed * 31 + index + 1);
+        for (int i = 0; i < config.trades; i++) {
+            int w = random.nextInt(worlds.size());
+            StressWorld world = worlds.get(w);
+            Shop shop = shops.get(w).get(random.nextInt(config.shopsPerWorld));
+            Customer customer = customers.get(w).get(random.nextInt(config.customersPerWorld));
+            BarterListing listing = shop.state().getListings().get(random.nextInt(config.listings));
+            boolean buying = random.nextBoolean();
+            
+            // Mostly single items, sometimes more than a side can afford or hold
+            int roll = random.nextInt(20);
+            int quantity = roll == 0 ? 100 : roll < 4 ? 10 : 1;
+            
+            Runnable trade = () -> trade(world, shop, listing, customer, buying, quantity);
+            if (config.direct) {
+                trade.run();
+            } else {
+                world.execute(trade);
+            }
+        }
+    }
+    
+    private void trade(@Nonnull StressWorld world, @Nonnull Shop shop, @Nonnull BarterListing listing,
+                       @Nonnull Customer customer, boolean buying, int quantity) {
+        if (!config.direct && !world.isWorldThread()) {
+            violation("Trade with " + shop + " ran on " + Thread.currentThread().getName());
+        }
+        
+        TransactionResult result = buying
+            ? BarterTransactionManager.buyFromShop(shop.state(), listing, customer.inventory, quantity)
+            : BarterTransactionManager.sellToShop(shop.state(), listing, customer.inventory, quantity);
+        trades[result.getStatus().ordinal()].increment();
+        
+        if (result.isSuccess()) {
+            itemsTraded.add(result.getQuantityTransacted());
+            if (result.getQuantityTransacted() != quantity) {
+                violation((buying ? "Buy of " : "Sell of ") + quantity + "x " + listing.getItemId() + " at " + shop +
+                          " reported " + result.getQuantityTransacted() + " moved");
+            }
+        }
+        
+        checkStacks(shop.state().getItemContainer(), shop.toString());
+        checkStacks(customer.inventory, "customer " + customer.index);
+    }
+    
+    /**
+     * Pause every world between tasks and check the totals while nothing moves.
+     */
+    private void checkpoint() throws InterruptedException {
+        CyclicBarrier paused = new CyclicBarrier(worlds.size() + 1);
+        CountDownLatch resume = new CountDownLatch(1);
+        for (StressWorld world : worlds) {
+            world.execute(() -> {
+                try {
+                    paused.await();
+                    resume.await();
+                } catch (Exception e) {
+                    violation("Checkpoint interrupted: " + e);
+                }
+            });
+        }
+        
+        try {
+            paused.await(30, TimeUnit.SECONDS);
+            checkpoints++;
+            checkTotals("checkpoint " + checkpoints);
+        } catch (Exception e) {
+            violation("Worlds did not pause for checkpoint " + (checkpoints + 1) + ": " + e);
+        } finally {
+            resume.countDown();
+        }
+    }
+    
+    // --- Checks ---
+    
+    private void checkTotals(@Nonnull String when) {
+        Map<String, Long> actual = totals();
+        TreeSet<String> itemIds = new TreeSet<>(expected.keySet());
+        itemIds.addAll(actual.keySet());
+        for (String itemId : itemIds) {
+            long before = expected.getOrDefault(itemId, 0L);
+            long now = actual.getOrDefault(itemId, 0L);
+            if (before != now) {
+                violation(itemId + " total is " + now + " at " + when + ", expected " + before +
+                          (now > before ? " (duplicated " : " (lost ") + Math.abs(now - before) + ")");
+            }
+        }
+    }
+    
+    private void checkStacks(@Nonnull ItemContainer container, @Nonnull String owner) {
+        short capacity = container.getCapacity();
+        for (short i = 0; i < capacity; i++) {
+            ItemStack stack = container.getItemStack(i);
+            if (stack != null && stack.getQuantity() < 0) {
+                violation(owner + " slot " + i + " holds " + stack.getQuantity() + "x " + stack.getItemId());
+            }
+        }
+    }
+    
+    /**
+     * Total of each item across every chest and inventory.
+     */
+    @Nonnull
+    private Map<String, Long> totals() {
+        Map<String, Long> totals = new TreeMap<>();
+        for (ItemContainer container : containers) {
+            short capacity = container.getCapacity();
+            for (short i = 0; i < capacity; i++) {
+                ItemStack stack = container.getItemStack(i);
+                if (stack != null && !ItemStack.isEmpty(stack)) {
+                    totals.merge(stack.getItemId(), (long) stack.getQuantity(), Long::sum);
+                }
+            }
+        }
+        return totals;
+    }
+    
+    private void violation(@Nonnull String message) {
+        if (violationCount.incrementAndGet() <= MAX_REPORTED) {
+            violations.add(message);
+        }
+    }
+    
+    // --- Reporting ---
+    
+    /**
+     * Print the trade counts and any violations.
+     * 
+     * @return true if every check passed
+     */
+    private boolean report() {
+        System.out.println("Trades by result:");
+        for (TransactionResult.Status status : TransactionResult.Status.values()) {
+            long count = trades[status.ordinal()].sum();
+            if (count > 0) {
+                System.out.printf("  %-20s %,12d%n", status, count);
+            }
+        }
+        System.out.printf("Items traded: %,d%n", itemsTraded.sum());
+        System.out.println("Checkpoints: " + checkpoints);
+        
+        long count = violationCount.get();
+        if (count == 0) {
+            System.out.println("Conservation held: no items duplicated or lost, no negative stock.");
+            return true;
+        }
+        
+        System.out.println(count + " violations:");
+        for (String violation : violations) {
+            System.out.println("  " + violation);
+        }
+        if (count > MAX_REPORTED) {
+            System.out.println("  ... and " + (count - MAX_REPORTED) + " more");
+        }
+        return false;
+    }
+}
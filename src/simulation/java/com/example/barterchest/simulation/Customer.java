@@ -0,0 +1,46 @@
+package com.example.barterchest.simulation;
+
+import com.example.barterchest.ui.SimulatedShopPage;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.UUID;
+
+/**
+ * A simulated player: an in-memory inventory, a home location, and at most one open shop page.
+ */
+final class Customer {
+    
+    final int index;
+    final UUID uuid;
+    final ItemContainer inventory;
+    final int homeX;
+    final int homeZ;
+    
+    /** Shop whose page is open, or null */
+    @Nullable
+    SimulatedShop shop;
+    
+    @Nullable
+    SimulatedShopPage page;
+    
+    Customer(int index, int inventorySize, int homeX, int homeZ) {
+        this.index = index;
+        this.uuid = uuid(index);
+        this.inventory = new SimpleItemContainer((short) inventorySize);
+        this.homeX = homeX;
+        this.homeZ = homeZ;
+    }
+    
+    @Nonnull
+    static UUID uuid(int index) {
+        return new UUID(0x5EEDL, index);
+    }
+    
+    @Nonnull
+    static String name(int index) {
+        return "Customer" + index;
+    }
+}
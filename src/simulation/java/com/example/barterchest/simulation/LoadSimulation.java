@@ -0,0 +1,255 @@
+package com.example.barterchest.simulation;
+
+import com.example.barterchest.core.trade.TransactionResult;
+import com.example.barterchest.integration.ProtectionManager;
+import com.example.barterchest.state.BarterChestBlockState;
+import com.example.barterchest.state.BarterListing;
+import com.example.barterchest.testing.ShopFixtures;
+import com.example.barterchest.transaction.BarterTransactionManager;
+import com.example.barterchest.ui.ShopViewModel;
+import com.example.barterchest.ui.SimulatedShopPage;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer;
+
+import javax.annotation.Nonnull;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Headless load simulation: a population of shops and customers trading on a fake world tick.
+ * 
+ * Customers open shop pages, buy, sell, flip pages and try to create shops, going through
+ * {@link BarterTransactionManager}, {@link ProtectionManager} and the shop page's view model
+ * and render diffing. Containers are in-memory {@link SimpleItemContainer}s and shops are never
+ * attached to a chunk, so nothing is saved or sent. Reports per-tick cost percentiles,
+ * throughput and allocation rate.
+ * 
+ * Run with {@code ./gradlew simulate}; see {@link SimulationConfig} for options.
+ */
+public final class LoadSimulation {
+    
+    /** Number of distinct traded items */
+    private static final int ITEM_TYPES = 48;
+    
+    private final SimulationConfig config;
+    private final Random random;
+    private final SimulationStats stats;
+    private final SimulatedWorld world = new SimulatedWorld();
+    private final List<SimulatedShop> shops = new ArrayList<>();
+    private final List<Customer> customers = new ArrayList<>();
+    
+    private LoadSimulation(@Nonnull SimulationConfig config) {
+        this.config = config;
+        this.random = new Random(config.seed);
+        this.stats = new SimulationStats(config.ticks);
+    }
+    
+    public static void main(String[] args) {
+        SimulationConfig config = SimulationConfig.parse(args);
+        System.out.println("BarterChest load simulation: " + config);
+        
+        SimulatedProtectionProvider.claimedPercent = config.claimedPercent;
+        SimulatedProtectionProvider.claimOwners = Math.max(1, config.customers);
+        ProtectionManager.initialize();
+        
+        LoadSimulation simulation = new LoadSimulation(config);
+        simulation.populate();
+        simulation.run();
+        simulation.stats.print(System.out);
+    }
+    
+    // --- Population ---
+    
+    private void populate() {
+        for (int i = 0; i < config.shops; i++) {
+            shops.add(createShop(i));
+        }
+        for (int i = 0; i < config.customers; i++) {
+            customers.add(createCustomer(i));
+        }
+    }
+    
+    @Nonnull
+    private SimulatedShop createShop(int index) {
+        ItemContainer chest = new SimpleItemContainer((short) config.chestSize);
+        BarterChestBlockState state = BarterChestBlockState.create(Customer.uuid(index % Math.max(1, config.customers)),
+            Customer.name(index % Math.max(1, config.customers)));
+        ShopFixtures.attach(state, chest);
+        
+        int listings = 1 + random.nextInt(config.maxListings);
+        for (int slot = 0; slot < listings; slot++) {
+            String itemId = item(random.nextInt(ITEM_TYPES));
+            String currency = ShopFixtures.CURRENCIES[random.nextInt(ShopFixtures.CURRENCIES.length)];
+            int buyPrice = random.nextInt(5) > 0 ? 1 + random.nextInt(16) : 0;
+            int sellPrice = buyPrice == 0 || random.nextInt(5) < 3 ? 1 + random.nextInt(Math.max(1, buyPrice)) : 0;
+            state.getListings().add(new BarterListing(slot, itemId, currency, buyPrice, sellPrice));
+            
+            // Stock to sell, and currency to pay customers who sell
+            for (int stacks = 1 + random.nextInt(3); stacks > 0; stacks--) {
+                ShopFixtures.add(chest, itemId, 16 + random.nextInt(ShopFixtures.MAX_STACK - 15));
+            }
+            ShopFixtures.add(chest, currency, ShopFixtures.MAX_STACK);
+        }
+        
+        int x = random.nextInt(config.worldSize) - config.worldSize / 2;
+        int z = random.nextInt(config.worldSize) - config.worldSize / 2;
+        return new SimulatedShop(state, x, 64 + random.nextInt(32), z, stats);
+    }
+    
+    @Nonnull
+    private Customer createCustomer(int index) {
+        int homeX = random.nextInt(config.worldSize) - config.worldSize / 2;
+        int homeZ = random.nextInt(config.worldSize) - config.worldSize / 2;
+        Customer customer = new Customer(index, config.inventorySize, homeX, homeZ);
+        
+        for (String currency : ShopFixtures.CURRENCIES) {
+            ShopFixtures.add(customer.inventory, currency, 2 * ShopFixtures.MAX_STACK);
+        }
+        for (int i = 0; i < 6; i++) {
+            ShopFixtures.add(customer.inventory, item(random.nextInt(ITEM_TYPES)), ShopFixtures.MAX_STACK / 2);
+        }
+        return customer;
+    }
+    
+    @Nonnull
+    private static String item(int type) {
+        return String.format("Simulation_Item_%02d", type);
+    }
+    
+    // --- Ticking ---
+    
+    private void run() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        
+        int total = config.warmupTicks + config.ticks;
+        for (int tick = 0; tick < total; tick++) {
+            if (tick == config.warmupTicks) {
+                stats.reset();
+            }
+            
+            // Decide what everyone does up front, so the tick only measures the plugin
+            for (Customer customer : customers) {
+                if (random.nextDouble() < config.actionChance) {
+                    queueAction(customer);
+                }
+            }
+            
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            world.tick();
+            long elapsed = System.nanoTime() - start;
+            long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            
+            if (tick >= config.warmupTicks) {
+                stats.recordTick(elapsed, allocated);
+            }
+        }
+    }
+    
+    private void queueAction(@Nonnull Customer customer) {
+        int roll = random.nextInt(100);
+        if (customer.page == null || roll < 15) {
+            SimulatedShop shop = shops.get(pickShop());
+            world.execute(() -> open(customer, shop));
+        } else if (roll < 55) {
+            int row = random.nextInt(SimulatedShopPage.rowsPerPage());
+            int quantity = random.nextInt(10) == 0 ? 10 : 1;
+            world.execute(() -> trade(customer, row, quantity, true));
+        } else if (roll < 80) {
+            int row = random.nextInt(SimulatedShopPage.rowsPerPage());
+            int quantity = random.nextInt(10) == 0 ? 10 : 1;
+            world.execute(() -> trade(customer, row, quantity, false));
+        } else if (roll < 90) {
+            int delta = random.nextBoolean() ? 1 : -1;
+            world.execute(() -> flip(customer, delta));
+        } else if (roll < 95) {
+            world.execute(() -> close(customer));
+        } else {
+            int x = customer.homeX + random.nextInt(128) - 64;
+            int z = customer.homeZ + random.nextInt(128) - 64;
+            world.execute(() -> checkProtection(customer, x, z));
+        }
+    }
+    
+    /**
+     * Pick a shop, favouring low indices according to the hotspot skew.
+     */
+    private int pickShop() {
+        return Math.min(shops.size() - 1, (int) (shops.size() * Math.pow(random.nextDouble(), config.hotspotSkew)));
+    }
+    
+    // --- Customer actions ---
+    
+    private void open(@Nonnull Customer customer, @Nonnull SimulatedShop shop) {
+        close(customer);
+        customer.shop = shop;
+        customer.page = new SimulatedShopPage();
+        shop.addViewer(customer);
+        
+        stats.pageOpens++;
+        stats.renders++;
+        stats.updatesSent++;
+        customer.page.render(shop.getModel());
+    }
+    
+    private void close(@Nonnull Customer customer) {
+        if (customer.shop != null) {
+            customer.shop.removeViewer(customer);
+        }
+        customer.shop = null;
+        customer.page = null;
+    }
+    
+    private void flip(@Nonnull Customer customer, int delta) {
+        if (customer.page == null || customer.shop == null) {
+            return;
+        }
+        customer.page.flip(delta);
+        render(customer);
+    }
+    
+    private void trade(@Nonnull Customer customer, int row, int quantity, boolean buying) {
+        SimulatedShop shop = customer.shop;
+        SimulatedShopPage page = customer.page;
+        if (shop == null || page == null) {
+            return;
+        }
+        
+        BarterListing listing = shop.state.getListing(page.getListingSlot(shop.getModel(), row));
+        if (listing == null) {
+            page.setMessage("Shop not configured!");
+            render(customer);
+            return;
+        }
+        
+        TransactionResult result = buying
+            ? BarterTransactionManager.buyFromShop(shop.state, listing, customer.inventory, quantity)
+            : BarterTransactionManager.sellToShop(shop.state, listing, customer.inventory, quantity);
+        stats.recordTrade(result);
+        
+        // Detached shops don't notify anyone, so do what markNeedsSave would
+        if (result.isSuccess()) {
+            shop.markChanged(world);
+        }
+        
+        page.setMessage(result.getMessage());
+        render(customer);
+    }
+    
+    private void render(@Nonnull Customer customer) {
+        ShopViewModel model = customer.shop.getModel();
+        stats.renders++;
+        if (customer.page.render(model)) {
+            stats.updatesSent++;
+        }
+    }
+    
+    private void checkProtection(@Nonnull Customer customer, int x, int z) {
+        stats.protectionChecks++;
+        if (!ProtectionManager.canCreateShop(customer.uuid, "default", x, z)) {
+            stats.protectionDenied++;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.barterchest.simulation;
+
+import com.example.barterchest.integration.ProtectionProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.UUID;
+
+/**
+ * Protection provider for the load simulation, registered through the simulation's
+ * {@code META-INF/services}. A fixed share of chunks is claimed, each by one customer,
+ * so {@link com.example.barterchest.integration.ProtectionManager} sees a realistic mix of
+ * allow, deny and abstain decisions.
+ */
+public class SimulatedProtectionProvider implements ProtectionProvider {
+    
+    /** Percentage of chunks that are claimed; set before the protection manager initializes */
+    static volatile int claimedPercent = 0;
+    
+    /** Number of customers that can own claims */
+    static volatile int claimOwners = 1;
+    
+    @Nonnull
+    @Override
+    public String getName() {
+        return "Simulation";
+    }
+    
+    @Override
+    public boolean initialize() {
+        return claimedPercent > 0;
+    }
+    
+    @Nonnull
+    @Override
+    public Granularity getGranularity() {
+        return Granularity.CHUNK;
+    }
+    
+    @Nonnull
+    @Override
+    public Decision canCreateShop(@Nonnull UUID playerUUID, @Nonnull String dimension, int blockX, int blockZ) {
+        int claim = claim(blockX, blockZ);
+        if (claim < 0) {
+            return Decision.ABSTAIN;
+        }
+        return Customer.uuid(claim).equals(playerUUID) ? Decision.ALLOW : Decision.DENY;
+    }
+    
+    @Nullable
+    @Override
+    public String getOwnerName(@Nonnull String dimension, int blockX, int blockZ) {
+        int claim = claim(blockX, blockZ);
+        return claim >= 0 ? Customer.name(claim) : null;
+    }
+    
+    /**
+     * Index of the customer owning the chunk containing a block, or -1 if unclaimed.
+     */
+    private static int claim(int blockX, int blockZ) {
+        // 32-block chunks, like ChunkUtil
+        int hash = (blockX >> 5) * 73_856_093 ^ (blockZ >> 5) * 19_349_663;
+        hash ^= hash >>> 16;
+        if (Math.floorMod(hash, 100) >= claimedPercent) {
+            return -1;
+        }
+        return Math.floorMod(hash >>> 7, claimOwners);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.barterchest.simulation;
+
+import com.example.barterchest.state.BarterChestBlockState;
+import com.example.barterchest.ui.ShopViewModel;
+import com.example.barterchest.ui.SimulatedShopPage;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * A shop in the simulation: a real {@link BarterChestBlockState} that is not attached to a
+ * chunk, plus the bookkeeping the server does around it. The cached view model and the
+ * coalesced per-tick refresh of open pages mirror {@code ShopViewModelCache} and
+ * {@code ShopViewerRegistry}.
+ */
+final class SimulatedShop {
+    
+    final BarterChestBlockState state;
+    final int x;
+    final int y;
+    final int z;
+    
+    private final SimulationStats stats;
+    private final List<Customer> viewers = new ArrayList<>();
+    private ShopViewModel model;
+    private boolean changed = false;
+    
+    SimulatedShop(@Nonnull BarterChestBlockState state, int x, int y, int z, @Nonnull SimulationStats stats) {
+        this.state = state;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.stats = stats;
+    }
+    
+    /**
+     * Get the cached view model, building it if the shop changed since the last build.
+     */
+    @Nonnull
+    ShopViewModel getModel() {
+        if (model == null) {
+            model = SimulatedShopPage.model(state);
+            stats.modelBuilds++;
+        }
+        return model;
+    }
+    
+    void addViewer(@Nonnull Customer customer) {
+        viewers.add(customer);
+    }
+    
+    void removeViewer(@Nonnull Customer customer) {
+        viewers.remove(customer);
+    }
+    
+    /**
+     * Queue a refresh of every open page on the next tick. Repeated changes within a tick
+     * share one refresh.
+     */
+    void markChanged(@Nonnull Executor world) {
+        if (!changed) {
+            changed = true;
+            world.execute(this::flush);
+        }
+    }
+    
+    private void flush() {
+        changed = false;
+        model = null;
+        for (Customer viewer : viewers) {
+            if (viewer.page != null) {
+                stats.renders++;
+                if (viewer.page.render(getModel())) {
+                    stats.updatesSent++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.barterchest.simulation;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Fake world tick. Like the server's world, it is an {@link Executor} whose queued
+ * tasks run on the next tick; tasks queued while a tick runs wait for the one after.
+ */
+final class SimulatedWorld implements Executor {
+    
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    
+    @Override
+    public void execute(@Nonnull Runnable task) {
+        tasks.add(task);
+    }
+    
+    /**
+     * Run the tasks that were queued before this tick started.
+     */
+    void tick() {
+        for (int pending = tasks.size(); pending > 0; pending--) {
+            tasks.poll().run();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.barterchest.simulation;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Load simulation parameters. Every option can be overridden on the command line
+ * as {@code --name value} or {@code --name=value}.
+ */
+final class SimulationConfig {
+    
+    /** Seed for every random choice, so runs with the same options are identical */
+    long seed = 42L;
+    
+    /** Number of shops */
+    int shops = 2_000;
+    
+    /** Number of customers */
+    int customers = 150;
+    
+    /** Measured ticks */
+    int ticks = 6_000;
+    
+    /** Ticks run before measuring, so the JIT has compiled the hot paths */
+    int warmupTicks = 2_000;
+    
+    /** Chance that a customer does something in a given tick */
+    double actionChance = 0.25;
+    
+    /** Popularity skew: 1 spreads customers evenly, higher values crowd them into a few shops */
+    double hotspotSkew = 2.0;
+    
+    /** Maximum listings per shop */
+    int maxListings = 8;
+    
+    /** Slots per shop chest */
+    int chestSize = 27;
+    
+    /** Slots per customer inventory */
+    int inventorySize = 36;
+    
+    /** Shops are spread over a square of this many blocks per side */
+    int worldSize = 4_096;
+    
+    /** Percentage of chunks claimed by a customer, for protection checks */
+    int claimedPercent = 30;
+    
+    @Nonnull
+    static SimulationConfig parse(@Nonnull String[] args) {
+        SimulationConfig config = new SimulationConfig();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            
+            String name;
+            String value;
+            int equals = arg.indexOf('=');
+            if (equals >= 0) {
+                name = arg.substring(2, equals);
+                value = arg.substring(equals + 1);
+            } else if (i + 1 < args.length) {
+                name = arg.substring(2);
+                value = args[++i];
+            } else {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            config.set(name, value);
+        }
+        return config;
+    }
+    
+    private void set(@Nonnull String name, @Nonnull String value) {
+        switch (name) {
+            case "seed" -> seed = Long.parseLong(value);
+            case "shops" -> shops = Integer.parseInt(value);
+            case "customers" -> customers = Integer.parseInt(value);
+            case "ticks" -> ticks = Integer.parseInt(value);
+            case "warmup-ticks" -> warmupTicks = Integer.parseInt(value);
+            case "action-chance" -> actionChance = Double.parseDouble(value);
+            case "hotspot-skew" -> hotspotSkew = Double.parseDouble(value);
+            case "max-listings" -> maxListings = Integer.parseInt(value);
+            case "chest-size" -> chestSize = Integer.parseInt(value);
+            case "inventory-size" -> inventorySize = Integer.parseInt(value);
+            case "world-size" -> worldSize = Integer.parseInt(value);
+            case "claimed-percent" -> claimedPercent = Integer.parseInt(value);
+            default -> throw new IllegalArgumentException("Unknown option: --" + name);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "seed=" + seed + " shops=" + shops + " customers=" + customers +
+               " ticks=" + ticks + " warmup-ticks=" + warmupTicks +
+               " action-chance=" + actionChance + " hotspot-skew=" + hotspotSkew +
+               " max-listings=" + maxListings + " chest-size=" + chestSize +
+               " inventory-size=" + inventorySize + " world-size=" + worldSize +
+               " claimed-percent=" + claimedPercent;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.barterchest.simulation;
+
+import com.example.barterchest.core.trade.TransactionResult;
+
+import javax.annotation.Nonnull;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Counters and per-tick measurements of a simulation run.
+ */
+final class SimulationStats {
+    
+    /** Trade attempts by result status */
+    final long[] trades = new long[TransactionResult.Status.values().length];
+    
+    /** Items that changed hands in successful trades */
+    long itemsTraded;
+    
+    long pageOpens;
+    long renders;
+    long updatesSent;
+    long modelBuilds;
+    long protectionChecks;
+    long protectionDenied;
+    
+    private final long[] tickNanos;
+    private final long[] tickBytes;
+    private int recorded = 0;
+    
+    SimulationStats(int ticks) {
+        this.tickNanos = new long[ticks];
+        this.tickBytes = new long[ticks];
+    }
+    
+    void recordTrade(@Nonnull TransactionResult result) {
+        trades[result.getStatus().ordinal()]++;
+        if (result.isSuccess()) {
+            itemsTraded += result.getQuantityTransacted();
+        }
+    }
+    
+    void recordTick(long nanos, long allocatedBytes) {
+        tickNanos[recorded] = nanos;
+        tickBytes[recorded] = allocatedBytes;
+        recorded++;
+    }
+    
+    /**
+     * Forget everything counted so far, e.g. at the end of the warmup.
+     */
+    void reset() {
+        Arrays.fill(trades, 0);
+        itemsTraded = 0;
+        pageOpens = 0;
+        renders = 0;
+        updatesSent = 0;
+        modelBuilds = 0;
+        protectionChecks = 0;
+        protectionDenied = 0;
+        recorded = 0;
+    }
+    
+    void print(@Nonnull PrintStream out) {
+        long[] sorted = Arrays.copyOf(tickNanos, recorded);
+        Arrays.sort(sorted);
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (int i = 0; i < recorded; i++) {
+            totalNanos += tickNanos[i];
+            totalBytes += tickBytes[i];
+        }
+        double seconds = Math.max(totalNanos, 1) / 1e9;
+        
+        long attempts = 0;
+        for (long count : trades) {
+            attempts += count;
+        }
+        long successes = trades[TransactionResult.Status.SUCCESS.ordinal()];
+        
+        out.printf("Tick cost (us):  p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f  mean %.1f%n",
+            micros(percentile(sorted, 0.50)), micros(percentile(sorted, 0.90)), micros(percentile(sorted, 0.99)),
+            micros(percentile(sorted, 0.999)), micros(recorded > 0 ? sorted[recorded - 1] : 0),
+            recorded > 0 ? micros(totalNanos) / recorded : 0);
+        out.printf("Throughput:      %d trades (%d successful, %d items) in %.1f ms of tick time = %.0f trades/s%n",
+            attempts, successes, itemsTraded, totalNanos / 1e6, attempts / seconds);
+        out.printf("Allocation:      %.1f KB/tick  %.0f B/trade  %.1f MB/s of tick time%n",
+            recorded > 0 ? totalBytes / 1024.0 / recorded : 0, attempts > 0 ? (double) totalBytes / attempts : 0,
+            totalBytes / 1024.0 / 1024.0 / seconds);
+        out.printf("UI:              %d page opens, %d renders, %d updates sent, %d view model builds%n",
+            pageOpens, renders, updatesSent, modelBuilds);
+        out.printf("Protection:      %d checks, %d denied%n", protectionChecks, protectionDenied);
+        
+        out.println("Trade results:");
+        for (TransactionResult.Status status : TransactionResult.Status.values()) {
+            long count = trades[status.ordinal()];
+            if (count > 0) {
+                out.printf("  %-20s %d%n", status, count);
+            }
+        }
+    }
+    
+    /**
+     * Nearest-rank percentile of sorted values.
+     */
+    static long percentile(@Nonnull long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, Math.min(rank, sorted.length) - 1)];
+    }
+    
+    private static double micros(long nanos) {
+        return nanos / 1_000.0;
+    }
+}
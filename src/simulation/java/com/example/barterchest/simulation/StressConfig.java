@@ -0,0 +1,101 @@
+package com.example.barterchest.simulation;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Conservation stress parameters. Every option can be overridden on the command line
+ * as {@code --name value} or {@code --name=value}; {@code --direct} takes no value.
+ */
+final class StressConfig {
+    
+    /** Seed for the shop and customer setup and each submitter's choices */
+    long seed = 42L;
+    
+    /** Worlds, each with its own thread */
+    int worlds = 4;
+    
+    /** Shops per world; few shops means many customers contend for each */
+    int shopsPerWorld = 4;
+    
+    /** Customers per world */
+    int customersPerWorld = 32;
+    
+    /** Threads submitting trades, standing in for player connections */
+    int submitters = 8;
+    
+    /** Trades each submitter requests */
+    int trades = 50_000;
+    
+    /** Pause every world and check the totals this often; 0 checks only at the end */
+    int checkpointMillis = 250;
+    
+    /** Listings per shop */
+    int listings = 4;
+    
+    /** Slots per shop chest */
+    int chestSize = 27;
+    
+    /** Slots per customer inventory */
+    int inventorySize = 36;
+    
+    /**
+     * Call the transaction manager on the submitting threads instead of the owning world's.
+     * The plugin never does this; it shows what the checks catch when trades aren't confined.
+     */
+    boolean direct = false;
+    
+    @Nonnull
+    static StressConfig parse(@Nonnull String[] args) {
+        StressConfig config = new StressConfig();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            if (arg.equals("--direct")) {
+                config.direct = true;
+                continue;
+            }
+            
+            String name;
+            String value;
+            int equals = arg.indexOf('=');
+            if (equals >= 0) {
+                name = arg.substring(2, equals);
+                value = arg.substring(equals + 1);
+            } else if (i + 1 < args.length) {
+                name = arg.substring(2);
+                value = args[++i];
+            } else {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            config.set(name, value);
+        }
+        return config;
+    }
+    
+    private void set(@Nonnull String name, @Nonnull String value) {
+        switch (name) {
+            case "seed" -> seed = Long.parseLong(value);
+            case "worlds" -> worlds = Integer.parseInt(value);
+            case "shops-per-world" -> shopsPerWorld = Integer.parseInt(value);
+            case "customers-per-world" -> customersPerWorld = Integer.parseInt(value);
+            case "submitters" -> submitters = Integer.parseInt(value);
+            case "trades" -> trades = Integer.parseInt(value);
+            case "checkpoint-millis" -> checkpointMillis = Integer.parseInt(value);
+            case "listings" -> listings = Integer.parseInt(value);
+            case "chest-size" -> chestSize = Integer.parseInt(value);
+            case "inventory-size" -> inventorySize = Integer.parseInt(value);
+            default -> throw new IllegalArgumentException("Unknown option: --" + name);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "seed=" + seed + " worlds=" + worlds + " shops-per-world=" + shopsPerWorld +
+               " customers-per-world=" + customersPerWorld + " submitters=" + submitters +
+               " trades=" + trades + " checkpoint-millis=" + checkpointMillis +
+               " listings=" + listings + " chest-size=" + chestSize +
+               " inventory-size=" + inventorySize + (direct ? " direct" : "");
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.barterchest.simulation;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * A world with its own thread. Like the server's world, everything touching its shops and
+ * players is queued onto that thread; {@link #execute} blocks while the queue is full.
+ */
+final class StressWorld implements Executor {
+    
+    private static final int QUEUE_CAPACITY = 1_024;
+    
+    private final BlockingQueue<Runnable> tasks = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread thread;
+    private final Consumer<Throwable> errors;
+    private volatile boolean stopped = false;
+    
+    StressWorld(int index, @Nonnull Consumer<Throwable> errors) {
+        this.thread = new Thread(this::loop, "Stress-World-" + index);
+        this.thread.setDaemon(true);
+        this.errors = errors;
+    }
+    
+    void start() {
+        thread.start();
+    }
+    
+    @Override
+    public void execute(@Nonnull Runnable task) {
+        try {
+            tasks.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(e);
+        }
+    }
+    
+    boolean isWorldThread() {
+        return Thread.currentThread() == thread;
+    }
+    
+    /**
+     * Run what is already queued, then stop the thread.
+     */
+    void stop() throws InterruptedException {
+        execute(() -> stopped = true);
+        thread.join();
+    }
+    
+    private void loop() {
+        while (!stopped) {
+            try {
+                tasks.take().run();
+            } catch (InterruptedException e) {
+                return;
+            } catch (Throwable t) {
+                errors.accept(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.barterchest.simulation;
+
+import com.example.barterchest.core.trade.TransactionResult;
+import com.example.barterchest.diagnostics.TradeTrace;
+import com.example.barterchest.state.BarterChestBlockState;
+import com.example.barterchest.state.BarterListing;
+import com.example.barterchest.testing.ShopFixtures;
+import com.example.barterchest.transaction.BarterTransactionManager;
+import com.example.barterchest.transaction.HytaleSlotContainer;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Replays a trade trace recorded with {@code /barterchest record} through
+ * {@link BarterTransactionManager}, headlessly.
+ * 
+ * Shops and customer inventories are rebuilt in memory from the trace's snapshots, so every
+ * trade starts from the state it had on the server. Each replayed trade is timed and its
+ * result compared with the recorded one; a different status or quantity is a divergence.
+ * The trace is replayed a few times to warm up the JIT before the measured passes.
+ * 
+ * Run with {@code ./gradlew replay --args="<trace file> [--warmup 2] [--repeat 3]"};
+ * exits with status 1 if any trade diverged.
+ */
+public final class TradeReplay implements TradeTrace.Visitor {
+    
+    /** Divergences printed in full; the rest are only counted */
+    private static final int MAX_REPORTED = 20;
+    
+    private final boolean measured;
+    private final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    
+    private final Map<Integer, BarterChestBlockState> shops = new HashMap<>();
+    private final Map<Integer, ItemContainer> customers = new HashMap<>();
+    
+    private long startedAtMillis;
+    private int trades = 0;
+    private long[] recordedNanos = new long[1_024];
+    private long[] replayedNanos = new long[1_024];
+    private long allocatedBytes = 0;
+    private long divergences = 0;
+    private final List<String> reported = new ArrayList<>();
+    
+    private TradeReplay(boolean measured) {
+        this.measured = measured;
+    }
+    
+    public static void main(String[] args) throws IOException {
+        Path file = null;
+        int warmup = 2;
+        int repeat = 3;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                case "--repeat" -> repeat = Integer.parseInt(args[++i]);
+                default -> {
+                    if (args[i].startsWith("--") || file != null) {
+                        throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+                    }
+                    file = Path.of(args[i]);
+                }
+            }
+        }
+        if (file == null) {
+            System.err.println("Usage: TradeReplay <trace file> [--warmup passes] [--repeat passes]");
+            System.exit(2);
+        }
+        
+        System.out.println("BarterChest trade replay: " + file + " (" + Files.size(file) / 1024 + " KB)");
+        for (int pass = 0; pass < warmup; pass++) {
+            TradeTrace.read(file, new TradeReplay(false));
+        }
+        
+        List<TradeReplay> passes = new ArrayList<>();
+        for (int pass = 0; pass < Math.max(1, repeat); pass++) {
+            TradeReplay replay = new TradeReplay(true);
+            TradeTrace.read(file, replay);
+            passes.add(replay);
+        }
+        
+        if (!report(passes)) {
+            System.exit(1);
+        }
+    }
+    
+    // --- Applying the trace ---
+    
+    @Override
+    public void start(long startedAtMillis) {
+        this.startedAtMillis = startedAtMillis;
+    }
+    
+    @Override
+    public void shop(int shop, @Nullable String world, boolean positioned, int x, int y, int z) {
+        shops.put(shop, BarterChestBlockState.create(new UUID(0L, shop), "Shop " + shop));
+    }
+    
+    @Override
+    public void listings(int shop, @Nonnull List<BarterListing> listings) {
+        BarterChestBlockState state = shops.get(shop);
+        if (state != null) {
+            state.getListings().clear();
+            state.getListings().addAll(listings);
+        }
+    }
+    
+    @Override
+    public void shopChest(int shop, @Nonnull ItemStack[] stacks) {
+        BarterChestBlockState state = shops.get(shop);
+        if (state == null) {
+            return;
+        }
+        ItemContainer chest = state.getItemContainer();
+        if (chest == null || chest.getCapacity() != stacks.length) {
+            chest = new SimpleItemContainer((short) stacks.length);
+            ShopFixtures.attach(state, chest);
+        }
+        fill(chest, stacks);
+    }
+    
+    @Override
+    public void customerInventory(int customer, @Nonnull ItemStack[] stacks) {
+        ItemContainer inventory = customers.get(customer);
+        if (inventory == null || inventory.getCapacity() != stacks.length) {
+            inventory = new SimpleItemContainer((short) stacks.length);
+            customers.put(customer, inventory);
+        }
+        fill(inventory, stacks);
+    }
+    
+    private static void fill(@Nonnull ItemContainer container, @Nonnull ItemStack[] stacks) {
+        HytaleSlotContainer slots = HytaleSlotContainer.of(container);
+        for (int i = 0; i < stacks.length; i++) {
+            slots.setStack(i, stacks[i]);
+        }
+    }
+    
+    @Override
+    public void trade(@Nonnull TradeTrace.Trade trade) {
+        BarterChestBlockState shop = shops.get(trade.shop());
+        ItemContainer customer = customers.get(trade.customer());
+        BarterListing listing = shop != null ? shop.getListing(trade.listingSlot()) : null;
+        if (shop == null || customer == null || listing == null) {
+            diverged(trade, "shop, customer or listing missing from the trace");
+            return;
+        }
+        
+        long allocatedBefore = measured ? threads.getCurrentThreadAllocatedBytes() : 0;
+        long start = System.nanoTime();
+        TransactionResult result = trade.buying()
+            ? BarterTransactionManager.buyFromShop(shop, listing, customer, trade.quantity())
+            : BarterTransactionManager.sellToShop(shop, listing, customer, trade.quantity());
+        long elapsed = System.nanoTime() - start;
+        
+        if (measured) {
+            allocatedBytes += threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            if (trades == replayedNanos.length) {
+                recordedNanos = Arrays.copyOf(recordedNanos, trades * 2);
+                replayedNanos = Arrays.copyOf(replayedNanos, trades * 2);
+            }
+            recordedNanos[trades] = trade.nanos();
+            replayedNanos[trades] = elapsed;
+        }
+        trades++;
+        
+        if (!result.getStatus().name().equals(trade.status()) || result.getQuantityTransacted() != trade.quantityTransacted()) {
+            diverged(trade, result.getStatus() + " x" + result.getQuantityTransacted());
+        }
+    }
+    
+    private void diverged(@Nonnull TradeTrace.Trade trade, @Nonnull String replayed) {
+        divergences++;
+        if (reported.size() < MAX_REPORTED) {
+            reported.add(String.format("%.3f s: %s %dx of listing %d at shop %d by customer %d: recorded %s x%d, replayed %s",
+                trade.micros() / 1e6, trade.buying() ? "buy" : "sell", trade.quantity(), trade.listingSlot(),
+                trade.shop(), trade.customer(), trade.status(), trade.quantityTransacted(), replayed));
+        }
+    }
+    
+    // --- Reporting ---
+    
+    /**
+     * Print recorded and replayed trade latencies and any divergences.
+     * 
+     * @return true if no trade diverged
+     */
+    private static boolean report(@Nonnull List<TradeReplay> passes) {
+        TradeReplay first = passes.get(0);
+        System.out.printf("Recorded %s: %d trades, %d shops, %d customers%n",
+            Instant.ofEpochMilli(first.startedAtMillis), first.trades, first.shops.size(), first.customers.size());
+        System.out.printf("Measured passes: %d%n", passes.size());
+        
+        long[] recorded = Arrays.copyOf(first.recordedNanos, first.trades);
+        int total = 0;
+        long totalAllocated = 0;
+        for (TradeReplay pass : passes) {
+            total += pass.trades;
+            totalAllocated += pass.allocatedBytes;
+        }
+        long[] replayed = new long[total];
+        int offset = 0;
+        for (TradeReplay pass : passes) {
+            System.arraycopy(pass.replayedNanos, 0, replayed, offset, pass.trades);
+            offset += pass.trades;
+        }
+        Arrays.sort(recorded);
+        Arrays.sort(replayed);
+        
+        System.out.printf("%-18s %10s %10s %10s %10s %10s %10s%n", "Trade us", "p50", "p90", "p99", "p99.9", "max", "mean");
+        printLatencies("recorded (server)", recorded);
+        printLatencies("replayed", replayed);
+        System.out.printf("Allocation: %.0f B/trade%n", total > 0 ? (double) totalAllocated / total : 0);
+        
+        if (first.divergences == 0) {
+            System.out.println("Every trade matched its recorded result.");
+            return true;
+        }
+        System.out.println(first.divergences + " trades diverged from the recording:");
+        for (String line : first.reported) {
+            System.out.println("  " + line);
+        }
+        if (first.divergences > first.reported.size()) {
+            System.out.println("  ... and " + (first.divergences - first.reported.size()) + " more");
+        }
+        return false;
+    }
+    
+    private static void printLatencies(@Nonnull String label, @Nonnull long[] sorted) {
+        long sum = 0;
+        for (long nanos : sorted) {
+            sum += nanos;
+        }
+        System.out.printf("%-18s %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n", label,
+            SimulationStats.percentile(sorted, 0.50) / 1e3, SimulationStats.percentile(sorted, 0.90) / 1e3,
+            SimulationStats.percentile(sorted, 0.99) / 1e3, SimulationStats.percentile(sorted, 0.999) / 1e3,
+            sorted.length > 0 ? sorted[sorted.length - 1] / 1e3 : 0, sorted.length > 0 ? sum / 1e3 / sorted.length : 0);
+    }
+}
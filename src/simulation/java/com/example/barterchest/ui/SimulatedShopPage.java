@@ -0,0 +1,75 @@
+package com.example.barterchest.ui;
+
+import com.example.barterchest.state.BarterChestBlockState;
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Headless stand-in for an open {@link BarterUIPage}.
+ * 
+ * Renders through the same {@link BarterUIPage#render} and {@link PageViewState} diffing
+ * as the real page and writes into real command and event builders, but there is no
+ * player to send them to.
+ */
+public final class SimulatedShopPage {
+    
+    private final PageViewState view = new PageViewState();
+    private int page = 0;
+    private String message = "";
+    private boolean built = false;
+    
+    /**
+     * Build the view model the shop page would show. Stands in for {@link ShopViewModelCache}.
+     */
+    @Nonnull
+    public static ShopViewModel model(@Nonnull BarterChestBlockState shop) {
+        return ShopViewModel.of(shop);
+    }
+    
+    /**
+     * Render the page like {@link BarterUIPage} does on open and on every update.
+     * 
+     * @return true if anything would have been sent to the client
+     */
+    public boolean render(@Nonnull ShopViewModel model) {
+        UICommandBuilder commandBuilder = new UICommandBuilder();
+        UIEventBuilder eventBuilder = new UIEventBuilder();
+        
+        page = BarterUIPage.render(view, model, page, message);
+        if (!built || view.needsRebuild()) {
+            built = true;
+            view.writeAll(commandBuilder, eventBuilder);
+            return true;
+        }
+        return view.writeChanges(commandBuilder, eventBuilder);
+    }
+    
+    /**
+     * Move by a number of pages; the next render clamps to the model's page count.
+     */
+    public void flip(int delta) {
+        page += delta;
+    }
+    
+    public void setMessage(@Nonnull String message) {
+        this.message = message;
+    }
+    
+    /**
+     * Resolve a clicked row to the listing slot it shows, like the page's trade handler.
+     * 
+     * @return The listing slot, or -1 if the row is empty
+     */
+    public int getListingSlot(@Nonnull ShopViewModel model, int row) {
+        return BarterUIPage.slotForRow(model, page, row);
+    }
+    
+    /**
+     * Number of listing rows on one page.
+     */
+    public static int rowsPerPage() {
+        return BarterUIPage.ROWS_PER_PAGE;
+    }
+}
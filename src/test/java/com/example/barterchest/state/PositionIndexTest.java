@@ -0,0 +1,132 @@
+package com.example.barterchest.state;
+
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PositionIndexTest {
+    
+    private static final String WORLD = "default";
+    private static final String CHEST = "Furniture_Chest";
+    private static final String STONE = "Rock_Stone";
+    
+    private final PositionIndex<String, String> index = new PositionIndex<>();
+    private final FakeBlocks blocks = new FakeBlocks();
+    
+    @Test
+    void shopLoadedWithoutRegisteringIsFoundAndIndexed() {
+        // Loaded from disk with its chunk: the state exists but initialize() never indexed it
+        Shop shop = new Shop();
+        blocks.put(5, 70, 5, CHEST, shop);
+        assertFalse(index.contains(WORLD, 5, 70, 5));
+        
+        assertSame(shop, index.findShop(WORLD, 5, 70, 5, blocks, Shop.class));
+        assertTrue(index.contains(WORLD, 5, 70, 5));
+    }
+    
+    @Test
+    void unindexedShopOnAKnownContainerTypeIsStillFound() {
+        blocks.put(1, 64, 1, CHEST, new Container());
+        assertNull(index.findShop(WORLD, 1, 64, 1, blocks, Shop.class));
+        
+        // Same block type, now holding a shop the index doesn't know about
+        Shop shop = new Shop();
+        blocks.put(2, 64, 1, CHEST, shop);
+        assertSame(shop, index.findShop(WORLD, 2, 64, 1, blocks, Shop.class));
+    }
+    
+    @Test
+    void nonContainerTypesAreRejectedWithoutFetchingState() {
+        blocks.put(0, 60, 0, STONE, null);
+        blocks.put(1, 60, 0, STONE, null);
+        
+        assertNull(index.findShop(WORLD, 0, 60, 0, blocks, Shop.class));
+        assertEquals(1, blocks.stateLookups);
+        
+        assertNull(index.findShop(WORLD, 1, 60, 0, blocks, Shop.class));
+        assertEquals(1, blocks.stateLookups);
+        
+        // Air (no block type) is never a shop
+        assertNull(index.findShop(WORLD, 9, 9, 9, blocks, Shop.class));
+        assertEquals(1, blocks.stateLookups);
+    }
+    
+    @Test
+    void staleIndexedPositionIsDropped() {
+        index.add(WORLD, 3, 3, 3);
+        blocks.put(3, 3, 3, CHEST, new Container());
+        
+        assertNull(index.findShop(WORLD, 3, 3, 3, blocks, Shop.class));
+        assertFalse(index.contains(WORLD, 3, 3, 3));
+    }
+    
+    @Test
+    void removedShopsAndWorldsAreForgotten() {
+        index.add(WORLD, 1, 1, 1);
+        index.add(WORLD, 2, 2, 2);
+        index.remove(WORLD, 1, 1, 1);
+        
+        assertFalse(index.contains(WORLD, 1, 1, 1));
+        assertTrue(index.contains(WORLD, 2, 2, 2));
+        assertFalse(index.contains("other", 2, 2, 2));
+        
+        index.removeWorld(WORLD);
+        assertFalse(index.contains(WORLD, 2, 2, 2));
+    }
+    
+    @Test
+    void packKeepsNegativeCoordinates() {
+        long packed = PositionIndex.pack(-1_000, 300, 2_000_000);
+        
+        assertEquals(-1_000, PositionIndex.unpackX(packed));
+        assertEquals(300, PositionIndex.unpackY(packed));
+        assertEquals(2_000_000, PositionIndex.unpackZ(packed));
+    }
+    
+    private static class Container {
+    }
+    
+    private static final class Shop extends Container {
+    }
+    
+    /**
+     * One world of blocks, counting how often block state is fetched.
+     */
+    private static final class FakeBlocks implements PositionIndex.Blocks<String, String> {
+        private final Map<Long, String> types = new HashMap<>();
+        private final Map<Long, Object> states = new HashMap<>();
+        int stateLookups;
+        
+        void put(int x, int y, int z, @Nonnull String type, @Nullable Object state) {
+            types.put(PositionIndex.pack(x, y, z), type);
+            states.put(PositionIndex.pack(x, y, z), state);
+        }
+        
+        @Nullable
+        @Override
+        public String getBlockType(@Nonnull String world, int x, int y, int z) {
+            return types.get(PositionIndex.pack(x, y, z));
+        }
+        
+        @Nullable
+        @Override
+        public Object getState(@Nonnull String world, int x, int y, int z) {
+            stateLookups++;
+            return states.get(PositionIndex.pack(x, y, z));
+        }
+        
+        @Override
+        public boolean isContainer(@Nullable Object state) {
+            return state instanceof Container;
+        }
+    }
+}
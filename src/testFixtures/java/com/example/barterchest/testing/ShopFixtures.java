@@ -0,0 +1,64 @@
+package com.example.barterchest.testing;
+
+import com.example.barterchest.state.BarterChestBlockState;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.inventory.container.SimpleItemContainer;
+import com.hypixel.hytale.server.core.universe.world.meta.state.ItemContainerState;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.Field;
+
+/**
+ * Shop and inventory setup shared by the benchmarks and the headless harnesses.
+ * 
+ * {@link SimpleItemContainer} keeps its slots in memory and needs no world, so it stands
+ * in for chests and player inventories. Shops backed by one are never attached to a chunk,
+ * so markDirty is a no-op and nothing is saved or broadcast.
+ */
+public final class ShopFixtures {
+    
+    /** Currencies the harnesses trade with */
+    public static final String[] CURRENCIES = {
+        "Ingredient_Bar_Copper", "Ingredient_Bar_Iron", "Ingredient_Bar_Silver", "Ingredient_Bar_Gold"
+    };
+    
+    /** Same default the transaction manager uses when no item asset is loaded */
+    public static final int MAX_STACK = 64;
+    
+    private ShopFixtures() {
+    }
+    
+    @Nonnull
+    public static ItemContainer container(int capacity) {
+        return new SimpleItemContainer((short) capacity);
+    }
+    
+    /**
+     * Back a detached shop with a container, through the same field the block state codec sets.
+     */
+    public static void attach(@Nonnull BarterChestBlockState shop, @Nonnull ItemContainer container) {
+        try {
+            Field field = ItemContainerState.class.getDeclaredField("itemContainer");
+            field.setAccessible(true);
+            field.set(shop, container);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot attach shop inventory", e);
+        }
+    }
+    
+    /**
+     * Put items into the first empty slots of a container, dropping what doesn't fit.
+     */
+    public static void add(@Nonnull ItemContainer container, @Nonnull String itemId, int quantity) {
+        short capacity = container.getCapacity();
+        for (short i = 0; i < capacity && quantity > 0; i++) {
+            ItemStack existing = container.getItemStack(i);
+            if (existing == null || ItemStack.isEmpty(existing)) {
+                int amount = Math.min(quantity, MAX_STACK);
+                container.setItemStackForSlot(i, new ItemStack(itemId, amount));
+                quantity -= amount;
+            }
+        }
+    }
+}